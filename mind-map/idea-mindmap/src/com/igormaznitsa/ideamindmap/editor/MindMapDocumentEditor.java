@@ -35,6 +35,8 @@ import com.igormaznitsa.mindmap.swing.panel.MMDTopicsTransferable;
 import com.igormaznitsa.mindmap.swing.panel.MindMapListener;
 import com.igormaznitsa.mindmap.swing.panel.MindMapPanel;
 import com.igormaznitsa.mindmap.swing.panel.ui.AbstractElement;
+import com.igormaznitsa.mindmap.swing.panel.utils.CryptoUtils;
+import com.igormaznitsa.mindmap.swing.panel.utils.EncryptedNoteTopicFinder;
 import com.igormaznitsa.mindmap.swing.panel.utils.KeyEventType;
 import com.igormaznitsa.mindmap.swing.panel.utils.MindMapUtils;
 import com.igormaznitsa.mindmap.swing.panel.utils.Pair;
@@ -172,6 +174,8 @@ public class MindMapDocumentEditor implements AdjustmentListener, DocumentsEdito
     this.mainPanel = new JBPanel(new BorderLayout());
     this.mainPanel.add(this.mainScrollPane, BorderLayout.CENTER);
     this.mainPanel.add(this.findTextPanel, BorderLayout.NORTH);
+
+    CryptoUtils.acquireSessionKeys();
   }
 
   @Nullable
@@ -366,6 +370,7 @@ public class MindMapDocumentEditor implements AdjustmentListener, DocumentsEdito
   public void dispose() {
     try {
       this.mindMapPanel.dispose();
+      CryptoUtils.releaseSessionKeys();
     } finally {
       this.getDocument().removeDocumentListener(this.documentListener);
       DataManager.removeDataProvider(this.mainScrollPane);
@@ -404,12 +409,13 @@ public class MindMapDocumentEditor implements AdjustmentListener, DocumentsEdito
       extras.add(ExtraType.LINK);
     }
     final boolean inTopicText = provider.toSearchIn(FindTextScopeProvider.SearchTextScope.IN_TOPIC_TEXT);
+    final Set<TopicFinder> finders = EncryptedNoteTopicFinder.addIfAllowed(TOPIC_FINDERS, this.mindMapPanel.getConfiguration());
 
     Topic found = this.mindMapPanel.getModel()
-            .findNext(projectBaseFolder, startTopic, pattern, inTopicText, extras, TOPIC_FINDERS);
+            .findNext(projectBaseFolder, startTopic, pattern, inTopicText, extras, finders);
     if (found == null && startTopic != null) {
       found = this.mindMapPanel.getModel()
-              .findNext(projectBaseFolder, null, pattern, inTopicText, extras, TOPIC_FINDERS);
+              .findNext(projectBaseFolder, null, pattern, inTopicText, extras, finders);
     }
 
     if (found != null) {
@@ -441,12 +447,13 @@ public class MindMapDocumentEditor implements AdjustmentListener, DocumentsEdito
       extras.add(ExtraType.LINK);
     }
     final boolean inTopicText = provider.toSearchIn(FindTextScopeProvider.SearchTextScope.IN_TOPIC_TEXT);
+    final Set<TopicFinder> finders = EncryptedNoteTopicFinder.addIfAllowed(TOPIC_FINDERS, this.mindMapPanel.getConfiguration());
 
     Topic found = this.mindMapPanel.getModel()
-            .findPrev(projectBaseFolder, startTopic, pattern, inTopicText, extras, TOPIC_FINDERS);
+            .findPrev(projectBaseFolder, startTopic, pattern, inTopicText, extras, finders);
     if (found == null && startTopic != null) {
       found = this.mindMapPanel.getModel()
-              .findPrev(projectBaseFolder, null, pattern, inTopicText, extras, TOPIC_FINDERS);
+              .findPrev(projectBaseFolder, null, pattern, inTopicText, extras, finders);
     }
 
     if (found != null) {
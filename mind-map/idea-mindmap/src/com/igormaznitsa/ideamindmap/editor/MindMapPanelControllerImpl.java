@@ -449,6 +449,7 @@ public class MindMapPanelControllerImpl implements MindMapPanelController, MindM
             final String pass = new String(passwordPanel.getPassword()).trim();
             try {
               if (CryptoUtils.decrypt(pass, note.getValue(), decrypted)) {
+                CryptoUtils.rememberSessionKey(pass);
                 noteText = new NoteEditorData(decrypted.toString(), pass, note.getHint());
               } else {
                 this.dialogProvider.msgError(this.getPanel(), "Wrong password!");
@@ -487,6 +488,7 @@ public class MindMapPanelControllerImpl implements MindMapPanelController, MindM
           if (result.isEncrypted()) {
             try {
               newNoteText = CryptoUtils.encrypt(result.getPassword(), result.getText());
+              CryptoUtils.rememberSessionKey(result.getPassword());
             } catch (RuntimeException ex) {
               this.dialogProvider
                   .msgError(this.getPanel(), "Can't encrypt text for error!\nExamine log and check JDK security policy for AES-256 support!");
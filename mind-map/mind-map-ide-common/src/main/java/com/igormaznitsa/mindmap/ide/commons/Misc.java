@@ -16,7 +16,9 @@
 
 package com.igormaznitsa.mindmap.ide.commons;
 
+import java.util.LinkedHashMap;
 import java.util.Locale;
+import java.util.Map;
 import java.util.regex.Pattern;
 import javax.annotation.Nonnull;
 
@@ -40,11 +42,20 @@ public final class Misc {
    */
   public static final String SESSIONKEY_ADD_FILE_OPEN_IN_SYSTEM = "file.add.open_in_system";
 
+  private static final int MAX_CACHED_PATTERNS = 32;
+  private static final Map<String, Pattern> PATTERN_CACHE = new LinkedHashMap<String, Pattern>(MAX_CACHED_PATTERNS, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(@Nonnull final Map.Entry<String, Pattern> eldest) {
+      return this.size() > MAX_CACHED_PATTERNS;
+    }
+  };
+
   private Misc() {
   }
 
   /**
-   * Create pattern from string.
+   * Create pattern from string. Last made patterns are cached, so that repeated search of the same text
+   * doesn't compile pattern again.
    *
    * @param text         text to be converted into pattern.
    * @param patternFlags flags to be used
@@ -52,6 +63,22 @@ public final class Misc {
    */
   @Nonnull
   public static Pattern string2pattern(@Nonnull final String text, final int patternFlags) {
+    final String key = Integer.toHexString(patternFlags) + ':' + text;
+    Pattern result;
+    synchronized (PATTERN_CACHE) {
+      result = PATTERN_CACHE.get(key);
+    }
+    if (result == null) {
+      result = compilePattern(text, patternFlags);
+      synchronized (PATTERN_CACHE) {
+        PATTERN_CACHE.put(key, result);
+      }
+    }
+    return result;
+  }
+
+  @Nonnull
+  private static Pattern compilePattern(@Nonnull final String text, final int patternFlags) {
     final StringBuilder result = new StringBuilder();
 
     for (final char c : text.toCharArray()) {
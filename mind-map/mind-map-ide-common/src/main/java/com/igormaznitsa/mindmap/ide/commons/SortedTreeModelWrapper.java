@@ -25,12 +25,16 @@ import com.igormaznitsa.mindmap.model.MindMap;
 import com.igormaznitsa.mindmap.model.MindMapModelEvent;
 import com.igormaznitsa.mindmap.model.MindMapModelEventListener;
 import com.igormaznitsa.mindmap.model.Topic;
+import com.igormaznitsa.mindmap.model.TopicChange;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 import javax.annotation.Nonnull;
 import javax.swing.event.TreeModelEvent;
@@ -76,7 +80,6 @@ public final class SortedTreeModelWrapper implements TreeModel, MindMapModelEven
   @Override
   public void valueForPathChanged(@Nonnull final TreePath path, @Nonnull final Object newValue) {
     this.model.valueForPathChanged((Topic[]) path.getPath(), (String) newValue);
-    this.sortedCache.clear();
   }
 
   @Override
@@ -116,23 +119,175 @@ public final class SortedTreeModelWrapper implements TreeModel, MindMapModelEven
     return result;
   }
 
-  @Override
-  public void onMindMapStructureChanged(@Nonnull final MindMapModelEvent event) {
-    clear();
-    final TreeModelEvent treeEvent = new TreeModelEvent(this, event.getPath());
+  private boolean isAttached(@Nonnull final Topic topic) {
+    Topic current = topic;
+    while (current.getParent() != null) {
+      current = current.getParent();
+    }
+    return current == this.model.getRoot();
+  }
+
+  private void dropCache(@Nonnull final Topic topic) {
+    this.sortedCache.remove(topic);
+    for (final Topic c : topic.getChildren()) {
+      dropCache(c);
+    }
+  }
+
+  private void fireStructureChanged(@Nonnull @MustNotContainNull final Object[] path) {
+    final TreeModelEvent treeEvent = new TreeModelEvent(this, path);
     for (final TreeModelListener l : this.treeListeners) {
       l.treeStructureChanged(treeEvent);
     }
   }
 
-  @Override
-  public void onMindMapNodesChanged(@Nonnull final MindMapModelEvent event) {
-    final TreeModelEvent treeEvent = new TreeModelEvent(this, event.getPath());
+  /**
+   * Refresh sorted children of parent and notify about inserted and removed children, if order of kept
+   * children is changed then structure change of the parent is notified.
+   */
+  private void updateChildren(@Nonnull final Topic parent) {
+    final List<Object> old = this.sortedCache.remove(parent);
+    if (old == null) {
+      fireStructureChanged(parent.getPath());
+      return;
+    }
+    final List<Object> now = getChildrenFromCache(parent);
+    final Set<Object> oldSet = new HashSet<>(old);
+    final Set<Object> nowSet = new HashSet<>(now);
+
+    final List<Object> keptOld = new ArrayList<>();
+    final List<Integer> removedIndexes = new ArrayList<>();
+    for (int i = 0; i < old.size(); i++) {
+      if (nowSet.contains(old.get(i))) {
+        keptOld.add(old.get(i));
+      } else {
+        removedIndexes.add(i);
+      }
+    }
+    final List<Object> keptNow = new ArrayList<>();
+    final List<Integer> insertedIndexes = new ArrayList<>();
+    for (int i = 0; i < now.size(); i++) {
+      if (oldSet.contains(now.get(i))) {
+        keptNow.add(now.get(i));
+      } else {
+        insertedIndexes.add(i);
+      }
+    }
+
+    final Object[] path = parent.getPath();
+    if (!keptOld.equals(keptNow)) {
+      fireStructureChanged(path);
+      return;
+    }
+    if (!removedIndexes.isEmpty()) {
+      final TreeModelEvent treeEvent = makeEvent(path, removedIndexes, old);
+      for (final TreeModelListener l : this.treeListeners) {
+        l.treeNodesRemoved(treeEvent);
+      }
+    }
+    if (!insertedIndexes.isEmpty()) {
+      final TreeModelEvent treeEvent = makeEvent(path, insertedIndexes, now);
+      for (final TreeModelListener l : this.treeListeners) {
+        l.treeNodesInserted(treeEvent);
+      }
+    }
+  }
+
+  @Nonnull
+  private TreeModelEvent makeEvent(@Nonnull @MustNotContainNull final Object[] path,
+                                   @Nonnull @MustNotContainNull final List<Integer> indexes,
+                                   @Nonnull @MustNotContainNull final List<Object> children) {
+    final int[] indices = new int[indexes.size()];
+    final Object[] objects = new Object[indexes.size()];
+    for (int i = 0; i < indices.length; i++) {
+      indices[i] = indexes.get(i);
+      objects[i] = children.get(indices[i]);
+    }
+    return new TreeModelEvent(this, path, indices, objects);
+  }
+
+  private void fireNodeChanged(@Nonnull final Topic topic) {
+    final Topic parent = topic.getParent();
+    final TreeModelEvent treeEvent;
+    if (parent == null) {
+      treeEvent = new TreeModelEvent(this, new Object[] {topic});
+    } else {
+      final int index = getChildrenFromCache(parent).indexOf(topic);
+      if (index < 0) {
+        return;
+      }
+      treeEvent = new TreeModelEvent(this, parent.getPath(), new int[] {index}, new Object[] {topic});
+    }
     for (final TreeModelListener l : this.treeListeners) {
       l.treeNodesChanged(treeEvent);
     }
   }
 
+  private void processChanges(@Nonnull @MustNotContainNull final List<TopicChange> changes) {
+    final Set<Topic> parents = new LinkedHashSet<>();
+    final Set<Topic> changedTopics = new LinkedHashSet<>();
+    for (final TopicChange c : changes) {
+      switch (c.getType()) {
+        case INSERTED:
+          parents.add(c.getParent());
+          break;
+        case REMOVED:
+          parents.add(c.getOldParent());
+          dropCache(c.getTopic());
+          break;
+        case MOVED:
+          parents.add(c.getOldParent());
+          parents.add(c.getParent());
+          break;
+        case TEXT:
+          if (c.getTopic().getParent() != null) {
+            parents.add(c.getTopic().getParent());
+          }
+          changedTopics.add(c.getTopic());
+          break;
+        default:
+          changedTopics.add(c.getTopic());
+          break;
+      }
+    }
+    for (final Topic p : parents) {
+      if (p != null) {
+        if (isAttached(p)) {
+          updateChildren(p);
+        } else {
+          dropCache(p);
+        }
+      }
+    }
+    for (final Topic t : changedTopics) {
+      if (isAttached(t)) {
+        fireNodeChanged(t);
+      }
+    }
+  }
+
+  @Override
+  public void onMindMapStructureChanged(@Nonnull final MindMapModelEvent event) {
+    if (event.isFullChange()) {
+      clear();
+      fireStructureChanged(event.getPath());
+    } else {
+      processChanges(event.getChanges());
+    }
+  }
+
+  @Override
+  public void onMindMapNodesChanged(@Nonnull final MindMapModelEvent event) {
+    if (event.isFullChange()) {
+      final TreeModelEvent treeEvent = new TreeModelEvent(this, event.getPath());
+      for (final TreeModelListener l : this.treeListeners) {
+        l.treeNodesChanged(treeEvent);
+      }
+    } else {
+      processChanges(event.getChanges());
+    }
+  }
+
   public void dispose() {
     clear();
     this.model.removeMindMapModelEventListener(this);
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2015-2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.mindmap.model;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Map of strings kept in two arrays sorted by {@link ModelUtils#STRING_COMPARATOR}, it has the same order
+ * of iteration as tree map with the comparator but it occupies much less memory for a few entries.
+ * Keys and short values are taken from {@link ValuePool} because the same attributes are used by many topics.
+ * Operations have linear complexity so that the map is suitable only for small number of entries.
+ *
+ * @since 1.5.2
+ */
+final class CompactStringMap extends AbstractMap<String, String> implements Serializable {
+
+  private static final long serialVersionUID = 2894378120973490312L;
+  private static final String[] EMPTY = new String[0];
+
+  private String[] keys;
+  private String[] values;
+
+  CompactStringMap() {
+    this.keys = EMPTY;
+    this.values = EMPTY;
+  }
+
+  CompactStringMap(@Nonnull final Map<String, String> source) {
+    this();
+    this.putAll(source);
+  }
+
+  private int indexOf(@Nonnull final String key) {
+    return Arrays.binarySearch(this.keys, key, ModelUtils.STRING_COMPARATOR);
+  }
+
+  @Override
+  public int size() {
+    return this.keys.length;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return this.keys.length == 0;
+  }
+
+  @Override
+  public boolean containsKey(@Nullable final Object key) {
+    return key instanceof String && indexOf((String) key) >= 0;
+  }
+
+  @Override
+  @Nullable
+  public String get(@Nullable final Object key) {
+    if (key instanceof String) {
+      final int index = indexOf((String) key);
+      return index < 0 ? null : this.values[index];
+    }
+    return null;
+  }
+
+  @Override
+  @Nullable
+  public String put(@Nonnull final String key, @Nonnull final String value) {
+    if (value == null) {
+      throw new NullPointerException("Value must not be null");
+    }
+    final int index = indexOf(key);
+    if (index >= 0) {
+      final String old = this.values[index];
+      this.values[index] = ValuePool.intern(value);
+      return old;
+    }
+    final int insertion = -index - 1;
+    final int size = this.keys.length;
+    final String[] newKeys = new String[size + 1];
+    final String[] newValues = new String[size + 1];
+    System.arraycopy(this.keys, 0, newKeys, 0, insertion);
+    System.arraycopy(this.values, 0, newValues, 0, insertion);
+    newKeys[insertion] = ValuePool.intern(key);
+    newValues[insertion] = ValuePool.intern(value);
+    System.arraycopy(this.keys, insertion, newKeys, insertion + 1, size - insertion);
+    System.arraycopy(this.values, insertion, newValues, insertion + 1, size - insertion);
+    this.keys = newKeys;
+    this.values = newValues;
+    return null;
+  }
+
+  @Override
+  @Nullable
+  public String remove(@Nullable final Object key) {
+    if (key instanceof String) {
+      final int index = indexOf((String) key);
+      if (index >= 0) {
+        final String old = this.values[index];
+        removeAt(index);
+        return old;
+      }
+    }
+    return null;
+  }
+
+  private void removeAt(final int index) {
+    final int size = this.keys.length;
+    final String[] newKeys = new String[size - 1];
+    final String[] newValues = new String[size - 1];
+    System.arraycopy(this.keys, 0, newKeys, 0, index);
+    System.arraycopy(this.values, 0, newValues, 0, index);
+    System.arraycopy(this.keys, index + 1, newKeys, index, size - index - 1);
+    System.arraycopy(this.values, index + 1, newValues, index, size - index - 1);
+    this.keys = newKeys;
+    this.values = newValues;
+  }
+
+  @Override
+  public void clear() {
+    this.keys = EMPTY;
+    this.values = EMPTY;
+  }
+
+  @Override
+  @Nonnull
+  public Set<Entry<String, String>> entrySet() {
+    return new AbstractSet<Entry<String, String>>() {
+      @Override
+      @Nonnull
+      public Iterator<Entry<String, String>> iterator() {
+        return new Iterator<Entry<String, String>>() {
+          private int next;
+          private int last = -1;
+
+          @Override
+          public boolean hasNext() {
+            return this.next < keys.length;
+          }
+
+          @Override
+          @Nonnull
+          public Entry<String, String> next() {
+            if (this.next >= keys.length) {
+              throw new NoSuchElementException();
+            }
+            this.last = this.next++;
+            return new SimpleImmutableEntry<>(keys[this.last], values[this.last]);
+          }
+
+          @Override
+          public void remove() {
+            if (this.last < 0) {
+              throw new IllegalStateException();
+            }
+            removeAt(this.last);
+            this.next = this.last;
+            this.last = -1;
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return keys.length;
+      }
+    };
+  }
+}
@@ -19,6 +19,7 @@ package com.igormaznitsa.mindmap.model;
 import java.io.File;
 import java.net.URISyntaxException;
 import java.util.Locale;
+import java.util.Objects;
 import java.util.regex.Pattern;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -32,6 +33,7 @@ public class ExtraFile extends Extra<MMapURI> implements ExtraLinkable {
   private final boolean mmdFileFlag;
   private final String lowerCasedFileExtension;
   private volatile String cachedString;
+  private transient volatile SearchText cachedSearchText;
 
   public ExtraFile(@Nonnull final MMapURI file) {
     this.fileUri = file;
@@ -53,9 +55,13 @@ public class ExtraFile extends Extra<MMapURI> implements ExtraLinkable {
 
   @Override
   public boolean containsPattern(@Nullable final File baseFolder, @Nonnull final Pattern pattern) {
-    final String filePathAsText =
-        FilenameUtils.normalize(this.fileUri.asFile(baseFolder).getAbsolutePath());
-    return pattern.matcher(filePathAsText).find();
+    SearchText searchText = this.cachedSearchText;
+    if (searchText == null || !Objects.equals(searchText.baseFolder, baseFolder)) {
+      searchText = new SearchText(baseFolder,
+          FilenameUtils.normalize(this.fileUri.asFile(baseFolder).getAbsolutePath()));
+      this.cachedSearchText = searchText;
+    }
+    return searchText.text != null && pattern.matcher(searchText.text).find();
   }
 
   @Override
@@ -192,4 +198,17 @@ public class ExtraFile extends Extra<MMapURI> implements ExtraLinkable {
     return theFilePath.equals(thatFilePath);
   }
 
+  /**
+   * Normalized absolute path made for base folder, the same base folder is used by all searches in a project.
+   */
+  private static final class SearchText {
+
+    private final File baseFolder;
+    private final String text;
+
+    private SearchText(@Nullable final File baseFolder, @Nullable final String text) {
+      this.baseFolder = baseFolder;
+      this.text = text;
+    }
+  }
 }
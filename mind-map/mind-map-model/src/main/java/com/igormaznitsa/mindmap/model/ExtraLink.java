@@ -25,6 +25,7 @@ import javax.annotation.Nullable;
 public class ExtraLink extends Extra<MMapURI> implements ExtraLinkable {
   private static final long serialVersionUID = -3343908686571445847L;
   private final MMapURI uri;
+  private transient volatile String cachedSearchText;
 
   public ExtraLink(@Nonnull final MMapURI uri) {
     this.uri = uri;
@@ -57,7 +58,10 @@ public class ExtraLink extends Extra<MMapURI> implements ExtraLinkable {
 
   @Override
   public boolean containsPattern(@Nullable final File baseFolder, @Nonnull final Pattern pattern) {
-    return pattern.matcher(this.uri.toString()).find();
+    if (this.cachedSearchText == null) {
+      this.cachedSearchText = this.uri.toString();
+    }
+    return pattern.matcher(this.cachedSearchText).find();
   }
 
   @Override
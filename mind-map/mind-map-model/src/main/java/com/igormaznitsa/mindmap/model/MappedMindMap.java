@@ -0,0 +1,496 @@
+/*
+ * Copyright 2015-2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.mindmap.model;
+
+import com.igormaznitsa.meta.annotation.MustNotContainNull;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Read-only mind map over memory mapped binary image, it allows to view and search huge maps without loading
+ * them into heap. Topics are provided as {@link MappedTopic} views created on request, all data stay in the
+ * mapped file and decoded only when requested. Use {@link #toMindMap()} to get editable copy.
+ * <p>
+ * Image is written by {@link #write(MindMap, File)}, topics are placed in depth-first order so that
+ * traversal and search are sequential scans of the buffer. All values are big-endian, offsets are absolute.
+ * <pre>
+ * header   : int magic, int version, int topicCount, int rootOffset (-1 if no root), int stringsOffset
+ * map      : short attrCount, attrCount * (int keyRef, int valueRef)
+ * topic    : int parentOffset (-1 for root), int subtreeEnd, int textRef, int childCount, childCount * int childOffset,
+ *            short attrCount, attrCount * (int keyRef, int valueRef),
+ *            short snippetCount, snippetCount * (int languageRef, int textRef),
+ *            byte extraCount, extraCount * (byte extraTypeOrdinal, int valueRef)
+ * string   : int byteLength, UTF-8 bytes
+ * </pre>
+ * Equal strings are written only once. Image of separate topics written by {@link #write(Topic[], OutputStream)}
+ * contains their subtrees one after another, every subtree has parent offset -1 and root offset points to the
+ * first one, use {@link #getTopLevelTopics()} to get all of them.
+ *
+ * @since 1.5.2
+ */
+@ThreadSafe
+public final class MappedMindMap implements Iterable<MappedTopic> {
+
+  static final int MAGIC = 0x4D4D4442;
+  static final int VERSION = 1;
+  static final int HEADER_SIZE = 20;
+
+  private static final int OFFSET_TOPIC_COUNT = 8;
+  private static final int OFFSET_ROOT = 12;
+  private static final int OFFSET_STRINGS = 16;
+
+  private final ByteBuffer buffer;
+  private final int topicCount;
+  private final int rootOffset;
+  private final int firstTopicOffset;
+  private final int topicsEnd;
+
+  MappedMindMap(@Nonnull final ByteBuffer buffer) throws IOException {
+    if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+      throw new IOException("It is not mapped mind map image");
+    }
+    if (buffer.getInt(4) != VERSION) {
+      throw new IOException("Unsupported version of mapped mind map image: " + buffer.getInt(4));
+    }
+    this.buffer = buffer;
+    this.topicCount = buffer.getInt(OFFSET_TOPIC_COUNT);
+    this.rootOffset = buffer.getInt(OFFSET_ROOT);
+    this.topicsEnd = buffer.getInt(OFFSET_STRINGS);
+    this.firstTopicOffset = HEADER_SIZE + 2 + (buffer.getShort(HEADER_SIZE) & 0xFFFF) * 8;
+    if (this.topicsEnd > buffer.limit() || this.firstTopicOffset > this.topicsEnd) {
+      throw new IOException("Mapped mind map image is broken");
+    }
+  }
+
+  /**
+   * Make map over image placed in byte array, the array must not be changed while the map is in use.
+   *
+   * @param image image written by {@link #write(MindMap, OutputStream)} or {@link #write(Topic[], OutputStream)}
+   * @return read-only map
+   * @throws IOException if the array doesn't contain mind map image
+   */
+  @Nonnull
+  public static MappedMindMap wrap(@Nonnull final byte[] image) throws IOException {
+    return new MappedMindMap(ByteBuffer.wrap(image));
+  }
+
+  /**
+   * Map image file into memory, the file must not be changed while the map is in use.
+   *
+   * @param file image file written by {@link #write(MindMap, File)}
+   * @return read-only map
+   * @throws IOException if the file can't be mapped or it is not a mind map image
+   */
+  @Nonnull
+  public static MappedMindMap open(@Nonnull final File file) throws IOException {
+    try (final RandomAccessFile raf = new RandomAccessFile(file, "r"); //NOI18N
+         final FileChannel channel = raf.getChannel()) {
+      final long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("Mapped mind map image is too big: " + size);
+      }
+      return new MappedMindMap(channel.map(FileChannel.MapMode.READ_ONLY, 0L, size));
+    }
+  }
+
+  /**
+   * Write binary image of mind map into file.
+   *
+   * @param map  source map
+   * @param file target file, it will be overwritten
+   * @throws IOException if any transport error
+   */
+  public static void write(@Nonnull final MindMap map, @Nonnull final File file) throws IOException {
+    try (final OutputStream out = new FileOutputStream(file)) {
+      write(map, out);
+    }
+  }
+
+  /**
+   * Write binary image of mind map into stream, the stream is not closed.
+   *
+   * @param map source map
+   * @param out target stream
+   * @throws IOException if any transport error or map is too big for the format
+   */
+  public static void write(@Nonnull final MindMap map, @Nonnull final OutputStream out) throws IOException {
+    map.lock();
+    try {
+      new ImageWriter(map.rawAttributes(), map.getRoot() == null ? new Topic[0] : new Topic[] {map.getRoot()}).write(out);
+    } finally {
+      map.unlock();
+    }
+  }
+
+  /**
+   * Write binary image of subtrees of topics into stream, the stream is not closed. Topics must belong to the
+   * same mind map, topics which are descendants of other listed topics are written only as part of their
+   * ancestor subtree. Map attributes are not written.
+   *
+   * @param topics topics to be written, order is preserved
+   * @param out    target stream
+   * @throws IOException if any transport error or subtrees are too big for the format
+   */
+  public static void write(@Nonnull @MustNotContainNull final Topic[] topics, @Nonnull final OutputStream out) throws IOException {
+    final MindMap map = topics.length == 0 ? null : topics[0].getMap();
+    if (map != null) {
+      map.lock();
+    }
+    try {
+      new ImageWriter(Collections.<String, String>emptyMap(), removeDescendants(topics)).write(out);
+    } finally {
+      if (map != null) {
+        map.unlock();
+      }
+    }
+  }
+
+  @Nonnull
+  @MustNotContainNull
+  private static Topic[] removeDescendants(@Nonnull @MustNotContainNull final Topic[] topics) {
+    final Set<Topic> listed = Collections.newSetFromMap(new IdentityHashMap<Topic, Boolean>());
+    listed.addAll(Arrays.asList(topics));
+    final Set<Topic> added = Collections.newSetFromMap(new IdentityHashMap<Topic, Boolean>());
+    final List<Topic> ordered = new ArrayList<>(topics.length);
+    for (final Topic t : topics) {
+      boolean descendant = false;
+      for (Topic parent = t.getParent(); parent != null && !descendant; parent = parent.getParent()) {
+        descendant = listed.contains(parent);
+      }
+      if (!descendant && added.add(t)) {
+        ordered.add(t);
+      }
+    }
+    return ordered.toArray(new Topic[0]);
+  }
+
+  public int getTopicCount() {
+    return this.topicCount;
+  }
+
+  @Nullable
+  public MappedTopic getRoot() {
+    return this.rootOffset < 0 ? null : new MappedTopic(this, this.rootOffset);
+  }
+
+  @Nullable
+  public String getAttribute(@Nonnull final String name) {
+    return findValue(HEADER_SIZE + 2, this.buffer.getShort(HEADER_SIZE) & 0xFFFF, name);
+  }
+
+  /**
+   * Get all top level topics of the image, it is the root for image of mind map and written topics for image
+   * of separate subtrees.
+   *
+   * @return list of top level topics in written order, can be empty
+   */
+  @Nonnull
+  @MustNotContainNull
+  public List<MappedTopic> getTopLevelTopics() {
+    final List<MappedTopic> result = new ArrayList<>();
+    for (int offset = this.firstTopicOffset; offset < this.topicsEnd; offset = this.buffer.getInt(offset + 4)) {
+      result.add(new MappedTopic(this, offset));
+    }
+    return result;
+  }
+
+  /**
+   * Iterate all topics in depth-first order, the same order as {@link MindMap#iterator()}.
+   *
+   * @return iterator over views of topics
+   */
+  @Override
+  @Nonnull
+  public Iterator<MappedTopic> iterator() {
+    return makeIterator(this.firstTopicOffset, this.topicsEnd);
+  }
+
+  @Nullable
+  public MappedTopic findNext(@Nullable final File baseFolder, @Nullable final MappedTopic start,
+                              @Nonnull final Pattern pattern, final boolean findInTopicText,
+                              @Nullable final Set<Extra.ExtraType> extrasToFind) {
+    if (start != null && start.getMap() != this) {
+      throw new IllegalArgumentException("Topic doesn't belong to the mind map");
+    }
+    final int from = start == null ? this.firstTopicOffset : start.getOffset() + recordSize(start.getOffset());
+    for (int offset = from; offset < this.topicsEnd; offset += recordSize(offset)) {
+      final MappedTopic topic = new MappedTopic(this, offset);
+      if (topic.containsPattern(baseFolder, pattern, findInTopicText, extrasToFind)) {
+        return topic;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Make editable copy of the map, all topics are loaded into heap.
+   *
+   * @return new mind map
+   */
+  @Nonnull
+  public MindMap toMindMap() {
+    final MindMap result = new MindMap(false);
+    result.rawAttributes().clear();
+    final int count = this.buffer.getShort(HEADER_SIZE) & 0xFFFF;
+    for (int i = 0; i < count; i++) {
+      final int pos = HEADER_SIZE + 2 + i * 8;
+      result.rawAttributes().put(readString(this.buffer.getInt(pos)), readString(this.buffer.getInt(pos + 4)));
+    }
+    final MappedTopic root = getRoot();
+    if (root != null) {
+      result.setRoot(root.toTopic(result, null), false);
+    }
+    return result;
+  }
+
+  @Nonnull
+  Iterator<MappedTopic> makeIterator(final int from, final int to) {
+    return new Iterator<MappedTopic>() {
+      private int offset = from;
+
+      @Override
+      public boolean hasNext() {
+        return this.offset < to;
+      }
+
+      @Override
+      @Nonnull
+      public MappedTopic next() {
+        if (this.offset >= to) {
+          throw new NoSuchElementException();
+        }
+        final MappedTopic result = new MappedTopic(MappedMindMap.this, this.offset);
+        this.offset += recordSize(this.offset);
+        return result;
+      }
+    };
+  }
+
+  @Nonnull
+  ByteBuffer getBuffer() {
+    return this.buffer;
+  }
+
+  int recordSize(final int offset) {
+    int pos = offset + 16 + this.buffer.getInt(offset + 12) * 4;
+    pos += 2 + (this.buffer.getShort(pos) & 0xFFFF) * 8;
+    pos += 2 + (this.buffer.getShort(pos) & 0xFFFF) * 8;
+    pos += 1 + (this.buffer.get(pos) & 0xFF) * 5;
+    return pos - offset;
+  }
+
+  @Nullable
+  String findValue(final int pairsOffset, final int count, @Nonnull final String key) {
+    final byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+    for (int i = 0; i < count; i++) {
+      final int pos = pairsOffset + i * 8;
+      if (stringEquals(this.buffer.getInt(pos), keyBytes)) {
+        return readString(this.buffer.getInt(pos + 4));
+      }
+    }
+    return null;
+  }
+
+  private boolean stringEquals(final int ref, @Nonnull final byte[] bytes) {
+    if (this.buffer.getInt(ref) != bytes.length) {
+      return false;
+    }
+    for (int i = 0; i < bytes.length; i++) {
+      if (this.buffer.get(ref + 4 + i) != bytes[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Nonnull
+  String readString(final int ref) {
+    final byte[] data = new byte[this.buffer.getInt(ref)];
+    final ByteBuffer view = this.buffer.duplicate();
+    view.position(ref + 4);
+    view.get(data);
+    return new String(data, StandardCharsets.UTF_8);
+  }
+
+  private static final class ImageWriter {
+
+    private final Map<String, String> mapAttributes;
+    private final Topic[] topics;
+    private final Map<String, Integer> strings = new LinkedHashMap<>();
+    private final Map<Topic, int[]> layout = new IdentityHashMap<>();
+    private long stringsSize;
+    private long position;
+    private int stringsOffset;
+
+    private ImageWriter(@Nonnull final Map<String, String> mapAttributes, @Nonnull @MustNotContainNull final Topic[] topics) {
+      this.mapAttributes = mapAttributes;
+      this.topics = topics;
+    }
+
+    private static int extraCount(@Nonnull final Topic topic) {
+      int result = 0;
+      for (final Extra<?> e : topic.getExtras().values()) {
+        if (e.getType() != Extra.ExtraType.UNKNOWN) {
+          result++;
+        }
+      }
+      return result;
+    }
+
+    private void write(@Nonnull final OutputStream out) throws IOException {
+      final Map<String, String> attributes = new TreeMap<>(ModelUtils.STRING_COMPARATOR);
+      attributes.putAll(this.mapAttributes);
+      checkCount(attributes.size(), 0xFFFF);
+      this.position = HEADER_SIZE + 2 + attributes.size() * 8L;
+      registerPairs(attributes);
+
+      for (final Topic t : this.topics) {
+        layout(t);
+      }
+      if (this.position + this.stringsSize > Integer.MAX_VALUE) {
+        throw new IOException("Mind map is too big for mapped image");
+      }
+      this.stringsOffset = (int) this.position;
+
+      final DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+      data.writeInt(MAGIC);
+      data.writeInt(VERSION);
+      data.writeInt(this.layout.size());
+      data.writeInt(this.topics.length == 0 ? -1 : this.layout.get(this.topics[0])[0]);
+      data.writeInt(this.stringsOffset);
+      writePairs(data, attributes);
+      for (final Topic t : this.topics) {
+        writeTopic(data, t);
+      }
+      for (final String s : this.strings.keySet()) {
+        final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        data.writeInt(bytes.length);
+        data.write(bytes);
+      }
+      data.flush();
+    }
+
+    private void layout(@Nonnull final Topic topic) throws IOException {
+      final int[] record = new int[2];
+      this.layout.put(topic, record);
+      record[0] = (int) this.position;
+
+      checkCount(topic.getAttributes().size(), 0xFFFF);
+      checkCount(topic.getCodeSnippets().size(), 0xFFFF);
+      this.position += 16 + topic.getChildren().size() * 4L
+          + 2 + topic.getAttributes().size() * 8L
+          + 2 + topic.getCodeSnippets().size() * 8L
+          + 1 + extraCount(topic) * 5L;
+      if (this.position > Integer.MAX_VALUE) {
+        throw new IOException("Mind map is too big for mapped image");
+      }
+
+      register(topic.getText());
+      registerPairs(topic.getAttributes());
+      registerPairs(topic.getCodeSnippets());
+      for (final Extra<?> e : topic.getExtras().values()) {
+        if (e.getType() != Extra.ExtraType.UNKNOWN) {
+          register(e.provideAsStringForSave());
+        }
+      }
+
+      for (final Topic child : topic.getChildren()) {
+        layout(child);
+      }
+      record[1] = (int) this.position;
+    }
+
+    private void writeTopic(@Nonnull final DataOutputStream out, @Nonnull final Topic topic) throws IOException {
+      final int[] record = this.layout.get(topic);
+      final int[] parent = topic.getParent() == null ? null : this.layout.get(topic.getParent());
+      out.writeInt(parent == null ? -1 : parent[0]);
+      out.writeInt(record[1]);
+      out.writeInt(ref(topic.getText()));
+      out.writeInt(topic.getChildren().size());
+      for (final Topic child : topic.getChildren()) {
+        out.writeInt(this.layout.get(child)[0]);
+      }
+      writePairs(out, topic.getAttributes());
+      writePairs(out, topic.getCodeSnippets());
+      out.writeByte(extraCount(topic));
+      for (final Extra<?> e : topic.getExtras().values()) {
+        if (e.getType() != Extra.ExtraType.UNKNOWN) {
+          out.writeByte(e.getType().ordinal());
+          out.writeInt(ref(e.provideAsStringForSave()));
+        }
+      }
+      for (final Topic child : topic.getChildren()) {
+        writeTopic(out, child);
+      }
+    }
+
+    private void checkCount(final int count, final int max) throws IOException {
+      if (count > max) {
+        throw new IOException("Too many elements for mapped image: " + count);
+      }
+    }
+
+    private void registerPairs(@Nonnull final Map<String, String> pairs) {
+      for (final Map.Entry<String, String> e : pairs.entrySet()) {
+        register(e.getKey());
+        register(e.getValue());
+      }
+    }
+
+    private void writePairs(@Nonnull final DataOutputStream out, @Nonnull final Map<String, String> pairs) throws IOException {
+      out.writeShort(pairs.size());
+      for (final Map.Entry<String, String> e : pairs.entrySet()) {
+        out.writeInt(ref(e.getKey()));
+        out.writeInt(ref(e.getValue()));
+      }
+    }
+
+    private void register(@Nonnull final String text) {
+      if (!this.strings.containsKey(text)) {
+        this.strings.put(text, (int) this.stringsSize);
+        this.stringsSize += 4 + text.getBytes(StandardCharsets.UTF_8).length;
+      }
+    }
+
+    private int ref(@Nonnull final String text) {
+      return this.stringsOffset + this.strings.get(text);
+    }
+  }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2015-2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.mindmap.model;
+
+import com.igormaznitsa.meta.annotation.MustNotContainNull;
+import com.igormaznitsa.mindmap.model.logger.Logger;
+import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Lightweight read-only view of topic in {@link MappedMindMap}, it keeps only offset of the topic record and
+ * decodes data from the mapped buffer on every call. Views are cheap and can be created and dropped freely,
+ * two views of the same topic are equal.
+ *
+ * @since 1.5.2
+ */
+@Immutable
+public final class MappedTopic implements Iterable<MappedTopic> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(MappedTopic.class);
+
+  private final MappedMindMap map;
+  private final int offset;
+
+  MappedTopic(@Nonnull final MappedMindMap map, final int offset) {
+    this.map = map;
+    this.offset = offset;
+  }
+
+  @Nonnull
+  public MappedMindMap getMap() {
+    return this.map;
+  }
+
+  int getOffset() {
+    return this.offset;
+  }
+
+  @Nonnull
+  private ByteBuffer buffer() {
+    return this.map.getBuffer();
+  }
+
+  @Nullable
+  public MappedTopic getParent() {
+    final int parent = buffer().getInt(this.offset);
+    return parent < 0 ? null : new MappedTopic(this.map, parent);
+  }
+
+  public boolean isRoot() {
+    return buffer().getInt(this.offset) < 0;
+  }
+
+  @Nonnull
+  public String getText() {
+    return this.map.readString(buffer().getInt(this.offset + 8));
+  }
+
+  public int getChildCount() {
+    return buffer().getInt(this.offset + 12);
+  }
+
+  public boolean hasChildren() {
+    return getChildCount() > 0;
+  }
+
+  @Nonnull
+  public MappedTopic getChildAt(final int index) {
+    if (index < 0 || index >= getChildCount()) {
+      throw new IndexOutOfBoundsException("Wrong child index: " + index);
+    }
+    return new MappedTopic(this.map, buffer().getInt(this.offset + 16 + index * 4));
+  }
+
+  @Nonnull
+  @MustNotContainNull
+  public List<MappedTopic> getChildren() {
+    final int count = getChildCount();
+    final List<MappedTopic> result = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      result.add(new MappedTopic(this.map, buffer().getInt(this.offset + 16 + i * 4)));
+    }
+    return result;
+  }
+
+  @Nonnull
+  @MustNotContainNull
+  public MappedTopic[] getPath() {
+    final List<MappedTopic> path = new ArrayList<>();
+    MappedTopic current = this;
+    while (current != null) {
+      path.add(0, current);
+      current = current.getParent();
+    }
+    return path.toArray(new MappedTopic[0]);
+  }
+
+  private int attributesOffset() {
+    return this.offset + 16 + getChildCount() * 4;
+  }
+
+  private int codeSnippetsOffset() {
+    final int attributes = attributesOffset();
+    return attributes + 2 + (buffer().getShort(attributes) & 0xFFFF) * 8;
+  }
+
+  private int extrasOffset() {
+    final int snippets = codeSnippetsOffset();
+    return snippets + 2 + (buffer().getShort(snippets) & 0xFFFF) * 8;
+  }
+
+  @Nullable
+  public String getAttribute(@Nonnull final String name) {
+    final int attributes = attributesOffset();
+    return this.map.findValue(attributes + 2, buffer().getShort(attributes) & 0xFFFF, name);
+  }
+
+  @Nonnull
+  public Map<String, String> getAttributes() {
+    return readPairs(attributesOffset());
+  }
+
+  @Nullable
+  public String getCodeSnippet(@Nonnull final String language) {
+    final int snippets = codeSnippetsOffset();
+    return this.map.findValue(snippets + 2, buffer().getShort(snippets) & 0xFFFF, language);
+  }
+
+  @Nonnull
+  public Map<String, String> getCodeSnippets() {
+    return readPairs(codeSnippetsOffset());
+  }
+
+  @Nonnull
+  private Map<String, String> readPairs(final int pairsOffset) {
+    final Map<String, String> result = new TreeMap<>(ModelUtils.STRING_COMPARATOR);
+    final int count = buffer().getShort(pairsOffset) & 0xFFFF;
+    for (int i = 0; i < count; i++) {
+      final int pos = pairsOffset + 2 + i * 8;
+      result.put(this.map.readString(buffer().getInt(pos)), this.map.readString(buffer().getInt(pos + 4)));
+    }
+    return result;
+  }
+
+  /**
+   * Decode extras of the topic, extras are not cached and every call makes new objects.
+   *
+   * @return map of extras, can be empty
+   */
+  @Nonnull
+  public Map<Extra.ExtraType, Extra<?>> getExtras() {
+    final Map<Extra.ExtraType, Extra<?>> result = new EnumMap<>(Extra.ExtraType.class);
+    final int extras = extrasOffset();
+    final int count = buffer().get(extras) & 0xFF;
+    Map<String, String> attributes = null;
+    for (int i = 0; i < count; i++) {
+      final int pos = extras + 1 + i * 5;
+      final Extra.ExtraType type = Extra.ExtraType.values()[buffer().get(pos)];
+      if (attributes == null) {
+        attributes = getAttributes();
+      }
+      try {
+        result.put(type, type.parseLoaded(this.map.readString(buffer().getInt(pos + 1)), attributes));
+      } catch (Exception ex) {
+        LOGGER.error("Can't decode mapped extra " + type, ex); //NOI18N
+      }
+    }
+    return result;
+  }
+
+  public boolean containsPattern(@Nullable final File baseFolder, @Nonnull final Pattern pattern,
+                                 final boolean findInTopicText,
+                                 @Nullable final Set<Extra.ExtraType> extrasForSearch) {
+    boolean result = false;
+
+    if (findInTopicText && pattern.matcher(getText()).find()) {
+      result = true;
+    } else if (extrasForSearch != null && !extrasForSearch.isEmpty()) {
+      for (final Extra<?> e : getExtras().values()) {
+        if (extrasForSearch.contains(e.getType()) && e.containsPattern(baseFolder, pattern)) {
+          result = true;
+          break;
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Make editable copy of the topic and its subtree.
+   *
+   * @param target map of the copy
+   * @param parent parent for the copy, can be null
+   * @return created topic
+   */
+  @Nonnull
+  public Topic toTopic(@Nonnull final MindMap target, @Nullable final Topic parent) {
+    final Topic result = new Topic(target, parent, getText(), getExtras().values().toArray(new Extra<?>[0]));
+    for (final Map.Entry<String, String> e : getAttributes().entrySet()) {
+      result.setAttribute(e.getKey(), e.getValue());
+    }
+    for (final Map.Entry<String, String> e : getCodeSnippets().entrySet()) {
+      result.setCodeSnippet(e.getKey(), e.getValue());
+    }
+    for (final MappedTopic child : getChildren()) {
+      child.toTopic(target, result);
+    }
+    return result;
+  }
+
+  /**
+   * Iterate all descendants in depth-first order, the same order as {@link Topic#iterator()}.
+   *
+   * @return iterator over views of topics
+   */
+  @Override
+  @Nonnull
+  public Iterator<MappedTopic> iterator() {
+    return this.map.makeIterator(this.offset + this.map.recordSize(this.offset), buffer().getInt(this.offset + 4));
+  }
+
+  @Override
+  public boolean equals(@Nullable final Object that) {
+    if (this == that) {
+      return true;
+    }
+    if (that instanceof MappedTopic) {
+      final MappedTopic other = (MappedTopic) that;
+      return this.map == other.map && this.offset == other.offset;
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    return this.offset;
+  }
+
+  @Override
+  @Nonnull
+  public String toString() {
+    return "MappedTopic(" + this.offset + ", '" + getText() + "')";
+  }
+}
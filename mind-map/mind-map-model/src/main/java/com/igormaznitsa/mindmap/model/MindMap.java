@@ -30,6 +30,7 @@ import java.io.StringWriter;
 import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -37,10 +38,11 @@ import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.apache.commons.io.IOUtils;
@@ -54,7 +56,9 @@ public final class MindMap implements Serializable, Constants, Iterable<Topic> {
   private static final Pattern PATTERN_ATTRIBUTE =
       Pattern.compile("[,]?\\s*([\\S]+?)\\s*=\\s*(\\`+)(.*?)\\2"); //NOI18N
   private static final String GENERATOR_VERSION_NAME = "__version__"; //NOI18N
-  private final transient Lock locker = new ReentrantLock();
+  private static final int MAX_TRACKED_CHANGES = 4096;
+  private static final int MIN_TOPICS_FOR_PARALLEL_SEARCH = 1024;
+  private final transient ReentrantLock locker = new ReentrantLock();
   private final Map<String, String> attributes =
           new TreeMap<>(ModelUtils.STRING_COMPARATOR);
   private final transient List<MindMapModelEventListener> modelEventListeners =
@@ -63,6 +67,18 @@ public final class MindMap implements Serializable, Constants, Iterable<Topic> {
   @Nullable
   private Topic root;
 
+  @Nullable
+  private transient MindMapHistory history;
+
+  @Nullable
+  private transient List<TopicChange> trackedChanges;
+  private transient boolean fullChangeTracked;
+
+  @Nullable
+  private transient List<ModelChange> batchLog;
+  @Nullable
+  private transient List<int[]> batchMarks;
+
   public MindMap(final boolean makeRoot) {
     if (makeRoot) {
       this.root = new Topic(this, null, "");
@@ -188,17 +204,8 @@ public final class MindMap implements Serializable, Constants, Iterable<Topic> {
       boolean startFound = start == null;
       for (final Topic t : this) {
         if (startFound) {
-          if (t.containsPattern(baseFolder, pattern, findInTopicText, extrasToFind)) {
+          if (isMatched(t, baseFolder, pattern, findInTopicText, extrasToFind, topicFinders)) {
             result = t;
-          } else if (topicFinders != null) {
-            for (TopicFinder f : topicFinders) {
-              if (f.doesTopicContentMatches(t, baseFolder, pattern, extrasToFind)) {
-                result = t;
-                break;
-              }
-            }
-          }
-          if (result != null) {
             break;
           }
         } else if (t == start) {
@@ -245,15 +252,8 @@ public final class MindMap implements Serializable, Constants, Iterable<Topic> {
       if (startIndex > 0) {
         while (startIndex > 0 && result == null) {
           final Topic candidate = plain.get(--startIndex);
-          if (candidate.containsPattern(baseFolder, pattern, findInTopicText, extrasToFind)) {
+          if (isMatched(candidate, baseFolder, pattern, findInTopicText, extrasToFind, topicFinders)) {
             result = candidate;
-          } else if (topicFinders != null) {
-            for (TopicFinder f : topicFinders) {
-              if (f.doesTopicContentMatches(candidate, baseFolder, pattern, extrasToFind)) {
-                result = candidate;
-                break;
-              }
-            }
           }
         }
       }
@@ -264,6 +264,55 @@ public final class MindMap implements Serializable, Constants, Iterable<Topic> {
     return result;
   }
 
+  /**
+   * Find all topics containing pattern. Snapshot of topics is made under lock and then topics are checked
+   * in parallel by the common fork-join pool, the map must not be changed during the call.
+   *
+   * @param baseFolder      base folder for file links, can be null
+   * @param pattern         pattern to find
+   * @param findInTopicText true if topic text should be checked
+   * @param extrasToFind    types of extras to be checked, can be null
+   * @param topicFinders    additional finders, can be null
+   * @return found topics in the order of iteration over the map
+   * @since 1.5.2
+   */
+  @Nonnull
+  @MustNotContainNull
+  public List<Topic> findAll(
+      @Nullable final File baseFolder,
+      @Nonnull final Pattern pattern,
+      final boolean findInTopicText,
+      @Nullable final Set<Extra.ExtraType> extrasToFind,
+      @Nullable final Set<TopicFinder> topicFinders
+  ) {
+    final List<Topic> plain = this.makePlainList();
+    final Stream<Topic> stream = plain.size() < MIN_TOPICS_FOR_PARALLEL_SEARCH ? plain.stream() : plain.parallelStream();
+    return stream
+        .filter(t -> isMatched(t, baseFolder, pattern, findInTopicText, extrasToFind, topicFinders))
+        .collect(Collectors.toList());
+  }
+
+  private static boolean isMatched(
+      @Nonnull final Topic topic,
+      @Nullable final File baseFolder,
+      @Nonnull final Pattern pattern,
+      final boolean findInTopicText,
+      @Nullable final Set<Extra.ExtraType> extrasToFind,
+      @Nullable final Set<TopicFinder> topicFinders
+  ) {
+    if (topic.containsPattern(baseFolder, pattern, findInTopicText, extrasToFind)) {
+      return true;
+    }
+    if (topicFinders != null) {
+      for (final TopicFinder f : topicFinders) {
+        if (f.doesTopicContentMatches(topic, baseFolder, pattern, extrasToFind)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
   public void setRoot(@Nullable final Topic newRoot, final boolean makeNotification) {
     this.locker.lock();
     try {
@@ -272,7 +321,11 @@ public final class MindMap implements Serializable, Constants, Iterable<Topic> {
           throw new IllegalStateException("Base map must be the same");
         }
       }
+      final Topic old = this.root;
       this.root = newRoot;
+      if (old != newRoot && isRecording()) {
+        record(new ModelChange.RootChanged(this, old, newRoot));
+      }
       if (makeNotification) {
         fireModelChanged();
       }
@@ -327,20 +380,149 @@ public final class MindMap implements Serializable, Constants, Iterable<Topic> {
     }
   }
 
+  /**
+   * Notify listeners that the whole structure is changed. Inside batch the notification is postponed till completion
+   * of the outermost batch.
+   */
   private void fireModelChanged() {
-    final Topic rootTopic = this.root;
-    final MindMapModelEvent evt =
-        new MindMapModelEvent(this, rootTopic == null ? null : rootTopic.getPath());
-    for (final MindMapModelEventListener l : this.modelEventListeners) {
-      l.onMindMapStructureChanged(evt);
+    if (this.isInBatch()) {
+      this.fullChangeTracked = true;
+    } else {
+      final Topic rootTopic = this.root;
+      final MindMapModelEvent evt =
+          new MindMapModelEvent(this, rootTopic == null ? null : rootTopic.getPath());
+      for (final MindMapModelEventListener l : this.modelEventListeners) {
+        l.onMindMapStructureChanged(evt);
+      }
     }
   }
 
   private void fireTopicChanged(@Nullable final Topic topic) {
-    final MindMapModelEvent evt =
-        new MindMapModelEvent(this, topic == null ? null : topic.getPath());
-    for (final MindMapModelEventListener l : this.modelEventListeners) {
-      l.onMindMapNodesChanged(evt);
+    if (!this.isInBatch()) {
+      final MindMapModelEvent evt =
+          new MindMapModelEvent(this, topic == null ? null : topic.getPath());
+      for (final MindMapModelEventListener l : this.modelEventListeners) {
+        l.onMindMapNodesChanged(evt);
+      }
+    }
+  }
+
+  /**
+   * Check that changes of topics should be tracked, they are tracked only inside batch and only if there are
+   * listeners.
+   *
+   * @return true if changes should be tracked
+   */
+  boolean isTracking() {
+    final List<MindMapModelEventListener> listeners = this.modelEventListeners;
+    return listeners != null && !listeners.isEmpty() && this.isInBatch();
+  }
+
+  /**
+   * Keep change of topic to be sent to listeners on completion of the outermost batch.
+   *
+   * @param change change of topic
+   */
+  void track(@Nonnull final TopicChange change) {
+    if (!this.fullChangeTracked) {
+      if (this.trackedChanges == null) {
+        this.trackedChanges = new ArrayList<>();
+      }
+      if (this.trackedChanges.size() >= MAX_TRACKED_CHANGES) {
+        this.fullChangeTracked = true;
+      } else {
+        this.trackedChanges.add(change);
+      }
+    }
+  }
+
+  @Nonnull
+  @MustNotContainNull
+  private static List<TopicChange> coalesce(@Nonnull @MustNotContainNull final List<TopicChange> changes) {
+    final List<TopicChange> result = new ArrayList<>(changes.size());
+    final Map<Topic, List<TopicChange>> valueChanges = new IdentityHashMap<>();
+    for (final TopicChange c : changes) {
+      if (c.isStructural()) {
+        final TopicChange prev = result.isEmpty() ? null : result.get(result.size() - 1);
+        if (prev != null && c.getType() == TopicChange.Type.INSERTED
+            && prev.getType() == TopicChange.Type.REMOVED && prev.getTopic() == c.getTopic()) {
+          result.set(result.size() - 1, TopicChange.moved(prev, c));
+        } else {
+          result.add(c);
+        }
+      } else {
+        final List<TopicChange> known = valueChanges.computeIfAbsent(c.getTopic(), k -> new ArrayList<>(2));
+        boolean duplicated = false;
+        for (final TopicChange k : known) {
+          if (k.isSameValueChange(c)) {
+            duplicated = true;
+            break;
+          }
+        }
+        if (!duplicated) {
+          known.add(c);
+          result.add(c);
+        }
+      }
+    }
+    return result;
+  }
+
+  @Nullable
+  private static Topic findCommonAncestor(@Nullable final Topic first, @Nonnull final Topic second) {
+    if (first == null) {
+      return second;
+    }
+    final Map<Topic, Boolean> ancestors = new IdentityHashMap<>();
+    for (Topic t = first; t != null; t = t.getParent()) {
+      ancestors.put(t, Boolean.TRUE);
+    }
+    for (Topic t = second; t != null; t = t.getParent()) {
+      if (ancestors.containsKey(t)) {
+        return t;
+      }
+    }
+    return null;
+  }
+
+  private void fireTrackedChanges(final boolean full, @Nullable @MustNotContainNull final List<TopicChange> changes) {
+    final Topic rootTopic = this.root;
+    if (full) {
+      final MindMapModelEvent evt =
+          new MindMapModelEvent(this, rootTopic == null ? null : rootTopic.getPath());
+      for (final MindMapModelEventListener l : this.modelEventListeners) {
+        l.onMindMapStructureChanged(evt);
+      }
+    } else {
+      final List<TopicChange> coalesced = coalesce(changes);
+      boolean structural = false;
+      Topic common = null;
+      boolean commonFound = true;
+      for (final TopicChange c : coalesced) {
+        structural |= c.isStructural();
+        if (commonFound) {
+          final Topic changed = c.isStructural()
+              ? GetUtils.ensureNonNull(c.getType() == TopicChange.Type.REMOVED ? c.getOldParent() : c.getParent(), c.getTopic())
+              : c.getTopic();
+          common = findCommonAncestor(common, changed);
+          commonFound = common != null;
+          if (commonFound && c.getType() == TopicChange.Type.MOVED && c.getOldParent() != null) {
+            common = findCommonAncestor(common, c.getOldParent());
+            commonFound = common != null;
+          }
+        }
+      }
+      if (!commonFound) {
+        common = rootTopic;
+      }
+      final MindMapModelEvent evt = new MindMapModelEvent(this, common == null ? null : common.getPath(), coalesced);
+      for (final MindMapModelEventListener l : this.modelEventListeners) {
+        if (structural) {
+          l.onMindMapStructureChanged(evt);
+        } else {
+          l.onMindMapNodesChanged(evt);
+        }
+      }
     }
   }
 
@@ -349,19 +531,193 @@ public final class MindMap implements Serializable, Constants, Iterable<Topic> {
     return this.attributes.get(name);
   }
 
+  @Nonnull
+  Map<String, String> rawAttributes() {
+    return this.attributes;
+  }
+
   public void setAttribute(@Nonnull final String name, @Nullable final String value) {
     this.locker.lock();
     try {
-      if (value == null) {
-        this.attributes.remove(name);
-      } else {
-        this.attributes.put(name, value);
+      final String old = value == null ? this.attributes.remove(name) : this.attributes.put(name, value);
+      if (isRecording() && (old == null ? value != null : !old.equals(value))) {
+        record(new ModelChange.AttributeChanged(this, name, old, value));
       }
     } finally {
       this.locker.unlock();
     }
   }
 
+  void rawSetAttribute(@Nonnull final String name, @Nullable final String value) {
+    if (value == null) {
+      this.attributes.remove(name);
+    } else {
+      this.attributes.put(name, value);
+    }
+  }
+
+  void rawSetRoot(@Nullable final Topic newRoot) {
+    this.root = newRoot;
+  }
+
+  /**
+   * Attach undo-redo history to the map, all next changes of the map and its topics will be recorded into the history.
+   *
+   * @param history history to record changes, null to stop recording
+   * @see MindMapHistory
+   * @since 1.5.2
+   */
+  public void setHistory(@Nullable final MindMapHistory history) {
+    this.locker.lock();
+    try {
+      this.history = history;
+    } finally {
+      this.locker.unlock();
+    }
+  }
+
+  /**
+   * Get attached undo-redo history.
+   *
+   * @return attached history or null
+   * @since 1.5.2
+   */
+  @Nullable
+  public MindMapHistory getHistory() {
+    return this.history;
+  }
+
+  boolean isRecording() {
+    return this.history != null || this.batchLog != null;
+  }
+
+  void record(@Nonnull final ModelChange change) {
+    final List<ModelChange> log = this.batchLog;
+    if (log != null) {
+      log.add(change);
+    } else {
+      final MindMapHistory theHistory = this.history;
+      if (theHistory != null) {
+        theHistory.record(change);
+      }
+    }
+  }
+
+  /**
+   * Start batch of changes. The map is locked by the current thread until end of the batch, changes made during
+   * the batch are logged and listeners get them by single event after commit of the outermost batch. Batches can be
+   * nested, nested batch can be committed or rolled back independently of the outer one.
+   * <p>
+   * Changes of topics are tracked only inside batch, if a batch makes more than {@value #MAX_TRACKED_CHANGES}
+   * changes or replaces root then the event doesn't contain details and notifies about change of the whole structure.
+   * Changes made out of batch are not tracked and listeners get only coarse notifications from map operations.
+   *
+   * @see #commit()
+   * @see #rollback()
+   * @since 1.5.2
+   */
+  public void beginBatch() {
+    this.locker.lock();
+    if (this.batchLog == null) {
+      this.batchLog = new ArrayList<>();
+      this.batchMarks = new ArrayList<>();
+    }
+    final List<TopicChange> tracked = this.trackedChanges;
+    this.batchMarks.add(new int[] {this.batchLog.size(), tracked == null ? 0 : tracked.size(), this.fullChangeTracked ? 1 : 0});
+  }
+
+  /**
+   * Check that there is started batch of changes.
+   *
+   * @return true if the current thread has started batch
+   * @since 1.5.2
+   */
+  public boolean isInBatch() {
+    return this.locker.isHeldByCurrentThread() && this.batchLog != null;
+  }
+
+  /**
+   * Get number of changes logged by started batches.
+   *
+   * @return number of logged elementary changes, 0 if there is no batch
+   * @since 1.5.2
+   */
+  public int getBatchChangeCount() {
+    final List<ModelChange> log = this.batchLog;
+    return log == null ? 0 : log.size();
+  }
+
+  /**
+   * Complete the last started batch. Completion of the outermost batch passes logged changes to attached history
+   * and sends collected changes to listeners.
+   *
+   * @throws IllegalStateException if there is no started batch
+   * @since 1.5.2
+   */
+  public void commit() {
+    assertBatchStarted();
+    final List<ModelChange> log = this.batchLog;
+    this.batchMarks.remove(this.batchMarks.size() - 1);
+    boolean full = false;
+    List<TopicChange> changes = null;
+    if (this.batchMarks.isEmpty()) {
+      this.batchLog = null;
+      this.batchMarks = null;
+      final MindMapHistory theHistory = this.history;
+      if (theHistory != null) {
+        for (final ModelChange c : log) {
+          theHistory.record(c);
+        }
+      }
+      full = this.fullChangeTracked;
+      changes = this.trackedChanges;
+      this.fullChangeTracked = false;
+      this.trackedChanges = null;
+    }
+    this.locker.unlock();
+    if (full || changes != null) {
+      fireTrackedChanges(full, changes);
+    }
+  }
+
+  /**
+   * Revert all changes made since start of the last batch and complete it. Changes are reverted through the log,
+   * without serialization of the map, listeners are not notified about reverted changes even if the batch had too
+   * many changes to track them.
+   *
+   * @throws IllegalStateException if there is no started batch
+   * @since 1.5.2
+   */
+  public void rollback() {
+    assertBatchStarted();
+    final List<ModelChange> log = this.batchLog;
+    final int[] mark = this.batchMarks.remove(this.batchMarks.size() - 1);
+    for (int i = log.size() - 1; i >= mark[0]; i--) {
+      log.remove(i).undo();
+    }
+    final List<TopicChange> tracked = this.trackedChanges;
+    if (tracked != null) {
+      while (tracked.size() > mark[1]) {
+        tracked.remove(tracked.size() - 1);
+      }
+      if (tracked.isEmpty()) {
+        this.trackedChanges = null;
+      }
+    }
+    this.fullChangeTracked = mark[2] != 0;
+    if (this.batchMarks.isEmpty()) {
+      this.batchLog = null;
+      this.batchMarks = null;
+    }
+    this.locker.unlock();
+  }
+
+  private void assertBatchStarted() {
+    if (!this.isInBatch()) {
+      throw new IllegalStateException("There is no started batch");
+    }
+  }
+
   public void resetPayload() {
     this.locker.lock();
     try {
@@ -511,7 +867,9 @@ public final class MindMap implements Serializable, Constants, Iterable<Topic> {
 
       clonedtopic.removeAttributeFromSubtree(ExtraTopic.TOPIC_UID_ATTR);
 
-      fireModelChanged();
+      if (!this.isInBatch()) {
+        fireModelChanged();
+      }
 
       return clonedtopic;
     } finally {
@@ -536,7 +894,7 @@ public final class MindMap implements Serializable, Constants, Iterable<Topic> {
         rootTopic.removeTopic(topic);
         result = rootTopic.removeAllLinksTo(topic);
       }
-      if (result) {
+      if (result && !this.isInBatch()) {
         fireModelChanged();
       }
 
@@ -648,7 +1006,7 @@ public final class MindMap implements Serializable, Constants, Iterable<Topic> {
       } finally {
         this.locker.unlock();
       }
-      if (changed) {
+      if (changed && !this.isInBatch()) {
         fireModelChanged();
       }
     }
@@ -667,7 +1025,7 @@ public final class MindMap implements Serializable, Constants, Iterable<Topic> {
       } finally {
         this.locker.unlock();
       }
-      if (changed) {
+      if (changed && !this.isInBatch()) {
         fireModelChanged();
       }
     }
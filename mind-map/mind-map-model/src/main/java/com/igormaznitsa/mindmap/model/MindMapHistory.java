@@ -0,0 +1,240 @@
+/*
+ * Copyright 2015-2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.mindmap.model;
+
+import com.igormaznitsa.meta.annotation.MustNotContainNull;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import javax.annotation.Nonnull;
+
+/**
+ * Operation based undo-redo history of mind map. Being attached to a mind map, the history records elementary
+ * changes of topics (insert, remove and move of children, text, attributes, code snippets and extras) and
+ * of the map (root and attributes). Recorded changes are grouped into steps by {@link #commit()}, a step is
+ * reverted and repeated by applying its changes directly, so that the model is not serialized.
+ * History is limited both by number of steps and by approximate memory size of kept changes,
+ * the oldest steps are dropped first.
+ * <b>All methods must be called from the thread which changes the model.</b>
+ *
+ * @see MindMap#setHistory(MindMapHistory)
+ * @since 1.5.2
+ */
+public final class MindMapHistory {
+
+  public static final int DEFAULT_MAX_STEPS = 1024;
+  public static final long DEFAULT_MAX_SIZE = 8L * 1024L * 1024L;
+
+  private final int maxSteps;
+  private final long maxSize;
+
+  private final List<ModelChange> pending = new ArrayList<>();
+  private final Deque<Step> undoSteps = new ArrayDeque<>();
+  private final Deque<Step> redoSteps = new ArrayDeque<>();
+
+  private long size;
+  private boolean applying;
+  private boolean someStepLost;
+
+  public MindMapHistory() {
+    this(DEFAULT_MAX_STEPS, DEFAULT_MAX_SIZE);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param maxSteps max number of undo steps, must be positive
+   * @param maxSize  max approximate size of kept changes in bytes, must be positive
+   */
+  public MindMapHistory(final int maxSteps, final long maxSize) {
+    if (maxSteps <= 0 || maxSize <= 0L) {
+      throw new IllegalArgumentException("Limits must be positive");
+    }
+    this.maxSteps = maxSteps;
+    this.maxSize = maxSize;
+  }
+
+  void record(@Nonnull final ModelChange change) {
+    if (!this.applying) {
+      this.pending.add(change);
+    }
+  }
+
+  /**
+   * Make undo step from changes recorded since the previous step. Redo steps are dropped if there is anything to commit.
+   *
+   * @return true if new undo step has been made, false if there were not any recorded change
+   */
+  public boolean commit() {
+    if (this.pending.isEmpty()) {
+      return false;
+    }
+    final Step step = new Step(this.pending.toArray(new ModelChange[0]));
+    this.pending.clear();
+    this.redoSteps.clear();
+    this.undoSteps.addLast(step);
+    this.size += step.size;
+    trim();
+    return true;
+  }
+
+  /**
+   * Make changes recorded since the previous step a part of the base state, so that they are not included into the next step. Changes are
+   * appended to the last undo step because applying of changes depends on positions of topics, if there is not any undo step then changes
+   * are just forgotten. Redo steps are dropped if there is anything recorded.
+   *
+   * @return true if there were recorded changes
+   */
+  public boolean rebase() {
+    if (this.pending.isEmpty()) {
+      return false;
+    }
+    this.redoSteps.clear();
+    final Step last = this.undoSteps.pollLast();
+    if (last != null) {
+      final ModelChange[] joined = Arrays.copyOf(last.changes, last.changes.length + this.pending.size());
+      for (int i = 0; i < this.pending.size(); i++) {
+        joined[last.changes.length + i] = this.pending.get(i);
+      }
+      final Step step = new Step(joined);
+      this.undoSteps.addLast(step);
+      this.size += step.size - last.size;
+      trim();
+    }
+    this.pending.clear();
+    return true;
+  }
+
+  private void trim() {
+    while (this.undoSteps.size() > 1 && (this.undoSteps.size() > this.maxSteps || this.size > this.maxSize)) {
+      this.size -= this.undoSteps.removeFirst().size;
+      this.someStepLost = true;
+    }
+  }
+
+  public boolean hasUndo() {
+    return !this.undoSteps.isEmpty() || !this.pending.isEmpty();
+  }
+
+  public boolean hasRedo() {
+    return !this.redoSteps.isEmpty();
+  }
+
+  /**
+   * Revert the last step. Not committed changes are committed as a step before.
+   *
+   * @return true if a step has been reverted
+   */
+  public boolean undo() {
+    commit();
+    final Step step = this.undoSteps.pollLast();
+    if (step == null) {
+      return false;
+    }
+    this.size -= step.size;
+    this.applying = true;
+    try {
+      for (int i = step.changes.length - 1; i >= 0; i--) {
+        step.changes[i].undo();
+      }
+    } finally {
+      this.applying = false;
+    }
+    this.redoSteps.addLast(step);
+    return true;
+  }
+
+  /**
+   * Repeat the last reverted step.
+   *
+   * @return true if a step has been repeated
+   */
+  public boolean redo() {
+    final Step step = this.redoSteps.pollLast();
+    if (step == null) {
+      return false;
+    }
+    this.applying = true;
+    try {
+      for (final ModelChange c : step.changes) {
+        c.redo();
+      }
+    } finally {
+      this.applying = false;
+    }
+    this.undoSteps.addLast(step);
+    this.size += step.size;
+    return true;
+  }
+
+  /**
+   * Remove all steps and recorded changes, also resets flag of lost steps.
+   */
+  public void clear() {
+    this.pending.clear();
+    this.undoSteps.clear();
+    this.redoSteps.clear();
+    this.size = 0L;
+    this.someStepLost = false;
+  }
+
+  /**
+   * Mark that the current state can't be reached through undo anymore, for instance after save.
+   */
+  public void markSomeStepLost() {
+    this.someStepLost = true;
+  }
+
+  /**
+   * Check that some state has been lost either because of history limits or because it has been marked.
+   *
+   * @return true if some state is lost
+   */
+  public boolean isSomeStepLost() {
+    return this.someStepLost;
+  }
+
+  /**
+   * Get approximate size of kept undo steps.
+   *
+   * @return size in bytes
+   */
+  public long getSize() {
+    return this.size;
+  }
+
+  public int getUndoStepCount() {
+    return this.undoSteps.size();
+  }
+
+  private static final class Step {
+
+    private final ModelChange[] changes;
+    private final long size;
+
+    private Step(@Nonnull @MustNotContainNull final ModelChange[] changes) {
+      this.changes = changes;
+      long total = 0L;
+      for (final ModelChange c : changes) {
+        total += c.estimateSize();
+      }
+      this.size = total;
+    }
+  }
+}
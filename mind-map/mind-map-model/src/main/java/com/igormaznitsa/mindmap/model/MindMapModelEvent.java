@@ -2,6 +2,8 @@ package com.igormaznitsa.mindmap.model;
 
 import com.igormaznitsa.meta.annotation.MustNotContainNull;
 import com.igormaznitsa.meta.common.utils.Assertions;
+import java.util.Collections;
+import java.util.List;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
@@ -9,11 +11,27 @@ public class MindMapModelEvent {
   private static final Topic[] EMPTY = new Topic[0];
   private final MindMap source;
   private final Topic[] path;
+  private final List<TopicChange> changes;
 
   public MindMapModelEvent(@Nonnull final MindMap source,
                            @Nullable @MustNotContainNull final Topic[] path) {
+    this(source, path, null);
+  }
+
+  /**
+   * Constructor of event with list of changes.
+   *
+   * @param source  source mind map
+   * @param path    path to the topic containing all changes
+   * @param changes list of changes in order of their making, null or empty if changes are unknown
+   * @since 1.5.2
+   */
+  public MindMapModelEvent(@Nonnull final MindMap source,
+                           @Nullable @MustNotContainNull final Topic[] path,
+                           @Nullable @MustNotContainNull final List<TopicChange> changes) {
     this.source = Assertions.assertNotNull(source);
     this.path = path == null ? EMPTY : path.clone();
+    this.changes = changes == null || changes.isEmpty() ? Collections.<TopicChange>emptyList() : Collections.unmodifiableList(changes);
   }
 
   @Nonnull
@@ -26,4 +44,26 @@ public class MindMapModelEvent {
   public Topic[] getPath() {
     return this.path.length == 0 ? this.path : this.path.clone();
   }
+
+  /**
+   * Get changes delivered by the event.
+   *
+   * @return list of changes in order of their making, empty list if changes are unknown and whole subtree of path should be reloaded
+   * @since 1.5.2
+   */
+  @Nonnull
+  @MustNotContainNull
+  public List<TopicChange> getChanges() {
+    return this.changes;
+  }
+
+  /**
+   * Check that changes of the event are unknown and the whole subtree of path should be reloaded.
+   *
+   * @return true if there is no information about changes
+   * @since 1.5.2
+   */
+  public boolean isFullChange() {
+    return this.changes.isEmpty();
+  }
 }
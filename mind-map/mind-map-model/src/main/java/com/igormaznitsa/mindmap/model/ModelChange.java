@@ -0,0 +1,275 @@
+/*
+ * Copyright 2015-2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.mindmap.model;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Elementary change of mind map model, keeps both old and new values so that it can be reverted and repeated.
+ * Changes are applied directly to fields of model objects without new recording and events.
+ * Changes of a step must be reverted in reverse order and repeated in direct order because
+ * child operations are index based.
+ *
+ * @since 1.5.2
+ */
+abstract class ModelChange {
+
+  private static final int OBJECT_SIZE = 32;
+
+  abstract void undo();
+
+  abstract void redo();
+
+  /**
+   * Get approximate size of memory occupied by the change, it is used to limit history.
+   *
+   * @return approximate size in bytes
+   */
+  int estimateSize() {
+    return OBJECT_SIZE;
+  }
+
+  private static int sizeOf(@Nullable final String text) {
+    return text == null ? 0 : OBJECT_SIZE + text.length() * 2;
+  }
+
+  private static int sizeOfSubtree(@Nonnull final Topic topic) {
+    int result = OBJECT_SIZE * 4 + sizeOf(topic.getText());
+    for (final Topic c : topic.getChildren()) {
+      result += sizeOfSubtree(c);
+    }
+    return result;
+  }
+
+  static final class ChildInserted extends ModelChange {
+
+    private final Topic parent;
+    private final int index;
+    private final Topic child;
+
+    ChildInserted(@Nonnull final Topic parent, final int index, @Nonnull final Topic child) {
+      this.parent = parent;
+      this.index = index;
+      this.child = child;
+    }
+
+    @Override
+    void undo() {
+      this.parent.rawChildren().remove(this.index);
+    }
+
+    @Override
+    void redo() {
+      this.parent.rawChildren().add(this.index, this.child);
+    }
+  }
+
+  static final class ChildRemoved extends ModelChange {
+
+    private final Topic parent;
+    private final int index;
+    private final Topic child;
+
+    ChildRemoved(@Nonnull final Topic parent, final int index, @Nonnull final Topic child) {
+      this.parent = parent;
+      this.index = index;
+      this.child = child;
+    }
+
+    @Override
+    void undo() {
+      this.parent.rawChildren().add(this.index, this.child);
+    }
+
+    @Override
+    void redo() {
+      this.parent.rawChildren().remove(this.index);
+    }
+
+    @Override
+    int estimateSize() {
+      return super.estimateSize() + sizeOfSubtree(this.child);
+    }
+  }
+
+  static final class ParentChanged extends ModelChange {
+
+    private final Topic topic;
+    private final Topic oldParent;
+    private final Topic newParent;
+
+    ParentChanged(@Nonnull final Topic topic, @Nullable final Topic oldParent, @Nullable final Topic newParent) {
+      this.topic = topic;
+      this.oldParent = oldParent;
+      this.newParent = newParent;
+    }
+
+    @Override
+    void undo() {
+      this.topic.rawSetParent(this.oldParent);
+    }
+
+    @Override
+    void redo() {
+      this.topic.rawSetParent(this.newParent);
+    }
+  }
+
+  static final class TextChanged extends ModelChange {
+
+    private final Topic topic;
+    private final String oldText;
+    private final String newText;
+
+    TextChanged(@Nonnull final Topic topic, @Nonnull final String oldText, @Nonnull final String newText) {
+      this.topic = topic;
+      this.oldText = oldText;
+      this.newText = newText;
+    }
+
+    @Override
+    void undo() {
+      this.topic.rawSetText(this.oldText);
+    }
+
+    @Override
+    void redo() {
+      this.topic.rawSetText(this.newText);
+    }
+
+    @Override
+    int estimateSize() {
+      return super.estimateSize() + sizeOf(this.oldText) + sizeOf(this.newText);
+    }
+  }
+
+  static final class AttributeChanged extends ModelChange {
+
+    private final Topic topic;
+    private final MindMap map;
+    private final boolean codeSnippet;
+    private final String name;
+    private final String oldValue;
+    private final String newValue;
+
+    /**
+     * Change of attribute or code snippet of topic.
+     */
+    AttributeChanged(@Nonnull final Topic topic, final boolean codeSnippet, @Nonnull final String name,
+                     @Nullable final String oldValue, @Nullable final String newValue) {
+      this.topic = topic;
+      this.map = null;
+      this.codeSnippet = codeSnippet;
+      this.name = name;
+      this.oldValue = oldValue;
+      this.newValue = newValue;
+    }
+
+    /**
+     * Change of mind map attribute.
+     */
+    AttributeChanged(@Nonnull final MindMap map, @Nonnull final String name,
+                     @Nullable final String oldValue, @Nullable final String newValue) {
+      this.topic = null;
+      this.map = map;
+      this.codeSnippet = false;
+      this.name = name;
+      this.oldValue = oldValue;
+      this.newValue = newValue;
+    }
+
+    private void apply(@Nullable final String value) {
+      if (this.map != null) {
+        this.map.rawSetAttribute(this.name, value);
+      } else {
+        this.topic.rawSetAttribute(this.codeSnippet, this.name, value);
+      }
+    }
+
+    @Override
+    void undo() {
+      apply(this.oldValue);
+    }
+
+    @Override
+    void redo() {
+      apply(this.newValue);
+    }
+
+    @Override
+    int estimateSize() {
+      return super.estimateSize() + sizeOf(this.name) + sizeOf(this.oldValue) + sizeOf(this.newValue);
+    }
+  }
+
+  static final class ExtraChanged extends ModelChange {
+
+    private final Topic topic;
+    private final Extra.ExtraType type;
+    private final Extra<?> oldValue;
+    private final Extra<?> newValue;
+
+    ExtraChanged(@Nonnull final Topic topic, @Nonnull final Extra.ExtraType type,
+                 @Nullable final Extra<?> oldValue, @Nullable final Extra<?> newValue) {
+      this.topic = topic;
+      this.type = type;
+      this.oldValue = oldValue;
+      this.newValue = newValue;
+    }
+
+    @Override
+    void undo() {
+      this.topic.rawSetExtra(this.type, this.oldValue);
+    }
+
+    @Override
+    void redo() {
+      this.topic.rawSetExtra(this.type, this.newValue);
+    }
+
+    @Override
+    int estimateSize() {
+      return super.estimateSize()
+          + (this.oldValue == null ? 0 : sizeOf(this.oldValue.getAsString()))
+          + (this.newValue == null ? 0 : sizeOf(this.newValue.getAsString()));
+    }
+  }
+
+  static final class RootChanged extends ModelChange {
+
+    private final MindMap map;
+    private final Topic oldRoot;
+    private final Topic newRoot;
+
+    RootChanged(@Nonnull final MindMap map, @Nullable final Topic oldRoot, @Nullable final Topic newRoot) {
+      this.map = map;
+      this.oldRoot = oldRoot;
+      this.newRoot = newRoot;
+    }
+
+    @Override
+    void undo() {
+      this.map.rawSetRoot(this.oldRoot);
+    }
+
+    @Override
+    void redo() {
+      this.map.rawSetRoot(this.newRoot);
+    }
+  }
+}
@@ -25,8 +25,13 @@ import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
 import com.igormaznitsa.mindmap.model.parser.MindMapLexer;
 import java.io.File;
 import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.io.Writer;
+import java.util.AbstractList;
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -37,6 +42,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.RandomAccess;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicLong;
@@ -49,22 +55,38 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
   private static final long serialVersionUID = -4642569244907433215L;
   private static final AtomicLong LOCALUID_GENERATOR = new AtomicLong();
   private static final Logger logger = LoggerFactory.getLogger(Topic.class);
-  private final EnumMap<Extra.ExtraType, Extra<?>> extras =
-          new EnumMap<>(Extra.ExtraType.class);
-  private final Map<Extra.ExtraType, Extra<?>> unmodifableExtras =
-      Collections.unmodifiableMap(this.extras);
-  private final Map<String, String> attributes =
-          new TreeMap<>(ModelUtils.STRING_COMPARATOR);
-  private final Map<String, String> unmodifableAttributes =
-      Collections.unmodifiableMap(this.attributes);
-  private final Map<String, String> codeSnippets =
-          new TreeMap<>(ModelUtils.STRING_COMPARATOR);
-  private final Map<String, String> unmodifableCodeSnippets =
-      Collections.unmodifiableMap(this.codeSnippets);
+  private static final Map<Extra.ExtraType, Extra<?>> NO_EXTRAS = Collections.emptyMap();
+  private static final Map<String, String> NO_STRINGS = Collections.emptyMap();
+  private static final List<Topic> NO_CHILDREN = Collections.emptyList();
+  // serialized form of previous versions, it is kept to exchange topics through clipboard with them
+  private static final ObjectStreamField[] serialPersistentFields = {
+      new ObjectStreamField("extras", EnumMap.class),
+      new ObjectStreamField("unmodifableExtras", Map.class),
+      new ObjectStreamField("attributes", Map.class),
+      new ObjectStreamField("unmodifableAttributes", Map.class),
+      new ObjectStreamField("codeSnippets", Map.class),
+      new ObjectStreamField("unmodifableCodeSnippets", Map.class),
+      new ObjectStreamField("children", List.class),
+      new ObjectStreamField("unmodifableChildren", List.class),
+      new ObjectStreamField("map", MindMap.class),
+      new ObjectStreamField("parent", Topic.class),
+      new ObjectStreamField("text", String.class)
+  };
+
+  // containers are created on the first put, shared empty ones are used until then
   @Nonnull
-  private final List<Topic> children = new ArrayList<>();
+  private Map<Extra.ExtraType, Extra<?>> extras = NO_EXTRAS;
   @Nonnull
-  private final List<Topic> unmodifableChildren = Collections.unmodifiableList(this.children);
+  private Map<String, String> attributes = NO_STRINGS;
+  @Nonnull
+  private Map<String, String> codeSnippets = NO_STRINGS;
+  @Nonnull
+  private List<Topic> children = NO_CHILDREN;
+  // live read-only views made on the first request, they follow replacement of shared empty containers
+  private transient List<Topic> unmodifableChildren;
+  private transient Map<Extra.ExtraType, Extra<?>> unmodifableExtras;
+  private transient Map<String, String> unmodifableAttributes;
+  private transient Map<String, String> unmodifableCodeSnippets;
   private final transient long localUID = LOCALUID_GENERATOR.getAndIncrement();
   @Nonnull
   private final MindMap map;
@@ -74,6 +96,8 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
   private volatile String text;
   @Nullable
   private transient Object payload;
+  @Nullable
+  private transient MindMap deserializedMap;
 
   /**
    * Constructor to build topic on base of another topic for another mind map.
@@ -87,15 +111,21 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
   public Topic(@Nonnull final MindMap mindMap, @Nonnull final Topic base,
                final boolean copyChildren) {
     this(mindMap, base.text);
-    this.attributes.putAll(base.attributes);
-    this.extras.putAll(base.extras);
-    this.codeSnippets.putAll(base.codeSnippets);
+    if (!base.attributes.isEmpty()) {
+      this.attributes = new CompactStringMap(base.attributes);
+    }
+    if (!base.extras.isEmpty()) {
+      this.extras = new EnumMap<>(base.extras);
+    }
+    if (!base.codeSnippets.isEmpty()) {
+      this.codeSnippets = new CompactStringMap(base.codeSnippets);
+    }
 
     if (copyChildren) {
       for (final Topic t : base.children) {
         final Topic clonedChildren = new Topic(mindMap, t, true);
         clonedChildren.parent = this;
-        this.children.add(clonedChildren);
+        this.mutableChildren().add(clonedChildren);
       }
     }
   }
@@ -109,7 +139,7 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
       if (parent.getMap() != map) {
         throw new IllegalArgumentException("Parent must belong to the same mind map");
       }
-      parent.children.add(this);
+      parent.insertChild(parent.children.size(), this);
     }
   }
 
@@ -120,7 +150,7 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
 
     for (final Extra<?> e : extras) {
       if (e != null) {
-        this.extras.put(e.getType(), e);
+        this.mutableExtras().put(e.getType(), e);
       }
     }
   }
@@ -197,7 +227,7 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
           break;
           case CODE_SNIPPET_END: {
             if (topic != null && codeSnippetlanguage != null && codeSnippetBody != null) {
-              topic.codeSnippets.put(codeSnippetlanguage.trim(), codeSnippetBody.toString());
+              topic.mutableCodeSnippets().put(codeSnippetlanguage.trim(), codeSnippetBody.toString());
             }
             codeSnippetlanguage = null;
             codeSnippetBody = null;
@@ -206,7 +236,7 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
           case ATTRIBUTE: {
             if (topic != null) {
               final String text = lexer.getTokenText().trim();
-              MindMap.fillMapByAttributes(text, topic.attributes);
+              MindMap.fillMapByAttributes(text, topic.mutableAttributes());
             }
             extraType = null;
           }
@@ -331,9 +361,49 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
     this.payload = value;
   }
 
+  private void writeObject(@Nonnull final ObjectOutputStream out) throws IOException {
+    final EnumMap<Extra.ExtraType, Extra<?>> extrasToWrite = new EnumMap<>(Extra.ExtraType.class);
+    extrasToWrite.putAll(this.extras);
+    final Map<String, String> attributesToWrite = new TreeMap<>(ModelUtils.STRING_COMPARATOR);
+    attributesToWrite.putAll(this.attributes);
+    final Map<String, String> codeSnippetsToWrite = new TreeMap<>(ModelUtils.STRING_COMPARATOR);
+    codeSnippetsToWrite.putAll(this.codeSnippets);
+    final List<Topic> childrenToWrite = new ArrayList<>(this.children);
+
+    final ObjectOutputStream.PutField fields = out.putFields();
+    fields.put("extras", extrasToWrite);
+    fields.put("unmodifableExtras", Collections.unmodifiableMap(extrasToWrite));
+    fields.put("attributes", attributesToWrite);
+    fields.put("unmodifableAttributes", Collections.unmodifiableMap(attributesToWrite));
+    fields.put("codeSnippets", codeSnippetsToWrite);
+    fields.put("unmodifableCodeSnippets", Collections.unmodifiableMap(codeSnippetsToWrite));
+    fields.put("children", childrenToWrite);
+    fields.put("unmodifableChildren", Collections.unmodifiableList(childrenToWrite));
+    fields.put("map", this.map);
+    fields.put("parent", this.parent);
+    fields.put("text", this.text);
+    out.writeFields();
+  }
+
+  @SuppressWarnings("unchecked")
+  private void readObject(@Nonnull final ObjectInputStream in) throws IOException, ClassNotFoundException {
+    final ObjectInputStream.GetField fields = in.readFields();
+    final Map<Extra.ExtraType, Extra<?>> readExtras = (Map<Extra.ExtraType, Extra<?>>) fields.get("extras", null);
+    final Map<String, String> readAttributes = (Map<String, String>) fields.get("attributes", null);
+    final Map<String, String> readCodeSnippets = (Map<String, String>) fields.get("codeSnippets", null);
+    final List<Topic> readChildren = (List<Topic>) fields.get("children", null);
+    this.extras = readExtras == null ? NO_EXTRAS : readExtras;
+    this.attributes = readAttributes == null ? NO_STRINGS : readAttributes;
+    this.codeSnippets = readCodeSnippets == null ? NO_STRINGS : readCodeSnippets;
+    this.children = readChildren == null ? NO_CHILDREN : readChildren;
+    this.deserializedMap = (MindMap) fields.get("map", null);
+    this.parent = (Topic) fields.get("parent", null);
+    this.text = GetUtils.ensureNonNull((String) fields.get("text", null), "");
+  }
+
   @Nonnull
   private Object readResolve() {
-    return new Topic(this.map, this, true);
+    return new Topic(this.deserializedMap, this, true);
   }
 
   @Nonnull
@@ -397,7 +467,12 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
   @Nonnull
   @MustNotContainNull
   public List<Topic> getChildren() {
-    return this.unmodifableChildren;
+    List<Topic> result = this.unmodifableChildren;
+    if (result == null) {
+      result = new ChildrenView();
+      this.unmodifableChildren = result;
+    }
+    return result;
   }
 
   public int getNumberOfExtras() {
@@ -406,34 +481,64 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
 
   @Nonnull
   public Map<Extra.ExtraType, Extra<?>> getExtras() {
-    return this.unmodifableExtras;
+    Map<Extra.ExtraType, Extra<?>> result = this.unmodifableExtras;
+    if (result == null) {
+      result = new LiveMapView<Extra.ExtraType, Extra<?>>() {
+        @Override
+        @Nonnull
+        Map<Extra.ExtraType, Extra<?>> target() {
+          return extras;
+        }
+      };
+      this.unmodifableExtras = result;
+    }
+    return result;
   }
 
   @Nonnull
   @MustNotContainNull
   public Extra<?>[] extrasToArray() {
-    final Collection<Extra<?>> collection = this.unmodifableExtras.values();
+    final Collection<Extra<?>> collection = this.extras.values();
     return collection.toArray(new Extra<?>[0]);
   }
 
   @Nonnull
   public Map<String, String> getAttributes() {
-    return this.unmodifableAttributes;
+    Map<String, String> result = this.unmodifableAttributes;
+    if (result == null) {
+      result = new LiveMapView<String, String>() {
+        @Override
+        @Nonnull
+        Map<String, String> target() {
+          return attributes;
+        }
+      };
+      this.unmodifableAttributes = result;
+    }
+    return result;
   }
 
   @Nonnull
   public Map<String, String> getCodeSnippets() {
-    return this.unmodifableCodeSnippets;
+    Map<String, String> result = this.unmodifableCodeSnippets;
+    if (result == null) {
+      result = new LiveMapView<String, String>() {
+        @Override
+        @Nonnull
+        Map<String, String> target() {
+          return codeSnippets;
+        }
+      };
+      this.unmodifableCodeSnippets = result;
+    }
+    return result;
   }
 
   public boolean setAttribute(@Nonnull final String name, @Nullable final String value) {
     this.map.lock();
     try {
-      if (value == null) {
-        return this.attributes.remove(name) != null;
-      } else {
-        return !value.equals(this.attributes.put(name, value));
-      }
+      final String old = changeAttribute(false, name, value);
+      return value == null ? old != null : !value.equals(old);
     } finally {
       this.map.unlock();
     }
@@ -442,11 +547,8 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
   public boolean setCodeSnippet(@Nonnull final String language, @Nullable final String text) {
     this.map.lock();
     try {
-      if (text == null) {
-        return this.codeSnippets.remove(language) != null;
-      } else {
-        return !text.equals(this.codeSnippets.put(language, text));
-      }
+      final String old = changeAttribute(true, language, text);
+      return text == null ? old != null : !text.equals(old);
     } finally {
       this.map.unlock();
     }
@@ -467,7 +569,10 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
     try {
       final Topic theParent = this.parent;
       if (theParent != null) {
-        theParent.children.remove(this);
+        final int index = theParent.children.indexOf(this);
+        if (index >= 0) {
+          theParent.removeChild(index);
+        }
       }
     } finally {
       this.map.unlock();
@@ -487,7 +592,16 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
   public void setText(@Nonnull final String text) {
     this.map.lock();
     try {
+      final String old = this.text;
       this.text = Assertions.assertNotNull(text);
+      if (!old.equals(text)) {
+        if (this.map.isRecording()) {
+          this.map.record(new ModelChange.TextChanged(this, old, text));
+        }
+        if (this.map.isTracking()) {
+          this.map.track(TopicChange.text(this));
+        }
+      }
     } finally {
       this.map.unlock();
     }
@@ -506,7 +620,7 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
     try {
       boolean result = false;
       for (final Extra.ExtraType e : Assertions.assertDoesntContainNull(types)) {
-        final Extra<?> removed = this.extras.remove(e);
+        final Extra<?> removed = changeExtra(e, null);
         if (removed != null) {
           removed.detachedToTopic(this);
         }
@@ -522,7 +636,7 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
     this.map.lock();
     try {
       for (final Extra<?> e : Assertions.assertDoesntContainNull(extras)) {
-        this.extras.put(e.getType(), e);
+        changeExtra(e.getType(), e);
         e.attachedToTopic(this);
       }
     } finally {
@@ -537,8 +651,8 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
       if (theParent != null) {
         int thatIndex = theParent.children.indexOf(this);
         if (thatIndex > 0) {
-          theParent.children.remove(thatIndex);
-          theParent.children.add(0, this);
+          theParent.removeChild(thatIndex);
+          theParent.insertChild(0, this);
           return true;
         }
       }
@@ -566,8 +680,8 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
       if (theParent != null) {
         int thatIndex = theParent.children.indexOf(this);
         if (thatIndex >= 0 && thatIndex != theParent.children.size() - 1) {
-          theParent.children.remove(thatIndex);
-          theParent.children.add(this);
+          theParent.removeChild(thatIndex);
+          theParent.insertChild(theParent.children.size(), this);
           return true;
         }
       }
@@ -590,8 +704,8 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
         }
 
         if (thatIndex >= 0 && thisIndex >= 0) {
-          theParent.children.remove(this);
-          theParent.children.add(thatIndex, this);
+          theParent.removeChild(thisIndex);
+          theParent.insertChild(thatIndex, this);
         }
       }
     } finally {
@@ -628,8 +742,8 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
         }
 
         if (thatIndex >= 0 && thisIndex >= 0) {
-          theParent.children.remove(this);
-          theParent.children.add(thatIndex + 1, this);
+          theParent.removeChild(thisIndex);
+          theParent.insertChild(thatIndex + 1, this);
         }
       }
     } finally {
@@ -751,11 +865,10 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
     if (topic == null) {
       return false;
     }
-    final Iterator<Topic> iterator = this.children.iterator();
-    while (iterator.hasNext()) {
-      final Topic t = iterator.next();
+    for (int i = 0; i < this.children.size(); i++) {
+      final Topic t = this.children.get(i);
       if (t == topic) {
-        iterator.remove();
+        removeChild(i);
         return true;
       } else if (t.removeTopic(topic)) {
         return true;
@@ -765,7 +878,13 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
   }
 
   public void removeAllChildren() {
-    this.children.clear();
+    if (this.map.isRecording() || this.map.isTracking()) {
+      for (int i = this.children.size() - 1; i >= 0; i--) {
+        removeChild(i);
+      }
+    } else {
+      this.children.clear();
+    }
   }
 
   public boolean moveToNewParent(@Nullable final Topic newParent) {
@@ -778,10 +897,13 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
 
       final Topic theParent = this.parent;
       if (theParent != null) {
-        theParent.children.remove(this);
+        final int index = theParent.children.indexOf(this);
+        if (index >= 0) {
+          theParent.removeChild(index);
+        }
       }
-      newParent.children.add(this);
-      this.parent = newParent;
+      newParent.insertChild(newParent.children.size(), this);
+      changeParent(newParent);
 
       return true;
     } finally {
@@ -858,11 +980,17 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
     this.map.lock();
     try {
       if (extras == null || extras.length == 0) {
-        this.extras.clear();
+        if (this.map.isRecording() || this.map.isTracking()) {
+          for (final Extra.ExtraType t : Extra.ExtraType.values()) {
+            changeExtra(t, null);
+          }
+        } else {
+          this.extras.clear();
+        }
       } else {
         for (final Extra<?> e : extras) {
           if (e != null) {
-            this.extras.remove(e.getType());
+            changeExtra(e.getType(), null);
           }
         }
       }
@@ -943,8 +1071,12 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
       for (final Topic c : this.children) {
         c.makeCopy(newMindMap, result);
       }
-      result.attributes.putAll(this.attributes);
-      result.codeSnippets.putAll(this.codeSnippets);
+      if (!this.attributes.isEmpty()) {
+        result.mutableAttributes().putAll(this.attributes);
+      }
+      if (!this.codeSnippets.isEmpty()) {
+        result.mutableCodeSnippets().putAll(this.codeSnippets);
+      }
 
       return result;
     } finally {
@@ -959,7 +1091,7 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
     this.map.lock();
     try {
       for (final Extra.ExtraType t : type) {
-        result |= this.extras.remove(t) != null;
+        result |= changeExtra(t, null) != null;
       }
       for (final Topic c : this.children) {
         result |= c.removeExtraFromSubtree(type);
@@ -976,7 +1108,7 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
     this.map.lock();
     try {
       for (final String t : names) {
-        result |= this.attributes.remove(t) != null;
+        result |= changeAttribute(false, t, null) != null;
       }
       for (final Topic c : this.children) {
         result |= c.removeAttributeFromSubtree(names);
@@ -993,7 +1125,7 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
     if (this.extras.containsKey(Extra.ExtraType.FILE)) {
       final ExtraFile fileLink = (ExtraFile) this.extras.get(Extra.ExtraType.FILE);
       if (fileLink.isSameOrHasParent(baseFolder, file)) {
-        result = this.extras.remove(Extra.ExtraType.FILE) != null;
+        result = changeExtra(Extra.ExtraType.FILE, null) != null;
       }
     }
     for (final Topic c : this.children) {
@@ -1018,8 +1150,7 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
 
       if (replacement != null) {
         result = true;
-        this.extras.remove(Extra.ExtraType.FILE);
-        this.extras.put(Extra.ExtraType.FILE, replacement);
+        changeExtra(Extra.ExtraType.FILE, replacement);
       }
     }
 
@@ -1044,6 +1175,130 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
     return false;
   }
 
+  @Nonnull
+  @MustNotContainNull
+  List<Topic> rawChildren() {
+    return this.mutableChildren();
+  }
+
+  @Nonnull
+  @MustNotContainNull
+  private List<Topic> mutableChildren() {
+    if (this.children == NO_CHILDREN) {
+      this.children = new ArrayList<>(4);
+    }
+    return this.children;
+  }
+
+  @Nonnull
+  private Map<Extra.ExtraType, Extra<?>> mutableExtras() {
+    if (this.extras == NO_EXTRAS) {
+      this.extras = new EnumMap<>(Extra.ExtraType.class);
+    }
+    return this.extras;
+  }
+
+  @Nonnull
+  private Map<String, String> mutableAttributes() {
+    if (this.attributes == NO_STRINGS) {
+      this.attributes = new CompactStringMap();
+    }
+    return this.attributes;
+  }
+
+  @Nonnull
+  private Map<String, String> mutableCodeSnippets() {
+    if (this.codeSnippets == NO_STRINGS) {
+      this.codeSnippets = new CompactStringMap();
+    }
+    return this.codeSnippets;
+  }
+
+  void rawSetParent(@Nullable final Topic parent) {
+    this.parent = parent;
+  }
+
+  void rawSetText(@Nonnull final String text) {
+    this.text = text;
+  }
+
+  void rawSetAttribute(final boolean codeSnippet, @Nonnull final String name, @Nullable final String value) {
+    if (value == null) {
+      (codeSnippet ? this.codeSnippets : this.attributes).remove(name);
+    } else {
+      (codeSnippet ? this.mutableCodeSnippets() : this.mutableAttributes()).put(name, value);
+    }
+  }
+
+  void rawSetExtra(@Nonnull final Extra.ExtraType type, @Nullable final Extra<?> value) {
+    if (value == null) {
+      this.extras.remove(type);
+    } else {
+      this.mutableExtras().put(type, value);
+    }
+  }
+
+  private void insertChild(final int index, @Nonnull final Topic child) {
+    this.mutableChildren().add(index, child);
+    if (this.map.isRecording()) {
+      this.map.record(new ModelChange.ChildInserted(this, index, child));
+    }
+    if (this.map.isTracking()) {
+      this.map.track(TopicChange.inserted(this, index, child));
+    }
+  }
+
+  private void removeChild(final int index) {
+    final Topic removed = this.children.remove(index);
+    if (this.map.isRecording()) {
+      this.map.record(new ModelChange.ChildRemoved(this, index, removed));
+    }
+    if (this.map.isTracking()) {
+      this.map.track(TopicChange.removed(this, index, removed));
+    }
+  }
+
+  private void changeParent(@Nullable final Topic newParent) {
+    final Topic old = this.parent;
+    this.parent = newParent;
+    if (old != newParent && this.map.isRecording()) {
+      this.map.record(new ModelChange.ParentChanged(this, old, newParent));
+    }
+  }
+
+  @Nullable
+  private Extra<?> changeExtra(@Nonnull final Extra.ExtraType type, @Nullable final Extra<?> value) {
+    final Extra<?> old = value == null ? this.extras.remove(type) : this.mutableExtras().put(type, value);
+    if (old != value) {
+      if (this.map.isRecording()) {
+        this.map.record(new ModelChange.ExtraChanged(this, type, old, value));
+      }
+      if (this.map.isTracking()) {
+        this.map.track(TopicChange.extra(this, type));
+      }
+    }
+    return old;
+  }
+
+  @Nullable
+  private String changeAttribute(final boolean codeSnippet, @Nonnull final String name, @Nullable final String value) {
+    final String old;
+    if (value == null) {
+      old = (codeSnippet ? this.codeSnippets : this.attributes).remove(name);
+    } else {
+      old = (codeSnippet ? this.mutableCodeSnippets() : this.mutableAttributes()).put(name, value);
+    }
+    if (old == null ? value != null : !old.equals(value)) {
+      if (this.map.isRecording()) {
+        this.map.record(new ModelChange.AttributeChanged(this, codeSnippet, name, old, value));
+      }
+      if (this.map.isTracking()) {
+        this.map.track(TopicChange.attribute(this, codeSnippet, name));
+      }
+    }
+    return old;
+  }
+
   @Override
   @Nonnull
   public Iterator<Topic> iterator() {
@@ -1115,4 +1370,51 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
     }
     return result;
   }
+
+  private final class ChildrenView extends AbstractList<Topic> implements RandomAccess {
+
+    @Override
+    @Nonnull
+    public Topic get(final int index) {
+      return children.get(index);
+    }
+
+    @Override
+    public int size() {
+      return children.size();
+    }
+  }
+
+  private abstract static class LiveMapView<K, V> extends AbstractMap<K, V> {
+
+    @Nonnull
+    abstract Map<K, V> target();
+
+    @Override
+    public int size() {
+      return target().size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+      return target().isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(@Nullable final Object key) {
+      return target().containsKey(key);
+    }
+
+    @Override
+    @Nullable
+    public V get(@Nullable final Object key) {
+      return target().get(key);
+    }
+
+    @Override
+    @Nonnull
+    public Set<Entry<K, V>> entrySet() {
+      return Collections.unmodifiableMap(target()).entrySet();
+    }
+  }
 }
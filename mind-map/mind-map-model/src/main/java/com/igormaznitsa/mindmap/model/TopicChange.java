@@ -0,0 +1,171 @@
+/*
+ * Copyright 2015-2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.mindmap.model;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Description of a single change of topic, changes are delivered to listeners in
+ * {@link MindMapModelEvent#getChanges()} in the order they were made, so that indexes are actual
+ * for the moment of change. Changes are tracked only inside batch, see {@link MindMap#beginBatch()}.
+ *
+ * @see MindMapModelEvent
+ * @since 1.5.2
+ */
+@Immutable
+public final class TopicChange {
+
+  private final Type type;
+  private final Topic topic;
+  private final Topic parent;
+  private final int index;
+  private final Topic oldParent;
+  private final int oldIndex;
+  private final String name;
+
+  private TopicChange(@Nonnull final Type type, @Nonnull final Topic topic, @Nullable final Topic parent, final int index,
+                      @Nullable final Topic oldParent, final int oldIndex, @Nullable final String name) {
+    this.type = type;
+    this.topic = topic;
+    this.parent = parent;
+    this.index = index;
+    this.oldParent = oldParent;
+    this.oldIndex = oldIndex;
+    this.name = name;
+  }
+
+  @Nonnull
+  static TopicChange inserted(@Nonnull final Topic parent, final int index, @Nonnull final Topic topic) {
+    return new TopicChange(Type.INSERTED, topic, parent, index, null, -1, null);
+  }
+
+  @Nonnull
+  static TopicChange removed(@Nonnull final Topic parent, final int index, @Nonnull final Topic topic) {
+    return new TopicChange(Type.REMOVED, topic, null, -1, parent, index, null);
+  }
+
+  @Nonnull
+  static TopicChange moved(@Nonnull final TopicChange removed, @Nonnull final TopicChange inserted) {
+    return new TopicChange(Type.MOVED, inserted.topic, inserted.parent, inserted.index, removed.oldParent, removed.oldIndex, null);
+  }
+
+  @Nonnull
+  static TopicChange text(@Nonnull final Topic topic) {
+    return new TopicChange(Type.TEXT, topic, topic.getParent(), -1, null, -1, null);
+  }
+
+  @Nonnull
+  static TopicChange attribute(@Nonnull final Topic topic, final boolean codeSnippet, @Nonnull final String name) {
+    return new TopicChange(codeSnippet ? Type.CODE_SNIPPET : Type.ATTRIBUTE, topic, topic.getParent(), -1, null, -1, name);
+  }
+
+  @Nonnull
+  static TopicChange extra(@Nonnull final Topic topic, @Nonnull final Extra.ExtraType type) {
+    return new TopicChange(Type.EXTRA, topic, topic.getParent(), -1, null, -1, type.name());
+  }
+
+  @Nonnull
+  public Type getType() {
+    return this.type;
+  }
+
+  /**
+   * Get changed topic.
+   *
+   * @return changed, inserted, removed or moved topic
+   */
+  @Nonnull
+  public Topic getTopic() {
+    return this.topic;
+  }
+
+  /**
+   * Get parent of the topic after change.
+   *
+   * @return parent of topic, null for removed topic or root
+   */
+  @Nullable
+  public Topic getParent() {
+    return this.parent;
+  }
+
+  /**
+   * Get index of topic in its new parent.
+   *
+   * @return index for inserted and moved topic, -1 otherwise
+   */
+  public int getIndex() {
+    return this.index;
+  }
+
+  /**
+   * Get parent of the topic before change.
+   *
+   * @return old parent for removed and moved topic, null otherwise
+   */
+  @Nullable
+  public Topic getOldParent() {
+    return this.oldParent;
+  }
+
+  /**
+   * Get index of topic in its old parent.
+   *
+   * @return old index for removed and moved topic, -1 otherwise
+   */
+  public int getOldIndex() {
+    return this.oldIndex;
+  }
+
+  /**
+   * Get name of changed attribute, code snippet language or extra type.
+   *
+   * @return name or null for structure and text changes
+   */
+  @Nullable
+  public String getName() {
+    return this.name;
+  }
+
+  public boolean isStructural() {
+    return this.type == Type.INSERTED || this.type == Type.REMOVED || this.type == Type.MOVED;
+  }
+
+  boolean isSameValueChange(@Nonnull final TopicChange other) {
+    return this.type == other.type && this.topic == other.topic
+        && (this.name == null ? other.name == null : this.name.equals(other.name));
+  }
+
+  @Override
+  @Nonnull
+  public String toString() {
+    return "TopicChange(" + this.type + ", '" + this.topic.getText() + "', index=" + this.index + ", oldIndex=" + this.oldIndex
+        + (this.name == null ? "" : ", name=" + this.name) + ')';
+  }
+
+  public enum Type {
+    INSERTED,
+    REMOVED,
+    MOVED,
+    TEXT,
+    ATTRIBUTE,
+    CODE_SNIPPET,
+    EXTRA
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2015-2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.mindmap.model;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Pool of canonical instances of short strings used as names and values of attributes. Topics of big maps
+ * have the same few colors, alignments and flags, so that keeping single instance of every value saves a lot
+ * of memory and allows caches to find parsed values fast. Pooled strings are weakly referenced and they are
+ * removed by GC when not used anymore. The pool is based on concurrent map so that parallel loading and search
+ * of maps don't wait each other.
+ *
+ * @since 1.5.2
+ */
+@ThreadSafe
+public final class ValuePool {
+
+  /**
+   * Max length of pooled string, longer strings are rarely repeated.
+   */
+  public static final int MAX_POOLED_LENGTH = 64;
+
+  private static final ConcurrentMap<Object, PooledValue> POOL = new ConcurrentHashMap<>();
+  private static final ReferenceQueue<String> COLLECTED = new ReferenceQueue<>();
+
+  private ValuePool() {
+  }
+
+  /**
+   * Get canonical instance of string.
+   *
+   * @param value string to be pooled, can be null
+   * @return canonical instance equal to the string, the same string if it is too long, null for null
+   */
+  @Nullable
+  public static String intern(@Nullable final String value) {
+    if (value == null || value.length() > MAX_POOLED_LENGTH) {
+      return value;
+    }
+    removeCollected();
+    final PooledValue found = POOL.get(new Probe(value));
+    String result = found == null ? null : found.get();
+    while (result == null) {
+      final PooledValue pooled = new PooledValue(value);
+      final PooledValue prev = POOL.putIfAbsent(pooled, pooled);
+      if (prev == null) {
+        result = value;
+      } else {
+        result = prev.get();
+        if (result == null) {
+          POOL.remove(prev, prev);
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Get number of pooled strings.
+   *
+   * @return number of strings in the pool, it can include strings already collected by GC
+   */
+  public static int size() {
+    removeCollected();
+    return POOL.size();
+  }
+
+  private static void removeCollected() {
+    Reference<? extends String> ref;
+    while ((ref = COLLECTED.poll()) != null) {
+      POOL.remove(ref, ref);
+    }
+  }
+
+  private static final class PooledValue extends WeakReference<String> {
+
+    private final int hash;
+
+    private PooledValue(@Nonnull final String value) {
+      super(value, COLLECTED);
+      this.hash = value.hashCode();
+    }
+
+    @Override
+    public int hashCode() {
+      return this.hash;
+    }
+
+    @Override
+    public boolean equals(@Nullable final Object that) {
+      if (this == that) {
+        return true;
+      }
+      if (that instanceof PooledValue) {
+        final String value = this.get();
+        return value != null && value.equals(((PooledValue) that).get());
+      }
+      return false;
+    }
+  }
+
+  private static final class Probe {
+
+    private final String value;
+
+    private Probe(@Nonnull final String value) {
+      this.value = value;
+    }
+
+    @Override
+    public int hashCode() {
+      return this.value.hashCode();
+    }
+
+    @Override
+    public boolean equals(@Nullable final Object that) {
+      return that instanceof PooledValue && this.value.equals(((PooledValue) that).get());
+    }
+  }
+}
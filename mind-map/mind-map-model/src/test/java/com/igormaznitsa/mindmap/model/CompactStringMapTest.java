@@ -0,0 +1,86 @@
+/*
+ * Copyright 2015-2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.mindmap.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import org.junit.Test;
+
+public class CompactStringMapTest {
+
+  @Test
+  public void testSameBehaviourAsTreeMap() {
+    final Map<String, String> etalon = new TreeMap<>(ModelUtils.STRING_COMPARATOR);
+    final CompactStringMap map = new CompactStringMap();
+
+    final String[] keys = {"fillColor", "borderColor", "textColor", "collapsed", "Align", "align", "_id"};
+    for (int i = 0; i < keys.length; i++) {
+      assertEquals(etalon.put(keys[i], "v" + i), map.put(keys[i], "v" + i));
+    }
+    assertEquals(etalon.put("textColor", "changed"), map.put("textColor", "changed"));
+    assertEquals(etalon.remove("collapsed"), map.remove("collapsed"));
+    assertNull(map.remove("unknown"));
+
+    assertEquals(etalon, map);
+    assertEquals(new ArrayList<>(etalon.keySet()), new ArrayList<>(map.keySet()));
+    assertEquals(etalon.hashCode(), map.hashCode());
+
+    final Iterator<Map.Entry<String, String>> iterator = map.entrySet().iterator();
+    while (iterator.hasNext()) {
+      if (iterator.next().getKey().startsWith("_")) {
+        iterator.remove();
+      }
+    }
+    etalon.remove("_id");
+    assertEquals(etalon, map);
+
+    final CompactStringMap other = new CompactStringMap();
+    other.put(new String("fillColor"), "x");
+    assertSame("fillColor", other.keySet().iterator().next());
+
+    map.clear();
+    assertTrue(map.isEmpty());
+  }
+
+  @Test
+  public void testValuesArePooled() {
+    final CompactStringMap first = new CompactStringMap();
+    final CompactStringMap second = new CompactStringMap();
+    first.put("borderColor", new String("#FF00AA"));
+    second.put(new String("borderColor"), new String("#FF00AA"));
+    assertSame(first.get("borderColor"), second.get("borderColor"));
+    assertSame(first.keySet().iterator().next(), second.keySet().iterator().next());
+
+    final StringBuilder longValue = new StringBuilder();
+    for (int i = 0; i <= ValuePool.MAX_POOLED_LENGTH; i++) {
+      longValue.append('a');
+    }
+    final String text = longValue.toString();
+    first.put("note", text);
+    second.put("note", new String(text));
+    assertEquals(first.get("note"), second.get("note"));
+    assertNotSame(first.get("note"), second.get("note"));
+  }
+}
@@ -16,6 +16,7 @@
 package com.igormaznitsa.mindmap.model;
 
 import java.io.File;
+import java.util.regex.Pattern;
 import org.junit.Test;
 import static org.junit.Assert.*;
 
@@ -97,4 +98,14 @@ public class ExtraFileTest {
     
     assertTrue(new ExtraFile(MMapURI.makeFromFilePath(base, "chunga/changa.txt", null)).isSameOrHasParent(base, new MMapURI("file:///some/base/chunga/changa.txt")));
   }
+
+  @Test
+  public void testContainsPattern_BaseFolderChanged() throws Exception {
+    final ExtraFile file = new ExtraFile("chunga/changa.txt");
+    final Pattern pattern = Pattern.compile("first");
+    assertTrue(file.containsPattern(new File("/first/base"), pattern));
+    assertTrue(file.containsPattern(new File("/first/base"), pattern));
+    assertFalse(file.containsPattern(new File("/second/base"), pattern));
+    assertTrue(file.containsPattern(new File("/first/base"), pattern));
+  }
 }
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2015-2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.mindmap.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.regex.Pattern;
+import javax.annotation.Nonnull;
+import org.junit.Test;
+
+public class MappedMindMapTest {
+
+  @Nonnull
+  private static MindMap makeMap() {
+    final MindMap map = new MindMap(true);
+    final Topic root = map.getRoot();
+    root.setText("Архитектура");
+    root.setAttribute("fillColor", "#FF0000");
+    final Topic first = new Topic(map, root, "first", new ExtraNote("secret note"));
+    first.setAttribute("fillColor", "#FF0000");
+    first.setCodeSnippet("sh", "echo hello");
+    new Topic(map, first, "first.1");
+    new Topic(map, first, "first.2");
+    new Topic(map, root, "second", new ExtraTopic("first.uid"));
+    map.setAttribute("showJumps", "true");
+    return map;
+  }
+
+  @Nonnull
+  private static MappedMindMap toMapped(@Nonnull final MindMap map) throws IOException {
+    final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    MappedMindMap.write(map, buffer);
+    return new MappedMindMap(ByteBuffer.wrap(buffer.toByteArray()));
+  }
+
+  @Nonnull
+  private static List<String> texts(@Nonnull final Iterator<?> iterator) {
+    final List<String> result = new ArrayList<>();
+    while (iterator.hasNext()) {
+      final Object next = iterator.next();
+      result.add(next instanceof Topic ? ((Topic) next).getText() : ((MappedTopic) next).getText());
+    }
+    return result;
+  }
+
+  @Test
+  public void testStructureAndValues() throws Exception {
+    final MindMap map = makeMap();
+    final MappedMindMap mapped = toMapped(map);
+
+    assertEquals(5, mapped.getTopicCount());
+    assertEquals("true", mapped.getAttribute("showJumps"));
+    assertNull(mapped.getAttribute("unknown"));
+
+    final MappedTopic root = mapped.getRoot();
+    assertTrue(root.isRoot());
+    assertEquals("Архитектура", root.getText());
+    assertEquals("#FF0000", root.getAttribute("fillColor"));
+    assertEquals(2, root.getChildCount());
+
+    final MappedTopic first = root.getChildAt(0);
+    assertEquals(root, first.getParent());
+    assertEquals("first", first.getText());
+    assertEquals("echo hello", first.getCodeSnippet("sh"));
+    assertEquals("secret note", first.getExtras().get(Extra.ExtraType.NOTE).getValue());
+    assertEquals(2, first.getPath().length);
+    assertFalse(first.getChildAt(1).hasChildren());
+
+    assertEquals(texts(map.iterator()), texts(mapped.iterator()));
+    assertEquals(texts(map.getRoot().getChildren().get(0).iterator()), texts(first.iterator()));
+    assertEquals(texts(map.getRoot().iterator()), texts(root.iterator()));
+  }
+
+  @Test
+  public void testFindNext() throws Exception {
+    final MappedMindMap mapped = toMapped(makeMap());
+    final Pattern pattern = Pattern.compile("first");
+
+    final MappedTopic found1 = mapped.findNext(null, null, pattern, true, null);
+    assertEquals("first", found1.getText());
+    final MappedTopic found2 = mapped.findNext(null, found1, pattern, true, null);
+    assertEquals("first.1", found2.getText());
+    assertEquals("first.2", mapped.findNext(null, found2, pattern, true, null).getText());
+
+    final MappedTopic note = mapped.findNext(null, null, Pattern.compile("secret"), false, EnumSet.of(Extra.ExtraType.NOTE));
+    assertEquals("first", note.getText());
+    assertNull(mapped.findNext(null, note, Pattern.compile("secret"), false, EnumSet.of(Extra.ExtraType.NOTE)));
+  }
+
+  @Test
+  public void testMemoryMappedFileAndCopyBack() throws Exception {
+    final MindMap map = makeMap();
+    final File file = File.createTempFile("mmd", ".mmdb");
+    file.deleteOnExit();
+    MappedMindMap.write(map, file);
+
+    final MappedMindMap mapped = MappedMindMap.open(file);
+    assertEquals(map.write(new StringWriter()).toString(), mapped.toMindMap().write(new StringWriter()).toString());
+  }
+
+  @Test
+  public void testWriteTopics() throws Exception {
+    final MindMap map = makeMap();
+    final Topic first = map.getRoot().getChildren().get(0);
+    final Topic second = map.getRoot().getChildren().get(1);
+
+    final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    MappedMindMap.write(new Topic[] {second, first.getChildren().get(1), first, second}, buffer);
+    final MappedMindMap mapped = MappedMindMap.wrap(buffer.toByteArray());
+
+    assertEquals(4, mapped.getTopicCount());
+    assertNull(mapped.getAttribute("showJumps"));
+    final List<MappedTopic> topLevel = mapped.getTopLevelTopics();
+    assertEquals(2, topLevel.size());
+    assertEquals("second", topLevel.get(0).getText());
+    assertEquals(topLevel.get(0), mapped.getRoot());
+    assertTrue(topLevel.get(1).isRoot());
+    assertEquals(texts(first.iterator()), texts(topLevel.get(1).iterator()));
+    assertEquals("first.uid", topLevel.get(0).getExtras().get(Extra.ExtraType.TOPIC).getValue());
+  }
+
+  @Test
+  public void testEmptyMap() throws Exception {
+    final MappedMindMap mapped = toMapped(new MindMap(false));
+    assertNull(mapped.getRoot());
+    assertEquals(0, mapped.getTopicCount());
+    assertTrue(mapped.getTopLevelTopics().isEmpty());
+    assertFalse(mapped.iterator().hasNext());
+    assertNull(mapped.findNext(null, null, Pattern.compile("."), true, null));
+  }
+
+  @Test(expected = IOException.class)
+  public void testWrongImage() throws Exception {
+    new MappedMindMap(ByteBuffer.wrap(new byte[64]));
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2015-2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.mindmap.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class MindMapHistoryTest {
+
+  private static MindMap makeMap() {
+    final MindMap map = new MindMap(true);
+    map.getRoot().setText("root");
+    final Topic t1 = map.getRoot().makeChild("t1", null);
+    t1.makeChild("t11", null);
+    map.getRoot().makeChild("t2", null).setExtra(new ExtraNote("note"));
+    map.setAttribute("showJumps", "true");
+    return map;
+  }
+
+  @Test
+  public void testUndoRedoRestoresModel() throws Exception {
+    final MindMap map = makeMap();
+    final String initial = map.packToString();
+
+    final MindMapHistory history = new MindMapHistory();
+    map.setHistory(history);
+    assertFalse(history.hasUndo());
+
+    final Topic t1 = map.getRoot().getChildren().get(0);
+    final Topic t2 = map.getRoot().getChildren().get(1);
+
+    t1.setText("changed");
+    t2.setExtra(new ExtraNote("encrypted", true, "hint"));
+    t2.setCodeSnippet("sh", "ls");
+    assertTrue(history.commit());
+
+    t1.getChildren().get(0).moveToNewParent(t2);
+    t2.makeFirst();
+    assertTrue(history.commit());
+
+    map.removeTopic(t1);
+    map.setAttribute("showJumps", null);
+    map.getRoot().makeChild("t3", t2).setAttribute("fillColor", "#FF0000");
+    assertTrue(history.commit());
+    assertFalse(history.commit());
+
+    final String changed = map.packToString();
+
+    assertEquals(3, history.getUndoStepCount());
+    assertTrue(history.undo());
+    assertTrue(history.undo());
+    assertTrue(history.undo());
+    assertFalse(history.undo());
+    assertEquals(initial, map.packToString());
+    assertSame(map.getRoot(), map.getRoot().getChildren().get(0).getParent());
+    assertSame(t1, t1.getChildren().get(0).getParent());
+
+    assertTrue(history.redo());
+    assertTrue(history.redo());
+    assertTrue(history.redo());
+    assertFalse(history.redo());
+    assertEquals(changed, map.packToString());
+
+    assertTrue(history.undo());
+    map.getRoot().setText("new root");
+    assertTrue(history.commit());
+    assertFalse(history.hasRedo());
+  }
+
+  @Test
+  public void testHistoryLimits() {
+    final MindMap map = makeMap();
+    final MindMapHistory history = new MindMapHistory(3, Long.MAX_VALUE);
+    map.setHistory(history);
+
+    for (int i = 0; i < 5; i++) {
+      map.getRoot().setText("text" + i);
+      history.commit();
+    }
+    assertEquals(3, history.getUndoStepCount());
+    assertTrue(history.isSomeStepLost());
+
+    final MindMapHistory small = new MindMapHistory(100, 1024L);
+    map.setHistory(small);
+    map.getRoot().setText(new String(new char[400]));
+    small.commit();
+    map.getRoot().setText(new String(new char[500]));
+    small.commit();
+    assertEquals(1, small.getUndoStepCount());
+    assertTrue(small.getSize() <= 4096L);
+
+    map.setHistory(null);
+    map.getRoot().setText("not recorded");
+    assertFalse(small.commit());
+  }
+
+  @Test
+  public void testRebaseKeepsChangesOutOfNextStep() throws Exception {
+    final MindMap map = makeMap();
+    final MindMapHistory history = new MindMapHistory();
+    map.setHistory(history);
+
+    map.getRoot().makeChild("new", null);
+    assertTrue(history.rebase());
+    assertFalse(history.hasUndo());
+    assertFalse(history.rebase());
+
+    map.getRoot().setText("changed root");
+    assertTrue(history.commit());
+
+    final Topic added = map.getRoot().makeChild("added", map.getRoot().getChildren().get(0));
+    assertTrue(history.rebase());
+    assertEquals(1, history.getUndoStepCount());
+
+    added.setText("edited");
+    assertTrue(history.commit());
+    final String afterSecondStep = map.packToString();
+
+    assertTrue(history.undo());
+    assertEquals("added", added.getText());
+    assertTrue(map.getRoot().getChildren().contains(added));
+
+    assertTrue(history.undo());
+    assertFalse(map.getRoot().getChildren().contains(added));
+    assertEquals("root", map.getRoot().getText());
+    assertEquals(3, map.getRoot().getChildren().size());
+
+    assertTrue(history.redo());
+    assertTrue(map.getRoot().getChildren().contains(added));
+    assertTrue(history.redo());
+    assertEquals(afterSecondStep, map.packToString());
+  }
+}
@@ -19,6 +19,7 @@ import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 
@@ -29,7 +30,9 @@ import java.io.ObjectOutputStream;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 import java.util.regex.Pattern;
 import org.junit.Test;
 
@@ -196,4 +199,217 @@ public class MindMapTest {
     final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(buffer.toByteArray()));
     assertTrue(in.readObject() instanceof MindMap);
   }
+
+  @Test
+  public void testFindAll_SameAsFindNext() {
+    final MindMap map = new MindMap(true);
+    for (int i = 0; i < 50; i++) {
+      final Topic branch = new Topic(map, map.getRoot(), "branch" + i);
+      for (int j = 0; j < 50; j++) {
+        new Topic(map, branch, "leaf" + (i * j % 7), j % 5 == 0 ? new ExtraNote("note" + j) : null);
+      }
+    }
+    final Pattern pattern = Pattern.compile("3");
+    final Set<Extra.ExtraType> extras = EnumSet.of(Extra.ExtraType.NOTE);
+
+    final List<Topic> expected = new ArrayList<>();
+    Topic found = map.findNext(null, null, pattern, true, extras);
+    while (found != null) {
+      expected.add(found);
+      found = map.findNext(null, found, pattern, true, extras);
+    }
+
+    assertTrue(expected.size() > 100);
+    assertEquals(expected, map.findAll(null, pattern, true, extras, null));
+    assertTrue(map.findAll(null, Pattern.compile("nothing"), true, extras, null).isEmpty());
+  }
+
+  @Test
+  public void testModelEvents_OnePerBatch() throws Exception {
+    final MindMap map = new MindMap(new StringReader("---\n# root\n## t1\n## t2\n### t21\n"));
+    final Topic root = map.getRoot();
+    final Topic t1 = root.getChildren().get(0);
+    final Topic t2 = root.getChildren().get(1);
+    final Topic t21 = t2.getChildren().get(0);
+
+    final List<MindMapModelEvent> structure = new ArrayList<>();
+    final List<MindMapModelEvent> nodes = new ArrayList<>();
+    map.addMindMapModelEventListener(new MindMapModelEventListener() {
+      @Override
+      public void onMindMapStructureChanged(final MindMapModelEvent event) {
+        structure.add(event);
+      }
+
+      @Override
+      public void onMindMapNodesChanged(final MindMapModelEvent event) {
+        nodes.add(event);
+      }
+    });
+
+    t21.setText("changed");
+    map.lock();
+    try {
+      t21.setText("changed again");
+    } finally {
+      map.unlock();
+    }
+    assertTrue(nodes.isEmpty());
+    assertTrue(structure.isEmpty());
+
+    map.valueForPathChanged(t21.getPath(), "changed by path");
+    assertEquals(1, nodes.size());
+    assertTrue(nodes.get(0).isFullChange());
+    assertArrayEquals(t21.getPath(), nodes.get(0).getPath());
+    nodes.clear();
+
+    map.beginBatch();
+    try {
+      t21.setText("text");
+      t21.setText("text2");
+      t21.setAttribute("fillColor", "#FF0000");
+      t21.moveToNewParent(t1);
+      t2.makeChild("t22", null);
+      assertTrue(nodes.isEmpty());
+      assertTrue(structure.isEmpty());
+    } finally {
+      map.commit();
+    }
+
+    assertTrue(nodes.isEmpty());
+    assertEquals(1, structure.size());
+    final MindMapModelEvent event = structure.get(0);
+    assertFalse(event.isFullChange());
+    assertArrayEquals(root.getPath(), event.getPath());
+    final List<TopicChange> changes = event.getChanges();
+    assertEquals(4, changes.size());
+    assertEquals(TopicChange.Type.TEXT, changes.get(0).getType());
+    assertEquals(TopicChange.Type.ATTRIBUTE, changes.get(1).getType());
+    assertEquals("fillColor", changes.get(1).getName());
+
+    final TopicChange moved = changes.get(2);
+    assertEquals(TopicChange.Type.MOVED, moved.getType());
+    assertSame(t21, moved.getTopic());
+    assertSame(t2, moved.getOldParent());
+    assertEquals(0, moved.getOldIndex());
+    assertSame(t1, moved.getParent());
+    assertEquals(0, moved.getIndex());
+
+    assertEquals(TopicChange.Type.INSERTED, changes.get(3).getType());
+    assertSame(t2, changes.get(3).getParent());
+    assertEquals(0, changes.get(3).getIndex());
+
+    structure.clear();
+    map.cloneTopic(t1, true);
+    assertEquals(1, structure.size());
+    assertTrue(structure.get(0).isFullChange());
+    assertArrayEquals(root.getPath(), structure.get(0).getPath());
+
+    structure.clear();
+    map.beginBatch();
+    map.removeTopic(t2);
+    map.commit();
+    assertEquals(1, structure.size());
+    assertEquals(TopicChange.Type.REMOVED, structure.get(0).getChanges().get(0).getType());
+    assertEquals(1, structure.get(0).getChanges().get(0).getOldIndex());
+  }
+
+  @Test
+  public void testBatch_RollbackOfOverflowedBatch() throws Exception {
+    final MindMap map = new MindMap(new StringReader("---\n# root\n## t1\n"));
+    final Topic root = map.getRoot();
+    final List<MindMapModelEvent> events = new ArrayList<>();
+    map.addMindMapModelEventListener(new MindMapModelEventListener() {
+      @Override
+      public void onMindMapStructureChanged(final MindMapModelEvent event) {
+        events.add(event);
+      }
+
+      @Override
+      public void onMindMapNodesChanged(final MindMapModelEvent event) {
+        events.add(event);
+      }
+    });
+
+    map.beginBatch();
+    root.makeChild("outer", null);
+    map.beginBatch();
+    for (int i = 0; i < 5000; i++) {
+      root.makeChild("inner" + i, null);
+    }
+    map.rollback();
+    map.commit();
+
+    assertEquals(1, events.size());
+    assertFalse(events.get(0).isFullChange());
+    assertEquals(1, events.get(0).getChanges().size());
+
+    events.clear();
+    map.beginBatch();
+    for (int i = 0; i < 5000; i++) {
+      root.makeChild("rolled" + i, null);
+    }
+    map.rollback();
+    assertTrue(events.isEmpty());
+  }
+
+  @Test
+  public void testBatch_CommitAndRollback() throws Exception {
+    final MindMap map = new MindMap(new StringReader("---\n# root\n## t1\n## t2\n### t21\n"));
+    final String initial = map.packToString();
+    final MindMapHistory history = new MindMapHistory();
+    map.setHistory(history);
+
+    final List<MindMapModelEvent> events = new ArrayList<>();
+    map.addMindMapModelEventListener(new MindMapModelEventListener() {
+      @Override
+      public void onMindMapStructureChanged(final MindMapModelEvent event) {
+        events.add(event);
+      }
+
+      @Override
+      public void onMindMapNodesChanged(final MindMapModelEvent event) {
+        events.add(event);
+      }
+    });
+
+    final Topic root = map.getRoot();
+    final Topic t2 = root.getChildren().get(1);
+
+    map.beginBatch();
+    assertTrue(map.isInBatch());
+    for (int i = 0; i < 1000; i++) {
+      root.makeChild("new" + i, null).setAttribute("fillColor", "#FF0000");
+    }
+    t2.setText("changed");
+    map.removeTopic(t2.getChildren().get(0));
+    assertEquals(2002, map.getBatchChangeCount());
+    map.rollback();
+    assertFalse(map.isInBatch());
+    assertTrue(events.isEmpty());
+    assertEquals(initial, map.packToString());
+    assertFalse(history.commit());
+
+    map.beginBatch();
+    t2.setText("outer");
+    map.beginBatch();
+    root.makeChild("inner", null);
+    map.rollback();
+    root.makeChild("kept", null);
+    map.commit();
+    assertFalse(map.isInBatch());
+
+    assertEquals(1, events.size());
+    assertEquals(2, events.get(0).getChanges().size());
+    assertEquals(3, root.getChildren().size());
+    assertEquals("kept", root.getChildren().get(2).getText());
+
+    assertTrue(history.commit());
+    assertTrue(history.undo());
+    assertEquals(initial, map.packToString());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testBatch_CommitWithoutBegin() {
+    new MindMap(true).commit();
+  }
 }
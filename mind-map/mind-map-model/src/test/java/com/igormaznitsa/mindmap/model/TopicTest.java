@@ -16,15 +16,25 @@
 
 package com.igormaznitsa.mindmap.model;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 
 import com.igormaznitsa.mindmap.model.parser.MindMapLexer;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.ObjectStreamField;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.net.URI;
+import java.util.List;
+import java.util.Map;
 import java.util.regex.Pattern;
 import org.junit.Test;
 
@@ -391,4 +401,86 @@ public class TopicTest {
         ((ExtraNote) parsed.getRoot().getExtras().get(Extra.ExtraType.NOTE)).getValue());
   }
 
+  @Test
+  public void testCollectionViewsAreCachedAndLive() {
+    final MindMap map = new MindMap(true);
+    final Topic topic = new Topic(map, map.getRoot(), "topic");
+
+    final List<Topic> children = topic.getChildren();
+    final Map<Extra.ExtraType, Extra<?>> extras = topic.getExtras();
+    final Map<String, String> attributes = topic.getAttributes();
+    final Map<String, String> snippets = topic.getCodeSnippets();
+    assertTrue(children.isEmpty());
+    assertTrue(extras.isEmpty());
+    assertTrue(attributes.isEmpty());
+    assertTrue(snippets.isEmpty());
+
+    final Topic child = new Topic(map, topic, "child");
+    topic.setExtra(new ExtraNote("note"));
+    topic.setAttribute("fillColor", "#FF0000");
+    topic.setCodeSnippet("sh", "echo");
+
+    assertSame(children, topic.getChildren());
+    assertSame(extras, topic.getExtras());
+    assertSame(attributes, topic.getAttributes());
+    assertSame(snippets, topic.getCodeSnippets());
+
+    assertEquals(1, children.size());
+    assertSame(child, children.get(0));
+    assertEquals("note", extras.get(Extra.ExtraType.NOTE).getValue());
+    assertEquals("#FF0000", attributes.get("fillColor"));
+    assertEquals("echo", snippets.get("sh"));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testCollectionViewsAreReadOnly() {
+    final MindMap map = new MindMap(true);
+    map.getRoot().setAttribute("fillColor", "#FF0000");
+    map.getRoot().getAttributes().entrySet().iterator().next().setValue("#00FF00");
+  }
+
+  @Test
+  public void testSerializedFormOfPreviousVersions() {
+    final ObjectStreamClass descriptor = ObjectStreamClass.lookup(Topic.class);
+    assertEquals(-4642569244907433215L, descriptor.getSerialVersionUID());
+    final StringBuilder fields = new StringBuilder();
+    for (final ObjectStreamField f : descriptor.getFields()) {
+      fields.append(f.getName()).append(':').append(f.getTypeString()).append(';');
+    }
+    assertEquals("attributes:Ljava/util/Map;;children:Ljava/util/List;;codeSnippets:Ljava/util/Map;;"
+        + "extras:Ljava/util/EnumMap;;map:Lcom/igormaznitsa/mindmap/model/MindMap;;parent:Lcom/igormaznitsa/mindmap/model/Topic;;"
+        + "text:Ljava/lang/String;;unmodifableAttributes:Ljava/util/Map;;unmodifableChildren:Ljava/util/List;;"
+        + "unmodifableCodeSnippets:Ljava/util/Map;;unmodifableExtras:Ljava/util/Map;;", fields.toString());
+  }
+
+  @Test
+  public void testSerializationRoundTrip() throws Exception {
+    // topics are placed into clipboard as detached ones of a map without root
+    final MindMap map = new MindMap(false);
+    final Topic topic = new Topic(map, null, "topic", new ExtraNote("note"));
+    topic.setAttribute("fillColor", "#FF0000");
+    topic.setCodeSnippet("Java", "System.exit(0);");
+    new Topic(map, topic, "child");
+    final Topic empty = new Topic(map, null, "empty");
+
+    final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    try (final ObjectOutputStream out = new ObjectOutputStream(buffer)) {
+      out.writeObject(new Topic[] {topic, empty});
+    }
+    final Topic[] restored;
+    try (final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(buffer.toByteArray()))) {
+      restored = (Topic[]) in.readObject();
+    }
+
+    assertEquals("topic", restored[0].getText());
+    assertEquals("note", restored[0].getExtras().get(Extra.ExtraType.NOTE).getAsString());
+    assertEquals("#FF0000", restored[0].getAttribute("fillColor"));
+    assertEquals("System.exit(0);", restored[0].getCodeSnippet("Java"));
+    assertEquals(1, restored[0].getChildren().size());
+    assertEquals("child", restored[0].getChildren().get(0).getText());
+    assertSame(restored[0], restored[0].getChildren().get(0).getParent());
+    assertEquals("empty", restored[1].getText());
+    assertTrue(restored[1].getAttributes().isEmpty());
+    assertArrayEquals(new Topic[0], restored[1].getChildren().toArray());
+  }
 }
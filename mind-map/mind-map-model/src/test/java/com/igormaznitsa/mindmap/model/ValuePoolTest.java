@@ -0,0 +1,76 @@
+/*
+ * Copyright 2015-2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.mindmap.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+
+public class ValuePoolTest {
+
+  @Test
+  public void testIntern() {
+    assertNull(ValuePool.intern(null));
+    final String value = ValuePool.intern(new String("#FFAA00"));
+    assertSame(value, ValuePool.intern(new String("#FFAA00")));
+
+    final StringBuilder buffer = new StringBuilder();
+    for (int i = 0; i <= ValuePool.MAX_POOLED_LENGTH; i++) {
+      buffer.append('a');
+    }
+    final String tooLong = buffer.toString();
+    assertSame(tooLong, ValuePool.intern(tooLong));
+  }
+
+  @Test
+  public void testInternFromManyThreads() throws Exception {
+    final ExecutorService service = Executors.newFixedThreadPool(8);
+    try {
+      final List<Future<String[]>> results = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        results.add(service.submit(new Callable<String[]>() {
+          @Override
+          public String[] call() {
+            final String[] result = new String[1000];
+            for (int i = 0; i < result.length; i++) {
+              result[i] = ValuePool.intern(new String("value" + i));
+            }
+            return result;
+          }
+        }));
+      }
+      final String[] first = results.get(0).get();
+      for (final Future<String[]> f : results) {
+        final String[] next = f.get();
+        assertEquals(first.length, next.length);
+        for (int i = 0; i < first.length; i++) {
+          assertSame(first[i], next[i]);
+        }
+      }
+    } finally {
+      service.shutdownNow();
+    }
+  }
+}
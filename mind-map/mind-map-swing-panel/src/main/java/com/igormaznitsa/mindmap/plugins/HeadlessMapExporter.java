@@ -0,0 +1,128 @@
+/*
+ * Copyright 2015-2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.mindmap.plugins;
+
+import com.igormaznitsa.meta.annotation.MustNotContainNull;
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.igormaznitsa.mindmap.plugins.api.AbstractExporter;
+import com.igormaznitsa.mindmap.swing.panel.MindMapPanelConfig;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Entry point to export mind maps without any mind map panel, plugin context and UI.
+ * It drives registered exporters which support headless mode and can be used concurrently from several threads, every call works with its own snapshot of the mind map.
+ *
+ * @see AbstractExporter#doesSupportHeadlessExport()
+ * @since 1.5.2
+ */
+@ThreadSafe
+public final class HeadlessMapExporter {
+
+  private final MindMapPluginRegistry registry;
+
+  public HeadlessMapExporter() {
+    this(MindMapPluginRegistry.getInstance());
+  }
+
+  public HeadlessMapExporter(@Nonnull final MindMapPluginRegistry registry) {
+    this.registry = registry;
+  }
+
+  /**
+   * Get all registered exporters which can work in headless mode.
+   *
+   * @return list of exporters, must not be null
+   */
+  @Nonnull
+  @MustNotContainNull
+  public List<AbstractExporter> findExporters() {
+    final List<AbstractExporter> result = new ArrayList<>();
+    for (final AbstractExporter e : this.registry.findFor(AbstractExporter.class)) {
+      if (e.doesSupportHeadlessExport()) {
+        result.add(e);
+      }
+    }
+    return Collections.unmodifiableList(result);
+  }
+
+  /**
+   * Find registered headless exporter for its mnemonic.
+   *
+   * @param mnemonic mnemonic of exporter, must not be null
+   * @return found exporter or null if not found or it doesn't support headless mode
+   */
+  @Nullable
+  public AbstractExporter findExporter(@Nonnull final String mnemonic) {
+    final AbstractExporter result = this.registry.findExporterForMnemonic(mnemonic);
+    return result == null || !result.doesSupportHeadlessExport() ? null : result;
+  }
+
+  /**
+   * Export mind map through exporter found for mnemonic.
+   *
+   * @param mnemonic mnemonic of exporter, must not be null
+   * @param map      mind map to be exported, must not be null
+   * @param config   configuration to be used for export, must not be null
+   * @param options  exporter options, must not be null
+   * @param out      output stream, must not be null and it will not be closed
+   * @throws IOException              it will be thrown if any transport error
+   * @throws IllegalArgumentException if there is not any headless exporter for the mnemonic
+   */
+  public void export(@Nonnull final String mnemonic, @Nonnull final MindMap map, @Nonnull final MindMapPanelConfig config, @Nonnull final Map<String, String> options, @Nonnull final OutputStream out) throws IOException {
+    final AbstractExporter exporter = findExporter(mnemonic);
+    if (exporter == null) {
+      throw new IllegalArgumentException("Can't find headless exporter for mnemonic: " + mnemonic);
+    }
+    export(exporter, map, config, options, out);
+  }
+
+  /**
+   * Export mind map through exporter. The mind map is copied under its lock so that it can be changed by other threads after the call.
+   *
+   * @param exporter exporter to be used, must not be null
+   * @param map      mind map to be exported, must not be null
+   * @param config   configuration to be used for export, must not be null
+   * @param options  exporter options, must not be null
+   * @param out      output stream, must not be null and it will not be closed
+   * @throws IOException              it will be thrown if any transport error
+   * @throws IllegalArgumentException if the exporter doesn't support headless mode
+   */
+  public void export(@Nonnull final AbstractExporter exporter, @Nonnull final MindMap map, @Nonnull final MindMapPanelConfig config, @Nonnull final Map<String, String> options, @Nonnull final OutputStream out) throws IOException {
+    if (!exporter.doesSupportHeadlessExport()) {
+      throw new IllegalArgumentException("Exporter doesn't support headless mode: " + exporter.getClass().getName());
+    }
+
+    final MindMap snapshot;
+    map.lock();
+    try {
+      snapshot = new MindMap(map);
+    } finally {
+      map.unlock();
+    }
+
+    exporter.doExport(snapshot, new MindMapPanelConfig(config, false), Collections.unmodifiableMap(options), out);
+    out.flush();
+  }
+}
@@ -17,17 +17,22 @@
 package com.igormaznitsa.mindmap.plugins.api;
 
 import com.igormaznitsa.mindmap.model.Extra;
+import com.igormaznitsa.mindmap.model.MindMap;
 import com.igormaznitsa.mindmap.model.Topic;
 import com.igormaznitsa.mindmap.model.logger.Logger;
 import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
 import com.igormaznitsa.mindmap.plugins.PopUpSection;
+import com.igormaznitsa.mindmap.swing.panel.MindMapPanelConfig;
 import com.igormaznitsa.mindmap.swing.panel.Texts;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.text.FieldPosition;
 import java.text.Format;
+import java.text.ParsePosition;
 import java.text.SimpleDateFormat;
+import java.util.Map;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.swing.Icon;
@@ -41,8 +46,8 @@ import javax.swing.JMenuItem;
  */
 public abstract class AbstractExporter extends AbstractPopupMenuItem implements HasMnemonic {
 
-  protected static final Format DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd");
-  protected static final Format TIME_FORMAT = new SimpleDateFormat("HH:mm:ss z");
+  protected static final Format DATE_FORMAT = new ThreadSafeFormat("yyyy-MM-dd");
+  protected static final Format TIME_FORMAT = new ThreadSafeFormat("HH:mm:ss z");
   private static final Logger LOGGER = LoggerFactory.getLogger(AbstractExporter.class);
 
   @Override
@@ -116,6 +121,33 @@ public abstract class AbstractExporter extends AbstractPopupMenuItem implements
 
   public abstract void doExport(@Nonnull final PluginContext context, @Nullable final JComponent options, @Nullable final OutputStream out) throws IOException;
 
+  /**
+   * Check that the exporter can work without any mind map panel and plugin context.
+   *
+   * @return true if {@link #doExport(MindMap, MindMapPanelConfig, Map, OutputStream)} is supported, false otherwise
+   * @see #doExport(MindMap, MindMapPanelConfig, Map, OutputStream)
+   * @since 1.5.2
+   */
+  public boolean doesSupportHeadlessExport() {
+    return false;
+  }
+
+  /**
+   * Export mind map without any UI, panel and dialogs. The method must not change state of the exporter and can be called concurrently from several threads.
+   *
+   * @param map     mind map to be exported, must not be null and must not be changed during export
+   * @param config  configuration to be used for export, must not be null
+   * @param options exporter options in the same format as provided by {@link HasOptions}, must not be null
+   * @param out     output stream to write result, must not be null and it will not be closed
+   * @throws IOException                   it will be thrown if any error
+   * @throws UnsupportedOperationException if the exporter doesn't support headless mode
+   * @see #doesSupportHeadlessExport()
+   * @since 1.5.2
+   */
+  public void doExport(@Nonnull final MindMap map, @Nonnull final MindMapPanelConfig config, @Nonnull final Map<String, String> options, @Nonnull final OutputStream out) throws IOException {
+    throw new UnsupportedOperationException("Exporter doesn't support headless mode: " + this.getClass().getName());
+  }
+
   /**
    * Export data into clipboard.
    *
@@ -134,4 +166,31 @@ public abstract class AbstractExporter extends AbstractPopupMenuItem implements
   @Nonnull
   public abstract Icon getIcon(@Nonnull final PluginContext context, @Nullable final Topic activeTopic);
 
+  /**
+   * Date format which can be shared between threads, every thread uses its own formatter instance.
+   */
+  private static final class ThreadSafeFormat extends Format {
+
+    private static final long serialVersionUID = -2837729283722384633L;
+
+    private final transient ThreadLocal<SimpleDateFormat> formatter;
+
+    private ThreadSafeFormat(@Nonnull final String pattern) {
+      super();
+      this.formatter = ThreadLocal.withInitial(() -> new SimpleDateFormat(pattern));
+    }
+
+    @Override
+    @Nonnull
+    public StringBuffer format(@Nonnull final Object obj, @Nonnull final StringBuffer toAppendTo, @Nonnull final FieldPosition pos) {
+      return this.formatter.get().format(obj, toAppendTo, pos);
+    }
+
+    @Override
+    @Nullable
+    public Object parseObject(@Nonnull final String source, @Nonnull final ParsePosition pos) {
+      return this.formatter.get().parseObject(source, pos);
+    }
+  }
+
 }
@@ -18,16 +18,20 @@ package com.igormaznitsa.mindmap.plugins.attributes.images;
 
 import com.igormaznitsa.meta.annotation.MustNotContainNull;
 import com.igormaznitsa.mindmap.model.MMapURI;
+import com.igormaznitsa.mindmap.model.MindMap;
 import com.igormaznitsa.mindmap.model.Topic;
 import com.igormaznitsa.mindmap.model.logger.Logger;
 import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
 import com.igormaznitsa.mindmap.plugins.PopUpSection;
 import com.igormaznitsa.mindmap.plugins.api.AbstractPopupMenuItem;
 import com.igormaznitsa.mindmap.plugins.api.PluginContext;
+import com.igormaznitsa.mindmap.swing.panel.MindMapPanel;
+import com.igormaznitsa.mindmap.swing.panel.utils.ImageProcessingPipeline;
 import com.igormaznitsa.mindmap.swing.panel.utils.PathStore;
 import com.igormaznitsa.mindmap.swing.panel.utils.Utils;
 import com.igormaznitsa.mindmap.swing.services.IconID;
 import com.igormaznitsa.mindmap.swing.services.ImageIconServiceProvider;
+import java.awt.Cursor;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.Image;
@@ -37,8 +41,15 @@ import java.awt.datatransfer.Transferable;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -71,6 +82,7 @@ public class ImagePopUpMenuPlugin extends AbstractPopupMenuItem {
 
   };
   private static final PathStore PATH_STORE = new PathStore();
+  private static final Map<MindMapPanel, ImageProcessingPipeline.Job> ACTIVE_JOBS = new WeakHashMap<>();
   private static int lastSelectedImportIndex = 0;
 
   @Override
@@ -113,13 +125,30 @@ public class ImagePopUpMenuPlugin extends AbstractPopupMenuItem {
 
               if (selectedItem.get() == 0) {
                 try {
-                  final String rescaledImageAsBase64 = Utils.rescaleImageAndEncodeAsBase64((Image) transferable.getTransferData(DataFlavor.imageFlavor), Utils.getMaxImageSize());
-                  final String filePath = null;
-                  setAttribute(context, activeTopic, rescaledImageAsBase64, filePath, null);
-                  context.getPanel().doNotifyModelChanged(true);
-                } catch (final IllegalArgumentException ex) {
-                  context.getDialogProvider().msgError(null, BUNDLE.getString("Images.Plugin.Error"));
-                  LOGGER.error("Can't import from clipboard image", ex); //NOI18N
+                  final Image clipboardImage = (Image) transferable.getTransferData(DataFlavor.imageFlavor);
+                  final Topic[] targets = findTargetTopics(context, activeTopic);
+                  startProcessing(context, ImageProcessingPipeline.getInstance().process(() -> clipboardImage, Utils.getMaxImageSize(), new ProcessingListener(context) {
+                    @Override
+                    protected void onImageReady(@Nonnull final String rescaledImageAsBase64) {
+                      final Topic[] aliveTargets = findTopicsInModel(context, targets);
+                      if (aliveTargets.length == 0) {
+                        return;
+                      }
+                      final String filePath = null;
+                      setAttribute(aliveTargets, rescaledImageAsBase64, filePath, null);
+                      context.getPanel().doNotifyModelChanged(true);
+                    }
+
+                    @Override
+                    protected void onError(@Nonnull final Throwable error) {
+                      context.getDialogProvider().msgError(null, BUNDLE.getString("Images.Plugin.Error"));
+                      if (error instanceof IllegalArgumentException) {
+                        LOGGER.error("Can't import from clipboard image", error); //NOI18N
+                      } else {
+                        LOGGER.error("Unexpected error during image import from clipboard", error); //NOI18N
+                      }
+                    }
+                  }));
                 } catch (final Exception ex) {
                   context.getDialogProvider().msgError(null, BUNDLE.getString("Images.Plugin.Error"));
                   LOGGER.error("Unexpected error during image import from clipboard", ex); //NOI18N
@@ -135,25 +164,35 @@ public class ImagePopUpMenuPlugin extends AbstractPopupMenuItem {
             final File selected = PATH_STORE.put(context.getPanel().getUuid().toString(),
                 context.getDialogProvider().msgOpenFileDialog(context.getPanel(), context, ImagePopUpMenuPlugin.class.getName(), BUNDLE.getString("Images.Plugin.Load.DialogTitle"), PATH_STORE.find(context, context.getPanel().getUuid().toString()), true, new FileFilter[] {IMAGE_FILE_FILTER}, BUNDLE.getString("Images.Plugin.Load.Dialog.Button.Open"))); //NOI18N
             if (selected != null) {
-              try {
-                final String rescaledImageAsBase64 =
-                    Utils.rescaleImageAndEncodeAsBase64(selected, Utils.getMaxImageSize());
-                final String fileName = FilenameUtils.getBaseName(selected.getName());
-                final String filePath;
-                if (context.getDialogProvider().msgConfirmYesNo(SwingUtilities.windowForComponent(context.getPanel()), BUNDLE.getString("Images.Plugin.Question.AddFilePath.Title"), BUNDLE.getString("Images.Plugin.Question.AddFilePath"))) {
-                  filePath = MMapURI.makeFromFilePath(context.getProjectFolder(), selected.getAbsolutePath(), null).toString();
-                } else {
-                  filePath = null;
+              final Topic[] targets = findTargetTopics(context, activeTopic);
+              startProcessing(context, ImageProcessingPipeline.getInstance().process(selected, Utils.getMaxImageSize(), new ProcessingListener(context) {
+                @Override
+                protected void onImageReady(@Nonnull final String rescaledImageAsBase64) {
+                  final Topic[] aliveTargets = findTopicsInModel(context, targets);
+                  if (aliveTargets.length == 0) {
+                    return;
+                  }
+                  final String fileName = FilenameUtils.getBaseName(selected.getName());
+                  final String filePath;
+                  if (context.getDialogProvider().msgConfirmYesNo(SwingUtilities.windowForComponent(context.getPanel()), BUNDLE.getString("Images.Plugin.Question.AddFilePath.Title"), BUNDLE.getString("Images.Plugin.Question.AddFilePath"))) {
+                    filePath = MMapURI.makeFromFilePath(context.getProjectFolder(), selected.getAbsolutePath(), null).toString();
+                  } else {
+                    filePath = null;
+                  }
+                  setAttribute(aliveTargets, rescaledImageAsBase64, filePath, fileName);
+                  context.getPanel().doNotifyModelChanged(true);
                 }
-                setAttribute(context, activeTopic, rescaledImageAsBase64, filePath, fileName);
-                context.getPanel().doNotifyModelChanged(true);
-              } catch (final IllegalArgumentException ex) {
-                context.getDialogProvider().msgError(null, BUNDLE.getString("Images.Plugin.Error"));
-                LOGGER.warn("Can't load image file : " + selected); //NOI18N
-              } catch (final Exception ex) {
-                context.getDialogProvider().msgError(null, BUNDLE.getString("Images.Plugin.Error"));
-                LOGGER.error("Unexpected error during loading of image file : " + selected, ex); //NOI18N
-              }
+
+                @Override
+                protected void onError(@Nonnull final Throwable error) {
+                  context.getDialogProvider().msgError(null, BUNDLE.getString("Images.Plugin.Error"));
+                  if (error instanceof IllegalArgumentException) {
+                    LOGGER.warn("Can't load image file : " + selected); //NOI18N
+                  } else {
+                    LOGGER.error("Unexpected error during loading of image file : " + selected, error); //NOI18N
+                  }
+                }
+              }));
             }
           }
         }
@@ -229,18 +268,98 @@ public class ImagePopUpMenuPlugin extends AbstractPopupMenuItem {
     topic.setAttribute(ImageVisualAttributePlugin.ATTR_IMAGE_URI_KEY, imageFilePath);
   }
 
-  private void setAttribute(@Nullable final PluginContext context,
+  private void setAttribute(@Nonnull final PluginContext context,
                             @Nullable final Topic activeTopic,
                             @Nullable final String packedImage,
                             @Nullable final String imageFilePath,
                             @Nullable final String imageName
   ) {
+    setAttribute(findTargetTopics(context, activeTopic), packedImage, imageFilePath, imageName);
+  }
+
+  private void setAttribute(@Nonnull @MustNotContainNull final Topic[] targets,
+                            @Nullable final String packedImage,
+                            @Nullable final String imageFilePath,
+                            @Nullable final String imageName
+  ) {
+    for (final Topic t : targets) {
+      this.setAttributeToTopic(t, packedImage, imageFilePath, imageName);
+    }
+  }
+
+  @Nonnull
+  @MustNotContainNull
+  private static Topic[] findTargetTopics(@Nonnull final PluginContext context, @Nullable final Topic activeTopic) {
+    final Set<Topic> result = new LinkedHashSet<>();
     if (activeTopic != null) {
-      setAttributeToTopic(activeTopic, packedImage, imageFilePath, imageName);
+      result.add(activeTopic);
     }
-    for (final Topic t : context.getSelectedTopics()) {
-      this.setAttributeToTopic(t, packedImage, imageFilePath, imageName);
+    result.addAll(Arrays.asList(context.getSelectedTopics()));
+    return result.toArray(new Topic[0]);
+  }
+
+  /**
+   * Filter topics which are still in the current model of the panel, topics can be removed or model can be replaced
+   * during image processing.
+   *
+   * @param context plugin context
+   * @param topics  topics to be checked
+   * @return topics still presented in the model, can be empty
+   */
+  @Nonnull
+  @MustNotContainNull
+  private static Topic[] findTopicsInModel(@Nonnull final PluginContext context, @Nonnull @MustNotContainNull final Topic[] topics) {
+    final MindMap model = context.getPanel().getModel();
+    final Topic root = model.getRoot();
+    final List<Topic> result = new ArrayList<>();
+    if (root != null) {
+      for (final Topic t : topics) {
+        if (t.getMap() == model && root.containTopic(t)) {
+          result.add(t);
+        }
+      }
+    }
+    return result.toArray(new Topic[0]);
+  }
+
+  private static void startProcessing(@Nonnull final PluginContext context, @Nonnull final ImageProcessingPipeline.Job job) {
+    final ImageProcessingPipeline.Job prev = ACTIVE_JOBS.put(context.getPanel(), job);
+    if (prev != null) {
+      prev.cancel(true);
+    }
+    if (!job.isDone()) {
+      context.getPanel().setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+    }
+  }
+
+  private abstract static class ProcessingListener implements ImageProcessingPipeline.Listener {
+
+    private final PluginContext context;
+
+    private ProcessingListener(@Nonnull final PluginContext context) {
+      this.context = context;
     }
+
+    @Override
+    public void onProgress(@Nonnull final ImageProcessingPipeline.Job job, final float progress) {
+    }
+
+    @Override
+    public void onCompleted(@Nonnull final ImageProcessingPipeline.Job job, @Nullable final String result, @Nullable final Throwable error) {
+      if (ACTIVE_JOBS.get(this.context.getPanel()) == job) {
+        ACTIVE_JOBS.remove(this.context.getPanel());
+        this.context.getPanel().setCursor(null);
+      }
+      if (error == null && result != null) {
+        onImageReady(result);
+      } else if (error != null) {
+        onError(error);
+      }
+    }
+
+    protected abstract void onImageReady(@Nonnull String rescaledImageAsBase64);
+
+    protected abstract void onError(@Nonnull Throwable error);
   }
 
   @Override
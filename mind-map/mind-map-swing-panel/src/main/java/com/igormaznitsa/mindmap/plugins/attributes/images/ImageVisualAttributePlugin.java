@@ -19,25 +19,21 @@ package com.igormaznitsa.mindmap.plugins.attributes.images;
 import com.igormaznitsa.mindmap.model.Extra;
 import com.igormaznitsa.mindmap.model.MMapURI;
 import com.igormaznitsa.mindmap.model.Topic;
-import com.igormaznitsa.mindmap.model.logger.Logger;
-import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
 import com.igormaznitsa.mindmap.plugins.api.MindMapPlugin;
 import com.igormaznitsa.mindmap.plugins.api.PluginContext;
 import com.igormaznitsa.mindmap.plugins.api.Renderable;
 import com.igormaznitsa.mindmap.plugins.api.VisualAttributePlugin;
 import com.igormaznitsa.mindmap.swing.panel.MindMapPanelConfig;
-import com.igormaznitsa.mindmap.swing.panel.utils.Utils;
-import java.awt.Image;
-import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.net.URISyntaxException;
+import java.util.Collections;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.WeakHashMap;
 import java.util.regex.Pattern;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import javax.imageio.ImageIO;
 
 public class ImageVisualAttributePlugin implements VisualAttributePlugin {
 
@@ -45,11 +41,19 @@ public class ImageVisualAttributePlugin implements VisualAttributePlugin {
   public static final String ATTR_IMAGE_NAME = "mmd.image.name";
   public static final String ATTR_IMAGE_URI_KEY = "mmd.image.uri";
 
-  private static final Logger LOGGER = LoggerFactory.getLogger(ImageVisualAttributePlugin.class);
-  private static final Map<Topic, Renderable> CACHED_IMAGES = new WeakHashMap<>();
+  /**
+   * Only image descriptors are cached for topics, decoded images are shared through {@link com.igormaznitsa.mindmap.swing.panel.utils.DecodedImageCache}.
+   */
+  private static final Map<Topic, ScalableRenderableImage> CACHED_IMAGES = Collections.synchronizedMap(new WeakHashMap<>());
+
+  /**
+   * Image URIs converted for search, recalculated when attribute or base folder is changed.
+   */
+  private static final Map<Topic, SearchableUri> CACHED_SEARCH_URIS = Collections.synchronizedMap(new WeakHashMap<>());
 
   public static void clearCachedImages() {
     CACHED_IMAGES.clear();
+    CACHED_SEARCH_URIS.clear();
   }
 
   @Override
@@ -72,8 +76,12 @@ public class ImageVisualAttributePlugin implements VisualAttributePlugin {
               extraTypes.contains(Extra.ExtraType.FILE))) {
         final String text = topic.getAttribute(ATTR_IMAGE_URI_KEY);
         if (text != null) {
-          result =
-              pattern.matcher(MMapURI.makeFromFilePath(baseFolder, text, null).toString()).find();
+          SearchableUri uri = CACHED_SEARCH_URIS.get(topic);
+          if (uri == null || !uri.isMadeFor(text, baseFolder)) {
+            uri = new SearchableUri(text, baseFolder);
+            CACHED_SEARCH_URIS.put(topic, uri);
+          }
+          result = pattern.matcher(uri.uri).find();
         }
       }
     }
@@ -84,23 +92,17 @@ public class ImageVisualAttributePlugin implements VisualAttributePlugin {
   @Nullable
   public Renderable getScaledImage(@Nonnull final MindMapPanelConfig config,
                                    @Nonnull final Topic activeTopic) {
-    Renderable result = CACHED_IMAGES.get(activeTopic);
-    if (result == null) {
-      result = new ScalableRenderableImage(extractImage(activeTopic));
-      CACHED_IMAGES.put(activeTopic, result);
+    final String encoded = activeTopic.getAttribute(ATTR_KEY);
+    if (encoded == null) {
+      return null;
     }
-    return result;
-  }
-
-  @Nullable
-  private Image extractImage(@Nonnull final Topic topic) {
-    Image result = null;
-    final String encoded = topic.getAttribute(ATTR_KEY);
-    if (encoded != null) {
-      try {
-        result = ImageIO.read(new ByteArrayInputStream(Utils.base64decode(encoded)));
-      } catch (Exception ex) {
-        LOGGER.error("Can't extract image", ex);
+    ScalableRenderableImage result = CACHED_IMAGES.get(activeTopic);
+    if (result == null || !result.isMadeFor(encoded)) {
+      result = ScalableRenderableImage.makeFor(encoded);
+      if (result == null) {
+        CACHED_IMAGES.remove(activeTopic);
+      } else {
+        CACHED_IMAGES.put(activeTopic, result);
       }
     }
     return result;
@@ -161,4 +163,20 @@ public class ImageVisualAttributePlugin implements VisualAttributePlugin {
     return Integer.compare(this.getOrder(), o.getOrder());
   }
 
+  private static final class SearchableUri {
+
+    private final String attribute;
+    private final File baseFolder;
+    private final String uri;
+
+    private SearchableUri(@Nonnull final String attribute, @Nullable final File baseFolder) {
+      this.attribute = attribute;
+      this.baseFolder = baseFolder;
+      this.uri = MMapURI.makeFromFilePath(baseFolder, attribute, null).toString();
+    }
+
+    private boolean isMadeFor(@Nonnull final String attribute, @Nullable final File baseFolder) {
+      return this.attribute.equals(attribute) && Objects.equals(this.baseFolder, baseFolder);
+    }
+  }
 }
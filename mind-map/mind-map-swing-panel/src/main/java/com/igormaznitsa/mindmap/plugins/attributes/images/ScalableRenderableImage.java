@@ -16,32 +16,148 @@
 
 package com.igormaznitsa.mindmap.plugins.attributes.images;
 
+import com.igormaznitsa.mindmap.model.logger.Logger;
+import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
 import com.igormaznitsa.mindmap.plugins.api.Renderable;
 import com.igormaznitsa.mindmap.swing.panel.MindMapPanelConfig;
 import com.igormaznitsa.mindmap.swing.panel.ui.gfx.MMGraphics;
-import java.awt.Graphics2D;
+import com.igormaznitsa.mindmap.swing.panel.utils.DecodedImageCache;
+import com.igormaznitsa.mindmap.swing.panel.utils.ImageProcessingPipeline;
+import com.igormaznitsa.mindmap.swing.panel.utils.Utils;
+import java.awt.Color;
+import java.awt.Dimension;
 import java.awt.Image;
-import java.awt.RenderingHints;
-import java.awt.geom.AffineTransform;
-import java.awt.image.BufferedImage;
-import java.lang.ref.SoftReference;
-import java.util.HashMap;
-import java.util.Map;
+import java.io.ByteArrayInputStream;
+import java.util.Iterator;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 
+/**
+ * Lightweight descriptor of topic image, decoded and scaled pixels are kept in {@link DecodedImageCache} and shared between topics with the same image.
+ * Scaled variants are made from the nearest mip level of the image instead of the original one.
+ */
 final class ScalableRenderableImage implements Renderable {
 
-  private final Image baseImage;
+  private static final Logger LOGGER = LoggerFactory.getLogger(ScalableRenderableImage.class);
+
+  private static final Color PLACEHOLDER_BORDER = Color.GRAY;
+  private static final Color PLACEHOLDER_FILL = new Color(0x80D0D0D0, true);
+
+  /**
+   * Number of Base64 chars decoded to read image header, headers of most images are placed in the first kilobytes.
+   */
+  private static final int HEADER_CHARS = 16 * 1024;
+
+  private final String encodedImage;
   private final int width;
   private final int height;
-  private final Map<Double, SoftReference<Image>> cache = new HashMap<>();
-  private double cachedScale = Double.MIN_VALUE;
+  private volatile String key;
+
+  private ScalableRenderableImage(@Nonnull final String encodedImage, final int width, final int height) {
+    this.encodedImage = encodedImage;
+    this.width = width;
+    this.height = height;
+  }
+
+  /**
+   * Make descriptor for Base64 encoded image, only image header is read to get its size.
+   * Only leading part of the image is decoded, the whole image is decoded only if its header is not found in the part.
+   *
+   * @param encodedImage Base64 encoded image, must not be null
+   * @return descriptor or null if image can't be recognized
+   */
+  @Nullable
+  static ScalableRenderableImage makeFor(@Nonnull final String encodedImage) {
+    try {
+      final String prefix = extractPrefix(encodedImage, HEADER_CHARS);
+      if (prefix != null) {
+        final Dimension size = readSize(Utils.base64decode(prefix));
+        if (size != null) {
+          return new ScalableRenderableImage(encodedImage, size.width, size.height);
+        }
+      }
+      final Dimension size = readSize(Utils.base64decode(encodedImage));
+      if (size == null) {
+        LOGGER.error("Can't find reader for image");
+        return null;
+      }
+      return new ScalableRenderableImage(encodedImage, size.width, size.height);
+    } catch (Exception ex) {
+      LOGGER.error("Can't extract image", ex);
+      return null;
+    }
+  }
+
+  /**
+   * Extract leading part of Base64 text which can be decoded separately.
+   *
+   * @param encoded Base64 text, must not be null
+   * @param maxChars max number of Base64 chars in the part
+   * @return leading part without whitespaces or null if the text is not longer than the part
+   */
+  @Nullable
+  static String extractPrefix(@Nonnull final String encoded, final int maxChars) {
+    if (encoded.length() <= maxChars) {
+      return null;
+    }
+    final StringBuilder result = new StringBuilder(maxChars);
+    for (int i = 0; i < encoded.length() && result.length() < maxChars; i++) {
+      final char c = encoded.charAt(i);
+      if (!Character.isWhitespace(c)) {
+        result.append(c);
+      }
+    }
+    if (result.length() < maxChars) {
+      return null;
+    }
+    result.setLength(maxChars - maxChars % 4);
+    return result.toString();
+  }
 
-  public ScalableRenderableImage(@Nonnull final Image baseImage) {
-    this.baseImage = baseImage;
-    this.width = baseImage.getWidth(null);
-    this.height = baseImage.getHeight(null);
+  @Nullable
+  private static Dimension readSize(@Nonnull final byte[] data) {
+    try (final ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+      final Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+      if (readers == null || !readers.hasNext()) {
+        return null;
+      }
+      final ImageReader reader = readers.next();
+      try {
+        reader.setInput(in, true, true);
+        return new Dimension(reader.getWidth(0), reader.getHeight(0));
+      } finally {
+        reader.dispose();
+      }
+    } catch (Exception ex) {
+      return null;
+    }
+  }
+
+  @Nullable
+  private static Image decode(@Nonnull final String encodedImage) throws Exception {
+    return ImageIO.read(new ByteArrayInputStream(Utils.base64decode(encodedImage)));
+  }
+
+  /**
+   * Get key of the image in the cache, it is calculated only once for descriptor.
+   *
+   * @return key of the image, must not be null
+   */
+  @Nonnull
+  String getKey() {
+    String result = this.key;
+    if (result == null) {
+      result = DecodedImageCache.makeKey(this.encodedImage);
+      this.key = result;
+    }
+    return result;
+  }
+
+  boolean isMadeFor(@Nullable final String encodedImage) {
+    return this.encodedImage.equals(encodedImage);
   }
 
   @Override
@@ -55,42 +171,37 @@ final class ScalableRenderableImage implements Renderable {
   }
 
   @Nullable
-  private Image getCached(final double scale) {
-    Image result;
-    synchronized (this.cache) {
-      final SoftReference<Image> cachedImage = this.cache.get(scale);
-      result = cachedImage == null ? null : cachedImage.get();
-      if (result == null || Double.compare(this.cachedScale, scale) != 0) {
-        final int sw = getWidth(scale);
-        final int sh = getHeight(scale);
-
-        if (sw != 0 && sh != 0) {
-          final BufferedImage scaled = new BufferedImage(sw, sh, BufferedImage.TYPE_INT_ARGB);
-          final Graphics2D gfx = scaled.createGraphics();
-
-          gfx.setRenderingHint(RenderingHints.KEY_ALPHA_INTERPOLATION, RenderingHints.VALUE_ALPHA_INTERPOLATION_QUALITY);
-          gfx.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-          gfx.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-          gfx.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
-          gfx.setRenderingHint(RenderingHints.KEY_COLOR_RENDERING, RenderingHints.VALUE_COLOR_RENDER_QUALITY);
-
-          gfx.drawImage(this.baseImage, AffineTransform.getScaleInstance(scale, scale), null);
-          gfx.dispose();
-          result = scaled;
-          this.cache.put(scale, new SoftReference<>(result));
-        } else {
-          result = null;
-        }
-        this.cachedScale = scale;
-      }
+  private Image findScaled(@Nonnull final DecodedImageCache cache, @Nonnull final Image base, final double scale) {
+    if (Double.compare(scale, 1.0d) == 0) {
+      return base;
     }
-    return result;
+
+    final int sw = getWidth(scale);
+    final int sh = getHeight(scale);
+    if (sw <= 0 || sh <= 0) {
+      return null;
+    }
+
+    final int mipLevel = ImageProcessingPipeline.findMipLevelForScale(this.width, this.height, scale);
+    final String imageKey = getKey();
+    return cache.findDerived(imageKey + '@' + scale, () -> {
+      final Image mip = ImageProcessingPipeline.findMipLevel(cache, imageKey, base, mipLevel);
+      return mip == null ? null : ImageProcessingPipeline.scale(mip, sw, sh);
+    });
   }
 
   @Override
   public void renderAt(@Nonnull final MMGraphics gfx, @Nonnull final MindMapPanelConfig config, final int x, final int y) {
-    final Image image = getCached(config.getScale());
-    gfx.drawImage(image, x, y);
+    final double scale = config.getScale();
+    final DecodedImageCache cache = DecodedImageCache.getInstance();
+    final String encoded = this.encodedImage;
+    final Image base = cache.find(getKey(), () -> decode(encoded));
+    final Image scaled = base == null ? null : findScaled(cache, base, scale);
+    if (scaled == null) {
+      gfx.drawRect(x, y, getWidth(scale), getHeight(scale), PLACEHOLDER_BORDER, PLACEHOLDER_FILL);
+    } else {
+      gfx.drawImage(scaled, x, y);
+    }
   }
 
 }
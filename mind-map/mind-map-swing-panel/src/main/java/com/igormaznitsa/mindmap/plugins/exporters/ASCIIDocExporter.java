@@ -23,11 +23,12 @@ import com.igormaznitsa.mindmap.model.ExtraLink;
 import com.igormaznitsa.mindmap.model.ExtraNote;
 import com.igormaznitsa.mindmap.model.ExtraTopic;
 import com.igormaznitsa.mindmap.model.MMapURI;
+import com.igormaznitsa.mindmap.model.MindMap;
 import com.igormaznitsa.mindmap.model.ModelUtils;
 import com.igormaznitsa.mindmap.model.Topic;
 import com.igormaznitsa.mindmap.plugins.api.AbstractExporter;
 import com.igormaznitsa.mindmap.plugins.api.PluginContext;
-import com.igormaznitsa.mindmap.swing.panel.MindMapPanel;
+import com.igormaznitsa.mindmap.swing.panel.MindMapPanelConfig;
 import com.igormaznitsa.mindmap.swing.panel.Texts;
 import com.igormaznitsa.mindmap.swing.panel.utils.MindMapUtils;
 import com.igormaznitsa.mindmap.swing.services.IconID;
@@ -36,10 +37,15 @@ import java.awt.Toolkit;
 import java.awt.datatransfer.Clipboard;
 import java.awt.datatransfer.StringSelection;
 import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.Map;
 import javax.annotation.Nonnull;
@@ -132,25 +138,45 @@ public class ASCIIDocExporter extends AbstractExporter {
       state.append("----").appendNextLine().appendNextLine();
     }
 
-    for (final Topic t : topic.getChildren()) {
-      writeTopic(t, state);
+    if (level > 0) {
+      for (final Topic t : topic.getChildren()) {
+        writeTopic(t, state);
+      }
     }
   }
 
-  @Nonnull
-  private String makeContent(@Nonnull final MindMapPanel panel) throws IOException {
-    final State state = new State();
+  private void writeContent(@Nonnull final MindMap map, @Nonnull final Writer out) throws IOException {
+    final State state = new State(out);
     state.append("// Generated by NB-MindMap AsciiDoc exporter https://github.com/raydac/netbeans-mmd-plugin").appendNextLine();
-    final Topic root = panel.getModel().getRoot();
+    final Topic root = map.getRoot();
     if (root != null) {
       writeTopic(root, state);//NOI18N
+      ParallelBranchWriter.write(root.getChildren().toArray(new Topic[0]), out, (branch, branchOut) -> writeTopic(branch, new State(branchOut)));
     }
-    return state.toString();
+  }
+
+  @Nonnull
+  private String makeContent(@Nonnull final MindMap map) throws IOException {
+    final StringWriter buffer = new StringWriter(16384);
+    writeContent(map, buffer);
+    return buffer.toString();
+  }
+
+  @Override
+  public boolean doesSupportHeadlessExport() {
+    return true;
+  }
+
+  @Override
+  public void doExport(@Nonnull final MindMap map, @Nonnull final MindMapPanelConfig config, @Nonnull final Map<String, String> options, @Nonnull final OutputStream out) throws IOException {
+    final Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    writeContent(map, writer);
+    writer.flush();
   }
 
   @Override
   public void doExportToClipboard(@Nonnull final PluginContext context, @Nonnull final JComponent options) throws IOException {
-    final String text = makeContent(context.getPanel());
+    final String text = makeContent(context.getPanel().getModel());
     SwingUtilities.invokeLater(new Runnable() {
       @Override
       public void run() {
@@ -164,8 +190,6 @@ public class ASCIIDocExporter extends AbstractExporter {
 
   @Override
   public void doExport(@Nonnull final PluginContext context, @Nonnull final JComponent options, @Nullable final OutputStream out) throws IOException {
-    final String text = makeContent(context.getPanel());
-
     File fileToSaveMap = null;
     OutputStream theOut = out;
     if (theOut == null) {
@@ -183,7 +207,9 @@ public class ASCIIDocExporter extends AbstractExporter {
     }
     if (theOut != null) {
       try {
-        IOUtils.write(text, theOut, "UTF-8");
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(theOut, StandardCharsets.UTF_8));
+        writeContent(context.getPanel().getModel(), writer);
+        writer.flush();
       } finally {
         if (fileToSaveMap != null) {
           IOUtils.closeQuietly(theOut);
@@ -224,61 +250,69 @@ public class ASCIIDocExporter extends AbstractExporter {
   private static class State {
 
     private static final String NEXT_LINE = System.getProperty("line.separator", "\n");//NOI18N
-    private final StringBuilder buffer = new StringBuilder(16384);
+    private final Writer out;
+    private char lastChar;
+
+    private State(@Nonnull final Writer out) {
+      this.out = out;
+    }
+
+    private void write(@Nonnull final String str) throws IOException {
+      if (!str.isEmpty()) {
+        this.out.write(str);
+        this.lastChar = str.charAt(str.length() - 1);
+      }
+    }
 
     @Nonnull
-    public State append(final char ch) {
-      this.buffer.append(ch);
+    public State append(final char ch) throws IOException {
+      this.out.write(ch);
+      this.lastChar = ch;
       return this;
     }
 
     @Nonnull
-    public State nextStringMarker() {
-      this.buffer.append("  ");//NOI18N
+    public State nextStringMarker() throws IOException {
+      this.write("  ");//NOI18N
       return this;
     }
 
     @Nonnull
-    public State appendHead(@Nonnull final String str) {
-      this.buffer.append(escapeAsciiDoc(str, true));
+    public State appendHead(@Nonnull final String str) throws IOException {
+      this.write(escapeAsciiDoc(str, true));
       return this;
     }
 
     @Nonnull
-    public State appendParagraphText(@Nonnull final String str) {
+    public State appendParagraphText(@Nonnull final String str) throws IOException {
       for (final String s : ModelUtils.breakToLines(str)) {
-        this.buffer.append(escapeAsciiDoc(s, false)).append(" +");
+        this.write(escapeAsciiDoc(s, false));
+        this.write(" +");
         appendNextLine();
       }
       return this;
     }
 
     @Nonnull
-    public State append(@Nonnull final String str) {
-      this.buffer.append(str);
+    public State append(@Nonnull final String str) throws IOException {
+      this.write(str);
       return this;
     }
 
     @Nonnull
-    public State appendNextLine() {
-      this.buffer.append(NEXT_LINE);
+    public State appendNextLine() throws IOException {
+      this.write(NEXT_LINE);
       return this;
     }
 
     @Nonnull
-    public State appendConditionalNextLine() {
-      if (this.buffer.charAt(this.buffer.length() - 1) != '\n') {
-        this.buffer.append(NEXT_LINE);
+    public State appendConditionalNextLine() throws IOException {
+      if (this.lastChar != '\n') {
+        this.write(NEXT_LINE);
       }
       return this;
     }
 
-    @Override
-    @Nonnull
-    public String toString() {
-      return this.buffer.toString();
-    }
-
   }
 
 }
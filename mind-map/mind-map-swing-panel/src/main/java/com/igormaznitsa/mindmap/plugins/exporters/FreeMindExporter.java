@@ -26,10 +26,10 @@ import com.igormaznitsa.mindmap.model.ExtraLink;
 import com.igormaznitsa.mindmap.model.ExtraLinkable;
 import com.igormaznitsa.mindmap.model.ExtraNote;
 import com.igormaznitsa.mindmap.model.ExtraTopic;
+import com.igormaznitsa.mindmap.model.MindMap;
 import com.igormaznitsa.mindmap.model.Topic;
 import com.igormaznitsa.mindmap.plugins.api.AbstractExporter;
 import com.igormaznitsa.mindmap.plugins.api.PluginContext;
-import com.igormaznitsa.mindmap.swing.panel.MindMapPanel;
 import com.igormaznitsa.mindmap.swing.panel.MindMapPanelConfig;
 import com.igormaznitsa.mindmap.swing.panel.Texts;
 import com.igormaznitsa.mindmap.swing.panel.ui.AbstractCollapsableElement;
@@ -48,6 +48,7 @@ import java.io.OutputStream;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.swing.Icon;
@@ -185,16 +186,16 @@ public class FreeMindExporter extends AbstractExporter {
   }
 
   @Nonnull
-  private String makeContent(@Nonnull final MindMapPanel panel) throws IOException {
+  private String makeContent(@Nonnull final MindMap map, @Nonnull final MindMapPanelConfig config) throws IOException {
     final State state = new State();
     state.append("<map version=\"1.0.1\">").nextLine();//NOI18N
 
     state.append("<!--").nextLine().append("Generated by NB Mind Map Plugin (https://github.com/raydac/netbeans-mmd-plugin)").nextLine();//NOI18N
     state.append(new Timestamp(new java.util.Date().getTime()).toString()).nextLine().append("-->").nextLine();//NOI18N
 
-    final Topic root = panel.getModel().getRoot();
+    final Topic root = map.getRoot();
     if (root != null) {
-      writeTopicRecursively(root, panel.getConfiguration(), 1, state);
+      writeTopicRecursively(root, config, 1, state);
     }
 
     state.append("</map>");//NOI18N
@@ -202,9 +203,19 @@ public class FreeMindExporter extends AbstractExporter {
     return state.toString();
   }
 
+  @Override
+  public boolean doesSupportHeadlessExport() {
+    return true;
+  }
+
+  @Override
+  public void doExport(@Nonnull final MindMap map, @Nonnull final MindMapPanelConfig config, @Nonnull final Map<String, String> options, @Nonnull final OutputStream out) throws IOException {
+    IOUtils.write(makeContent(map, config), out, "UTF-8");
+  }
+
   @Override
   public void doExportToClipboard(@Nonnull final PluginContext context, @Nonnull final JComponent options) throws IOException {
-    final String text = makeContent(context.getPanel());
+    final String text = makeContent(context.getPanel().getModel(), context.getPanel().getConfiguration());
 
     SwingUtilities.invokeLater(new Runnable() {
       @Override
@@ -219,7 +230,7 @@ public class FreeMindExporter extends AbstractExporter {
 
   @Override
   public void doExport(@Nonnull final PluginContext context, @Nullable final JComponent options, @Nullable final OutputStream out) throws IOException {
-    final String text = makeContent(context.getPanel());
+    final String text = makeContent(context.getPanel().getModel(), context.getPanel().getConfiguration());
 
     File fileToSaveMap = null;
     OutputStream theOut = out;
@@ -25,12 +25,12 @@ import com.igormaznitsa.mindmap.model.ExtraFile;
 import com.igormaznitsa.mindmap.model.ExtraLink;
 import com.igormaznitsa.mindmap.model.ExtraNote;
 import com.igormaznitsa.mindmap.model.ExtraTopic;
+import com.igormaznitsa.mindmap.model.MindMap;
 import com.igormaznitsa.mindmap.model.Topic;
 import com.igormaznitsa.mindmap.model.logger.Logger;
 import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
 import com.igormaznitsa.mindmap.plugins.api.AbstractExporter;
 import com.igormaznitsa.mindmap.plugins.api.PluginContext;
-import com.igormaznitsa.mindmap.swing.panel.MindMapPanel;
 import com.igormaznitsa.mindmap.swing.panel.MindMapPanelConfig;
 import com.igormaznitsa.mindmap.swing.panel.Texts;
 import com.igormaznitsa.mindmap.swing.panel.ui.AbstractCollapsableElement;
@@ -223,15 +223,25 @@ public class MindmupExporter extends AbstractExporter {
   }
 
   @Nonnull
-  private String makeContent(@Nonnull final MindMapPanel panel) {
+  private String makeContent(@Nonnull final MindMap map, @Nonnull final MindMapPanelConfig config) {
     final JSONStringer stringer = new JSONStringer();
-    writeRoot(stringer, panel.getConfiguration(), panel.getModel().getRoot());
+    writeRoot(stringer, config, map.getRoot());
     return stringer.toString();
   }
 
+  @Override
+  public boolean doesSupportHeadlessExport() {
+    return true;
+  }
+
+  @Override
+  public void doExport(@Nonnull final MindMap map, @Nonnull final MindMapPanelConfig config, @Nonnull final Map<String, String> options, @Nonnull final OutputStream out) throws IOException {
+    IOUtils.write(makeContent(map, config), out, "UTF-8");
+  }
+
   @Override
   public void doExportToClipboard(@Nonnull final PluginContext context, @Nonnull final JComponent options) throws IOException {
-    final String text = makeContent(context.getPanel());
+    final String text = makeContent(context.getPanel().getModel(), context.getPanel().getConfiguration());
     SwingUtilities.invokeLater(new Runnable() {
       @Override
       public void run() {
@@ -245,7 +255,7 @@ public class MindmupExporter extends AbstractExporter {
 
   @Override
   public void doExport(@Nonnull final PluginContext context, @Nullable final JComponent options, @Nullable final OutputStream out) throws IOException {
-    final String text = makeContent(context.getPanel());
+    final String text = makeContent(context.getPanel().getModel(), context.getPanel().getConfiguration());
 
     File fileToSaveMap = null;
     OutputStream theOut = out;
@@ -25,11 +25,12 @@ import com.igormaznitsa.mindmap.model.ExtraLink;
 import com.igormaznitsa.mindmap.model.ExtraNote;
 import com.igormaznitsa.mindmap.model.ExtraTopic;
 import com.igormaznitsa.mindmap.model.MMapURI;
+import com.igormaznitsa.mindmap.model.MindMap;
 import com.igormaznitsa.mindmap.model.ModelUtils;
 import com.igormaznitsa.mindmap.model.Topic;
 import com.igormaznitsa.mindmap.plugins.api.AbstractExporter;
 import com.igormaznitsa.mindmap.plugins.api.PluginContext;
-import com.igormaznitsa.mindmap.swing.panel.MindMapPanel;
+import com.igormaznitsa.mindmap.swing.panel.MindMapPanelConfig;
 import com.igormaznitsa.mindmap.swing.panel.Texts;
 import com.igormaznitsa.mindmap.swing.panel.utils.MindMapUtils;
 import com.igormaznitsa.mindmap.swing.panel.utils.Utils;
@@ -39,10 +40,15 @@ import java.awt.Toolkit;
 import java.awt.datatransfer.Clipboard;
 import java.awt.datatransfer.StringSelection;
 import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.Calendar;
 import java.util.Map;
 import javax.annotation.Nonnull;
@@ -177,7 +183,7 @@ public class ORGMODEExporter extends AbstractExporter {
 
   }
 
-  private static void printTextBlock(@Nonnull final State state, @Nonnull final String prefix, @Nonnull final String text) {
+  private static void printTextBlock(@Nonnull final State state, @Nonnull final String prefix, @Nonnull final String text) throws IOException {
     final String[] lines = ModelUtils.breakToLines(text);
     for (final String s : lines) {
       state.append(prefix).append(": ").append(s).nextLine();//NOI18N
@@ -267,7 +273,7 @@ public class ORGMODEExporter extends AbstractExporter {
     return "orgmode";
   }
 
-  private void writeInterTopicLine(@Nonnull final State state) {
+  private void writeInterTopicLine(@Nonnull final State state) throws IOException {
     state.nextLine();
   }
 
@@ -286,11 +292,19 @@ public class ORGMODEExporter extends AbstractExporter {
     }
   }
 
-  @Nonnull
-  private String makeContent(@Nonnull final MindMapPanel panel) throws IOException {
-    final State state = new State();
+  private void writeBranch(@Nonnull final Topic branch, @Nonnull final State state) throws IOException {
+    writeInterTopicLine(state);
+    writeTopic(branch, "", state);//NOI18N
+    int indexChild = 0;
+    for (final Topic tt : branch.getChildren()) {
+      writeOtherTopicRecursively(tt, "", indexChild++, state);//NOI18N
+    }
+  }
+
+  private void writeContent(@Nonnull final MindMap map, @Nonnull final Writer out) throws IOException {
+    final State state = new State(out);
 
-    final Topic root = panel.getModel().getRoot();
+    final Topic root = map.getRoot();
 
     state.append("#+TITLE: ").append(escapeStr(root == null ? "" : root.getText(), true)).nextLine();//NOI18N
     state.append("#+AUTHOR: ").append(escapeStr(System.getProperty("user.name"), true)).nextLine();//NOI18N
@@ -301,24 +315,32 @@ public class ORGMODEExporter extends AbstractExporter {
 
     if (root != null) {
       writeTopic(root, "", state);//NOI18N
-
-      final Topic[] children = Utils.getLeftToRightOrderedChildrens(root);
-      for (final Topic t : children) {
-        writeInterTopicLine(state);
-        writeTopic(t, "", state);//NOI18N
-        int indexChild = 0;
-        for (final Topic tt : t.getChildren()) {
-          writeOtherTopicRecursively(tt, "", indexChild++, state);//NOI18N
-        }
-      }
+      ParallelBranchWriter.write(Utils.getLeftToRightOrderedChildrens(root), out, (branch, branchOut) -> writeBranch(branch, new State(branchOut)));
     }
+  }
 
-    return state.toString();
+  @Nonnull
+  private String makeContent(@Nonnull final MindMap map) throws IOException {
+    final StringWriter buffer = new StringWriter(16384);
+    writeContent(map, buffer);
+    return buffer.toString();
+  }
+
+  @Override
+  public boolean doesSupportHeadlessExport() {
+    return true;
+  }
+
+  @Override
+  public void doExport(@Nonnull final MindMap map, @Nonnull final MindMapPanelConfig config, @Nonnull final Map<String, String> options, @Nonnull final OutputStream out) throws IOException {
+    final Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    writeContent(map, writer);
+    writer.flush();
   }
 
   @Override
   public void doExportToClipboard(@Nonnull final PluginContext context, @Nonnull final JComponent options) throws IOException {
-    final String text = makeContent(context.getPanel());
+    final String text = makeContent(context.getPanel().getModel());
     SwingUtilities.invokeLater(new Runnable() {
       @Override
       public void run() {
@@ -332,8 +354,6 @@ public class ORGMODEExporter extends AbstractExporter {
 
   @Override
   public void doExport(@Nonnull final PluginContext context, @Nonnull final JComponent options, @Nullable final OutputStream out) throws IOException {
-    final String text = makeContent(context.getPanel());
-
     File fileToSaveMap = null;
     OutputStream theOut = out;
     if (theOut == null) {
@@ -351,7 +371,9 @@ public class ORGMODEExporter extends AbstractExporter {
     }
     if (theOut != null) {
       try {
-        IOUtils.write(text, theOut, "UTF-8");//NOI18N
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(theOut, StandardCharsets.UTF_8));
+        writeContent(context.getPanel().getModel(), writer);
+        writer.flush();
       } finally {
         if (fileToSaveMap != null) {
           IOUtils.closeQuietly(theOut);
@@ -386,30 +408,28 @@ public class ORGMODEExporter extends AbstractExporter {
   private static class State {
 
     private static final String NEXT_LINE = System.getProperty("line.separator", "\n");//NOI18N
-    private final StringBuilder buffer = new StringBuilder(16384);
+    private final Writer out;
 
-    @Nonnull
-    public State append(final char ch) {
-      this.buffer.append(ch);
-      return this;
+    private State(@Nonnull final Writer out) {
+      this.out = out;
     }
 
     @Nonnull
-    public State append(@Nonnull final String str) {
-      this.buffer.append(str);
+    public State append(final char ch) throws IOException {
+      this.out.append(ch);
       return this;
     }
 
     @Nonnull
-    public State nextLine() {
-      this.buffer.append(NEXT_LINE);
+    public State append(@Nonnull final String str) throws IOException {
+      this.out.append(str);
       return this;
     }
 
-    @Override
     @Nonnull
-    public String toString() {
-      return this.buffer.toString();
+    public State nextLine() throws IOException {
+      this.out.append(NEXT_LINE);
+      return this;
     }
 
   }
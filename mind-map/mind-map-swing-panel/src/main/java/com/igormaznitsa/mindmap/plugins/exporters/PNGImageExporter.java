@@ -18,6 +18,8 @@ package com.igormaznitsa.mindmap.plugins.exporters;
 
 import com.igormaznitsa.meta.annotation.MustNotContainNull;
 import com.igormaznitsa.meta.common.utils.Assertions;
+import com.igormaznitsa.meta.common.utils.GetUtils;
+import com.igormaznitsa.mindmap.model.MindMap;
 import com.igormaznitsa.mindmap.model.Topic;
 import com.igormaznitsa.mindmap.model.logger.Logger;
 import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
@@ -47,6 +49,7 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Map;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.imageio.ImageIO;
@@ -132,11 +135,32 @@ public final class PNGImageExporter extends AbstractExporter {
       }
     }
 
-    final MindMapPanelConfig newConfig = new MindMapPanelConfig(context.getPanelConfig(), false);
-    newConfig.setDrawBackground(this.flagDrawBackground);
+    return makeImage(context.getPanel().getModel(), context.getPanelConfig(), this.flagExpandAllNodes, this.flagDrawBackground);
+  }
+
+  @Nullable
+  private static BufferedImage makeImage(@Nonnull final MindMap map, @Nonnull final MindMapPanelConfig config, final boolean expandAllNodes, final boolean drawBackground) {
+    final MindMapPanelConfig newConfig = new MindMapPanelConfig(config, false);
+    newConfig.setDrawBackground(drawBackground);
     newConfig.setScale(1.0f);
 
-    return MindMapPanel.renderMindMapAsImage(context.getPanel().getModel(), newConfig, flagExpandAllNodes, RenderQuality.QUALITY);
+    return MindMapPanel.renderMindMapAsImage(map, newConfig, expandAllNodes, RenderQuality.QUALITY);
+  }
+
+  @Override
+  public boolean doesSupportHeadlessExport() {
+    return true;
+  }
+
+  @Override
+  public void doExport(@Nonnull final MindMap map, @Nonnull final MindMapPanelConfig config, @Nonnull final Map<String, String> options, @Nonnull final OutputStream out) throws IOException {
+    final boolean expandAll = Boolean.parseBoolean(GetUtils.ensureNonNull(options.get(Options.KEY_EXPAND_ALL), "false"));
+    final boolean drawBackground = Boolean.parseBoolean(GetUtils.ensureNonNull(options.get(Options.KEY_DRAW_BACK), "true"));
+    final RenderedImage image = makeImage(map, config, expandAll, drawBackground);
+    if (image == null) {
+      throw new IOException("Can't render image for map");
+    }
+    ImageIO.write(image, "png", out);
   }
 
   @Override
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2015-2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.mindmap.plugins.exporters;
+
+import com.igormaznitsa.meta.annotation.MustNotContainNull;
+import com.igormaznitsa.mindmap.model.Topic;
+import com.igormaznitsa.mindmap.swing.services.BackgroundTaskService;
+import com.igormaznitsa.mindmap.swing.services.BackgroundTaskServiceProvider;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Auxiliary class to write top-level branches of mind map by text exporters. Branches of big maps are rendered in parallel into separate buffers
+ * and written into output in their order, number of buffers in memory is limited by a window so that memory consumption doesn't depend on map size.
+ * Branches are rendered by shared executor of {@link BackgroundTaskService}.
+ *
+ * @since 1.5.2
+ */
+@ThreadSafe
+final class ParallelBranchWriter {
+
+  /**
+   * System property to define min number of topics in map to use parallel rendering of branches.
+   */
+  static final String PROPERTY_PARALLEL_THRESHOLD = "mmd.export.parallel.threshold";
+
+  private static final int THRESHOLD = Integer.getInteger(PROPERTY_PARALLEL_THRESHOLD, 2048);
+  private static final int THREADS = Math.max(1, Runtime.getRuntime().availableProcessors());
+  private static final int WINDOW = THREADS * 2;
+
+  private ParallelBranchWriter() {
+  }
+
+  private static int countTopics(@Nonnull final Topic topic, final int limit) {
+    int result = 1;
+    for (final Topic t : topic.getChildren()) {
+      if (result >= limit) {
+        break;
+      }
+      result += countTopics(t, limit - result);
+    }
+    return result;
+  }
+
+  private static boolean isBigEnough(@Nonnull @MustNotContainNull final Topic[] branches, final int threshold) {
+    int counter = 0;
+    for (final Topic t : branches) {
+      counter += countTopics(t, threshold - counter);
+      if (counter >= threshold) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Write branches into output in their order.
+   *
+   * @param branches branches to be written, must not be null
+   * @param out      output writer, must not be null
+   * @param renderer renderer of a branch, it can be called concurrently from several threads, must not be null
+   * @throws IOException if any error during rendering or writing
+   */
+  static void write(@Nonnull @MustNotContainNull final Topic[] branches, @Nonnull final Writer out, @Nonnull final BranchRenderer renderer) throws IOException {
+    write(branches, out, renderer, THRESHOLD);
+  }
+
+  static void write(@Nonnull @MustNotContainNull final Topic[] branches, @Nonnull final Writer out, @Nonnull final BranchRenderer renderer, final int threshold) throws IOException {
+    if (branches.length < 2 || THREADS < 2 || !isBigEnough(branches, threshold)) {
+      for (final Topic t : branches) {
+        renderer.render(t, out);
+      }
+      return;
+    }
+
+    final ExecutorService executor = BackgroundTaskServiceProvider.findInstance().findExecutor(BackgroundTaskService.TaskKind.EXPORT);
+    final Deque<Future<String>> pending = new ArrayDeque<>(WINDOW);
+    int next = 0;
+    try {
+      while (next < branches.length || !pending.isEmpty()) {
+        while (pending.size() < WINDOW && next < branches.length) {
+          final Topic branch = branches[next++];
+          pending.addLast(executor.submit(() -> {
+            final StringWriter buffer = new StringWriter(4096);
+            renderer.render(branch, buffer);
+            return buffer.toString();
+          }));
+        }
+        out.write(pending.removeFirst().get());
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Branch rendering has been interrupted");
+    } catch (ExecutionException ex) {
+      final Throwable cause = ex.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IOException("Can't render branch", cause);
+    } finally {
+      for (final Future<String> f : pending) {
+        f.cancel(true);
+      }
+    }
+  }
+
+  /**
+   * Renderer of a mind map branch.
+   */
+  interface BranchRenderer {
+
+    void render(@Nonnull Topic branch, @Nonnull Writer out) throws IOException;
+  }
+}
@@ -23,6 +23,7 @@ import static com.igormaznitsa.mindmap.swing.panel.MindMapPanel.layoutFullDiagra
 
 import com.igormaznitsa.meta.annotation.MustNotContainNull;
 import com.igormaznitsa.meta.common.utils.Assertions;
+import com.igormaznitsa.meta.common.utils.GetUtils;
 import com.igormaznitsa.mindmap.model.MindMap;
 import com.igormaznitsa.mindmap.model.Topic;
 import com.igormaznitsa.mindmap.model.logger.Logger;
@@ -111,17 +112,13 @@ public class SVGImageExporter extends AbstractExporter {
   private static final Icon ICO = ImageIconServiceProvider.findInstance().getIconForId(IconID.POPUP_EXPORT_SVG);
   private static final String SVG_HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n<!-- Generated by SVG Image Exporter plugin of NB Mind Map Swing panel -->\n<svg version=\"1.1\" baseProfile=\"tiny\" id=\"svg-root\" width=\"%d%%\" height=\"%d%%\" viewBox=\"0 0 %s %s\" xmlns=\"http://www.w3.org/2000/svg\" xmlns:xlink=\"http://www.w3.org/1999/xlink\">";
   private static final String NEXT_LINE = "\n";
-  private static final DecimalFormat DOUBLE;
+  private static final ThreadLocal<DecimalFormat> DOUBLE = ThreadLocal.withInitial(() -> new DecimalFormat("#.###", DecimalFormatSymbols.getInstance(Locale.US)));
   private boolean flagExpandAllNodes = false;
   private boolean flagDrawBackground = true;
 
-  static {
-    DOUBLE = new DecimalFormat("#.###", DecimalFormatSymbols.getInstance(Locale.US));
-  }
-
   @Nonnull
   private static String dbl2str(final double value) {
-    return DOUBLE.format(value);
+    return DOUBLE.get().format(value);
   }
 
   @Nonnull
@@ -142,7 +139,7 @@ public class SVGImageExporter extends AbstractExporter {
 
     final String fontStyle = font.isItalic() ? "italic" : "normal";
     final String fontWeight = font.isBold() ? "bold" : "normal";
-    final String fontSize = DOUBLE.format(font.getSize2D()) + "px";
+    final String fontSize = DOUBLE.get().format(font.getSize2D()) + "px";
     final String fontFamily = fontFamilyToSVG(font);
 
     result.append("font-family: ").append(fontFamily).append(';').append(NEXT_LINE);
@@ -218,24 +215,29 @@ public class SVGImageExporter extends AbstractExporter {
       }
     }
 
-    final MindMap workMap = new MindMap(context.getPanel().getModel());
+    return makeContent(context.getPanel().getModel(), context.getPanelConfig(), this.flagExpandAllNodes, this.flagDrawBackground);
+  }
+
+  @Nonnull
+  private String makeContent(@Nonnull final MindMap map, @Nonnull final MindMapPanelConfig config, final boolean expandAllNodes, final boolean drawBackground) throws IOException {
+    final MindMap workMap = new MindMap(map);
     workMap.resetPayload();
 
-    if (this.flagExpandAllNodes) {
+    if (expandAllNodes) {
       MindMapUtils.removeCollapseAttr(workMap);
     }
 
-    final MindMapPanelConfig newConfig = new MindMapPanelConfig(context.getPanelConfig(), false);
+    final MindMapPanelConfig newConfig = new MindMapPanelConfig(config, false);
     final String[] mappedFont = LOCAL_FONT_MAP.get(newConfig.getFont().getFamily().toLowerCase(Locale.ENGLISH));
     if (mappedFont != null) {
       final Font adaptedFont = new Font(mappedFont[1], newConfig.getFont().getStyle(), newConfig.getFont().getSize());
       newConfig.setFont(adaptedFont);
     }
 
-    newConfig.setDrawBackground(this.flagDrawBackground);
+    newConfig.setDrawBackground(drawBackground);
     newConfig.setScale(1.0f);
 
-    final Dimension2D blockSize = calculateSizeOfMapInPixels(workMap, null, newConfig, flagExpandAllNodes, RenderQuality.DEFAULT);
+    final Dimension2D blockSize = calculateSizeOfMapInPixels(workMap, null, newConfig, expandAllNodes, RenderQuality.DEFAULT);
     if (blockSize == null) {
       return SVG_HEADER + "</svg>";
     }
@@ -260,6 +262,18 @@ public class SVGImageExporter extends AbstractExporter {
     return buffer.toString();
   }
 
+  @Override
+  public boolean doesSupportHeadlessExport() {
+    return true;
+  }
+
+  @Override
+  public void doExport(@Nonnull final MindMap map, @Nonnull final MindMapPanelConfig config, @Nonnull final Map<String, String> options, @Nonnull final OutputStream out) throws IOException {
+    final boolean expandAll = Boolean.parseBoolean(GetUtils.ensureNonNull(options.get(Options.KEY_EXPAND_ALL), "false"));
+    final boolean drawBackground = Boolean.parseBoolean(GetUtils.ensureNonNull(options.get(Options.KEY_DRAW_BACK), "true"));
+    IOUtils.write(makeContent(map, config, expandAll, drawBackground), out, "UTF-8");
+  }
+
   @Override
   public void doExportToClipboard(@Nonnull final PluginContext context, @Nonnull final JComponent options) throws IOException {
     final String text = makeContent(context, options);
@@ -446,7 +460,7 @@ public class SVGImageExporter extends AbstractExporter {
 
   private static final class SVGMMGraphics implements MMGraphics {
 
-    private static final DecimalFormat ALPHA = new DecimalFormat("#.##");
+    private static final ThreadLocal<DecimalFormat> ALPHA = ThreadLocal.withInitial(() -> new DecimalFormat("#.##"));
     private final StringBuilder buffer;
     private final Graphics2D context;
     private double translateX;
@@ -466,7 +480,7 @@ public class SVGImageExporter extends AbstractExporter {
 
     private void printFillOpacity(@Nonnull final Color color) {
       if (color.getAlpha() < 255) {
-        this.buffer.append(" fill-opacity=\"").append(ALPHA.format(color.getAlpha() / 255.0f)).append("\" ");
+        this.buffer.append(" fill-opacity=\"").append(ALPHA.get().format(color.getAlpha() / 255.0f)).append("\" ");
       }
     }
 
@@ -22,9 +22,11 @@ import com.igormaznitsa.mindmap.model.ExtraFile;
 import com.igormaznitsa.mindmap.model.ExtraLink;
 import com.igormaznitsa.mindmap.model.ExtraNote;
 import com.igormaznitsa.mindmap.model.ExtraTopic;
+import com.igormaznitsa.mindmap.model.MindMap;
 import com.igormaznitsa.mindmap.model.Topic;
 import com.igormaznitsa.mindmap.plugins.api.AbstractExporter;
 import com.igormaznitsa.mindmap.plugins.api.PluginContext;
+import com.igormaznitsa.mindmap.swing.panel.MindMapPanelConfig;
 import com.igormaznitsa.mindmap.swing.panel.Texts;
 import com.igormaznitsa.mindmap.swing.panel.utils.MindMapUtils;
 import com.igormaznitsa.mindmap.swing.panel.utils.Utils;
@@ -34,10 +36,15 @@ import java.awt.Toolkit;
 import java.awt.datatransfer.Clipboard;
 import java.awt.datatransfer.StringSelection;
 import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
 import java.util.Map;
 import javax.annotation.Nonnull;
@@ -115,7 +122,7 @@ public class TextExporter extends AbstractExporter {
   }
 
   private void writeTopic(@Nonnull final Topic topic, final char ch, final int shift,
-                          @Nonnull final State state) {
+                          @Nonnull final State state) throws IOException {
     final int maxLen = getMaxLineWidth(topic.getText());
     state.append(shiftString(topic.getText(), ' ', shift)).nextLine()
         .append(shiftString(generateString(ch, maxLen + 2), ' ', shift)).nextLine();//NOI18N
@@ -182,11 +189,11 @@ public class TextExporter extends AbstractExporter {
 
   }
 
-  private void writeInterTopicLine(@Nonnull final State state) {
+  private void writeInterTopicLine(@Nonnull final State state) throws IOException {
     state.nextLine();
   }
 
-  private void writeOtherTopicRecursively(@Nonnull final Topic t, int shift, @Nonnull final State state) {
+  private void writeOtherTopicRecursively(@Nonnull final Topic t, int shift, @Nonnull final State state) throws IOException {
     writeInterTopicLine(state);
     writeTopic(t, '.', shift, state);
     shift += SHIFT_STEP;
@@ -195,39 +202,49 @@ public class TextExporter extends AbstractExporter {
     }
   }
 
-  @Nonnull
-  private String makeContent(@Nonnull final PluginContext context) {
-    final State state = new State();
+  private void writeBranch(@Nonnull final Topic branch, @Nonnull final State state) throws IOException {
+    writeInterTopicLine(state);
+    writeTopic(branch, '-', SHIFT_STEP, state);
+    for (final Topic tt : branch.getChildren()) {
+      writeOtherTopicRecursively(tt, SHIFT_STEP * 2, state);
+    }
+  }
+
+  private void writeContent(@Nonnull final MindMap map, @Nonnull final Writer out) throws IOException {
+    final State state = new State(out);
 
     state.append("# Generated by NB Mind Map Plugin (https://github.com/raydac/netbeans-mmd-plugin)").nextLine();//NOI18N
     state.append("# ").append(new Timestamp(new java.util.Date().getTime()).toString()).nextLine().nextLine();//NOI18N
 
-    int shift = 0;
-
-    final Topic root = context.getPanel().getModel().getRoot();
+    final Topic root = map.getRoot();
     if (root != null) {
-      writeTopic(root, '=', shift, state);//NOI18N
+      writeTopic(root, '=', 0, state);//NOI18N
+      ParallelBranchWriter.write(Utils.getLeftToRightOrderedChildrens(root), out, (branch, branchOut) -> writeBranch(branch, new State(branchOut)));
+    }
+  }
 
-      shift += SHIFT_STEP;
+  @Nonnull
+  private String makeContent(@Nonnull final MindMap map) throws IOException {
+    final StringWriter buffer = new StringWriter(16384);
+    writeContent(map, buffer);
+    return buffer.toString();
+  }
 
-      final Topic[] children = Utils.getLeftToRightOrderedChildrens(root);
-      for (final Topic t : children) {
-        writeInterTopicLine(state);
-        writeTopic(t, '-', shift, state);
-        shift += SHIFT_STEP;
-        for (final Topic tt : t.getChildren()) {
-          writeOtherTopicRecursively(tt, shift, state);
-        }
-        shift -= SHIFT_STEP;
-      }
-    }
+  @Override
+  public boolean doesSupportHeadlessExport() {
+    return true;
+  }
 
-    return state.toString();
+  @Override
+  public void doExport(@Nonnull final MindMap map, @Nonnull final MindMapPanelConfig config, @Nonnull final Map<String, String> options, @Nonnull final OutputStream out) throws IOException {
+    final Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    writeContent(map, writer);
+    writer.flush();
   }
 
   @Override
   public void doExportToClipboard(@Nonnull final PluginContext context, @Nonnull final JComponent options) throws IOException {
-    final String text = makeContent(context);
+    final String text = makeContent(context.getPanel().getModel());
     SwingUtilities.invokeLater(new Runnable() {
       @Override
       public void run() {
@@ -241,8 +258,6 @@ public class TextExporter extends AbstractExporter {
 
   @Override
   public void doExport(@Nonnull final PluginContext context, @Nullable final JComponent options, @Nullable final OutputStream out) throws IOException {
-    final String text = makeContent(context);
-
     File fileToSaveMap = null;
     OutputStream theOut = out;
     if (theOut == null) {
@@ -260,7 +275,9 @@ public class TextExporter extends AbstractExporter {
     }
     if (theOut != null) {
       try {
-        IOUtils.write(text, theOut, "UTF-8");
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(theOut, StandardCharsets.UTF_8));
+        writeContent(context.getPanel().getModel(), writer);
+        writer.flush();
       } finally {
         if (fileToSaveMap != null) {
           IOUtils.closeQuietly(theOut);
@@ -301,30 +318,28 @@ public class TextExporter extends AbstractExporter {
   private static class State {
 
     private static final String NEXT_LINE = System.getProperty("line.separator", "\n");//NOI18N
-    private final StringBuilder buffer = new StringBuilder(16384);
+    private final Writer out;
 
-    @Nonnull
-    public State append(final char ch) {
-      this.buffer.append(ch);
-      return this;
+    private State(@Nonnull final Writer out) {
+      this.out = out;
     }
 
     @Nonnull
-    public State append(@Nonnull final String str) {
-      this.buffer.append(str);
+    public State append(final char ch) throws IOException {
+      this.out.append(ch);
       return this;
     }
 
     @Nonnull
-    public State nextLine() {
-      this.buffer.append(NEXT_LINE);
+    public State append(@Nonnull final String str) throws IOException {
+      this.out.append(str);
       return this;
     }
 
-    @Override
     @Nonnull
-    public String toString() {
-      return this.buffer.toString();
+    public State nextLine() throws IOException {
+      this.out.append(NEXT_LINE);
+      return this;
     }
 
   }
@@ -20,17 +20,26 @@ import com.igormaznitsa.meta.annotation.MustNotContainNull;
 import com.igormaznitsa.mindmap.model.Extra;
 import com.igormaznitsa.mindmap.model.ExtraNote;
 import com.igormaznitsa.mindmap.model.ExtraTopic;
+import com.igormaznitsa.mindmap.model.MappedMindMap;
+import com.igormaznitsa.mindmap.model.MappedTopic;
 import com.igormaznitsa.mindmap.model.MindMap;
 import com.igormaznitsa.mindmap.model.Topic;
 import java.awt.datatransfer.DataFlavor;
 import java.awt.datatransfer.Transferable;
 import java.awt.datatransfer.UnsupportedFlavorException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import javax.annotation.Nonnull;
+import org.apache.commons.io.IOUtils;
 
 /**
- * Transferable object to represent topic list in clipboard.
+ * Transferable object to represent topic list in clipboard. Topics are kept as compact binary image of
+ * {@link MappedMindMap} made during copy, other representations are made only when requested.
  *
  * @since 1.3.1
  */
@@ -38,6 +47,15 @@ public class MMDTopicsTransferable implements Transferable {
 
   public static final DataFlavor MMD_DATA_FLAVOR;
 
+  /**
+   * Flavor of binary image of copied topics provided as input stream, it is the cheapest one to paste.
+   *
+   * @see #readTopics(InputStream)
+   * @since 1.5.2
+   */
+  public static final DataFlavor MMD_BINARY_FLAVOR =
+      new DataFlavor("application/x-mmd-topics;class=java.io.InputStream", "mmd-topic-image"); //NOI18N
+
   static {
     try {
       MMD_DATA_FLAVOR = new DataFlavor(DataFlavor.javaSerializedObjectMimeType + ";class=\"" +
@@ -49,114 +67,155 @@ public class MMDTopicsTransferable implements Transferable {
   }
 
   private static final DataFlavor[] FLAVORS
-      = new DataFlavor[] {DataFlavor.stringFlavor, MMD_DATA_FLAVOR};
+      = new DataFlavor[] {MMD_BINARY_FLAVOR, DataFlavor.stringFlavor, MMD_DATA_FLAVOR};
   private static final String END_OF_LINE = System.getProperty("line.separator", "\n");
 
-  private final Topic[] topics;
+  private final byte[] image;
+  private volatile String text;
 
   public MMDTopicsTransferable(@Nonnull @MustNotContainNull final Topic... topics) {
-    this.topics = new Topic[topics.length];
-
-    final MindMap fakeMap = new MindMap(false);
-
-    for (int i = 0; i < topics.length; i++) {
-      this.topics[i] = new Topic(fakeMap, topics[i], true);
+    final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    try {
+      MappedMindMap.write(topics, buffer);
+    } catch (IOException ex) {
+      throw new IllegalArgumentException("Can't make image of topics", ex);
     }
+    this.image = buffer.toByteArray();
   }
 
+  /**
+   * Read topics from stream provided for {@link #MMD_BINARY_FLAVOR}.
+   *
+   * @param in stream of image, it is not closed
+   * @return read-only views of copied topics in their order
+   * @throws IOException if any transport error or wrong image
+   * @since 1.5.2
+   */
   @Nonnull
-  private static String oneLineTitle(@Nonnull final Topic topic) {
-    return topic.getText().replace("\n", " ").trim();
+  @MustNotContainNull
+  public static List<MappedTopic> readTopics(@Nonnull final InputStream in) throws IOException {
+    return MappedMindMap.wrap(IOUtils.toByteArray(in)).getTopLevelTopics();
   }
 
   @Nonnull
-  private static String convertTopicToText(@Nonnull final Topic topic, final int level) {
-    final StringBuilder result = new StringBuilder();
+  private static String oneLineTitle(@Nonnull final String text) {
+    return text.replace("\n", " ").trim();
+  }
+
+  private static void convertTopicToText(@Nonnull final StringBuilder result, @Nonnull final MappedTopic topic,
+                                         final int level, @Nonnull final Map<String, String> titlesForUids) {
+    final StringBuilder indent = new StringBuilder();
 
     for (int i = 0; i < level; i++) {
       if (i == level - 1) {
-        result.append("+");
+        indent.append("+");
       } else {
-        result.append('|');
+        indent.append('|');
       }
     }
-    final String firstIndentString = result.toString();
-    result.setLength(0);
+    final String firstIndentString = indent.toString();
+    indent.setLength(0);
 
     for (int i = 0; i < level; i++) {
-      result.append('|');
+      indent.append('|');
     }
-    final String otherIndentString = result.toString();
-    result.setLength(0);
+    final String otherIndentString = indent.toString();
 
     result.append(firstIndentString)
-        .append('[').append(oneLineTitle(topic)).append(']')
+        .append('[').append(oneLineTitle(topic.getText())).append(']')
         .append(END_OF_LINE);
 
+    final Map<Extra.ExtraType, Extra<?>> extras = topic.getExtras();
+
     boolean hasExtras = false;
-    Topic linkedTopic = null;
-    for (final Map.Entry<Extra.ExtraType, Extra<?>> e : topic.getExtras().entrySet()) {
+    String linkedTitle = null;
+    for (final Map.Entry<Extra.ExtraType, Extra<?>> e : extras.entrySet()) {
       if (e.getKey() == Extra.ExtraType.TOPIC) {
-        final ExtraTopic topicLink = ((ExtraTopic) e.getValue());
-        final Topic root = topic.findRoot();
-        linkedTopic =
-            root.findForAttribute(ExtraTopic.TOPIC_UID_ATTR, topicLink.getValue());
+        linkedTitle = titlesForUids.get(((ExtraTopic) e.getValue()).getValue());
       } else {
         hasExtras = true;
       }
     }
 
-    if (hasExtras || linkedTopic != null) {
+    if (hasExtras || linkedTitle != null) {
       result.append(otherIndentString).append("--------------------").append(END_OF_LINE);
     }
 
-    if (!topic.getExtras().isEmpty()) {
-      for (final Map.Entry<Extra.ExtraType, Extra<?>> e : topic.getExtras().entrySet()) {
-        switch (e.getKey()) {
-          case NOTE: {
-            if (Boolean.parseBoolean(topic.getAttributes().get(ExtraNote.ATTR_ENCRYPTED))) {
-              result.append(otherIndentString).append("<ENCRYPTED NOTE>").append(END_OF_LINE);
-            } else {
-              for (final String s : e.getValue().getAsString().split("\\n")) {
-                result.append(otherIndentString).append(s.trim()).append(END_OF_LINE);
-              }
-            }
-          }
-          break;
-          case TOPIC: {
-            if (linkedTopic != null) {
-              result.append(otherIndentString).append("#(").append(oneLineTitle(linkedTopic))
-                  .append(')')
-                  .append(END_OF_LINE);
+    for (final Map.Entry<Extra.ExtraType, Extra<?>> e : extras.entrySet()) {
+      switch (e.getKey()) {
+        case NOTE: {
+          if (Boolean.parseBoolean(topic.getAttribute(ExtraNote.ATTR_ENCRYPTED))) {
+            result.append(otherIndentString).append("<ENCRYPTED NOTE>").append(END_OF_LINE);
+          } else {
+            for (final String s : e.getValue().getAsString().split("\\n")) {
+              result.append(otherIndentString).append(s.trim()).append(END_OF_LINE);
             }
           }
-          break;
-          case FILE: {
-            result.append(otherIndentString).append("FILE=").append(e.getValue().getAsString())
-                .append(END_OF_LINE);
-          }
-          break;
-          case LINK: {
-            result.append(otherIndentString).append(e.getValue().getAsString())
+        }
+        break;
+        case TOPIC: {
+          if (linkedTitle != null) {
+            result.append(otherIndentString).append("#(").append(linkedTitle)
+                .append(')')
                 .append(END_OF_LINE);
           }
-          break;
         }
+        break;
+        case FILE: {
+          result.append(otherIndentString).append("FILE=").append(e.getValue().getAsString())
+              .append(END_OF_LINE);
+        }
+        break;
+        case LINK: {
+          result.append(otherIndentString).append(e.getValue().getAsString())
+              .append(END_OF_LINE);
+        }
+        break;
       }
     }
     if (hasExtras) {
       result.append(otherIndentString).append("--------------------").append(END_OF_LINE);
     }
     result.append(otherIndentString).append(END_OF_LINE);
-    if (topic.hasChildren()) {
-      for (final Topic c : topic.getChildren()) {
-        result.append(convertTopicToText(c, level + 1));
+    for (final MappedTopic c : topic.getChildren()) {
+      convertTopicToText(result, c, level + 1, titlesForUids);
+    }
+  }
+
+  @Nonnull
+  private String makeText() throws IOException {
+    final MappedMindMap map = MappedMindMap.wrap(this.image);
+
+    final Map<String, String> titlesForUids = new HashMap<>();
+    for (final MappedTopic t : map) {
+      final String uid = t.getAttribute(ExtraTopic.TOPIC_UID_ATTR);
+      if (uid != null && !titlesForUids.containsKey(uid)) {
+        titlesForUids.put(uid, oneLineTitle(t.getText()));
       }
     }
 
+    final StringBuilder result = new StringBuilder();
+    for (final MappedTopic t : map.getTopLevelTopics()) {
+      if (result.length() > 0) {
+        result.append("...").append(END_OF_LINE);
+      }
+      convertTopicToText(result, t, 1, titlesForUids);
+    }
     return result.toString();
   }
 
+  @Nonnull
+  @MustNotContainNull
+  private Topic[] makeTopics() throws IOException {
+    final List<MappedTopic> mapped = MappedMindMap.wrap(this.image).getTopLevelTopics();
+    final MindMap fakeMap = new MindMap(false);
+    final Topic[] result = new Topic[mapped.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = mapped.get(i).toTopic(fakeMap, null);
+    }
+    return result;
+  }
+
   @Override
   @Nonnull
   @MustNotContainNull
@@ -166,26 +225,25 @@ public class MMDTopicsTransferable implements Transferable {
 
   @Override
   public boolean isDataFlavorSupported(@Nonnull final DataFlavor flavor) {
-    return flavor.isFlavorTextType() || flavor.isMimeTypeEqual(MMD_DATA_FLAVOR);
+    return flavor.isFlavorTextType() || flavor.isMimeTypeEqual(MMD_DATA_FLAVOR)
+        || flavor.isMimeTypeEqual(MMD_BINARY_FLAVOR);
   }
 
   @Override
   @Nonnull
   public Object getTransferData(@Nonnull final DataFlavor flavor)
       throws UnsupportedFlavorException, IOException {
-    if (flavor.isFlavorTextType()) {
-      final StringBuilder result = new StringBuilder();
-
-      for (final Topic t : this.topics) {
-        if (result.length() > 0) {
-          result.append("...").append(END_OF_LINE);
-        }
-        result.append(convertTopicToText(t, 1));
+    if (flavor.isMimeTypeEqual(MMD_BINARY_FLAVOR)) {
+      return new ByteArrayInputStream(this.image);
+    } else if (flavor.isFlavorTextType()) {
+      String result = this.text;
+      if (result == null) {
+        result = makeText();
+        this.text = result;
       }
-
-      return result.toString();
+      return result;
     } else if (flavor.isMimeTypeEqual(MMD_DATA_FLAVOR)) {
-      return new NBMindMapTopicsContainer(this.topics);
+      return new NBMindMapTopicsContainer(makeTopics());
     } else {
       throw new UnsupportedFlavorException(flavor);
     }
@@ -53,6 +53,7 @@ import java.awt.geom.GeneralPath;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
+import java.io.InputStream;
 import java.lang.ref.WeakReference;
 import java.lang.reflect.InvocationTargetException;
 import java.util.List;
@@ -105,7 +106,9 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
   private transient MouseSelectedArea mouseDragSelection = null;
   private transient DraggedElement draggedElement = null;
   private transient AbstractElement destinationElement = null;
+  private transient DragPreview lastDragPreview = null;
   private final UUID uuid = UUID.randomUUID();
+  private final DecodedImageCache.DecodingListener repaintOnImageReady = (key, decoded) -> repaint();
   private Point lastMousePressed = null;
 
   @Nonnull
@@ -603,7 +606,7 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
                     selectedTopics.clear();
 
                     final Point mouseOffset = new Point((int) Math.round(e.getPoint().getX() - elementUnderMouse.getBounds().getX()), (int) Math.round(e.getPoint().getY() - elementUnderMouse.getBounds().getY()));
-                    draggedElement = new DraggedElement(elementUnderMouse, config, mouseOffset, e.isControlDown() || e.isMetaDown() ? DraggedElement.Modifier.MAKE_JUMP : DraggedElement.Modifier.NONE, getConfiguration().getRenderQuality());
+                    draggedElement = new DraggedElement(elementUnderMouse, findDragPreviewImage(elementUnderMouse), mouseOffset, e.isControlDown() || e.isMetaDown() ? DraggedElement.Modifier.MAKE_JUMP : DraggedElement.Modifier.NONE);
                     draggedElement.updatePosition(e.getPoint());
                     findDestinationElementForDragged();
                   } else {
@@ -620,12 +623,14 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
                 repaint();
               } else if (draggedElement != null) {
                 if (controller.isElementDragAllowed(theInstance)) {
+                  repaint(makeDragRepaintArea(draggedElement));
                   draggedElement.updatePosition(e.getPoint());
                   findDestinationElementForDragged();
+                  repaint(makeDragRepaintArea(draggedElement));
                 } else {
                   draggedElement = null;
+                  repaint();
                 }
-                repaint();
               }
             } else {
               mouseDragSelection = null;
@@ -1390,6 +1395,7 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
             config.setScale(scale);
           }
         });
+        this.lastDragPreview = null;
         invalidate();
         repaint();
       } finally {
@@ -1587,7 +1593,9 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
 
   /**
    * Safe Swing thread execution sequence of some jobs over model with model
-   * changed notification in the end
+   * changed notification in the end. Jobs are executed as single batch of the
+   * model so that model listeners get all changes by single event, if a job
+   * throws exception then changes of all jobs are rolled back.
    *
    * @param jobs sequence of jobs to be executed
    * @since 1.3.1
@@ -1596,14 +1604,18 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
     Utils.safeSwingCall(new Runnable() {
       @Override
       public void run() {
-        for (final ModelJob j : jobs) {
-          try {
-            if (!j.doChangeModel(model)) {
+        final MindMap theModel = model;
+        theModel.beginBatch();
+        try {
+          for (final ModelJob j : jobs) {
+            if (!j.doChangeModel(theModel)) {
               break;
             }
-          } catch (Exception ex) {
-            LOGGER.error("Errot during job execution", ex);
           }
+          theModel.commit();
+        } catch (Exception ex) {
+          theModel.rollback();
+          LOGGER.error("Errot during job execution", ex);
         }
         fireNotificationMindMapChanged(true);
       }
@@ -2028,6 +2040,37 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
     }
   }
 
+  @Nonnull
+  private Image findDragPreviewImage(@Nonnull final AbstractElement element) {
+    final RenderQuality quality = this.config.getRenderQuality();
+    DragPreview preview = this.lastDragPreview;
+    if (preview == null || !preview.isMadeFor(element, this.config, quality)) {
+      preview = new DragPreview(element, this.config, quality, Utils.renderWithTransparency(0.55f, element, this.config, quality));
+      this.lastDragPreview = preview;
+    }
+    return preview.image;
+  }
+
+  /**
+   * Make area to be repainted for dragged element, it covers drawn image of the element and highlighting of destination.
+   *
+   * @param dragged dragged element
+   * @return area in panel coordinates
+   */
+  @Nonnull
+  private Rectangle makeDragRepaintArea(@Nonnull final DraggedElement dragged) {
+    final Image image = dragged.getImage();
+    final Rectangle result = new Rectangle(dragged.getDrawPositionX(), dragged.getDrawPositionY(), image.getWidth(null), image.getHeight(null));
+    final AbstractElement destination = this.destinationElement;
+    if (destination != null) {
+      final Rectangle2D bounds = destination.getBounds();
+      final double gap = this.config.getSelectLineGap() * 3.0d * this.config.getScale() + this.config.safeScaleFloatValue(3.0f, 0.1f);
+      result.add(new Rectangle((int) Math.floor(bounds.getX() - gap), (int) Math.floor(bounds.getY() - gap),
+          (int) Math.ceil(bounds.getWidth() + gap * 2) + 1, (int) Math.ceil(bounds.getHeight() + gap * 2) + 1));
+    }
+    return result;
+  }
+
   private void findDestinationElementForDragged() {
     final Topic theroot = this.model.getRoot();
     if (this.draggedElement != null && theroot != null) {
@@ -2156,6 +2199,7 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
 
       final MindMap oldModel = this.model;
       this.model = assertNotNull("Model must not be null", model);
+      this.lastDragPreview = null;
 
       for (final PanelAwarePlugin p : MindMapPluginRegistry.getInstance().findFor(PanelAwarePlugin.class)) {
         p.onPanelModelChange(this, oldModel, this.model);
@@ -2455,7 +2499,12 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
             if (this.model.getRoot().getPayload() == null) {
               updateElementsAndSizeForGraphics(gfx, true, false);
             }
-            drawOnGraphicsForConfiguration(new MMGraphics2DWrapper(gfx), this.config, this.model, true, this.selectedTopics);
+            DecodedImageCache.beginAsyncDecoding(this.repaintOnImageReady);
+            try {
+              drawOnGraphicsForConfiguration(new MMGraphics2DWrapper(gfx), this.config, this.model, true, this.selectedTopics);
+            } finally {
+              DecodedImageCache.endAsyncDecoding();
+            }
             drawDestinationElement(gfx, this.config);
           }
 
@@ -2730,22 +2779,49 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
     if (this.lockIfNotDisposed()) {
       try {
         final Clipboard clipboard = Toolkit.getDefaultToolkit().getSystemClipboard();
-        if (Utils.isDataFlavorAvailable(clipboard, MMDTopicsTransferable.MMD_DATA_FLAVOR)) {
+        final boolean binaryAvailable = Utils.isDataFlavorAvailable(clipboard, MMDTopicsTransferable.MMD_BINARY_FLAVOR);
+        if (binaryAvailable || Utils.isDataFlavorAvailable(clipboard, MMDTopicsTransferable.MMD_DATA_FLAVOR)) {
           try {
-            final NBMindMapTopicsContainer container = (NBMindMapTopicsContainer) clipboard.getData(MMDTopicsTransferable.MMD_DATA_FLAVOR);
-            if (container != null && !container.isEmpty()) {
+            final List<MappedTopic> mappedTopics;
+            final Topic[] loadedTopics;
+            if (binaryAvailable) {
+              try (final InputStream in = (InputStream) clipboard.getData(MMDTopicsTransferable.MMD_BINARY_FLAVOR)) {
+                mappedTopics = MMDTopicsTransferable.readTopics(in);
+              }
+              loadedTopics = null;
+            } else {
+              final NBMindMapTopicsContainer container = (NBMindMapTopicsContainer) clipboard.getData(MMDTopicsTransferable.MMD_DATA_FLAVOR);
+              mappedTopics = null;
+              loadedTopics = container == null ? null : container.getTopics();
+            }
+            if ((mappedTopics != null && !mappedTopics.isEmpty()) || (loadedTopics != null && loadedTopics.length > 0)) {
               this.endEdit(true);
 
               final Topic[] selected = this.getSelectedTopics();
 
               if (selected.length > 0) {
-                for (final Topic s : selected) {
-                  for (final Topic t : container.getTopics()) {
-                    final Topic newTopic = new Topic(this.model, t, true);
-                    newTopic.removeExtra(Extra.ExtraType.TOPIC);
-                    newTopic.moveToNewParent(s);
-                    MindMapUtils.ensureVisibility(newTopic);
+                this.model.beginBatch();
+                try {
+                  for (final Topic s : selected) {
+                    if (mappedTopics != null) {
+                      for (final MappedTopic t : mappedTopics) {
+                        final Topic newTopic = t.toTopic(this.model, s);
+                        newTopic.removeExtra(Extra.ExtraType.TOPIC);
+                        MindMapUtils.ensureVisibility(newTopic);
+                      }
+                    } else {
+                      for (final Topic t : loadedTopics) {
+                        final Topic newTopic = new Topic(this.model, t, true);
+                        newTopic.removeExtra(Extra.ExtraType.TOPIC);
+                        newTopic.moveToNewParent(s);
+                        MindMapUtils.ensureVisibility(newTopic);
+                      }
+                    }
                   }
+                  this.model.commit();
+                } catch (RuntimeException ex) {
+                  this.model.rollback();
+                  throw ex;
                 }
               }
 
@@ -2768,38 +2844,45 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
               if (this.textEditor != null) {
                 this.textEditor.insert(clipboardText, this.textEditor.getCaretPosition());
               } else {
-                if (this.getConfiguration().isSmartTextPaste()) {
-                  for (final Topic t : this.getSelectedTopics()) {
-                    MindMapUtils.makeSubTreeFromText(t, clipboardText);
-                  }
-                } else {
-                  clipboardText = clipboardText.trim();
+                this.model.beginBatch();
+                try {
+                  if (this.getConfiguration().isSmartTextPaste()) {
+                    for (final Topic t : this.getSelectedTopics()) {
+                      MindMapUtils.makeSubTreeFromText(t, clipboardText);
+                    }
+                  } else {
+                    clipboardText = clipboardText.trim();
 
-                  final String topicText;
-                  final String extraNoteText;
+                    final String topicText;
+                    final String extraNoteText;
 
-                  if (clipboardText.length() > MAX_TEXT_LEN) {
-                    topicText = clipboardText.substring(0, MAX_TEXT_LEN) + "...";
-                    extraNoteText = clipboardText;
-                  } else {
-                    topicText = clipboardText;
-                    extraNoteText = null;
-                  }
+                    if (clipboardText.length() > MAX_TEXT_LEN) {
+                      topicText = clipboardText.substring(0, MAX_TEXT_LEN) + "...";
+                      extraNoteText = clipboardText;
+                    } else {
+                      topicText = clipboardText;
+                      extraNoteText = null;
+                    }
 
-                  final Topic[] selectedTopics = this.getSelectedTopics();
+                    final Topic[] selectedTopics = this.getSelectedTopics();
 
-                  if (selectedTopics.length > 0) {
-                    for (final Topic s : selectedTopics) {
-                      final Topic newTopic;
-                      if (extraNoteText == null) {
-                        newTopic = new Topic(this.model, s, topicText);
-                      } else {
-                        newTopic =
-                                new Topic(this.model, s, topicText, new ExtraNote(extraNoteText));
+                    if (selectedTopics.length > 0) {
+                      for (final Topic s : selectedTopics) {
+                        final Topic newTopic;
+                        if (extraNoteText == null) {
+                          newTopic = new Topic(this.model, s, topicText);
+                        } else {
+                          newTopic =
+                                  new Topic(this.model, s, topicText, new ExtraNote(extraNoteText));
+                        }
+                        MindMapUtils.ensureVisibility(newTopic);
                       }
-                      MindMapUtils.ensureVisibility(newTopic);
                     }
                   }
+                  this.model.commit();
+                } catch (RuntimeException ex) {
+                  this.model.rollback();
+                  throw ex;
                 }
               }
               doLayout();
@@ -2864,6 +2947,56 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
     boolean doChangeModel(@Nonnull MindMap model);
   }
 
+  /**
+   * Rendered image of dragged element, it is reused while the element looks the same.
+   */
+  private static final class DragPreview {
+
+    private final Topic topic;
+    private final String text;
+    private final Map<String, String> attributes;
+    private final Set<Extra.ExtraType> extras;
+    private final double width;
+    private final double height;
+    private final double scale;
+    private final RenderQuality quality;
+    private final Color background;
+    private final Color border;
+    private final Color textColor;
+    private final Image image;
+
+    private DragPreview(@Nonnull final AbstractElement element, @Nonnull final MindMapPanelConfig cfg, @Nonnull final RenderQuality quality, @Nonnull final Image image) {
+      final Topic model = element.getModel();
+      this.topic = model;
+      this.text = model.getText();
+      this.attributes = new HashMap<>(model.getAttributes());
+      this.extras = new HashSet<>(model.getExtras().keySet());
+      this.width = element.getBounds().getWidth();
+      this.height = element.getBounds().getHeight();
+      this.scale = cfg.getScale();
+      this.quality = quality;
+      this.background = element.getBackgroundColor(cfg);
+      this.border = element.getBorderColor(cfg);
+      this.textColor = element.getTextColor(cfg);
+      this.image = image;
+    }
+
+    private boolean isMadeFor(@Nonnull final AbstractElement element, @Nonnull final MindMapPanelConfig cfg, @Nonnull final RenderQuality quality) {
+      final Topic model = element.getModel();
+      return this.topic == model
+          && Double.compare(this.width, element.getBounds().getWidth()) == 0
+          && Double.compare(this.height, element.getBounds().getHeight()) == 0
+          && Double.compare(this.scale, cfg.getScale()) == 0
+          && this.quality == quality
+          && this.text.equals(model.getText())
+          && this.attributes.equals(model.getAttributes())
+          && this.extras.equals(model.getExtras().keySet())
+          && this.background.equals(element.getBackgroundColor(cfg))
+          && this.border.equals(element.getBorderColor(cfg))
+          && this.textColor.equals(element.getTextColor(cfg));
+    }
+  }
+
   public static class DraggedElement {
 
     @Nonnull
@@ -2874,8 +3007,21 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
     private final DraggedElement.Modifier modifier;
 
     public DraggedElement(@Nonnull final AbstractElement element, @Nonnull final MindMapPanelConfig cfg, @Nonnull final Point mousePointerOffset, @Nonnull final DraggedElement.Modifier modifier, @Nonnull final RenderQuality quality) {
+      this(element, Utils.renderWithTransparency(0.55f, element, cfg, quality), mousePointerOffset, modifier);
+    }
+
+    /**
+     * Constructor with already rendered image of element.
+     *
+     * @param element            dragged element
+     * @param prerenderedImage   image to be drawn under mouse pointer
+     * @param mousePointerOffset offset of mouse pointer inside element
+     * @param modifier           modifier of dragging
+     * @since 1.5.2
+     */
+    public DraggedElement(@Nonnull final AbstractElement element, @Nonnull final Image prerenderedImage, @Nonnull final Point mousePointerOffset, @Nonnull final DraggedElement.Modifier modifier) {
       this.element = element;
-      this.prerenderedImage = Utils.renderWithTransparency(0.55f, element, cfg, quality);
+      this.prerenderedImage = prerenderedImage;
       this.mousePointerOffset = mousePointerOffset;
       this.currentPosition = new Point();
       this.modifier = modifier;
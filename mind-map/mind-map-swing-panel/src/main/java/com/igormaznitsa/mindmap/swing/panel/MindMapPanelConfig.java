@@ -111,6 +111,7 @@ public final class MindMapPanelConfig implements Serializable {
   private float selectLineWidth = 3.0f;
   private float jumpLinkWidth = 1.5f;
   private boolean smartTextPaste = false;
+  private boolean searchInEncryptedNotes = false;
   private Font font = new Font(Font.SERIF, Font.BOLD, 18);
   private double scale = 1.0d;
   private boolean dropShadow = true;
@@ -611,6 +612,23 @@ public final class MindMapPanelConfig implements Serializable {
     notifyCfgListenersAboutChange();
   }
 
+  /**
+   * Check that search can look into encrypted notes which can be decrypted by passwords entered during the session.
+   *
+   * @return true if search in encrypted notes is allowed, false by default
+   * @since 1.5.2
+   */
+  @SettingsAccessor(name = "searchInEncryptedNotes")
+  public boolean isSearchInEncryptedNotes() {
+    return this.searchInEncryptedNotes;
+  }
+
+  @SettingsAccessor(name = "searchInEncryptedNotes")
+  public void setSearchInEncryptedNotes(final boolean flag) {
+    this.searchInEncryptedNotes = flag;
+    notifyCfgListenersAboutChange();
+  }
+
   @SettingsAccessor(name = "drawBackground")
   public boolean isDrawBackground() {
     return this.drawBackground;
@@ -36,6 +36,13 @@ import javax.annotation.Nullable;
 
 public abstract class AbstractCollapsableElement extends AbstractElement {
 
+  /**
+   * Shapes reused for painting of connectors, elements can be painted by several threads (for instance exporters)
+   * so that the shapes are per thread.
+   */
+  private static final ThreadLocal<Path2D.Double> CONNECTOR_PATH = ThreadLocal.withInitial(Path2D.Double::new);
+  private static final ThreadLocal<Rectangle2D.Double> CONNECTOR_SOURCE = ThreadLocal.withInitial(Rectangle2D.Double::new);
+
   protected final Rectangle2D collapsatorZone = new Rectangle2D.Double();
 
   protected AbstractCollapsableElement(@Nonnull final AbstractCollapsableElement element) {
@@ -210,9 +217,22 @@ public abstract class AbstractCollapsableElement extends AbstractElement {
     }
   }
 
+  /**
+   * Get collapsator zone in coordinates of panel, returned rectangle is shared and valid only until next call
+   * in the same thread.
+   *
+   * @return source point zone for connectors
+   */
+  @Nonnull
+  protected Rectangle2D makeConnectorSource() {
+    final Rectangle2D.Double result = CONNECTOR_SOURCE.get();
+    result.setRect(this.bounds.getX() + this.collapsatorZone.getX(), this.bounds.getY() + this.collapsatorZone.getY(), this.collapsatorZone.getWidth(), this.collapsatorZone.getHeight());
+    return result;
+  }
+
   @Override
   public void doPaintConnectors(@Nonnull final MMGraphics g, final boolean leftDirection, @Nonnull final MindMapPanelConfig cfg) {
-    final Rectangle2D source = new Rectangle2D.Double(this.bounds.getX() + this.collapsatorZone.getX(), this.bounds.getY() + this.collapsatorZone.getY(), this.collapsatorZone.getWidth(), this.collapsatorZone.getHeight());
+    final Rectangle2D source = makeConnectorSource();
     final boolean lefDir = isLeftDirection();
     for (final Topic t : this.model.getChildren()) {
       this.drawConnector(g, source, (assertNotNull((AbstractElement) t.getPayload())).getBounds(), lefDir, cfg);
@@ -227,7 +247,8 @@ public abstract class AbstractCollapsableElement extends AbstractElement {
     if (dy < (16.0d * cfg.getScale())) {
       g.drawLine((int) source.getCenterX(), (int) source.getCenterY(), (int) destination.getCenterX(), (int) source.getCenterY(), cfg.getConnectorColor());
     } else {
-      final Path2D path = new Path2D.Double();
+      final Path2D path = CONNECTOR_PATH.get();
+      path.reset();
       path.moveTo(source.getCenterX(), source.getCenterY());
 
       if (leftDirection) {
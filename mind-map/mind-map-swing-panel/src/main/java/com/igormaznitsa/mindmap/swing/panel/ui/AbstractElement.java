@@ -172,23 +172,20 @@ public abstract class AbstractElement {
   }
 
   public final void doPaint(@Nonnull final MMGraphics g, @Nonnull final MindMapPanelConfig cfg, final boolean drawCollapsator) {
-    final MMGraphics gfx = g.copy();
-    try {
-      if (this.hasChildren() && !isCollapsed()) {
-        doPaintConnectors(g, isLeftDirection(), cfg);
-      }
+    if (this.hasChildren() && !isCollapsed()) {
+      doPaintConnectors(g, isLeftDirection(), cfg);
+    }
 
-      final Rectangle clip = g.getClipBounds();
+    final Rectangle clip = g.getClipBounds();
 
-      if (clip == null) {
-        gfx.translate(this.bounds.getX(), this.bounds.getY());
-        drawComponent(gfx, cfg, drawCollapsator);
-      } else if (clip.intersects(this.bounds)) {
+    if (clip == null || clip.intersects(this.bounds)) {
+      final MMGraphics gfx = g.copy();
+      try {
         gfx.translate(this.bounds.getX(), this.bounds.getY());
         drawComponent(gfx, cfg, drawCollapsator);
+      } finally {
+        gfx.dispose();
       }
-    } finally {
-      gfx.dispose();
     }
   }
 
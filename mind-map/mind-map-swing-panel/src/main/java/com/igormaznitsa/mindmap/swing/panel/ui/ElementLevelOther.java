@@ -75,7 +75,7 @@ public class ElementLevelOther extends ElementLevelFirst {
 
   @Override
   public void doPaintConnectors(@Nonnull final MMGraphics g, final boolean leftDirection, @Nonnull final MindMapPanelConfig cfg) {
-    final Rectangle2D source = new Rectangle2D.Double(this.bounds.getX() + this.collapsatorZone.getX(), this.bounds.getY() + this.collapsatorZone.getY(), this.collapsatorZone.getWidth(), this.collapsatorZone.getHeight());
+    final Rectangle2D source = makeConnectorSource();
     for (final Topic t : this.model.getChildren()) {
       this.drawConnector(g, source, assertNotNull(((AbstractElement) t.getPayload())).getBounds(), leftDirection, cfg);
     }
@@ -26,18 +26,57 @@ import java.awt.Shape;
 import java.awt.Stroke;
 import java.awt.geom.Path2D;
 import java.awt.geom.Rectangle2D;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 public class MMGraphics2DWrapper implements MMGraphics {
 
+  private static final Stroke DEFAULT_STROKE = new BasicStroke(1.0f);
+  private static final int MAX_CACHED_STROKES = 256;
+
+  /**
+   * Strokes are immutable, so that they are shared between all wrappers. Key contains bits of width and type.
+   */
+  private static final Map<Long, Stroke> STROKE_CACHE = new ConcurrentHashMap<>();
+
   private final Graphics2D wrapped;
+  private Path2D.Double curve;
   private StrokeType strokeType = StrokeType.SOLID;
   private float strokeWidth = 1.0f;
 
   public MMGraphics2DWrapper(@Nonnull final Graphics2D wrapped) {
     this.wrapped = wrapped;
-    this.wrapped.setStroke(new BasicStroke(this.strokeWidth));
+    this.wrapped.setStroke(DEFAULT_STROKE);
+  }
+
+  @Nonnull
+  static Stroke findStroke(final float width, @Nonnull final StrokeType type) {
+    final Long key = ((long) Float.floatToIntBits(width) << 8) | type.ordinal();
+    Stroke result = STROKE_CACHE.get(key);
+    if (result == null) {
+      result = makeStroke(width, type);
+      if (STROKE_CACHE.size() >= MAX_CACHED_STROKES) {
+        STROKE_CACHE.clear();
+      }
+      STROKE_CACHE.put(key, result);
+    }
+    return result;
+  }
+
+  @Nonnull
+  private static Stroke makeStroke(final float width, @Nonnull final StrokeType type) {
+    switch (type) {
+      case SOLID:
+        return new BasicStroke(width, BasicStroke.CAP_ROUND, BasicStroke.JOIN_MITER);
+      case DASHES:
+        return new BasicStroke(width, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10.0f, new float[] {width * 3.0f, width}, 0.0f);
+      case DOTS:
+        return new BasicStroke(width, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10.0f, new float[] {width, width * 2.0f}, 0.0f);
+      default:
+        throw new Error("Unexpected stroke type : " + type);
+    }
   }
 
   @Nonnull
@@ -93,23 +132,7 @@ public class MMGraphics2DWrapper implements MMGraphics {
     if (type != this.strokeType || Float.compare(this.strokeWidth, width) != 0) {
       this.strokeType = type;
       this.strokeWidth = width;
-
-      final Stroke stroke;
-
-      switch (type) {
-        case SOLID:
-          stroke = new BasicStroke(width, BasicStroke.CAP_ROUND, BasicStroke.JOIN_MITER);
-          break;
-        case DASHES:
-          stroke = new BasicStroke(width, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10.0f, new float[] {width * 3.0f, width}, 0.0f);
-          break;
-        case DOTS:
-          stroke = new BasicStroke(width, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10.0f, new float[] {width, width * 2.0f}, 0.0f);
-          break;
-        default:
-          throw new Error("Unexpected stroke type : " + type);
-      }
-      this.wrapped.setStroke(stroke);
+      this.wrapped.setStroke(findStroke(width, type));
     }
   }
 
@@ -136,13 +159,17 @@ public class MMGraphics2DWrapper implements MMGraphics {
 
   @Override
   public void drawCurve(final double startX, final double startY, final double endX, final double endY, @Nullable final Color color) {
-    final Path2D path = new Path2D.Double();
-    path.moveTo(startX, startY);
-    path.curveTo(startX, endY, startX, endY, endX, endY);
+    if (this.curve == null) {
+      this.curve = new Path2D.Double();
+    } else {
+      this.curve.reset();
+    }
+    this.curve.moveTo(startX, startY);
+    this.curve.curveTo(startX, endY, startX, endY, endX, endY);
     if (color != null) {
       this.wrapped.setColor(color);
     }
-    this.wrapped.draw(path);
+    this.wrapped.draw(this.curve);
   }
 
   @Override
@@ -1,34 +1,148 @@
 package com.igormaznitsa.mindmap.swing.panel.utils;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
-import java.security.Key;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
+import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
 import net.iharder.Base64;
 
 public final class CryptoUtils {
+
+  private static final int HASH_LENGTH = 32;
+  private static final long SESSION_KEYS_IDLE_TIMEOUT_NANOS = TimeUnit.MINUTES.toNanos(15L);
+
+  private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException(ex);
+    }
+  });
+
+  private static final ThreadLocal<Cipher> AES = ThreadLocal.withInitial(() -> {
+    try {
+      return Cipher.getInstance("AES");
+    } catch (NoSuchAlgorithmException | NoSuchPaddingException ex) {
+      throw new IllegalStateException(ex);
+    }
+  });
+
+  private static final CopyOnWriteArrayList<SecretKey> SESSION_KEYS = new CopyOnWriteArrayList<>();
+  private static final AtomicLong SESSION_KEYS_LAST_USE = new AtomicLong();
+  private static final Object SESSION_KEYS_LOCK = new Object();
+  private static int sessionKeysUsers;
+
   private CryptoUtils() {
 
   }
 
   @Nonnull
   public static byte[] sha256(@Nonnull final byte[] data) {
-    try {
-      return MessageDigest.getInstance("SHA-256").digest(data);
-    } catch (NoSuchAlgorithmException ex) {
-      throw new IllegalStateException(ex);
+    return SHA256.get().digest(data);
+  }
+
+  private static boolean isHashValid(@Nonnull final byte[] data) {
+    final MessageDigest digest = SHA256.get();
+    digest.update(data, HASH_LENGTH, data.length - HASH_LENGTH);
+    final byte[] calculated = digest.digest();
+    int diff = 0;
+    for (int i = 0; i < HASH_LENGTH; i++) {
+      diff |= calculated[i] ^ data[i];
     }
+    return diff == 0;
+  }
+
+  /**
+   * Get key for password. Key derivation is defined by format of encrypted notes, it is SHA-256 of UTF-8 bytes of password.
+   *
+   * @param pass password, must not be null
+   * @return AES key, must not be null
+   * @since 1.5.2
+   */
+  @Nonnull
+  public static SecretKey deriveKey(@Nonnull final String pass) {
+    return new SecretKeySpec(sha256(pass.getBytes(StandardCharsets.UTF_8)), "AES");
+  }
+
+  /**
+   * Remember key of password for the current session, remembered keys are used to search in encrypted notes.
+   * Only derived key is kept, not the password. Remembered keys are forgotten automatically if they are not used
+   * during 15 minutes.
+   *
+   * @param pass password, can be null or empty then ignored
+   * @since 1.5.2
+   */
+  public static void rememberSessionKey(@Nullable final String pass) {
+    if (pass != null && !pass.isEmpty()) {
+      SESSION_KEYS.addIfAbsent(deriveKey(pass));
+      SESSION_KEYS_LAST_USE.set(System.nanoTime());
+    }
+  }
+
+  /**
+   * Register user of session keys, for instance opened editor or project. Every call must be paired with {@link #releaseSessionKeys()}.
+   *
+   * @since 1.5.2
+   */
+  public static void acquireSessionKeys() {
+    synchronized (SESSION_KEYS_LOCK) {
+      sessionKeysUsers++;
+    }
+  }
+
+  /**
+   * Unregister user of session keys, remembered keys are forgotten when the last user is released.
+   *
+   * @see #acquireSessionKeys()
+   * @since 1.5.2
+   */
+  public static void releaseSessionKeys() {
+    synchronized (SESSION_KEYS_LOCK) {
+      if (sessionKeysUsers > 0) {
+        sessionKeysUsers--;
+      }
+      if (sessionKeysUsers == 0) {
+        SESSION_KEYS.clear();
+      }
+    }
+  }
+
+  /**
+   * Forget all remembered session keys independently of their users.
+   *
+   * @since 1.5.2
+   */
+  public static void forgetSessionKeys() {
+    SESSION_KEYS.clear();
+  }
+
+  private static boolean touchSessionKeys() {
+    if (SESSION_KEYS.isEmpty()) {
+      return false;
+    }
+    final long now = System.nanoTime();
+    if (now - SESSION_KEYS_LAST_USE.getAndSet(now) > SESSION_KEYS_IDLE_TIMEOUT_NANOS) {
+      forgetSessionKeys();
+      return false;
+    }
+    return true;
+  }
+
+  public static boolean hasSessionKeys() {
+    return touchSessionKeys();
   }
 
   @Nonnull
@@ -38,53 +152,93 @@ public final class CryptoUtils {
     }
     try {
       final byte[] textBytes = text.getBytes(StandardCharsets.UTF_8);
-      final byte[] textHash = sha256(textBytes);
-
-      final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-      outputStream.write(textHash);
-      outputStream.write(textBytes);
 
-      final byte[] originalData = outputStream.toByteArray();
+      final byte[] originalData = new byte[HASH_LENGTH + textBytes.length];
+      System.arraycopy(sha256(textBytes), 0, originalData, 0, HASH_LENGTH);
+      System.arraycopy(textBytes, 0, originalData, HASH_LENGTH, textBytes.length);
 
-      final byte[] key = sha256(pass.getBytes(StandardCharsets.UTF_8));
-      Key aesKey = new SecretKeySpec(key, "AES");
-      Cipher cipher = Cipher.getInstance("AES");
-      cipher.init(Cipher.ENCRYPT_MODE, aesKey);
+      final Cipher cipher = AES.get();
+      cipher.init(Cipher.ENCRYPT_MODE, deriveKey(pass));
       final byte[] encodedData = cipher.doFinal(originalData);
       if (Arrays.equals(originalData, encodedData)) {
         throw new IllegalStateException(
             "Data can't be encrypted! Check encryption provider and settings!");
       }
       return Base64.encodeBytes(encodedData);
-    } catch (NoSuchPaddingException | InvalidKeyException | NoSuchAlgorithmException | IllegalBlockSizeException | BadPaddingException | IOException ex) {
+    } catch (InvalidKeyException | IllegalBlockSizeException | BadPaddingException ex) {
       throw new RuntimeException(ex);
     }
   }
 
   public static boolean decrypt(@Nonnull final String pass, @Nonnull final String text,
                                 @Nonnull final StringBuilder output) {
+    final String result = decrypt(deriveKey(pass), text);
+    if (result == null) {
+      return false;
+    }
+    output.append(result);
+    return true;
+  }
+
+  /**
+   * Decrypt text with key.
+   *
+   * @param key  key to decrypt, must not be null
+   * @param text Base64 encoded encrypted text, must not be null
+   * @return decrypted text or null if it can't be decrypted by the key
+   * @since 1.5.2
+   */
+  @Nullable
+  public static String decrypt(@Nonnull final SecretKey key, @Nonnull final String text) {
     try {
-      final byte[] key = sha256(pass.getBytes(StandardCharsets.UTF_8));
-      final Key aesKey = new SecretKeySpec(key, "AES");
-      Cipher cipher = Cipher.getInstance("AES");
-      cipher.init(Cipher.DECRYPT_MODE, aesKey);
-      final byte[] decrypted = cipher.doFinal(Base64.decode(text));
-      if (decrypted.length < 32) {
-        return false;
-      }
-      final byte[] sha256data = Arrays.copyOfRange(decrypted, 0, 32);
-      final byte[] textPart = Arrays.copyOfRange(decrypted, 32, decrypted.length);
-      final byte[] calculatedHash = sha256(textPart);
-      if (!Arrays.equals(sha256data, calculatedHash)) {
-        return false;
+      return decrypt(AES.get(), key, Base64.decode(text));
+    } catch (IOException ex) {
+      throw new RuntimeException(ex);
+    }
+  }
+
+  @Nullable
+  private static String decrypt(@Nonnull final Cipher cipher, @Nonnull final SecretKey key, @Nonnull final byte[] data) {
+    try {
+      cipher.init(Cipher.DECRYPT_MODE, key);
+      final byte[] decrypted = cipher.doFinal(data);
+      if (decrypted.length < HASH_LENGTH || !isHashValid(decrypted)) {
+        return null;
       }
-      output.append(new String(textPart, StandardCharsets.UTF_8));
-      return true;
-    } catch (BadPaddingException ex) {
-      return false;
-    } catch (NoSuchPaddingException | InvalidKeyException | NoSuchAlgorithmException | IllegalBlockSizeException | IOException ex) {
+      return new String(decrypted, HASH_LENGTH, decrypted.length - HASH_LENGTH, StandardCharsets.UTF_8);
+    } catch (BadPaddingException | IllegalBlockSizeException ex) {
+      return null;
+    } catch (InvalidKeyException ex) {
       throw new RuntimeException(ex);
     }
   }
 
+  /**
+   * Try to decrypt text with keys remembered for the session.
+   *
+   * @param text Base64 encoded encrypted text, must not be null
+   * @return decrypted text or null if there is not any suitable key
+   * @see #rememberSessionKey(String)
+   * @since 1.5.2
+   */
+  @Nullable
+  public static String decryptWithSessionKeys(@Nonnull final String text) {
+    if (!touchSessionKeys()) {
+      return null;
+    }
+    final byte[] data;
+    try {
+      data = Base64.decode(text);
+    } catch (IOException ex) {
+      return null;
+    }
+    final Cipher cipher = AES.get();
+    for (final SecretKey key : SESSION_KEYS) {
+      final String result = decrypt(cipher, key, data);
+      if (result != null) {
+        return result;
+      }
+    }
+    return null;
+  }
 }
@@ -0,0 +1,354 @@
+/*
+ * Copyright 2015-2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.mindmap.swing.panel.utils;
+
+import com.igormaznitsa.mindmap.model.logger.Logger;
+import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
+import com.igormaznitsa.mindmap.swing.services.BackgroundTaskService;
+import com.igormaznitsa.mindmap.swing.services.BackgroundTaskServiceProvider;
+import java.awt.Image;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.swing.SwingUtilities;
+
+/**
+ * Global cache of decoded images, it is bounded by estimated size of decoded pixels and keyed by hash of image content so that identical images are shared between topics and maps.
+ * Images can be decoded in background if the current thread is marked for async decoding, in the case a listener will be notified through the Swing thread when decoding is completed.
+ *
+ * @since 1.5.2
+ */
+@ThreadSafe
+public final class DecodedImageCache {
+
+  /**
+   * System property to define max size of the global cache in bytes.
+   */
+  public static final String PROPERTY_MAX_BYTES = "mmd.image.cache.max.bytes";
+  public static final long DEFAULT_MAX_BYTES = 64L * 1024L * 1024L;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(DecodedImageCache.class);
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+  private static final ThreadLocal<DecodingListener> ASYNC_CALLBACK = new ThreadLocal<>();
+  private static final DecodedImageCache INSTANCE = new DecodedImageCache(Long.getLong(PROPERTY_MAX_BYTES, DEFAULT_MAX_BYTES));
+
+  private final long maxBytes;
+  private final Map<String, CachedImage> images = new LinkedHashMap<>(64, 0.75f, true);
+  private final Map<String, List<DecodingListener>> decoding = new HashMap<>();
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+  private boolean shutdown;
+  private long usedBytes;
+
+  /**
+   * Constructor, background decoding is executed by shared {@link BackgroundTaskService} and it can be stopped by {@link #shutdown()}.
+   *
+   * @param maxBytes max size of decoded images in bytes
+   */
+  public DecodedImageCache(final long maxBytes) {
+    this.maxBytes = Math.max(0L, maxBytes);
+  }
+
+  @Nonnull
+  public static DecodedImageCache getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Make key for image content. Content is hashed by chunks as ISO-8859-1 chars so that big encoded images are not copied.
+   *
+   * @param content content of image, for instance Base64 encoded data, must not be null
+   * @return hash based key, must not be null
+   */
+  @Nonnull
+  public static String makeKey(@Nonnull final String content) {
+    try {
+      final MessageDigest md5 = MessageDigest.getInstance("MD5");
+      final byte[] buffer = new byte[Math.min(content.length(), 8192)];
+      int offset = 0;
+      while (offset < content.length()) {
+        final int len = Math.min(buffer.length, content.length() - offset);
+        for (int i = 0; i < len; i++) {
+          final char c = content.charAt(offset + i);
+          buffer[i] = c > 0xFF ? (byte) '?' : (byte) c;
+        }
+        md5.update(buffer, 0, len);
+        offset += len;
+      }
+      final byte[] digest = md5.digest();
+      final char[] result = new char[digest.length * 2];
+      for (int i = 0; i < digest.length; i++) {
+        result[i * 2] = HEX[(digest[i] >>> 4) & 0xF];
+        result[i * 2 + 1] = HEX[digest[i] & 0xF];
+      }
+      return new String(result) + '_' + content.length();
+    } catch (NoSuchAlgorithmException ex) {
+      throw new Error("Can't find MD5", ex);
+    }
+  }
+
+  /**
+   * Mark the current thread to decode missing images in background. It should be used by interactive painting to avoid blocking on image decoding.
+   *
+   * @param onImageReady listener to be called through Swing thread when decoding of a requested image is completed, must not be null
+   * @see #endAsyncDecoding()
+   */
+  public static void beginAsyncDecoding(@Nonnull final DecodingListener onImageReady) {
+    ASYNC_CALLBACK.set(onImageReady);
+  }
+
+  /**
+   * Remove async decoding mark from the current thread.
+   *
+   * @see #beginAsyncDecoding(DecodingListener)
+   */
+  public static void endAsyncDecoding() {
+    ASYNC_CALLBACK.remove();
+  }
+
+  private static long estimateBytes(@Nullable final Image image) {
+    return image == null ? 0L : Math.max(0L, (long) image.getWidth(null) * (long) image.getHeight(null) * 4L);
+  }
+
+  /**
+   * Find cached image or decode it. If the current thread is marked for async decoding then decoding is started in background and null is returned.
+   * Images which can't be decoded are cached as null to avoid repeated decoding attempts.
+   *
+   * @param key     image key, must not be null
+   * @param decoder decoder of image, called only if image is not cached, must not be null
+   * @return decoded image or null if it is not ready yet or can't be decoded
+   * @see #beginAsyncDecoding(DecodingListener)
+   */
+  @Nullable
+  public Image find(@Nonnull final String key, @Nonnull final Callable<Image> decoder) {
+    return find(key, decoder, true);
+  }
+
+  /**
+   * Find cached image derived from another one (for instance scaled image or mip level) or make it. It works like {@link #find(String, Callable)} but the lookup is not counted in hits and misses.
+   *
+   * @param key   image key, must not be null
+   * @param maker maker of image, called only if image is not cached, must not be null
+   * @return found or made image, null if it is not ready yet or can't be made
+   */
+  @Nullable
+  public Image findDerived(@Nonnull final String key, @Nonnull final Callable<Image> maker) {
+    return find(key, maker, false);
+  }
+
+  @Nullable
+  private Image find(@Nonnull final String key, @Nonnull final Callable<Image> decoder, final boolean countStatistics) {
+    final DecodingListener callback = ASYNC_CALLBACK.get();
+    synchronized (this.images) {
+      final CachedImage cached = this.images.get(key);
+      if (cached != null) {
+        if (countStatistics) {
+          this.hits.incrementAndGet();
+        }
+        return cached.image;
+      }
+      if (countStatistics) {
+        this.misses.incrementAndGet();
+      }
+      if (callback != null && !this.shutdown) {
+        final List<DecodingListener> waiting = this.decoding.get(key);
+        if (waiting == null) {
+          final List<DecodingListener> callbacks = new ArrayList<>();
+          callbacks.add(callback);
+          this.decoding.put(key, callbacks);
+          BackgroundTaskServiceProvider.findInstance().findExecutor(BackgroundTaskService.TaskKind.IMAGE_DECODING).execute(() -> decodeInBackground(key, decoder));
+        } else if (!waiting.contains(callback)) {
+          waiting.add(callback);
+        }
+        return null;
+      }
+    }
+    final Image decoded = decode(key, decoder);
+    this.putItem(key, new CachedImage(decoded));
+    return decoded;
+  }
+
+  /**
+   * Get cached image.
+   *
+   * @param key image key, must not be null
+   * @return found image or null
+   */
+  @Nullable
+  public Image get(@Nonnull final String key) {
+    synchronized (this.images) {
+      final CachedImage result = this.images.get(key);
+      if (result == null) {
+        this.misses.incrementAndGet();
+        return null;
+      } else {
+        this.hits.incrementAndGet();
+        return result.image;
+      }
+    }
+  }
+
+  /**
+   * Place image into cache, the least recently used images will be removed if the cache exceeds its size.
+   *
+   * @param key   image key, must not be null
+   * @param image image to be cached, must not be null
+   */
+  public void put(@Nonnull final String key, @Nonnull final Image image) {
+    this.putItem(key, new CachedImage(image));
+  }
+
+  private void putItem(@Nonnull final String key, @Nonnull final CachedImage newItem) {
+    synchronized (this.images) {
+      final CachedImage prev = this.images.put(key, newItem);
+      if (prev != null) {
+        this.usedBytes -= prev.bytes;
+      }
+      this.usedBytes += newItem.bytes;
+
+      final Iterator<Map.Entry<String, CachedImage>> iterator = this.images.entrySet().iterator();
+      while (this.usedBytes > this.maxBytes && iterator.hasNext()) {
+        final Map.Entry<String, CachedImage> eldest = iterator.next();
+        if (eldest.getValue() != newItem) {
+          iterator.remove();
+          this.usedBytes -= eldest.getValue().bytes;
+          this.evictions.incrementAndGet();
+        }
+      }
+    }
+  }
+
+  /**
+   * Stop background decoding, queued decoding tasks are skipped and images requested after the call are decoded in the caller thread.
+   */
+  public void shutdown() {
+    synchronized (this.images) {
+      this.shutdown = true;
+      this.decoding.clear();
+    }
+  }
+
+  public void clear() {
+    synchronized (this.images) {
+      this.images.clear();
+      this.usedBytes = 0L;
+    }
+  }
+
+  public long getMaxBytes() {
+    return this.maxBytes;
+  }
+
+  public long getUsedBytes() {
+    synchronized (this.images) {
+      return this.usedBytes;
+    }
+  }
+
+  public int size() {
+    synchronized (this.images) {
+      return this.images.size();
+    }
+  }
+
+  public long getHits() {
+    return this.hits.get();
+  }
+
+  public long getMisses() {
+    return this.misses.get();
+  }
+
+  public long getEvictions() {
+    return this.evictions.get();
+  }
+
+  @Nullable
+  private Image decode(@Nonnull final String key, @Nonnull final Callable<Image> decoder) {
+    try {
+      return decoder.call();
+    } catch (Exception ex) {
+      LOGGER.error("Can't decode image: " + key, ex);
+      return null;
+    }
+  }
+
+  private void decodeInBackground(@Nonnull final String key, @Nonnull final Callable<Image> decoder) {
+    synchronized (this.images) {
+      if (this.shutdown) {
+        return;
+      }
+    }
+    final Image decoded = decode(key, decoder);
+    this.putItem(key, new CachedImage(decoded));
+    final List<DecodingListener> callbacks;
+    synchronized (this.images) {
+      callbacks = this.decoding.remove(key);
+    }
+    if (callbacks != null) {
+      final boolean success = decoded != null;
+      SwingUtilities.invokeLater(() -> {
+        for (final DecodingListener l : callbacks) {
+          l.onDecodingCompleted(key, success);
+        }
+      });
+    }
+  }
+
+  @Override
+  @Nonnull
+  public String toString() {
+    return String.format("DecodedImageCache(size=%d, usedBytes=%d, maxBytes=%d, hits=%d, misses=%d, evictions=%d)",
+        this.size(), this.getUsedBytes(), this.maxBytes, this.getHits(), this.getMisses(), this.getEvictions());
+  }
+
+  /**
+   * Listener of background decoding.
+   */
+  public interface DecodingListener {
+
+    /**
+     * Called through Swing thread when background decoding of image is completed.
+     *
+     * @param key     key of image, must not be null
+     * @param decoded true if image is decoded and cached, false if it can't be decoded
+     */
+    void onDecodingCompleted(@Nonnull String key, boolean decoded);
+  }
+
+  private static final class CachedImage {
+
+    private final Image image;
+    private final long bytes;
+
+    private CachedImage(@Nullable final Image image) {
+      this.image = image;
+      this.bytes = estimateBytes(image);
+    }
+  }
+}
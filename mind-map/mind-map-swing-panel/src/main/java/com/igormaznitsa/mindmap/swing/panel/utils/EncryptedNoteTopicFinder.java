@@ -0,0 +1,80 @@
+/*
+ * Copyright 2015-2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.mindmap.swing.panel.utils;
+
+import com.igormaznitsa.meta.annotation.MustNotContainNull;
+import com.igormaznitsa.mindmap.model.Extra;
+import com.igormaznitsa.mindmap.model.ExtraNote;
+import com.igormaznitsa.mindmap.model.Topic;
+import com.igormaznitsa.mindmap.model.TopicFinder;
+import com.igormaznitsa.mindmap.swing.panel.MindMapPanelConfig;
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Topic finder to search text in encrypted notes which can be decrypted by keys remembered for the current session.
+ * The finder is not registered by default, search in encrypted notes is enabled by
+ * {@link MindMapPanelConfig#isSearchInEncryptedNotes()}.
+ *
+ * @see CryptoUtils#rememberSessionKey(String)
+ * @since 1.5.2
+ */
+@ThreadSafe
+public final class EncryptedNoteTopicFinder implements TopicFinder {
+
+  public static final EncryptedNoteTopicFinder INSTANCE = new EncryptedNoteTopicFinder();
+
+  private EncryptedNoteTopicFinder() {
+  }
+
+  /**
+   * Add the finder to topic finders if search in encrypted notes is enabled by configuration.
+   *
+   * @param finders topic finders, must not be null
+   * @param config  configuration of mind map panel, must not be null
+   * @return the same set if search in encrypted notes is disabled, new set with the finder otherwise
+   */
+  @Nonnull
+  @MustNotContainNull
+  public static Set<TopicFinder> addIfAllowed(@Nonnull @MustNotContainNull final Set<TopicFinder> finders,
+                                             @Nonnull final MindMapPanelConfig config) {
+    if (!config.isSearchInEncryptedNotes()) {
+      return finders;
+    }
+    final Set<TopicFinder> result = new HashSet<>(finders);
+    result.add(INSTANCE);
+    return result;
+  }
+
+  @Override
+  public boolean doesTopicContentMatches(@Nonnull final Topic topic, @Nullable final File baseFolder, @Nonnull final Pattern pattern, @Nullable final Set<Extra.ExtraType> extraTypes) {
+    if (extraTypes == null || !extraTypes.contains(Extra.ExtraType.NOTE) || !CryptoUtils.hasSessionKeys()) {
+      return false;
+    }
+    final Extra<?> note = topic.getExtras().get(Extra.ExtraType.NOTE);
+    if (note instanceof ExtraNote && ((ExtraNote) note).isEncrypted()) {
+      final String decrypted = CryptoUtils.decryptWithSessionKeys(((ExtraNote) note).getValue());
+      return decrypted != null && pattern.matcher(decrypted).find();
+    }
+    return false;
+  }
+}
@@ -0,0 +1,360 @@
+/*
+ * Copyright 2015-2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.mindmap.swing.panel.utils;
+
+import com.igormaznitsa.mindmap.swing.services.BackgroundTaskService;
+import com.igormaznitsa.mindmap.swing.services.BackgroundTaskServiceProvider;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.RenderedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.imageio.ImageIO;
+import javax.swing.SwingUtilities;
+
+/**
+ * Pipeline to prepare images for embedding into mind maps out of the Swing thread. Every job decodes an image, downscales it in several high-quality steps and encodes result as Base64 PNG.
+ * Also contains utility methods to make multi-step downscale and mip levels of images.
+ *
+ * @since 1.5.2
+ */
+@ThreadSafe
+public final class ImageProcessingPipeline {
+
+  private static final ImageProcessingPipeline INSTANCE = new ImageProcessingPipeline(BackgroundTaskServiceProvider.findInstance().findExecutor(BackgroundTaskService.TaskKind.IMAGE_PROCESSING));
+
+  private final Executor workers;
+
+  /**
+   * Constructor.
+   *
+   * @param workers executor to process jobs, it is not shut down by the pipeline, must not be null
+   */
+  public ImageProcessingPipeline(@Nonnull final Executor workers) {
+    this.workers = workers;
+  }
+
+  @Nonnull
+  public static ImageProcessingPipeline getInstance() {
+    return INSTANCE;
+  }
+
+  @Nonnull
+  private static BufferedImage drawScaled(@Nonnull final Image src, final int width, final int height, @Nonnull final Object interpolation) {
+    final BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    final Graphics2D gfx = result.createGraphics();
+    try {
+      gfx.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+      gfx.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+      gfx.setRenderingHint(RenderingHints.KEY_ALPHA_INTERPOLATION, RenderingHints.VALUE_ALPHA_INTERPOLATION_QUALITY);
+      gfx.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+      gfx.setRenderingHint(RenderingHints.KEY_DITHERING, RenderingHints.VALUE_DITHER_DISABLE);
+      gfx.setRenderingHint(RenderingHints.KEY_COLOR_RENDERING, RenderingHints.VALUE_COLOR_RENDER_QUALITY);
+      gfx.drawImage(src, 0, 0, width, height, null);
+    } finally {
+      gfx.dispose();
+    }
+    return result;
+  }
+
+  /**
+   * Scale image to the size. Downscale is made through several halving steps to avoid aliasing of single-pass scale.
+   *
+   * @param src    source image, must not be null
+   * @param width  target width, must be greater than zero
+   * @param height target height, must be greater than zero
+   * @return scaled image, must not be null
+   */
+  @Nonnull
+  public static BufferedImage scale(@Nonnull final Image src, final int width, final int height) {
+    return scale(src, width, height, null);
+  }
+
+  @Nonnull
+  private static BufferedImage scale(@Nonnull final Image src, final int width, final int height, @Nullable final Job job) {
+    Image current = src;
+    int currentWidth = src.getWidth(null);
+    int currentHeight = src.getHeight(null);
+
+    final int steps = countHalvingSteps(currentWidth, currentHeight, width, height);
+    for (int i = 0; i < steps; i++) {
+      if (job != null) {
+        job.checkCancelled();
+      }
+      currentWidth = Math.max(width, currentWidth / 2);
+      currentHeight = Math.max(height, currentHeight / 2);
+      current = drawScaled(current, currentWidth, currentHeight, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+      if (job != null) {
+        job.setProgress(Job.PROGRESS_DECODED + (Job.PROGRESS_SCALED - Job.PROGRESS_DECODED) * (i + 1) / (steps + 1));
+      }
+    }
+
+    if (current instanceof BufferedImage && currentWidth == width && currentHeight == height) {
+      return (BufferedImage) current;
+    }
+    return drawScaled(current, width, height, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+  }
+
+  private static int countHalvingSteps(int width, int height, final int targetWidth, final int targetHeight) {
+    int result = 0;
+    while (width / 2 >= targetWidth && height / 2 >= targetHeight) {
+      width /= 2;
+      height /= 2;
+      result++;
+    }
+    return result;
+  }
+
+  /**
+   * Find mip level of image in cache or generate it. Level N is made from level N-1 by halving its size, level zero is the base image.
+   *
+   * @param cache cache to keep generated levels, must not be null
+   * @param key   key of base image, must not be null
+   * @param base  base image, must not be null
+   * @param level required level
+   * @return found or generated image, null if the current thread is marked for async decoding and the level is not ready yet
+   * @see DecodedImageCache#findDerived(String, Callable)
+   */
+  @Nullable
+  public static Image findMipLevel(@Nonnull final DecodedImageCache cache, @Nonnull final String key, @Nonnull final Image base, final int level) {
+    if (level <= 0) {
+      return base;
+    }
+    return cache.findDerived(key + "@mip" + level, () -> {
+      final Image prev = findMipLevel(cache, key, base, level - 1);
+      return prev == null ? null : drawScaled(prev, Math.max(1, prev.getWidth(null) / 2), Math.max(1, prev.getHeight(null) / 2), RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+    });
+  }
+
+  /**
+   * Get the deepest mip level which is still not less than image scaled for the scale.
+   *
+   * @param width  width of base image
+   * @param height height of base image
+   * @param scale  required scale
+   * @return mip level, zero for base image
+   */
+  public static int findMipLevelForScale(final int width, final int height, final double scale) {
+    return scale >= 1.0d ? 0 : countHalvingSteps(width, height, Math.max(1, (int) Math.round(width * scale)), Math.max(1, (int) Math.round(height * scale)));
+  }
+
+  /**
+   * Downscale image to fit max side size and encode it as Base64 PNG.
+   *
+   * @param image   image to be processed, must not be null
+   * @param maxSize max size of image side, if less or zero then image is not rescaled
+   * @return Base64 encoded PNG image, must not be null
+   * @throws IOException if it was impossible to encode image
+   */
+  @Nonnull
+  public static String rescaleAndEncode(@Nonnull final Image image, final int maxSize) throws IOException {
+    return rescaleAndEncode(image, maxSize, null);
+  }
+
+  @Nonnull
+  private static String rescaleAndEncode(@Nonnull Image image, final int maxSize, @Nullable final Job job) throws IOException {
+    final int width = image.getWidth(null);
+    final int height = image.getHeight(null);
+    final int maxSide = Math.max(width, height);
+
+    if (maxSize > 0 && maxSide > maxSize) {
+      final double imageScale = (double) maxSize / (double) maxSide;
+      image = scale(image, Math.max(1, (int) Math.round(width * imageScale)), Math.max(1, (int) Math.round(height * imageScale)), job);
+    } else if (!(image instanceof RenderedImage)) {
+      image = drawScaled(image, width, height, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+    }
+
+    if (job != null) {
+      job.checkCancelled();
+      job.setProgress(Job.PROGRESS_SCALED);
+    }
+
+    final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    if (!ImageIO.write((RenderedImage) image, "png", bos)) {
+      throw new IOException("Can't encode image as PNG");
+    }
+    return Utils.base64encode(bos.toByteArray());
+  }
+
+  /**
+   * Start processing of image file.
+   *
+   * @param file     image file, must not be null
+   * @param maxSize  max size of image side, if less or zero then image is not rescaled
+   * @param listener listener to be notified through Swing thread, can be null
+   * @return job to control processing, must not be null
+   */
+  @Nonnull
+  public Job process(@Nonnull final File file, final int maxSize, @Nullable final Listener listener) {
+    return process(() -> {
+      final Image image = ImageIO.read(file);
+      if (image == null) {
+        throw new IllegalArgumentException("Can't load image file : " + file); //NOI18N
+      }
+      return image;
+    }, maxSize, listener);
+  }
+
+  /**
+   * Start processing of image.
+   *
+   * @param source   source of image, it will be called in worker thread, must not be null
+   * @param maxSize  max size of image side, if less or zero then image is not rescaled
+   * @param listener listener to be notified through Swing thread, can be null
+   * @return job to control processing, must not be null
+   */
+  @Nonnull
+  public Job process(@Nonnull final Callable<Image> source, final int maxSize, @Nullable final Listener listener) {
+    final Job job = new Job(source, maxSize, listener);
+    this.workers.execute(job.task);
+    return job;
+  }
+
+  /**
+   * Listener of processing job, all methods are called through Swing thread.
+   */
+  public interface Listener {
+
+    void onProgress(@Nonnull Job job, float progress);
+
+    /**
+     * Called when job is completed, it is not called for cancelled job.
+     *
+     * @param job    the job, must not be null
+     * @param result Base64 encoded image, null if error
+     * @param error  error, null if completed successfully
+     */
+    void onCompleted(@Nonnull Job job, @Nullable String result, @Nullable Throwable error);
+  }
+
+  /**
+   * Handle of processing job.
+   */
+  public static final class Job implements Future<String> {
+
+    private static final float PROGRESS_DECODED = 0.3f;
+    private static final float PROGRESS_SCALED = 0.8f;
+
+    private final FutureTask<String> task;
+    private final Listener listener;
+    private volatile float progress;
+
+    private Job(@Nonnull final Callable<Image> source, final int maxSize, @Nullable final Listener listener) {
+      this.listener = listener;
+      this.task = new FutureTask<String>(() -> {
+        final Image image = source.call();
+        if (image == null) {
+          throw new IllegalArgumentException("Can't decode image");
+        }
+        checkCancelled();
+        setProgress(PROGRESS_DECODED);
+        final String result = rescaleAndEncode(image, maxSize, this);
+        setProgress(1.0f);
+        return result;
+      }) {
+        @Override
+        protected void done() {
+          notifyCompleted();
+        }
+      };
+    }
+
+    private void checkCancelled() {
+      if (this.task.isCancelled() || Thread.currentThread().isInterrupted()) {
+        throw new CancellationException();
+      }
+    }
+
+    private void setProgress(final float value) {
+      this.progress = value;
+      if (this.listener != null) {
+        SwingUtilities.invokeLater(() -> {
+          if (!isCancelled()) {
+            this.listener.onProgress(this, value);
+          }
+        });
+      }
+    }
+
+    private void notifyCompleted() {
+      if (this.listener != null && !this.task.isCancelled()) {
+        SwingUtilities.invokeLater(() -> {
+          String result = null;
+          Throwable error = null;
+          try {
+            result = this.task.get();
+          } catch (ExecutionException ex) {
+            error = ex.getCause() == null ? ex : ex.getCause();
+          } catch (CancellationException | InterruptedException ex) {
+            return;
+          }
+          this.listener.onCompleted(this, result, error);
+        });
+      }
+    }
+
+    /**
+     * Get current progress.
+     *
+     * @return progress of job in range 0..1
+     */
+    public float getProgress() {
+      return this.progress;
+    }
+
+    @Override
+    public boolean cancel(final boolean mayInterruptIfRunning) {
+      return this.task.cancel(mayInterruptIfRunning);
+    }
+
+    @Override
+    public boolean isCancelled() {
+      return this.task.isCancelled();
+    }
+
+    @Override
+    public boolean isDone() {
+      return this.task.isDone();
+    }
+
+    @Override
+    @Nonnull
+    public String get() throws InterruptedException, ExecutionException {
+      return this.task.get();
+    }
+
+    @Override
+    @Nonnull
+    public String get(final long timeout, @Nonnull final TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+      return this.task.get(timeout, unit);
+    }
+  }
+}
@@ -88,6 +88,10 @@ public final class Utils {
   private static final Pattern URI_PATTERN = Pattern.compile("^(?:([^:\\s]+):)(?://(?:[^?/@\\s]*@)?([^/?\\s]*)/?)?([^?\\s]+)?(?:\\?([^#\\s]*))?(?:#\\S*)?$");
   private static final int MAX_IMAGE_SIDE_SIZE_IN_PIXELS = 350;
   private static final Pattern STRIP_PATTERN = Pattern.compile("^(\\s*)(.*[^\\s])(\\s*)$");
+  private static final int MAX_CACHED_COLORS = 1024;
+  private static final Color NO_COLOR = new Color(0, true);
+  private static final Map<String, Color> COLOR_CACHE = makeColorCache();
+  private static final Map<String, Color> ALPHA_COLOR_CACHE = makeColorCache();
 
   private Utils() {
   }
@@ -340,50 +344,8 @@ public final class Utils {
    * @since 1.4.0
    */
   @Nonnull
-  public static String rescaleImageAndEncodeAsBase64(@Nonnull Image image, final int maxSize) throws IOException {
-    final int width = image.getWidth(null);
-    final int height = image.getHeight(null);
-
-    final int maxImageSideSize = maxSize > 0 ? maxSize : Math.max(width, height);
-
-    final float imageScale = width > maxImageSideSize || height > maxImageSideSize ? (float) maxImageSideSize / (float) Math.max(width, height) : 1.0f;
-
-    if (!(image instanceof RenderedImage) || Float.compare(imageScale, 1.0f) != 0) {
-      final int swidth;
-      final int sheight;
-
-      if (Float.compare(imageScale, 1.0f) == 0) {
-        swidth = width;
-        sheight = height;
-      } else {
-        swidth = Math.round(imageScale * width);
-        sheight = Math.round(imageScale * height);
-      }
-
-      final BufferedImage buffer = new BufferedImage(swidth, sheight, BufferedImage.TYPE_INT_ARGB);
-      final Graphics2D gfx = buffer.createGraphics();
-
-      gfx.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-      gfx.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-      gfx.setRenderingHint(RenderingHints.KEY_ALPHA_INTERPOLATION, RenderingHints.VALUE_ALPHA_INTERPOLATION_QUALITY);
-      gfx.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
-      gfx.setRenderingHint(RenderingHints.KEY_DITHERING, RenderingHints.VALUE_DITHER_DISABLE);
-      gfx.setRenderingHint(RenderingHints.KEY_COLOR_RENDERING, RenderingHints.VALUE_COLOR_RENDER_QUALITY);
-
-      gfx.drawImage(image, AffineTransform.getScaleInstance(imageScale, imageScale), null);
-      gfx.dispose();
-      image = buffer;
-    }
-
-    final ByteArrayOutputStream bos = new ByteArrayOutputStream();
-    try {
-      if (!ImageIO.write((RenderedImage) image, "png", bos)) {
-        throw new IOException("Can't encode image as PNG");
-      }
-    } finally {
-      IOUtils.closeQuietly(bos);
-    }
-    return Utils.base64encode(bos.toByteArray());
+  public static String rescaleImageAndEncodeAsBase64(@Nonnull final Image image, final int maxSize) throws IOException {
+    return ImageProcessingPipeline.rescaleAndEncode(image, maxSize);
   }
 
   public static int calculateColorBrightness(@Nonnull final Color color) {
@@ -462,27 +424,63 @@ public final class Utils {
     }
   }
 
+  @Nonnull
+  private static Map<String, Color> makeColorCache() {
+    return new LinkedHashMap<String, Color>(64, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(@Nonnull final Map.Entry<String, Color> eldest) {
+        return this.size() > MAX_CACHED_COLORS;
+      }
+    };
+  }
+
+  /**
+   * Convert HTML color string into color. Results are cached because the same few colors are parsed for every
+   * painted topic, attribute values are pooled by the model so that lookup mostly finds the same string instance.
+   *
+   * @param str      color string in format #RGB or #RRGGBB, can be null
+   * @param hasAlpha if true then the highest byte of value is alpha
+   * @return color or null if the string can't be converted
+   */
   @Nullable
   public static Color html2color(@Nullable final String str, final boolean hasAlpha) {
+    if (str == null || str.isEmpty() || str.charAt(0) != '#') {
+      return null;
+    }
+    final Map<String, Color> cache = hasAlpha ? ALPHA_COLOR_CACHE : COLOR_CACHE;
+    Color result;
+    synchronized (cache) {
+      result = cache.get(str);
+    }
+    if (result == null) {
+      final Color parsed = parseHtmlColor(str, hasAlpha);
+      result = parsed == null ? NO_COLOR : parsed;
+      synchronized (cache) {
+        cache.put(str, result);
+      }
+    }
+    return result == NO_COLOR ? null : result;
+  }
+
+  @Nullable
+  private static Color parseHtmlColor(@Nonnull final String str, final boolean hasAlpha) {
     Color result = null;
-    if (str != null && !str.isEmpty() && str.charAt(0) == '#') {
-      try {
-        String color = str.substring(1);
-        if (color.length() > 6) {
-          color = color.substring(color.length() - 6);
-        }
+    try {
+      String color = str.substring(1);
+      if (color.length() > 6) {
+        color = color.substring(color.length() - 6);
+      }
 
-        if (color.length() == 6) {
-          result = new Color(Integer.parseInt(color, 16), hasAlpha);
-        } else if (color.length() == 3) {
-          final int r = Integer.parseInt(color.charAt(0) + "0", 16);
-          final int g = Integer.parseInt(color.charAt(1) + "0", 16);
-          final int b = Integer.parseInt(color.charAt(2) + "0", 16);
-          result = new Color(r, g, b);
-        }
-      } catch (NumberFormatException ex) {
-        LOGGER.warn(String.format("Can't convert %s to color", str));
+      if (color.length() == 6) {
+        result = new Color(Integer.parseInt(color, 16), hasAlpha);
+      } else if (color.length() == 3) {
+        final int r = Integer.parseInt(color.charAt(0) + "0", 16);
+        final int g = Integer.parseInt(color.charAt(1) + "0", 16);
+        final int b = Integer.parseInt(color.charAt(2) + "0", 16);
+        result = new Color(r, g, b);
       }
+    } catch (NumberFormatException ex) {
+      LOGGER.warn(String.format("Can't convert %s to color", str));
     }
     return result;
   }
@@ -683,13 +681,17 @@ public final class Utils {
     BufferedImage result = null;
     if (scaledH > 0 && scaledW > 0) {
       try {
-        result = new BufferedImage(scaledW, scaledH, BufferedImage.TYPE_INT_ARGB);
-        final Graphics2D g = (Graphics2D) result.getGraphics();
+        if (scaledW < imgw && scaledH < imgh) {
+          result = ImageProcessingPipeline.scale(src, scaledW, scaledH);
+        } else {
+          result = new BufferedImage(scaledW, scaledH, BufferedImage.TYPE_INT_ARGB);
+          final Graphics2D g = (Graphics2D) result.getGraphics();
 
-        RenderQuality.QUALITY.prepare(g);
+          RenderQuality.QUALITY.prepare(g);
 
-        g.drawImage(src, 0, 0, scaledW, scaledH, null);
-        g.dispose();
+          g.drawImage(src, 0, 0, scaledW, scaledH, null);
+          g.dispose();
+        }
       } catch (OutOfMemoryError e) {
         LOGGER.error("OutOfmemoryError in scaleImage (" + baseScaleX + ',' + baseScaleY + ',' + scale + ')', e);
         throw e;
@@ -712,12 +714,6 @@ public final class Utils {
 
     final BufferedImage result = new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_INT_ARGB);
 
-    for (int y = 0; y < imageHeight; y++) {
-      for (int x = 0; x < imageWidth; x++) {
-        result.setRGB(x, y, 0);
-      }
-    }
-
     final Graphics2D g = result.createGraphics();
     final MMGraphics gfx = new MMGraphics2DWrapper(g);
     try {
@@ -738,17 +734,16 @@ public final class Utils {
 
     alpha <<= 24;
 
-    for (int y = 0; y < imageHeight; y++) {
-      for (int x = 0; x < imageWidth; x++) {
-        final int curAlpha = result.getRGB(x, y) >>> 24;
-        if (curAlpha == 0xFF) {
-          result.setRGB(x, y, (result.getRGB(x, y) & 0xFFFFFF) | alpha);
-        } else if (curAlpha != 0x00) {
-          final int calculated = Math.round(curAlpha * opacity) << 24;
-          result.setRGB(x, y, (result.getRGB(x, y) & 0xFFFFFF) | calculated);
-        }
+    final int[] pixels = result.getRGB(0, 0, imageWidth, imageHeight, null, 0, imageWidth);
+    for (int i = 0; i < pixels.length; i++) {
+      final int curAlpha = pixels[i] >>> 24;
+      if (curAlpha == 0xFF) {
+        pixels[i] = (pixels[i] & 0xFFFFFF) | alpha;
+      } else if (curAlpha != 0x00) {
+        pixels[i] = (pixels[i] & 0xFFFFFF) | (Math.round(curAlpha * opacity) << 24);
       }
     }
+    result.setRGB(0, 0, imageWidth, imageHeight, pixels, 0, imageWidth);
 
     return result;
   }
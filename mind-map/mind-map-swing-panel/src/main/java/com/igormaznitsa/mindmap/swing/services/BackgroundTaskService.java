@@ -0,0 +1,53 @@
+/*
+ * Copyright 2015-2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.mindmap.swing.services;
+
+import java.util.concurrent.ExecutorService;
+import javax.annotation.Nonnull;
+
+/**
+ * Service to execute background work of mind map components. Host application can provide its own implementation
+ * through {@link java.util.ServiceLoader} to run the work on its shared threads.
+ *
+ * @since 1.5.2
+ */
+public interface BackgroundTaskService {
+
+  /**
+   * Find executor for kind of work. Returned executor is shared and must not be shut down by users.
+   *
+   * @param kind kind of work, must not be null
+   * @return executor, must not be null
+   */
+  @Nonnull
+  ExecutorService findExecutor(@Nonnull TaskKind kind);
+
+  enum TaskKind {
+    /**
+     * Decoding of images for painting.
+     */
+    IMAGE_DECODING,
+    /**
+     * Preparing of images added into maps, it is waited by user.
+     */
+    IMAGE_PROCESSING,
+    /**
+     * Rendering of branches of exported maps, caller waits for results of submitted tasks so that fork-join pool is preferable.
+     */
+    EXPORT
+  }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2015-2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.mindmap.swing.services;
+
+import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
+import java.util.Iterator;
+import java.util.ServiceLoader;
+import javax.annotation.Nonnull;
+
+/**
+ * Provider of background task service.
+ *
+ * @since 1.5.2
+ */
+public final class BackgroundTaskServiceProvider {
+  private static final BackgroundTaskService BACKGROUND_TASK_SERVICE;
+
+  static {
+    final ServiceLoader<BackgroundTaskService> service = ServiceLoader.load(BackgroundTaskService.class, BackgroundTaskService.class.getClassLoader());
+    service.reload();
+    final Iterator<BackgroundTaskService> iterator = service.iterator();
+    BACKGROUND_TASK_SERVICE = iterator.hasNext() ? iterator.next() : new DefaultBackgroundTaskService();
+    LoggerFactory.getLogger(BackgroundTaskServiceProvider.class).info("Background task service : " + BACKGROUND_TASK_SERVICE.getClass().getName());
+  }
+
+  @Nonnull
+  public static BackgroundTaskService findInstance() {
+    return BACKGROUND_TASK_SERVICE;
+  }
+}
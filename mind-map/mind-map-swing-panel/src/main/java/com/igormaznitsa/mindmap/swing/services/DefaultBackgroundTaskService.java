@@ -0,0 +1,67 @@
+/*
+ * Copyright 2015-2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.mindmap.swing.services;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Default background task service, it makes small pools of daemon threads on the first request.
+ *
+ * @since 1.5.2
+ */
+@ThreadSafe
+public class DefaultBackgroundTaskService implements BackgroundTaskService {
+
+  private final Map<TaskKind, ExecutorService> executors = new EnumMap<>(TaskKind.class);
+
+  @Nonnull
+  private static ExecutorService makeExecutor(@Nonnull final TaskKind kind) {
+    if (kind == TaskKind.EXPORT) {
+      return ForkJoinPool.commonPool();
+    }
+    final int processors = Runtime.getRuntime().availableProcessors();
+    final int threads = kind == TaskKind.IMAGE_DECODING ? Math.max(1, Math.min(4, processors / 2)) : Math.max(1, Math.min(2, processors / 2));
+    final AtomicInteger threadCounter = new AtomicInteger();
+    return Executors.newFixedThreadPool(threads, runnable -> {
+      final Thread thread = new Thread(runnable, "mmd-" + kind.name().toLowerCase(Locale.ENGLISH).replace('_', '-') + '-' + threadCounter.incrementAndGet());
+      thread.setDaemon(true);
+      thread.setPriority(Thread.NORM_PRIORITY - 1);
+      return thread;
+    });
+  }
+
+  @Override
+  @Nonnull
+  public ExecutorService findExecutor(@Nonnull final TaskKind kind) {
+    synchronized (this.executors) {
+      ExecutorService result = this.executors.get(kind);
+      if (result == null) {
+        result = makeExecutor(kind);
+        this.executors.put(kind, result);
+      }
+      return result;
+    }
+  }
+}
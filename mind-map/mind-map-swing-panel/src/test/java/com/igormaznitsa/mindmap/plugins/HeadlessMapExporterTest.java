@@ -0,0 +1,105 @@
+/*
+ * Copyright 2015-2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.mindmap.plugins;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.igormaznitsa.mindmap.model.Topic;
+import com.igormaznitsa.mindmap.plugins.api.AbstractExporter;
+import com.igormaznitsa.mindmap.swing.panel.MindMapPanelConfig;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+
+public class HeadlessMapExporterTest {
+
+  private static MindMap makeMap() {
+    final MindMap map = new MindMap(true);
+    map.getRoot().setText("Root topic");
+    for (int i = 0; i < 10; i++) {
+      final Topic child = new Topic(map, map.getRoot(), "Child " + i);
+      for (int j = 0; j < 10; j++) {
+        new Topic(map, child, "Leaf " + i + '.' + j);
+      }
+    }
+    return map;
+  }
+
+  @Test
+  public void testFindExporters() {
+    final HeadlessMapExporter exporter = new HeadlessMapExporter();
+    final List<AbstractExporter> found = exporter.findExporters();
+    assertFalse(found.isEmpty());
+    for (final AbstractExporter e : found) {
+      assertTrue(e.doesSupportHeadlessExport());
+    }
+    assertNotNull(exporter.findExporter("markdown"));
+    assertNull(exporter.findExporter("unknown_mnemonic"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnknownMnemonic() throws Exception {
+    new HeadlessMapExporter().export("unknown_mnemonic", makeMap(), new MindMapPanelConfig(), Collections.<String, String>emptyMap(), new ByteArrayOutputStream());
+  }
+
+  @Test
+  public void testConcurrentExportThroughAllExporters() throws Exception {
+    final HeadlessMapExporter exporter = new HeadlessMapExporter();
+    final MindMap map = makeMap();
+    final MindMapPanelConfig config = new MindMapPanelConfig();
+
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final List<Future<byte[]>> results = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        for (final AbstractExporter e : exporter.findExporters()) {
+          results.add(executor.submit(() -> {
+            final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            exporter.export(e, map, config, Collections.<String, String>emptyMap(), buffer);
+            return buffer.toByteArray();
+          }));
+        }
+      }
+      for (final Future<byte[]> f : results) {
+        assertTrue(f.get().length > 0);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testExportMarkdown() throws Exception {
+    final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    new HeadlessMapExporter().export("markdown", makeMap(), new MindMapPanelConfig(), Collections.<String, String>emptyMap(), buffer);
+    final String text = new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+    assertTrue(text.contains("# Root topic"));
+    assertTrue(text.contains("Child 9"));
+    assertEquals(text.indexOf("Child 0"), text.lastIndexOf("Child 0"));
+  }
+}
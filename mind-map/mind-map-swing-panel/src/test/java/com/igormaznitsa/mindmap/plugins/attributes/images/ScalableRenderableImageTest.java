@@ -0,0 +1,76 @@
+/*
+ * Copyright 2015-2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.mindmap.plugins.attributes.images;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.igormaznitsa.mindmap.swing.panel.utils.DecodedImageCache;
+import com.igormaznitsa.mindmap.swing.panel.utils.Utils;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+import javax.imageio.ImageIO;
+import org.junit.Test;
+
+public class ScalableRenderableImageTest {
+
+  private static String makeEncodedImage(final int width, final int height) throws Exception {
+    final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    final Random rnd = new Random(12345L);
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        image.setRGB(x, y, rnd.nextInt());
+      }
+    }
+    final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    assertTrue(ImageIO.write(image, "png", buffer));
+    return Utils.base64encode(buffer.toByteArray());
+  }
+
+  @Test
+  public void testExtractPrefix() {
+    assertNull(ScalableRenderableImage.extractPrefix("AAAABBBB", 8));
+    assertNull(ScalableRenderableImage.extractPrefix("AAAA\nBBBB\n", 9));
+    assertEquals("AAAABBBB", ScalableRenderableImage.extractPrefix("AAAA\nBBBB\nCCCC", 10));
+    assertEquals("AAAA", ScalableRenderableImage.extractPrefix("AAAABBBBCCCC", 7));
+  }
+
+  @Test
+  public void testMakeForBigImage() throws Exception {
+    final String encoded = makeEncodedImage(200, 150);
+    assertTrue(encoded.length() > 64 * 1024);
+
+    final ScalableRenderableImage image = ScalableRenderableImage.makeFor(encoded);
+    assertNotNull(image);
+    assertEquals(200, image.getWidth(1.0d));
+    assertEquals(150, image.getHeight(1.0d));
+    assertTrue(image.isMadeFor(new String(encoded)));
+
+    final String key = image.getKey();
+    assertEquals(DecodedImageCache.makeKey(encoded), key);
+    assertSame(key, image.getKey());
+  }
+
+  @Test
+  public void testMakeForWrongData() {
+    assertNull(ScalableRenderableImage.makeFor(Utils.base64encode(new byte[100000])));
+  }
+}
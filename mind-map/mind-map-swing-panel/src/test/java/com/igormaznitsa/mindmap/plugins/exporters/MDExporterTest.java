@@ -0,0 +1,58 @@
+/*
+ * Copyright 2015-2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.mindmap.plugins.exporters;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.igormaznitsa.mindmap.model.Topic;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+
+public class MDExporterTest extends AbstractStandardExporterTest<MDExporter> {
+
+  @Test
+  public void testBranchesOfBigMapAreWrittenInOrder() throws Exception {
+    final MindMap map = new MindMap(true);
+    map.getRoot().setText("Root");
+    for (int i = 0; i < 64; i++) {
+      final Topic branch = new Topic(map, map.getRoot(), "Branch" + i);
+      for (int j = 0; j < 64; j++) {
+        new Topic(map, branch, "Leaf" + i + 'x' + j);
+      }
+    }
+
+    final String text = new String(export(map, null), StandardCharsets.UTF_8);
+
+    int lastIndex = text.indexOf("# Root");
+    assertTrue(lastIndex >= 0);
+    for (int i = 0; i < 64; i++) {
+      final int branchIndex = text.indexOf("## Branch" + i + System.lineSeparator());
+      assertTrue("Branch " + i, branchIndex > lastIndex);
+      assertEquals(branchIndex, text.lastIndexOf("## Branch" + i + System.lineSeparator()));
+      final int lastLeafIndex = text.indexOf("### Leaf" + i + 'x' + 63);
+      assertTrue(lastLeafIndex > branchIndex);
+      lastIndex = lastLeafIndex;
+    }
+  }
+
+  @Override
+  public MDExporter generateExporterInstance() {
+    return new MDExporter();
+  }
+}
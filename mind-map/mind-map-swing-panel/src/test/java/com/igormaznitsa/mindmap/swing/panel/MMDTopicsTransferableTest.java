@@ -0,0 +1,81 @@
+/*
+ * Copyright 2015-2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.mindmap.swing.panel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.igormaznitsa.mindmap.model.Extra;
+import com.igormaznitsa.mindmap.model.ExtraNote;
+import com.igormaznitsa.mindmap.model.ExtraTopic;
+import com.igormaznitsa.mindmap.model.MappedTopic;
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.igormaznitsa.mindmap.model.Topic;
+import java.awt.datatransfer.DataFlavor;
+import java.io.InputStream;
+import java.util.List;
+import org.junit.Test;
+
+public class MMDTopicsTransferableTest {
+
+  private static final String EOL = System.getProperty("line.separator", "\n");
+
+  @Test
+  public void testAllFlavors() throws Exception {
+    final MindMap map = new MindMap(true);
+    final Topic first = new Topic(map, map.getRoot(), "first", new ExtraNote("note"));
+    final Topic linked = new Topic(map, first, "linked");
+    linked.setAttribute(ExtraTopic.TOPIC_UID_ATTR, "uid1");
+    final Topic second = new Topic(map, map.getRoot(), "second", new ExtraTopic("uid1"));
+
+    final MMDTopicsTransferable transferable = new MMDTopicsTransferable(first, linked, second);
+    first.setText("changed");
+
+    assertTrue(transferable.isDataFlavorSupported(MMDTopicsTransferable.MMD_BINARY_FLAVOR));
+    assertTrue(transferable.isDataFlavorSupported(MMDTopicsTransferable.MMD_DATA_FLAVOR));
+    assertTrue(transferable.isDataFlavorSupported(DataFlavor.stringFlavor));
+
+    final List<MappedTopic> mapped;
+    try (final InputStream in = (InputStream) transferable.getTransferData(MMDTopicsTransferable.MMD_BINARY_FLAVOR)) {
+      mapped = MMDTopicsTransferable.readTopics(in);
+    }
+    assertEquals(2, mapped.size());
+    assertEquals("first", mapped.get(0).getText());
+    assertEquals("linked", mapped.get(0).getChildAt(0).getText());
+    assertEquals("second", mapped.get(1).getText());
+
+    final Topic[] loaded = ((NBMindMapTopicsContainer) transferable.getTransferData(MMDTopicsTransferable.MMD_DATA_FLAVOR)).getTopics();
+    assertEquals(2, loaded.length);
+    assertEquals("first", loaded[0].getText());
+    assertEquals("note", loaded[0].getExtras().get(Extra.ExtraType.NOTE).getValue());
+    assertEquals("uid1", loaded[1].getExtras().get(Extra.ExtraType.TOPIC).getValue());
+
+    final String expected = "+[first]" + EOL
+        + "|--------------------" + EOL
+        + "|note" + EOL
+        + "|--------------------" + EOL
+        + "|" + EOL
+        + "|+[linked]" + EOL
+        + "||" + EOL
+        + "..." + EOL
+        + "+[second]" + EOL
+        + "|--------------------" + EOL
+        + "|#(linked)" + EOL
+        + "|" + EOL;
+    assertEquals(expected, transferable.getTransferData(DataFlavor.stringFlavor));
+  }
+}
@@ -16,12 +16,22 @@
 
 package com.igormaznitsa.mindmap.swing.panel;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotSame;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.igormaznitsa.mindmap.model.MindMapModelEvent;
+import com.igormaznitsa.mindmap.model.MindMapModelEventListener;
+import com.igormaznitsa.mindmap.model.Topic;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.SwingUtilities;
 import org.junit.Test;
 
 public class MindMapPanelTest {
@@ -38,4 +48,46 @@ public class MindMapPanelTest {
     assertNotSame(config, panel.getConfiguration());
   }
 
+  @Test
+  public void testModelJobsMakeSingleEvent() throws Exception {
+    final MindMapPanelController controller = mock(MindMapPanelController.class);
+    when(controller.provideConfigForMindMapPanel(any(MindMapPanel.class))).thenReturn(new MindMapPanelConfig());
+
+    final MindMap map = new MindMap(new StringReader("---\n# root\n## t1\n## t2\n"));
+    final List<MindMapPanel> panel = new ArrayList<>();
+    SwingUtilities.invokeAndWait(() -> {
+      panel.add(new MindMapPanel(controller));
+      panel.get(0).setModel(map);
+    });
+
+    final List<MindMapModelEvent> events = new ArrayList<>();
+    map.addMindMapModelEventListener(new MindMapModelEventListener() {
+      @Override
+      public void onMindMapStructureChanged(final MindMapModelEvent event) {
+        events.add(event);
+      }
+
+      @Override
+      public void onMindMapNodesChanged(final MindMapModelEvent event) {
+        events.add(event);
+      }
+    });
+
+    final Topic t1 = map.getRoot().getChildren().get(0);
+    final Topic t2 = map.getRoot().getChildren().get(1);
+    SwingUtilities.invokeAndWait(() -> panel.get(0).executeModelJobs(
+        model -> {
+          t1.setText("first");
+          return true;
+        },
+        model -> {
+          t2.setText("second");
+          return true;
+        }));
+
+    assertEquals(1, events.size());
+    assertFalse(events.get(0).isFullChange());
+    assertEquals(2, events.get(0).getChanges().size());
+  }
+
 }
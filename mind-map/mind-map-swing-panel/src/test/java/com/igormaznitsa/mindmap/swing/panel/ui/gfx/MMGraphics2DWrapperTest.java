@@ -0,0 +1,64 @@
+/*
+ * Copyright 2015-2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.mindmap.swing.panel.ui.gfx;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import org.junit.Test;
+
+public class MMGraphics2DWrapperTest {
+
+  @Test
+  public void testStrokesAreShared() {
+    final BasicStroke solid = (BasicStroke) MMGraphics2DWrapper.findStroke(2.5f, StrokeType.SOLID);
+    assertSame(solid, MMGraphics2DWrapper.findStroke(2.5f, StrokeType.SOLID));
+    assertEquals(2.5f, solid.getLineWidth(), 0.0f);
+    assertEquals(BasicStroke.CAP_ROUND, solid.getEndCap());
+    assertNull(solid.getDashArray());
+
+    final BasicStroke dashes = (BasicStroke) MMGraphics2DWrapper.findStroke(2.5f, StrokeType.DASHES);
+    assertNotSame(solid, dashes);
+    assertArrayEquals(new float[] {7.5f, 2.5f}, dashes.getDashArray(), 0.0f);
+    assertArrayEquals(new float[] {2.5f, 5.0f}, ((BasicStroke) MMGraphics2DWrapper.findStroke(2.5f, StrokeType.DOTS)).getDashArray(), 0.0f);
+  }
+
+  @Test
+  public void testStrokeAndCurveApplied() {
+    final BufferedImage image = new BufferedImage(32, 32, BufferedImage.TYPE_INT_ARGB);
+    final Graphics2D gfx = image.createGraphics();
+    try {
+      final MMGraphics2DWrapper wrapper = new MMGraphics2DWrapper(gfx);
+      wrapper.setStroke(3.0f, StrokeType.DOTS);
+      assertSame(MMGraphics2DWrapper.findStroke(3.0f, StrokeType.DOTS), gfx.getStroke());
+      wrapper.setStroke(1.0f, StrokeType.SOLID);
+      wrapper.drawCurve(0, 0, 31, 31, Color.RED);
+      wrapper.drawCurve(0, 31, 31, 0, Color.RED);
+      assertEquals(Color.RED.getRGB(), image.getRGB(31, 31));
+      assertEquals(Color.RED.getRGB(), image.getRGB(31, 0));
+    } finally {
+      gfx.dispose();
+    }
+  }
+}
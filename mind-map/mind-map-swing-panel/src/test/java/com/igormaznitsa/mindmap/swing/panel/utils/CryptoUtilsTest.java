@@ -2,9 +2,9 @@ package com.igormaznitsa.mindmap.swing.panel.utils;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
-
 import org.junit.Test;
 
 public class CryptoUtilsTest {
@@ -42,4 +42,38 @@ public class CryptoUtilsTest {
         "gJLc5oWXTyeLeu24WhyqdlDFoGMgvuTvTzOx4hdCRx8JYjXMUoziQFR+fyiO3/rtRiiy2BVXTM04CUbp8dkb5A==",
         buffer));
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testSessionKeysKeptUntilLastUserReleased() {
+    final String encrypted = CryptoUtils.encrypt("session", "Secret text");
+    CryptoUtils.forgetSessionKeys();
+    CryptoUtils.acquireSessionKeys();
+    CryptoUtils.acquireSessionKeys();
+    try {
+      CryptoUtils.rememberSessionKey("session");
+      CryptoUtils.releaseSessionKeys();
+      assertEquals("Secret text", CryptoUtils.decryptWithSessionKeys(encrypted));
+    } finally {
+      CryptoUtils.releaseSessionKeys();
+    }
+    assertFalse(CryptoUtils.hasSessionKeys());
+    assertNull(CryptoUtils.decryptWithSessionKeys(encrypted));
+  }
+
+  @Test
+  public void testSessionKeys() {
+    final String encrypted = CryptoUtils.encrypt("session", "Secret text");
+    CryptoUtils.forgetSessionKeys();
+    assertFalse(CryptoUtils.hasSessionKeys());
+    assertNull(CryptoUtils.decryptWithSessionKeys(encrypted));
+    CryptoUtils.rememberSessionKey("session");
+    CryptoUtils.rememberSessionKey("session");
+    CryptoUtils.rememberSessionKey("another");
+    try {
+      assertEquals("Secret text", CryptoUtils.decryptWithSessionKeys(encrypted));
+    } finally {
+      CryptoUtils.forgetSessionKeys();
+    }
+    assertNull(CryptoUtils.decryptWithSessionKeys(encrypted));
+  }
+}
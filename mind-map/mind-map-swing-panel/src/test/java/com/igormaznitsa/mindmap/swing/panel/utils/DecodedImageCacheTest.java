@@ -0,0 +1,159 @@
+/*
+ * Copyright 2015-2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.mindmap.swing.panel.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class DecodedImageCacheTest {
+
+  @Test
+  public void testMakeKey() {
+    assertEquals(DecodedImageCache.makeKey("abcdef"), DecodedImageCache.makeKey(new String("abcdef")));
+    assertNotEquals(DecodedImageCache.makeKey("abcdef"), DecodedImageCache.makeKey("abcdeg"));
+
+    final StringBuilder buffer = new StringBuilder();
+    for (int i = 0; i < 20000; i++) {
+      buffer.append((char) ('A' + i % 26));
+    }
+    final String longText = buffer.toString();
+    assertEquals(DecodedImageCache.makeKey(longText), DecodedImageCache.makeKey(new String(longText)));
+    assertNotEquals(DecodedImageCache.makeKey(longText), DecodedImageCache.makeKey(longText.substring(1) + 'A'));
+    assertTrue(DecodedImageCache.makeKey(longText).endsWith("_20000"));
+  }
+
+  @Test
+  public void testSyncDecodingAndHits() {
+    final DecodedImageCache cache = new DecodedImageCache(1024L * 1024L);
+    final AtomicInteger decodeCounter = new AtomicInteger();
+    final Image image = new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB);
+
+    assertSame(image, cache.find("key", () -> {
+      decodeCounter.incrementAndGet();
+      return image;
+    }));
+    assertSame(image, cache.find("key", () -> {
+      decodeCounter.incrementAndGet();
+      return image;
+    }));
+
+    assertEquals(1, decodeCounter.get());
+    assertEquals(1L, cache.getHits());
+    assertEquals(1L, cache.getMisses());
+    assertEquals(16L * 16L * 4L, cache.getUsedBytes());
+  }
+
+  @Test
+  public void testFailedDecodingIsNotRepeated() {
+    final DecodedImageCache cache = new DecodedImageCache(1024L * 1024L);
+    final AtomicInteger decodeCounter = new AtomicInteger();
+    assertNull(cache.find("key", () -> {
+      decodeCounter.incrementAndGet();
+      throw new IllegalStateException("Test");
+    }));
+    assertNull(cache.find("key", () -> {
+      decodeCounter.incrementAndGet();
+      return null;
+    }));
+    assertEquals(1, decodeCounter.get());
+  }
+
+  @Test
+  public void testEvictionBySize() {
+    final DecodedImageCache cache = new DecodedImageCache(16L * 16L * 4L * 2L);
+    cache.put("1", new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB));
+    cache.put("2", new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB));
+    assertNotNull(cache.get("1"));
+    cache.put("3", new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB));
+
+    assertEquals(2, cache.size());
+    assertEquals(1L, cache.getEvictions());
+    assertNotNull(cache.get("1"));
+    assertNull(cache.get("2"));
+    assertNotNull(cache.get("3"));
+
+    cache.put("big", new BufferedImage(64, 64, BufferedImage.TYPE_INT_ARGB));
+    assertEquals(1, cache.size());
+    assertNotNull(cache.get("big"));
+  }
+
+  @Test
+  public void testAsyncDecoding() throws Exception {
+    final DecodedImageCache cache = new DecodedImageCache(1024L * 1024L);
+    final Image image = new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB);
+    final CountDownLatch latch = new CountDownLatch(1);
+
+    DecodedImageCache.beginAsyncDecoding((key, decoded) -> latch.countDown());
+    try {
+      assertNull(cache.find("key", () -> image));
+    } finally {
+      DecodedImageCache.endAsyncDecoding();
+    }
+
+    try {
+      assertTrue(latch.await(5, TimeUnit.SECONDS));
+      assertSame(image, cache.find("key", () -> null));
+    } finally {
+      cache.shutdown();
+    }
+  }
+
+  @Test
+  public void testAsyncDecodingFailureAndDerivedImages() throws Exception {
+    final DecodedImageCache cache = new DecodedImageCache(1024L * 1024L);
+    final CountDownLatch latch = new CountDownLatch(1);
+    final AtomicBoolean decodedFlag = new AtomicBoolean(true);
+
+    DecodedImageCache.beginAsyncDecoding((key, decoded) -> {
+      decodedFlag.set(decoded);
+      latch.countDown();
+    });
+    try {
+      assertNull(cache.find("key", () -> {
+        throw new IllegalStateException("Test");
+      }));
+    } finally {
+      DecodedImageCache.endAsyncDecoding();
+    }
+
+    try {
+      assertTrue(latch.await(5, TimeUnit.SECONDS));
+      assertFalse(decodedFlag.get());
+    } finally {
+      cache.shutdown();
+    }
+
+    final Image image = new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB);
+    final long misses = cache.getMisses();
+    assertSame(image, cache.findDerived("key@0.5", () -> image));
+    assertSame(image, cache.findDerived("key@0.5", () -> null));
+    assertEquals(misses, cache.getMisses());
+  }
+}
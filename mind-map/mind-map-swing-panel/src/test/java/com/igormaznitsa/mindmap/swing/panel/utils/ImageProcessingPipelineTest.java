@@ -0,0 +1,85 @@
+/*
+ * Copyright 2015-2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.mindmap.swing.panel.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.igormaznitsa.mindmap.swing.services.BackgroundTaskService;
+import com.igormaznitsa.mindmap.swing.services.DefaultBackgroundTaskService;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.imageio.ImageIO;
+import org.junit.Test;
+
+public class ImageProcessingPipelineTest {
+
+  @Test
+  public void testMultiStepScale() {
+    final BufferedImage scaled = ImageProcessingPipeline.scale(new BufferedImage(1000, 500, BufferedImage.TYPE_INT_ARGB), 100, 50);
+    assertEquals(100, scaled.getWidth());
+    assertEquals(50, scaled.getHeight());
+  }
+
+  @Test
+  public void testMipLevels() {
+    assertEquals(0, ImageProcessingPipeline.findMipLevelForScale(256, 256, 1.5d));
+    assertEquals(0, ImageProcessingPipeline.findMipLevelForScale(256, 256, 0.75d));
+    assertEquals(1, ImageProcessingPipeline.findMipLevelForScale(256, 256, 0.5d));
+    assertEquals(2, ImageProcessingPipeline.findMipLevelForScale(256, 256, 0.25d));
+
+    final DecodedImageCache cache = new DecodedImageCache(1024L * 1024L);
+    final Image base = new BufferedImage(256, 128, BufferedImage.TYPE_INT_ARGB);
+    final Image level2 = ImageProcessingPipeline.findMipLevel(cache, "key", base, 2);
+    assertEquals(64, level2.getWidth(null));
+    assertEquals(32, level2.getHeight(null));
+    assertEquals(2, cache.size());
+    assertSame(level2, ImageProcessingPipeline.findMipLevel(cache, "key", base, 2));
+  }
+
+  @Test
+  public void testProcess() throws Exception {
+    final ImageProcessingPipeline pipeline = new ImageProcessingPipeline(new DefaultBackgroundTaskService().findExecutor(BackgroundTaskService.TaskKind.IMAGE_PROCESSING));
+    final ImageProcessingPipeline.Job job = pipeline.process(() -> new BufferedImage(640, 320, BufferedImage.TYPE_INT_ARGB), 64, null);
+    final BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(Utils.base64decode(job.get(10, TimeUnit.SECONDS))));
+    assertEquals(64, decoded.getWidth());
+    assertEquals(32, decoded.getHeight());
+    assertEquals(1.0f, job.getProgress(), 0.0f);
+  }
+
+  @Test(expected = CancellationException.class)
+  public void testCancel() throws Exception {
+    final ImageProcessingPipeline pipeline = new ImageProcessingPipeline(new DefaultBackgroundTaskService().findExecutor(BackgroundTaskService.TaskKind.IMAGE_PROCESSING));
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final ImageProcessingPipeline.Job job = pipeline.process(() -> {
+      started.countDown();
+      release.await();
+      return new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB);
+    }, 8, null);
+    assertTrue(started.await(10, TimeUnit.SECONDS));
+    assertTrue(job.cancel(true));
+    release.countDown();
+    assertTrue(job.isCancelled());
+    job.get();
+  }
+}
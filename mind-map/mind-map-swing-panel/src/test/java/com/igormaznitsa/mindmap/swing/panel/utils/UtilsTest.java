@@ -18,9 +18,12 @@ package com.igormaznitsa.mindmap.swing.panel.utils;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 
+import java.awt.Color;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import org.junit.Test;
@@ -83,4 +86,16 @@ public class UtilsTest {
     assertTrue(rect2.getCenterX() < Utils.findRectEdgeIntersection(rect2, 660d, 10d).getX());
   }
 
+
+  @Test
+  public void testHtml2Color_Cached() {
+    final Color color = Utils.html2color("#12AB3F", false);
+    assertEquals(new Color(0x12, 0xAB, 0x3F), color);
+    assertSame(color, Utils.html2color(new String("#12AB3F"), false));
+    assertEquals(new Color(0x10, 0x20, 0x30), Utils.html2color("#123", false));
+    assertNull(Utils.html2color("#XYZXYZ", false));
+    assertNull(Utils.html2color("#XYZXYZ", false));
+    assertNull(Utils.html2color("12AB3F", false));
+    assertNull(Utils.html2color(null, true));
+  }
 }
@@ -162,6 +162,7 @@ import com.igormaznitsa.mindmap.model.TopicFinder;
 import com.igormaznitsa.mindmap.plugins.MindMapPluginRegistry;
 import com.igormaznitsa.mindmap.swing.panel.ui.PasswordPanel;
 import com.igormaznitsa.mindmap.swing.panel.utils.CryptoUtils;
+import com.igormaznitsa.mindmap.swing.panel.utils.EncryptedNoteTopicFinder;
 import com.igormaznitsa.nbmindmap.nb.swing.NoteEditorData;
 
 @MultiViewElement.Registration(
@@ -386,10 +387,11 @@ public final class MMDGraphEditor extends CloneableEditor implements AdjustmentL
             extras.add(Extra.ExtraType.LINK);
         }
         final boolean inTopicText = provider.toSearchIn(FindTextScopeProvider.SearchTextScope.IN_TOPIC_TEXT);
+        final Set<TopicFinder> finders = EncryptedNoteTopicFinder.addIfAllowed(TOPIC_FINDERS, this.mindMapPanel.getConfiguration());
 
-        Topic found = this.mindMapPanel.getModel().findNext(projectBaseFolder, startTopic, pattern, inTopicText, extras, TOPIC_FINDERS);
+        Topic found = this.mindMapPanel.getModel().findNext(projectBaseFolder, startTopic, pattern, inTopicText, extras, finders);
         if (found == null && startTopic != null) {
-            found = this.mindMapPanel.getModel().findNext(projectBaseFolder, null, pattern, inTopicText, extras, TOPIC_FINDERS);
+            found = this.mindMapPanel.getModel().findNext(projectBaseFolder, null, pattern, inTopicText, extras, finders);
         }
 
         if (found != null) {
@@ -420,10 +422,11 @@ public final class MMDGraphEditor extends CloneableEditor implements AdjustmentL
             extras.add(Extra.ExtraType.LINK);
         }
         final boolean inTopicText = provider.toSearchIn(FindTextScopeProvider.SearchTextScope.IN_TOPIC_TEXT);
+        final Set<TopicFinder> finders = EncryptedNoteTopicFinder.addIfAllowed(TOPIC_FINDERS, this.mindMapPanel.getConfiguration());
 
-        Topic found = this.mindMapPanel.getModel().findPrev(projectBaseFolder, startTopic, pattern, inTopicText, extras, TOPIC_FINDERS);
+        Topic found = this.mindMapPanel.getModel().findPrev(projectBaseFolder, startTopic, pattern, inTopicText, extras, finders);
         if (found == null && startTopic != null) {
-            found = this.mindMapPanel.getModel().findPrev(projectBaseFolder, null, pattern, inTopicText, extras, TOPIC_FINDERS);
+            found = this.mindMapPanel.getModel().findPrev(projectBaseFolder, null, pattern, inTopicText, extras, finders);
         }
 
         if (found != null) {
@@ -534,6 +537,7 @@ public final class MMDGraphEditor extends CloneableEditor implements AdjustmentL
     public void componentClosed() {
         try {
             this.mindMapPanel.dispose();
+            CryptoUtils.releaseSessionKeys();
             LOGGER.info("MMD Editor is disposed : " + this.mindMapPanel.toString());
         } finally {
 
@@ -551,6 +555,7 @@ public final class MMDGraphEditor extends CloneableEditor implements AdjustmentL
     @Override
     public void componentOpened() {
         super.componentOpened();
+        CryptoUtils.acquireSessionKeys();
     }
 
     @Override
@@ -1455,6 +1460,7 @@ public final class MMDGraphEditor extends CloneableEditor implements AdjustmentL
                         final String pass = new String(passwordPanel.getPassword()).trim();
                         try {
                             if (CryptoUtils.decrypt(pass, note.getValue(), decrypted)) {
+                                CryptoUtils.rememberSessionKey(pass);
                                 noteText =
                                     new NoteEditorData(decrypted.toString(), pass, note.getHint());
                             } else {
@@ -1494,6 +1500,7 @@ public final class MMDGraphEditor extends CloneableEditor implements AdjustmentL
                         try {
                             newNoteText =
                                 CryptoUtils.encrypt(result.getPassword(), result.getText());
+                            CryptoUtils.rememberSessionKey(result.getPassword());
                         } catch (RuntimeException ex) {
                             DialogProviderManager.getInstance().getDialogProvider()
                                 .msgError(this,
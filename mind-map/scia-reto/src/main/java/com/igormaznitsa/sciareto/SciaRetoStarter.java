@@ -66,6 +66,7 @@ import com.igormaznitsa.mindmap.swing.panel.MindMapPanelController;
 import com.igormaznitsa.mindmap.swing.panel.ui.AbstractElement;
 import com.igormaznitsa.mindmap.swing.panel.ui.ElementPart;
 import com.igormaznitsa.mindmap.swing.panel.utils.PropertiesPreferences;
+import com.igormaznitsa.sciareto.index.MapTextIndex;
 import com.igormaznitsa.sciareto.metrics.MetricsService;
 import com.igormaznitsa.sciareto.notifications.MessagesService;
 import com.igormaznitsa.sciareto.plugins.services.PrinterPlugin;
@@ -295,6 +296,7 @@ public class SciaRetoStarter {
       @Override
       public void run() {
         try {
+          MapTextIndex.flushAll();
           final Preferences prefs = PreferencesManager.getInstance().getPreferences();
           prefs.putLong(PROPERTY_TOTAL_UPSTART,
               prefs.getLong(PROPERTY_TOTAL_UPSTART, 0L) + (currentTimeMillis() - UPSTART));
@@ -0,0 +1,1374 @@
+/*
+ * Copyright (C) 2018 Igor Maznitsa.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package com.igormaznitsa.sciareto.index;
+
+import com.igormaznitsa.meta.annotation.MustNotContainNull;
+import com.igormaznitsa.mindmap.model.Extra;
+import com.igormaznitsa.mindmap.model.ExtraFile;
+import com.igormaznitsa.mindmap.model.ExtraLink;
+import com.igormaznitsa.mindmap.model.ExtraNote;
+import com.igormaznitsa.mindmap.model.MMapURI;
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.igormaznitsa.mindmap.model.Topic;
+import com.igormaznitsa.mindmap.model.logger.Logger;
+import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
+import com.igormaznitsa.sciareto.Context;
+import com.igormaznitsa.sciareto.ui.SystemUtils;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.StringReader;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.output.CountingOutputStream;
+
+/**
+ * Persistent full-text index of mind maps of a project. Texts of topics, notes, file links, URI links and code snippets are indexed by trigrams,
+ * the index is kept in a file and its postings are read through memory mapping. Changes of maps are detected by time stamp and length of files,
+ * changed maps are kept in memory and merged into the index file when there are enough of them. After the first walk through the project only
+ * known maps and folders are checked, folders are listed again only if their time stamp has been changed.
+ * Merged changes are written into new generation of the index file and the mapped old generation is never overwritten,
+ * old generations are removed when they are not mapped anymore.
+ * <p>
+ * Index gives candidates which are checked by stored texts, so that search doesn't need to parse maps. File links are also kept in a sorted
+ * reverse table from linked file to referring topics, so that maps affected by rename or deletion of a file are found without search.
+ *
+ * @since 1.5.2
+ */
+@ThreadSafe
+public final class MapTextIndex {
+
+  /**
+   * System property to define folder to keep index files.
+   */
+  public static final String PROPERTY_INDEX_FOLDER = "sciareto.index.folder"; //NOI18N
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(MapTextIndex.class);
+
+  private static final int MAGIC = 0x4D4D4449;
+  private static final int VERSION = 3;
+  private static final int HEADER_SIZE = 48;
+  private static final int DOC_RECORD_SIZE = 24;
+  private static final int TRIGRAM_RECORD_SIZE = 20;
+  private static final int LINK_RECORD_SIZE = 8;
+  private static final int FLUSH_THRESHOLD = 64;
+  private static final int SEGMENT_SHIFT = 30;
+
+  private static final Map<File, MapTextIndex> INDEXES = new HashMap<>();
+
+  private final File projectFolder;
+  private final File indexFile;
+  private final int segmentShift;
+
+  private long generation;
+  private Snapshot snapshot;
+  private final Map<String, Document> changed = new HashMap<>();
+  private final Set<String> removed = new HashSet<>();
+  private Map<String, Long> folders;
+
+  MapTextIndex(@Nonnull final File projectFolder, @Nonnull final File indexFile) {
+    this(projectFolder, indexFile, SEGMENT_SHIFT);
+  }
+
+  MapTextIndex(@Nonnull final File projectFolder, @Nonnull final File indexFile, final int segmentShift) {
+    this.projectFolder = projectFolder;
+    this.indexFile = indexFile;
+    this.segmentShift = segmentShift;
+    this.generation = findLastGeneration();
+    final File generationFile = makeGenerationFile(this.generation);
+    try {
+      this.snapshot = Snapshot.load(generationFile, segmentShift);
+    } catch (IOException ex) {
+      LOGGER.warn("Can't load index file " + generationFile + ", it will be rebuilt : " + ex.getMessage()); //NOI18N
+      this.snapshot = null;
+    }
+    deleteOldGenerations();
+  }
+
+  /**
+   * Get index for project folder, index is created if not exists.
+   *
+   * @param projectFolder project folder, must not be null
+   * @return index of the project, must not be null
+   */
+  @Nonnull
+  public static MapTextIndex forProject(@Nonnull final File projectFolder) {
+    final File folder = projectFolder.getAbsoluteFile();
+    synchronized (INDEXES) {
+      MapTextIndex result = INDEXES.get(folder);
+      if (result == null) {
+        result = new MapTextIndex(folder, new File(findIndexFolder(), SystemUtils.makeCacheKey(folder) + ".idx")); //NOI18N
+        INDEXES.put(folder, result);
+      }
+      return result;
+    }
+  }
+
+  /**
+   * Write changes of index of project folder and forget the index, should be called when project is closed.
+   *
+   * @param projectFolder project folder, must not be null
+   */
+  public static void release(@Nonnull final File projectFolder) {
+    synchronized (INDEXES) {
+      final MapTextIndex index = INDEXES.remove(projectFolder.getAbsoluteFile());
+      if (index != null) {
+        try {
+          index.flush();
+        } catch (IOException ex) {
+          LOGGER.error("Can't write index of " + index.projectFolder, ex); //NOI18N
+        }
+      }
+    }
+  }
+
+  /**
+   * Notify all opened indexes that a map has been saved.
+   *
+   * @param mapFile saved file, must not be null
+   * @param map     saved map, must not be null
+   */
+  public static void onMapSaved(@Nonnull final File mapFile, @Nonnull final MindMap map) {
+    final File file = mapFile.getAbsoluteFile();
+    final List<MapTextIndex> indexes;
+    synchronized (INDEXES) {
+      indexes = new ArrayList<>(INDEXES.values());
+    }
+    for (final MapTextIndex index : indexes) {
+      if (index.isInProject(file)) {
+        index.update(file, map);
+      }
+    }
+  }
+
+  /**
+   * Write changes of all opened indexes.
+   */
+  public static void flushAll() {
+    final List<MapTextIndex> indexes;
+    synchronized (INDEXES) {
+      indexes = new ArrayList<>(INDEXES.values());
+    }
+    for (final MapTextIndex index : indexes) {
+      try {
+        index.flush();
+      } catch (IOException ex) {
+        LOGGER.error("Can't write index of " + index.projectFolder, ex); //NOI18N
+      }
+    }
+  }
+
+  @Nonnull
+  private static File findIndexFolder() {
+    final String folder = System.getProperty(PROPERTY_INDEX_FOLDER);
+    return folder == null ? SystemUtils.getCacheFolder("index") : new File(folder); //NOI18N
+  }
+
+  private static char fold(final char c) {
+    return Character.toLowerCase(Character.toUpperCase(c));
+  }
+
+  private static void addTrigrams(@Nonnull final String text, @Nonnull final Set<Long> keys) {
+    if (text.length() < 3) {
+      return;
+    }
+    long key = ((long) fold(text.charAt(0)) << 16) | fold(text.charAt(1));
+    for (int i = 2; i < text.length(); i++) {
+      key = ((key << 16) | fold(text.charAt(i))) & 0xFFFFFFFFFFFFL;
+      keys.add(key);
+    }
+  }
+
+  @Nonnull
+  private static String resolveFileLink(@Nonnull final String uri, @Nonnull final File baseFolder) {
+    try {
+      return FilenameUtils.normalize(new MMapURI(uri).asFile(baseFolder).getAbsolutePath());
+    } catch (URISyntaxException ex) {
+      return uri;
+    }
+  }
+
+  @Nonnull
+  private File makeGenerationFile(final long generation) {
+    return new File(this.indexFile.getParentFile(), this.indexFile.getName() + '.' + generation);
+  }
+
+  private long parseGeneration(@Nonnull final String fileName) {
+    final String prefix = this.indexFile.getName() + '.';
+    if (fileName.startsWith(prefix)) {
+      try {
+        return Long.parseLong(fileName.substring(prefix.length()));
+      } catch (NumberFormatException ex) {
+        return -1L;
+      }
+    }
+    return -1L;
+  }
+
+  private long findLastGeneration() {
+    long result = 0L;
+    final String[] names = this.indexFile.getParentFile().list();
+    if (names != null) {
+      for (final String name : names) {
+        result = Math.max(result, parseGeneration(name));
+      }
+    }
+    return result;
+  }
+
+  private void deleteOldGenerations() {
+    final File[] files = this.indexFile.getParentFile().listFiles();
+    if (files != null) {
+      for (final File file : files) {
+        final long fileGeneration = parseGeneration(file.getName());
+        if (fileGeneration >= 0L && fileGeneration < this.generation && !file.delete()) {
+          LOGGER.info("Old index file is still in use and will be removed later : " + file); //NOI18N
+        }
+      }
+    }
+  }
+
+  @Nonnull
+  private String toRelativePath(@Nonnull final File file) {
+    return FilenameUtils.separatorsToUnix(this.projectFolder.toPath().relativize(file.toPath()).toString());
+  }
+
+  @Nonnull
+  private File toFile(@Nonnull final String relativePath) {
+    return new File(this.projectFolder, FilenameUtils.separatorsToSystem(relativePath));
+  }
+
+  private boolean isInProject(@Nonnull final File file) {
+    return file.toPath().startsWith(this.projectFolder.toPath());
+  }
+
+  @Nonnull
+  public File getProjectFolder() {
+    return this.projectFolder;
+  }
+
+  private static boolean isSkippedFolder(@Nonnull final Path folder, @Nonnull final Path root) {
+    final Path name = folder.getFileName();
+    return !folder.equals(root) && name != null && name.toString().startsWith(".") && !Context.KNOWLEDGE_FOLDER.equals(name.toString()); //NOI18N
+  }
+
+  private static boolean isMap(@Nonnull final Path file, @Nonnull final BasicFileAttributes attrs) {
+    return attrs.isRegularFile() && file.getFileName().toString().toLowerCase(Locale.ENGLISH).endsWith(".mmd"); //NOI18N
+  }
+
+  @Nonnull
+  private static String toRelativePath(@Nonnull final Path root, @Nonnull final Path path) {
+    return FilenameUtils.separatorsToUnix(root.relativize(path).toString());
+  }
+
+  /**
+   * Walk through folder tree, found maps and time stamps of visited folders are collected.
+   *
+   * @param start  folder to start walking
+   * @param root   project folder
+   * @param found  map to collect attributes of found maps
+   * @param walked map to collect time stamps of visited folders
+   * @throws IOException if any error during walking
+   */
+  private void walk(@Nonnull final Path start, @Nonnull final Path root, @Nonnull final Map<String, BasicFileAttributes> found, @Nonnull final Map<String, Long> walked) throws IOException {
+    Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+      @Override
+      @Nonnull
+      public FileVisitResult preVisitDirectory(@Nonnull final Path dir, @Nonnull final BasicFileAttributes attrs) {
+        if (Thread.currentThread().isInterrupted()) {
+          return FileVisitResult.TERMINATE;
+        }
+        if (isSkippedFolder(dir, root)) {
+          return FileVisitResult.SKIP_SUBTREE;
+        }
+        walked.put(toRelativePath(root, dir), attrs.lastModifiedTime().toMillis());
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      @Nonnull
+      public FileVisitResult visitFile(@Nonnull final Path file, @Nonnull final BasicFileAttributes attrs) {
+        if (isMap(file, attrs)) {
+          found.put(toRelativePath(root, file), attrs);
+        }
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      @Nonnull
+      public FileVisitResult visitFileFailed(@Nonnull final Path file, @Nonnull final IOException exc) {
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  @Nullable
+  private static BasicFileAttributes readAttributes(@Nonnull final Path path) {
+    try {
+      return Files.readAttributes(path, BasicFileAttributes.class);
+    } catch (IOException ex) {
+      return null;
+    }
+  }
+
+  /**
+   * Collect maps of project without walking through whole tree. Known maps are checked directly, known folders are listed again only
+   * if their time stamps have been changed and new folders are walked.
+   *
+   * @param root  project folder
+   * @param found map to collect attributes of found maps
+   * @throws IOException if any error during walking through new folders
+   */
+  private void collectChanged(@Nonnull final Path root, @Nonnull final Map<String, BasicFileAttributes> found) throws IOException {
+    for (final String path : knownPaths()) {
+      final BasicFileAttributes attrs = readAttributes(root.resolve(path));
+      if (attrs != null && attrs.isRegularFile()) {
+        found.put(path, attrs);
+      }
+    }
+
+    final Map<String, Long> walked = new HashMap<>();
+    for (final Map.Entry<String, Long> e : new ArrayList<>(this.folders.entrySet())) {
+      if (Thread.currentThread().isInterrupted()) {
+        return;
+      }
+      final Path folder = root.resolve(e.getKey());
+      final BasicFileAttributes attrs = readAttributes(folder);
+      if (attrs == null || !attrs.isDirectory()) {
+        this.folders.remove(e.getKey());
+      } else if (attrs.lastModifiedTime().toMillis() != e.getValue()) {
+        this.folders.put(e.getKey(), attrs.lastModifiedTime().toMillis());
+        try (final DirectoryStream<Path> children = Files.newDirectoryStream(folder)) {
+          for (final Path child : children) {
+            final BasicFileAttributes childAttrs = readAttributes(child);
+            if (childAttrs == null) {
+              continue;
+            }
+            final String childPath = toRelativePath(root, child);
+            if (childAttrs.isDirectory()) {
+              if (!this.folders.containsKey(childPath) && !walked.containsKey(childPath)) {
+                walk(child, root, found, walked);
+              }
+            } else if (isMap(child, childAttrs)) {
+              found.put(childPath, childAttrs);
+            }
+          }
+        } catch (IOException ex) {
+          LOGGER.warn("Can't list folder : " + folder + " (" + ex.getMessage() + ')'); //NOI18N
+        }
+      }
+    }
+    this.folders.putAll(walked);
+  }
+
+  /**
+   * Synchronize index with files of the project. Only maps which time stamp or length has been changed are parsed.
+   * The first call walks through whole project, next calls check only known maps and folders which time stamps have been changed.
+   *
+   * @return number of maps which have been added, changed or removed
+   * @throws IOException if any error during walking through project
+   */
+  public synchronized int refresh() throws IOException {
+    final Map<String, BasicFileAttributes> found = new HashMap<>();
+    final Path root = this.projectFolder.toPath();
+
+    if (Files.isDirectory(root)) {
+      if (this.folders == null) {
+        final Map<String, Long> walked = new HashMap<>();
+        walk(root, root, found, walked);
+        if (!Thread.currentThread().isInterrupted()) {
+          this.folders = walked;
+        }
+      } else {
+        collectChanged(root, found);
+      }
+    } else {
+      this.folders = null;
+    }
+
+    if (Thread.currentThread().isInterrupted()) {
+      // folders can be marked as checked but their maps are not processed
+      this.folders = null;
+      return 0;
+    }
+
+    int counter = 0;
+
+    for (final String path : knownPaths()) {
+      if (!found.containsKey(path)) {
+        this.changed.remove(path);
+        if (this.snapshot != null && this.snapshot.findDoc(path) >= 0) {
+          this.removed.add(path);
+        }
+        counter++;
+      }
+    }
+
+    for (final Map.Entry<String, BasicFileAttributes> e : found.entrySet()) {
+      if (Thread.currentThread().isInterrupted()) {
+        this.folders = null;
+        break;
+      }
+      final String path = e.getKey();
+      final long modified = e.getValue().lastModifiedTime().toMillis();
+      final long length = e.getValue().size();
+      if (!isUpToDate(path, modified, length)) {
+        this.changed.put(path, parse(path, modified, length));
+        this.removed.remove(path);
+        counter++;
+      }
+    }
+
+    if (this.changed.size() + this.removed.size() >= FLUSH_THRESHOLD || (this.snapshot == null && !found.isEmpty())) {
+      flush();
+    }
+
+    return counter;
+  }
+
+  /**
+   * Update index by saved map without parsing of its file.
+   *
+   * @param mapFile file of the map, must not be null
+   * @param map     saved map, must not be null
+   */
+  public synchronized void update(@Nonnull final File mapFile, @Nonnull final MindMap map) {
+    final File file = mapFile.getAbsoluteFile();
+    final String path = toRelativePath(file);
+    this.changed.put(path, new Document(path, file.lastModified(), file.length(), extractEntries(map), false));
+    this.removed.remove(path);
+  }
+
+  /**
+   * Check that file is presented in index as successfully parsed map and it has not been changed since indexing.
+   *
+   * @param file file to be checked, must not be null
+   * @return true if results of the index can be used for the file, false otherwise
+   */
+  public synchronized boolean covers(@Nonnull final File file) {
+    final File absolute = file.getAbsoluteFile();
+    if (!isInProject(absolute)) {
+      return false;
+    }
+    final String path = toRelativePath(absolute);
+    if (!isUpToDate(path, absolute.lastModified(), absolute.length())) {
+      return false;
+    }
+    final Document doc = this.changed.get(path);
+    return doc == null ? !this.snapshot.isBroken(this.snapshot.findDoc(path)) : !doc.broken;
+  }
+
+  /**
+   * Find indexed maps which can't be used through the index because they have not been parsed successfully.
+   *
+   * @return files of maps which should be processed directly, must not be null
+   * @see #covers(File)
+   */
+  @Nonnull
+  @MustNotContainNull
+  public synchronized List<File> findNotCoveredFiles() {
+    final List<File> result = new ArrayList<>();
+    for (final Document doc : this.changed.values()) {
+      if (doc.broken) {
+        result.add(toFile(doc.path));
+      }
+    }
+    if (this.snapshot != null) {
+      for (int i = 0; i < this.snapshot.size(); i++) {
+        final String path = this.snapshot.getPath(i);
+        if (!this.changed.containsKey(path) && !this.removed.contains(path) && this.snapshot.isBroken(i)) {
+          result.add(toFile(path));
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Find maps which contain text.
+   *
+   * @param text    text to find, it is used to select candidates, must not be null
+   * @param pattern pattern to check texts of candidates, must not be null
+   * @param kinds   kinds of texts to check, must not be null
+   * @return found map files, must not be null
+   */
+  @Nonnull
+  @MustNotContainNull
+  public Set<File> findFiles(@Nonnull final String text, @Nonnull final Pattern pattern, @Nonnull final Set<Kind> kinds) {
+    return findFiles(text, kinds, (kind, value, mapFile) -> {
+      final String textToCheck = kind == Kind.FILE ? resolveFileLink(value, mapFile.getParentFile()) : value;
+      return pattern.matcher(textToCheck).find();
+    });
+  }
+
+  /**
+   * Find maps which have file links to a file or into a folder, links are resolved relative to project folder.
+   *
+   * @param target file or folder, must not be null
+   * @return found map files, must not be null
+   */
+  @Nonnull
+  @MustNotContainNull
+  public Set<File> findFilesLinkingTo(@Nonnull final File target) {
+    final Set<File> result = new LinkedHashSet<>();
+    for (final Hit hit : findTopicsLinkingTo(target)) {
+      result.add(hit.getFile());
+    }
+    return result;
+  }
+
+  /**
+   * Find topics which have file links to a file or into a folder, links are resolved relative to project folder.
+   * Search is made through reverse link table and doesn't touch texts of maps.
+   *
+   * @param target file or folder, must not be null
+   * @return found topics, must not be null
+   */
+  @Nonnull
+  @MustNotContainNull
+  public synchronized List<Hit> findTopicsLinkingTo(@Nonnull final File target) {
+    final String key = makeLinkKey(FilenameUtils.normalize(target.getAbsolutePath()));
+    final boolean folder = target.isDirectory();
+    final List<Hit> result = new ArrayList<>();
+
+    if (this.snapshot != null) {
+      for (int i = this.snapshot.findFirstLink(key); i < this.snapshot.getLinkCount(); i++) {
+        final String linkKey = this.snapshot.getLinkKey(i);
+        if (!linkKey.startsWith(key)) {
+          break;
+        }
+        if (!isLinkMatches(linkKey, key, folder)) {
+          continue;
+        }
+        final int docId = this.snapshot.getLinkDoc(i);
+        final String path = this.snapshot.getPath(docId);
+        if (!this.changed.containsKey(path) && !this.removed.contains(path)) {
+          result.add(new Hit(toFile(path), this.snapshot.getLinkTopicPath(i), Kind.FILE));
+        }
+      }
+    }
+
+    for (final Document doc : this.changed.values()) {
+      for (final Entry e : doc.entries) {
+        if (e.kind == Kind.FILE && isLinkMatches(makeLinkKey(resolveFileLink(e.text, this.projectFolder)), key, folder)) {
+          result.add(new Hit(toFile(doc.path), e.path, Kind.FILE));
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Get file links of indexed map without parsing of the map.
+   *
+   * @param mapFile map file, must not be null
+   * @return list of file link URIs in order of topics or null if the map is not covered by index
+   * @see #covers(File)
+   */
+  @Nullable
+  @MustNotContainNull
+  public synchronized List<MMapURI> getFileLinks(@Nonnull final File mapFile) {
+    if (!covers(mapFile)) {
+      return null;
+    }
+    final String path = toRelativePath(mapFile.getAbsoluteFile());
+    final Document changedDoc = this.changed.get(path);
+    final Document doc = changedDoc == null ? this.snapshot.getDocument(this.snapshot.findDoc(path)) : changedDoc;
+    final List<MMapURI> result = new ArrayList<>();
+    for (final Entry e : doc.entries) {
+      if (e.kind == Kind.FILE) {
+        try {
+          result.add(new MMapURI(e.text));
+        } catch (URISyntaxException ex) {
+          LOGGER.warn("Wrong file link in index : " + e.text); //NOI18N
+        }
+      }
+    }
+    return result;
+  }
+
+  @Nonnull
+  private static String makeLinkKey(@Nonnull final String resolvedPath) {
+    return FilenameUtils.separatorsToUnix(resolvedPath);
+  }
+
+  private static boolean isLinkMatches(@Nonnull final String linkKey, @Nonnull final String targetKey, final boolean folder) {
+    if (folder) {
+      return linkKey.startsWith(targetKey) && (linkKey.length() == targetKey.length() || targetKey.endsWith("/") || linkKey.charAt(targetKey.length()) == '/'); //NOI18N
+    }
+    return linkKey.equals(targetKey);
+  }
+
+  /**
+   * Find all topics which contain text.
+   *
+   * @param text    text to find, it is used to select candidates, must not be null
+   * @param pattern pattern to check texts of candidates, must not be null
+   * @param kinds   kinds of texts to check, must not be null
+   * @return list of found topics, must not be null
+   */
+  @Nonnull
+  @MustNotContainNull
+  public synchronized List<Hit> find(@Nonnull final String text, @Nonnull final Pattern pattern, @Nonnull final Set<Kind> kinds) {
+    final List<Hit> result = new ArrayList<>();
+    final EntryMatcher matcher = (kind, value, mapFile) -> {
+      final String textToCheck = kind == Kind.FILE ? resolveFileLink(value, mapFile.getParentFile()) : value;
+      return pattern.matcher(textToCheck).find();
+    };
+    for (final Document doc : candidates(text)) {
+      final File mapFile = toFile(doc.path);
+      for (final Entry e : doc.entries) {
+        if (kinds.contains(e.kind) && matcher.matches(e.kind, e.text, mapFile)) {
+          result.add(new Hit(mapFile, e.path, e.kind));
+        }
+      }
+    }
+    return result;
+  }
+
+  @Nonnull
+  @MustNotContainNull
+  private synchronized Set<File> findFiles(@Nonnull final String text, @Nonnull final Set<Kind> kinds, @Nonnull final EntryMatcher matcher) {
+    final Set<File> result = new LinkedHashSet<>();
+    for (final Document doc : candidates(text)) {
+      final File mapFile = toFile(doc.path);
+      for (final Entry e : doc.entries) {
+        if (kinds.contains(e.kind) && matcher.matches(e.kind, e.text, mapFile)) {
+          result.add(mapFile);
+          break;
+        }
+      }
+    }
+    return result;
+  }
+
+  @Nonnull
+  @MustNotContainNull
+  private Iterable<Document> candidates(@Nonnull final String text) {
+    final List<Document> result = new ArrayList<>(this.changed.values());
+    if (this.snapshot != null) {
+      final Set<Long> keys = new HashSet<>();
+      addTrigrams(text, keys);
+      for (final int docId : this.snapshot.findDocs(keys)) {
+        final String path = this.snapshot.getPath(docId);
+        if (!this.changed.containsKey(path) && !this.removed.contains(path)) {
+          result.add(this.snapshot.getDocument(docId));
+        }
+      }
+    }
+    return result;
+  }
+
+  @Nonnull
+  @MustNotContainNull
+  private Set<String> knownPaths() {
+    final Set<String> result = new HashSet<>(this.changed.keySet());
+    if (this.snapshot != null) {
+      for (int i = 0; i < this.snapshot.size(); i++) {
+        final String path = this.snapshot.getPath(i);
+        if (!this.removed.contains(path)) {
+          result.add(path);
+        }
+      }
+    }
+    return result;
+  }
+
+  private boolean isUpToDate(@Nonnull final String path, final long modified, final long length) {
+    final Document doc = this.changed.get(path);
+    if (doc != null) {
+      return doc.modified == modified && doc.length == length;
+    }
+    if (this.snapshot == null || this.removed.contains(path)) {
+      return false;
+    }
+    final int docId = this.snapshot.findDoc(path);
+    return docId >= 0 && this.snapshot.getModified(docId) == modified && this.snapshot.getLength(docId) == length;
+  }
+
+  @Nonnull
+  private Document parse(@Nonnull final String path, final long modified, final long length) {
+    final File file = toFile(path);
+    try {
+      return new Document(path, modified, length, extractEntries(new MindMap(new StringReader(FileUtils.readFileToString(file, StandardCharsets.UTF_8)))), false);
+    } catch (Exception ex) {
+      LOGGER.warn("Can't parse map for index : " + file + " (" + ex.getMessage() + ')'); //NOI18N
+      return new Document(path, modified, length, Collections.<Entry>emptyList(), true);
+    }
+  }
+
+  @Nonnull
+  @MustNotContainNull
+  private static List<Entry> extractEntries(@Nonnull final MindMap map) {
+    final List<Entry> result = new ArrayList<>();
+    final Topic root = map.getRoot();
+    if (root != null) {
+      extractEntries(root, new int[]{0}, result);
+    }
+    return result;
+  }
+
+  private static void extractEntries(@Nonnull final Topic topic, @Nonnull final int[] path, @Nonnull @MustNotContainNull final List<Entry> result) {
+    result.add(new Entry(Kind.TOPIC, path, topic.getText()));
+
+    final ExtraNote note = (ExtraNote) topic.getExtras().get(Extra.ExtraType.NOTE);
+    if (note != null && !note.isEncrypted()) {
+      result.add(new Entry(Kind.NOTE, path, note.getValue()));
+    }
+    final ExtraFile file = (ExtraFile) topic.getExtras().get(Extra.ExtraType.FILE);
+    if (file != null) {
+      result.add(new Entry(Kind.FILE, path, file.getValue().toString()));
+    }
+    final ExtraLink link = (ExtraLink) topic.getExtras().get(Extra.ExtraType.LINK);
+    if (link != null) {
+      result.add(new Entry(Kind.LINK, path, link.getValue().toString()));
+    }
+    for (final String snippet : topic.getCodeSnippets().values()) {
+      result.add(new Entry(Kind.CODE, path, snippet));
+    }
+
+    final List<Topic> children = topic.getChildren();
+    for (int i = 0; i < children.size(); i++) {
+      final int[] childPath = Arrays.copyOf(path, path.length + 1);
+      childPath[path.length] = i;
+      extractEntries(children.get(i), childPath, result);
+    }
+  }
+
+  /**
+   * Merge changes into index file.
+   *
+   * @throws IOException if any error during writing
+   */
+  public synchronized void flush() throws IOException {
+    if (this.changed.isEmpty() && this.removed.isEmpty() && this.snapshot != null) {
+      return;
+    }
+
+    final List<Document> docs = new ArrayList<>();
+    if (this.snapshot != null) {
+      for (int i = 0; i < this.snapshot.size(); i++) {
+        final String path = this.snapshot.getPath(i);
+        if (!this.changed.containsKey(path) && !this.removed.contains(path)) {
+          docs.add(this.snapshot.getDocument(i));
+        }
+      }
+    }
+    docs.addAll(this.changed.values());
+
+    final File folder = this.indexFile.getParentFile();
+    if (!folder.isDirectory() && !folder.mkdirs()) {
+      throw new IOException("Can't create index folder : " + folder); //NOI18N
+    }
+
+    // unique temp file because the same index can be written by several instances
+    final File tempFile = Files.createTempFile(folder.toPath(), this.indexFile.getName() + '-', ".tmp").toFile(); //NOI18N
+    final long nextGeneration = this.generation + 1L;
+    final File nextFile = makeGenerationFile(nextGeneration);
+    try {
+      write(tempFile, docs);
+      Files.move(tempFile.toPath(), nextFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      FileUtils.deleteQuietly(tempFile);
+    }
+    this.snapshot = Snapshot.load(nextFile, this.segmentShift);
+    this.generation = nextGeneration;
+    this.changed.clear();
+    this.removed.clear();
+    deleteOldGenerations();
+  }
+
+  private void write(@Nonnull final File file, @Nonnull @MustNotContainNull final List<Document> docs) throws IOException {
+    final Map<Long, IntList> postings = new HashMap<>();
+    final List<Link> links = new ArrayList<>();
+    final long[] docOffsets = new long[docs.size()];
+
+    // offsets are counted as long because size of DataOutputStream is limited by int
+    final CountingOutputStream counter = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(file), 65536));
+    try (final DataOutputStream out = new DataOutputStream(counter)) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(docs.size());
+      for (int i = 0; i < 3; i++) {
+        out.writeInt(0);
+      }
+      for (int i = 0; i < 3; i++) {
+        out.writeLong(0L);
+      }
+
+      for (int i = 0; i < docs.size(); i++) {
+        out.writeLong(0L);
+        out.writeLong(0L);
+        out.writeLong(0L);
+      }
+
+      final Set<Long> keys = new HashSet<>();
+      for (int docId = 0; docId < docs.size(); docId++) {
+        final Document doc = docs.get(docId);
+        docOffsets[docId] = counter.getByteCount();
+        writeString(out, doc.path);
+        out.writeInt(doc.broken ? -1 : doc.entries.size());
+
+        final File mapFolder = toFile(doc.path).getParentFile();
+        keys.clear();
+        for (final Entry e : doc.entries) {
+          out.writeByte(e.kind.ordinal());
+          out.writeShort(e.path.length);
+          for (final int p : e.path) {
+            out.writeInt(p);
+          }
+          writeString(out, e.text);
+          addTrigrams(e.kind == Kind.FILE ? resolveFileLink(e.text, mapFolder) : e.text, keys);
+          if (e.kind == Kind.FILE) {
+            links.add(new Link(makeLinkKey(resolveFileLink(e.text, this.projectFolder)), docId, e.path));
+          }
+        }
+        for (final Long key : keys) {
+          IntList list = postings.get(key);
+          if (list == null) {
+            list = new IntList();
+            postings.put(key, list);
+          }
+          list.add(docId);
+        }
+      }
+
+      final long[] sortedKeys = new long[postings.size()];
+      int index = 0;
+      for (final Long key : postings.keySet()) {
+        sortedKeys[index++] = key;
+      }
+      Arrays.sort(sortedKeys);
+
+      final long trigramTableOffset = counter.getByteCount();
+      long postingOffset = trigramTableOffset + (long) sortedKeys.length * TRIGRAM_RECORD_SIZE;
+      for (final long key : sortedKeys) {
+        final IntList list = postings.get(key);
+        out.writeLong(key);
+        out.writeLong(postingOffset);
+        out.writeInt(list.size);
+        postingOffset += list.size * 4L;
+      }
+      for (final long key : sortedKeys) {
+        final IntList list = postings.get(key);
+        for (int i = 0; i < list.size; i++) {
+          out.writeInt(list.data[i]);
+        }
+      }
+
+      Collections.sort(links, (a, b) -> a.key.compareTo(b.key));
+      final long[] linkOffsets = new long[links.size()];
+      for (int i = 0; i < linkOffsets.length; i++) {
+        final Link link = links.get(i);
+        linkOffsets[i] = counter.getByteCount();
+        writeString(out, link.key);
+        out.writeInt(link.docId);
+        out.writeShort(link.path.length);
+        for (final int p : link.path) {
+          out.writeInt(p);
+        }
+      }
+      final long linkTableOffset = counter.getByteCount();
+      for (final long offset : linkOffsets) {
+        out.writeLong(offset);
+      }
+
+      out.flush();
+
+      try (final RandomAccessFile header = new RandomAccessFile(file, "rw")) { //NOI18N
+        header.seek(12L);
+        header.writeInt(sortedKeys.length);
+        header.writeInt(linkOffsets.length);
+        header.writeInt(0);
+        header.writeLong(HEADER_SIZE);
+        header.writeLong(trigramTableOffset);
+        header.writeLong(linkTableOffset);
+        for (int i = 0; i < docs.size(); i++) {
+          final Document doc = docs.get(i);
+          header.writeLong(doc.modified);
+          header.writeLong(doc.length);
+          header.writeLong(docOffsets[i]);
+        }
+      }
+    }
+  }
+
+  private static void writeString(@Nonnull final DataOutputStream out, @Nonnull final String text) throws IOException {
+    final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  /**
+   * Kind of indexed text.
+   */
+  public enum Kind {
+    TOPIC,
+    NOTE,
+    FILE,
+    LINK,
+    CODE
+  }
+
+  /**
+   * Found topic.
+   */
+  public static final class Hit {
+
+    private final File file;
+    private final int[] topicPath;
+    private final Kind kind;
+
+    private Hit(@Nonnull final File file, @Nonnull final int[] topicPath, @Nonnull final Kind kind) {
+      this.file = file;
+      this.topicPath = topicPath;
+      this.kind = kind;
+    }
+
+    @Nonnull
+    public File getFile() {
+      return this.file;
+    }
+
+    /**
+     * Get position path of topic in map.
+     *
+     * @return position path, can be used with {@link MindMap#findForPositionPath(int[])}
+     */
+    @Nonnull
+    public int[] getTopicPath() {
+      return this.topicPath.clone();
+    }
+
+    @Nonnull
+    public Kind getKind() {
+      return this.kind;
+    }
+  }
+
+  private interface EntryMatcher {
+
+    boolean matches(@Nonnull Kind kind, @Nonnull String value, @Nonnull File mapFile);
+  }
+
+  private static final class Entry {
+
+    private final Kind kind;
+    private final int[] path;
+    private final String text;
+
+    private Entry(@Nonnull final Kind kind, @Nonnull final int[] path, @Nonnull final String text) {
+      this.kind = kind;
+      this.path = path;
+      this.text = text;
+    }
+  }
+
+  private static final class Document {
+
+    private final String path;
+    private final long modified;
+    private final long length;
+    private final List<Entry> entries;
+    private final boolean broken;
+
+    private Document(@Nonnull final String path, final long modified, final long length, @Nonnull @MustNotContainNull final List<Entry> entries, final boolean broken) {
+      this.path = path;
+      this.modified = modified;
+      this.length = length;
+      this.entries = entries;
+      this.broken = broken;
+    }
+  }
+
+  private static final class Link {
+
+    private final String key;
+    private final int docId;
+    private final int[] path;
+
+    private Link(@Nonnull final String key, final int docId, @Nonnull final int[] path) {
+      this.key = key;
+      this.docId = docId;
+      this.path = path;
+    }
+  }
+
+  private static final class IntList {
+
+    private int[] data = new int[4];
+    private int size;
+
+    private void add(final int value) {
+      if (this.size == this.data.length) {
+        this.data = Arrays.copyOf(this.data, this.size * 2);
+      }
+      this.data[this.size++] = value;
+    }
+  }
+
+  /**
+   * Read only memory mapping of file by segments, so that the file can be bigger than max size of single mapped buffer.
+   * Values crossing border of segments are assembled by bytes.
+   */
+  private static final class MappedContent {
+
+    private final MappedByteBuffer[] segments;
+    private final int segmentShift;
+    private final long segmentMask;
+    private final long size;
+
+    private MappedContent(@Nonnull final FileChannel channel, final int segmentShift) throws IOException {
+      this.size = channel.size();
+      this.segmentShift = segmentShift;
+      this.segmentMask = (1L << segmentShift) - 1L;
+      final long segmentSize = 1L << segmentShift;
+      this.segments = new MappedByteBuffer[(int) ((this.size + segmentSize - 1L) >>> segmentShift)];
+      for (int i = 0; i < this.segments.length; i++) {
+        final long start = (long) i << segmentShift;
+        this.segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(segmentSize, this.size - start));
+      }
+    }
+
+    private long size() {
+      return this.size;
+    }
+
+    @Nonnull
+    private MappedByteBuffer segment(final long position) {
+      return this.segments[(int) (position >>> this.segmentShift)];
+    }
+
+    private int offset(final long position) {
+      return (int) (position & this.segmentMask);
+    }
+
+    private long assemble(final long position, final int bytes) {
+      long result = 0L;
+      for (int i = 0; i < bytes; i++) {
+        result = (result << 8) | (get(position + i) & 0xFF);
+      }
+      return result;
+    }
+
+    private byte get(final long position) {
+      return segment(position).get(offset(position));
+    }
+
+    private short getShort(final long position) {
+      final MappedByteBuffer segment = segment(position);
+      final int offset = offset(position);
+      return offset + 2 <= segment.capacity() ? segment.getShort(offset) : (short) assemble(position, 2);
+    }
+
+    private int getInt(final long position) {
+      final MappedByteBuffer segment = segment(position);
+      final int offset = offset(position);
+      return offset + 4 <= segment.capacity() ? segment.getInt(offset) : (int) assemble(position, 4);
+    }
+
+    private long getLong(final long position) {
+      final MappedByteBuffer segment = segment(position);
+      final int offset = offset(position);
+      return offset + 8 <= segment.capacity() ? segment.getLong(offset) : assemble(position, 8);
+    }
+
+    @Nonnull
+    private String getString(final long position) {
+      final byte[] bytes = new byte[getInt(position)];
+      long current = position + 4;
+      int done = 0;
+      while (done < bytes.length) {
+        final ByteBuffer view = segment(current).duplicate();
+        final int offset = offset(current);
+        final int length = Math.min(bytes.length - done, view.capacity() - offset);
+        view.position(offset);
+        view.get(bytes, done, length);
+        done += length;
+        current += length;
+      }
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+  }
+
+  /**
+   * Memory mapped content of index file, only map of paths is kept in heap.
+   */
+  private static final class Snapshot {
+
+    private final MappedContent content;
+    private final int docCount;
+    private final int trigramCount;
+    private final int linkCount;
+    private final long docTableOffset;
+    private final long trigramTableOffset;
+    private final long linkTableOffset;
+    private final String[] paths;
+    private final Map<String, Integer> docIds;
+
+    private Snapshot(@Nonnull final MappedContent content) throws IOException {
+      this.content = content;
+      if (content.size() < HEADER_SIZE || content.getInt(0) != MAGIC || content.getInt(4) != VERSION) {
+        throw new IOException("Unsupported index format"); //NOI18N
+      }
+      this.docCount = content.getInt(8);
+      this.trigramCount = content.getInt(12);
+      this.linkCount = content.getInt(16);
+      this.docTableOffset = content.getLong(24);
+      this.trigramTableOffset = content.getLong(32);
+      this.linkTableOffset = content.getLong(40);
+
+      this.paths = new String[this.docCount];
+      this.docIds = new HashMap<>(this.docCount * 2);
+      for (int i = 0; i < this.docCount; i++) {
+        this.paths[i] = content.getString(getDocOffset(i));
+        this.docIds.put(this.paths[i], i);
+      }
+    }
+
+    @Nullable
+    private static Snapshot load(@Nonnull final File file, final int segmentShift) throws IOException {
+      if (!file.isFile()) {
+        return null;
+      }
+      try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+        return new Snapshot(new MappedContent(channel, segmentShift));
+      }
+    }
+
+    private int size() {
+      return this.docCount;
+    }
+
+    private int findDoc(@Nonnull final String path) {
+      final Integer result = this.docIds.get(path);
+      return result == null ? -1 : result;
+    }
+
+    @Nonnull
+    private String getPath(final int docId) {
+      return this.paths[docId];
+    }
+
+    private long getModified(final int docId) {
+      return this.content.getLong(this.docTableOffset + (long) docId * DOC_RECORD_SIZE);
+    }
+
+    private long getLength(final int docId) {
+      return this.content.getLong(this.docTableOffset + (long) docId * DOC_RECORD_SIZE + 8L);
+    }
+
+    private long getDocOffset(final int docId) {
+      return this.content.getLong(this.docTableOffset + (long) docId * DOC_RECORD_SIZE + 16L);
+    }
+
+    private int getEntryCount(final int docId) {
+      final long offset = getDocOffset(docId);
+      return this.content.getInt(offset + 4L + this.content.getInt(offset));
+    }
+
+    private boolean isBroken(final int docId) {
+      return getEntryCount(docId) < 0;
+    }
+
+    @Nonnull
+    private Document getDocument(final int docId) {
+      long offset = getDocOffset(docId);
+      offset += 4L + this.content.getInt(offset);
+      final int storedCount = this.content.getInt(offset);
+      final int entryCount = Math.max(0, storedCount);
+      offset += 4L;
+      final List<Entry> entries = new ArrayList<>(entryCount);
+      for (int i = 0; i < entryCount; i++) {
+        final Kind kind = Kind.values()[this.content.get(offset)];
+        final int depth = this.content.getShort(offset + 1L);
+        offset += 3L;
+        final int[] path = new int[depth];
+        for (int p = 0; p < depth; p++) {
+          path[p] = this.content.getInt(offset);
+          offset += 4L;
+        }
+        final String text = this.content.getString(offset);
+        offset += 4L + this.content.getInt(offset);
+        entries.add(new Entry(kind, path, text));
+      }
+      return new Document(this.paths[docId], getModified(docId), getLength(docId), entries, storedCount < 0);
+    }
+
+    private int getLinkCount() {
+      return this.linkCount;
+    }
+
+    private long getLinkOffset(final int index) {
+      return this.content.getLong(this.linkTableOffset + (long) index * LINK_RECORD_SIZE);
+    }
+
+    @Nonnull
+    private String getLinkKey(final int index) {
+      return this.content.getString(getLinkOffset(index));
+    }
+
+    private int getLinkDoc(final int index) {
+      final long offset = getLinkOffset(index);
+      return this.content.getInt(offset + 4L + this.content.getInt(offset));
+    }
+
+    @Nonnull
+    private int[] getLinkTopicPath(final int index) {
+      long offset = getLinkOffset(index);
+      offset += 8L + this.content.getInt(offset);
+      final int[] result = new int[this.content.getShort(offset)];
+      offset += 2L;
+      for (int i = 0; i < result.length; i++) {
+        result[i] = this.content.getInt(offset + i * 4L);
+      }
+      return result;
+    }
+
+    /**
+     * Find index of the first link which key is not less than the key.
+     *
+     * @param key key to find, must not be null
+     * @return index of the first link in the link table, equals to number of links if all keys are less
+     */
+    private int findFirstLink(@Nonnull final String key) {
+      int low = 0;
+      int high = this.linkCount;
+      while (low < high) {
+        final int middle = (low + high) >>> 1;
+        if (getLinkKey(middle).compareTo(key) < 0) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      return low;
+    }
+
+    private int findTrigram(final long key) {
+      int low = 0;
+      int high = this.trigramCount - 1;
+      while (low <= high) {
+        final int middle = (low + high) >>> 1;
+        final long value = this.content.getLong(this.trigramTableOffset + (long) middle * TRIGRAM_RECORD_SIZE);
+        if (value < key) {
+          low = middle + 1;
+        } else if (value > key) {
+          high = middle - 1;
+        } else {
+          return middle;
+        }
+      }
+      return -1;
+    }
+
+    /**
+     * Find documents which contain all trigrams, postings are intersected directly in mapped buffer.
+     *
+     * @param keys trigram keys, if empty then all documents are returned
+     * @return sorted array of document ids
+     */
+    @Nonnull
+    private int[] findDocs(@Nonnull final Set<Long> keys) {
+      if (keys.isEmpty()) {
+        final int[] all = new int[this.docCount];
+        for (int i = 0; i < all.length; i++) {
+          all[i] = i;
+        }
+        return all;
+      }
+
+      final int[] records = new int[keys.size()];
+      int index = 0;
+      for (final Long key : keys) {
+        final int record = findTrigram(key);
+        if (record < 0) {
+          return new int[0];
+        }
+        records[index++] = record;
+      }
+
+      int[] result = null;
+      int resultSize = 0;
+      for (final int record : records) {
+        final long base = this.trigramTableOffset + (long) record * TRIGRAM_RECORD_SIZE;
+        final long offset = this.content.getLong(base + 8L);
+        final int count = this.content.getInt(base + 16L);
+        if (result == null) {
+          result = new int[count];
+          for (int i = 0; i < count; i++) {
+            result[i] = this.content.getInt(offset + i * 4L);
+          }
+          resultSize = count;
+        } else {
+          int newSize = 0;
+          int p = 0;
+          for (int i = 0; i < resultSize && p < count; ) {
+            final int a = result[i];
+            final int b = this.content.getInt(offset + p * 4L);
+            if (a == b) {
+              result[newSize++] = a;
+              i++;
+              p++;
+            } else if (a < b) {
+              i++;
+            } else {
+              p++;
+            }
+          }
+          resultSize = newSize;
+        }
+        if (resultSize == 0) {
+          break;
+        }
+      }
+      return Arrays.copyOf(result, resultSize);
+    }
+  }
+}
@@ -22,6 +22,7 @@ import com.igormaznitsa.mindmap.model.logger.Logger;
 import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
 import com.igormaznitsa.sciareto.preferences.PreferencesManager;
 
+import com.igormaznitsa.sciareto.services.TaskScheduler;
 import javax.annotation.Nonnull;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -48,35 +49,25 @@ public class MetricsService {
 
   public void onFirstStart() {
       LOGGER.info("Starting statistics send"); //NOI18N
-      final Thread thread = new Thread(new Runnable() {
-        @Override
-        public void run() {
-          try {
-            doFirstStartAction();
-          } catch (Exception ex) {
-            LOGGER.error("Can't send statistics", ex); //NOI18N
-          }
+      TaskScheduler.getInstance().submit(TaskScheduler.Priority.BACKGROUND, () -> {
+        try {
+          doFirstStartAction();
+        } catch (Exception ex) {
+          LOGGER.error("Can't send statistics", ex); //NOI18N
         }
-      }, "SCIARETO_STATISTIC_SEND"); //NOI18N
-      thread.setDaemon(true);
-      thread.start();
+      });
   }
   
   public void sendStatistics() {
     if (this.enabled.get()) {
       LOGGER.info("Starting statistics send"); //NOI18N
-      final Thread thread = new Thread(new Runnable() {
-        @Override
-        public void run() {
-          try {
-            doAction();
-          } catch (Exception ex) {
-            LOGGER.error("Can't send statistics", ex); //NOI18N
-          }
+      TaskScheduler.getInstance().submit(TaskScheduler.Priority.BACKGROUND, () -> {
+        try {
+          doAction();
+        } catch (Exception ex) {
+          LOGGER.error("Can't send statistics", ex); //NOI18N
         }
-      }, "SCIARETO_STATISTIC_SEND"); //NOI18N
-      thread.setDaemon(true);
-      thread.start();
+      });
     } else {
       LOGGER.info("Ignored statistics because disabled"); //NOI18N
     }
@@ -22,6 +22,7 @@ import com.igormaznitsa.mindmap.model.logger.Logger;
 import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
 import com.igormaznitsa.sciareto.SciaRetoStarter;
 import com.igormaznitsa.sciareto.preferences.PreferencesManager;
+import com.igormaznitsa.sciareto.services.TaskScheduler;
 import com.igormaznitsa.sciareto.ui.misc.DonateButton;
 import com.igormaznitsa.sciareto.ui.misc.JHtmlLabel;
 
@@ -41,14 +42,7 @@ public class MessagesService {
   }
 
   public void execute() {
-    final Thread thread = new Thread(new Runnable() {
-      @Override
-      public void run() {
-        doAction();
-      }
-    }, "SR_MessageService"); //NOI18N
-    thread.setDaemon(true);
-    thread.start();
+    TaskScheduler.getInstance().submit(TaskScheduler.Priority.BACKGROUND, this::doAction);
   }
 
   protected void doAction() {
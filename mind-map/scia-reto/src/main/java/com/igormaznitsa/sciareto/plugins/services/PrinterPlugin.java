@@ -28,6 +28,7 @@ import com.igormaznitsa.mindmap.plugins.api.PluginContext;
 import com.igormaznitsa.mindmap.print.MMDPrintPanel;
 import com.igormaznitsa.mindmap.print.PrintableObject;
 import com.igormaznitsa.sciareto.SciaRetoStarter;
+import com.igormaznitsa.sciareto.services.TaskScheduler;
 import com.igormaznitsa.sciareto.ui.UiUtils;
 
 import javax.annotation.Nonnull;
@@ -87,9 +88,7 @@ public class PrinterPlugin extends AbstractPopupMenuItem implements MMDPrintPane
   @Override
   public void startBackgroundTask(@Nonnull final MMDPrintPanel source, @Nonnull final String name, @Nonnull final Runnable task) {
     LOGGER.info("Starting print task : " + name); //NOI18N
-    final Thread thread = new Thread(task, name);
-    thread.setDaemon(true);
-    thread.start();
+    TaskScheduler.getInstance().submit(TaskScheduler.Priority.RENDERING, task);
   }
 
   @Override
@@ -24,6 +24,8 @@ import javax.annotation.Nullable;
 import java.awt.*;
 
 public final class PrefUtils {
+  public static final String PROPERTY_PLANTUML_DISK_CACHE = "plantuml.diskcache"; //NOI18N
+
   private PrefUtils() {
 
   }
@@ -38,6 +40,10 @@ public final class PrefUtils {
     return (result == null || result.trim().isEmpty()) ? null : result;
   }
 
+  public static boolean isPlantUmlDiskCacheAllowed() {
+    return PreferencesManager.getInstance().getPreferences().getBoolean(PROPERTY_PLANTUML_DISK_CACHE, true);
+  }
+
   @Nonnull
   public static String font2str(@Nonnull final Font font) {
     final StringBuilder buffer = new StringBuilder();
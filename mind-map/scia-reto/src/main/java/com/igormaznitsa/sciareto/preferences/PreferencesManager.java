@@ -21,6 +21,7 @@ package com.igormaznitsa.sciareto.preferences;
 import com.igormaznitsa.meta.common.utils.IOUtils;
 import com.igormaznitsa.mindmap.model.logger.Logger;
 import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
+import com.igormaznitsa.sciareto.services.TaskScheduler;
 import java.awt.Font;
 import java.io.UnsupportedEncodingException;
 import java.util.HashMap;
@@ -52,12 +53,10 @@ public class PreferencesManager {
         this.prefs.flush();
         LOGGER.info("Generated new installation UUID : " + newUUID.toString()); //NOI18N
 
-        final Thread thread = new Thread(() -> {
+        TaskScheduler.getInstance().submit(TaskScheduler.Priority.BACKGROUND, () -> {
           LOGGER.info("Send first start metrics"); //NOI18N
           com.igormaznitsa.sciareto.metrics.MetricsService.getInstance().onFirstStart();
-        }, "SCIARETO_FIRST_START_METRICS"); //NOI18N
-        thread.setDaemon(true);
-        thread.start();
+        });
 
       } catch (Exception ex) {
         LOGGER.error("Can't generate UUID", ex); //NOI18N
@@ -32,6 +32,7 @@ import com.igormaznitsa.sciareto.Context;
 import com.igormaznitsa.sciareto.SciaRetoStarter;
 import com.igormaznitsa.sciareto.metrics.MetricsService;
 import com.igormaznitsa.sciareto.ui.DialogProviderManager;
+import com.igormaznitsa.sciareto.ui.editors.PlUmlRenderCache;
 import com.igormaznitsa.sciareto.ui.editors.ScalableRsyntaxTextArea;
 import com.igormaznitsa.sciareto.ui.editors.mmeditors.FontSelector;
 import com.igormaznitsa.sciareto.ui.editors.mmeditors.KeyShortCutEditPanel;
@@ -181,6 +182,7 @@ public final class PreferencesPanel extends javax.swing.JPanel {
         jPanel14 = new javax.swing.JPanel();
         textFieldPathToGraphvizDot = new javax.swing.JTextField();
         buttonGraphvizDotFile = new javax.swing.JButton();
+        checkBoxPlantUmlDiskCache = new javax.swing.JCheckBox();
         filler5 = new javax.swing.Box.Filler(new java.awt.Dimension(0, 0), new java.awt.Dimension(0, 0), new java.awt.Dimension(0, 32767));
         jPanel16 = new javax.swing.JPanel();
         slider1stLevelHorzGap = new javax.swing.JSlider();
@@ -209,6 +211,7 @@ public final class PreferencesPanel extends javax.swing.JPanel {
         checkboxTrimTopicText = new javax.swing.JCheckBox();
         checkBoxShowHiddenFiles = new javax.swing.JCheckBox();
         checkBoxSmartTextPaste = new javax.swing.JCheckBox();
+        checkBoxSearchInEncryptedNotes = new javax.swing.JCheckBox();
         checkBoxBackupLastEdit = new javax.swing.JCheckBox();
         jPanel9 = new javax.swing.JPanel();
         buttonAbout = new javax.swing.JButton();
@@ -699,6 +702,19 @@ public final class PreferencesPanel extends javax.swing.JPanel {
         gridBagConstraints.gridy = 0;
         jPanel14.add(buttonGraphvizDotFile, gridBagConstraints);
 
+        checkBoxPlantUmlDiskCache.setText("Keep rendered images in disk cache");
+        checkBoxPlantUmlDiskCache.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                checkBoxPlantUmlDiskCacheActionPerformed(evt);
+            }
+        });
+        gridBagConstraints = new java.awt.GridBagConstraints();
+        gridBagConstraints.gridx = 0;
+        gridBagConstraints.gridy = 1;
+        gridBagConstraints.gridwidth = 2;
+        gridBagConstraints.anchor = java.awt.GridBagConstraints.WEST;
+        jPanel14.add(checkBoxPlantUmlDiskCache, gridBagConstraints);
+
         gridBagConstraints = new java.awt.GridBagConstraints();
         gridBagConstraints.gridx = 0;
         gridBagConstraints.gridy = 11;
@@ -885,7 +901,7 @@ public final class PreferencesPanel extends javax.swing.JPanel {
 
         gridBagConstraints = new java.awt.GridBagConstraints();
         gridBagConstraints.gridx = 0;
-        gridBagConstraints.gridy = 10;
+        gridBagConstraints.gridy = 11;
         gridBagConstraints.fill = java.awt.GridBagConstraints.BOTH;
         gridBagConstraints.weightx = 1000.0;
         jPanel1.add(jPanel7, gridBagConstraints);
@@ -941,7 +957,7 @@ public final class PreferencesPanel extends javax.swing.JPanel {
 
         gridBagConstraints = new java.awt.GridBagConstraints();
         gridBagConstraints.gridx = 0;
-        gridBagConstraints.gridy = 11;
+        gridBagConstraints.gridy = 12;
         gridBagConstraints.fill = java.awt.GridBagConstraints.HORIZONTAL;
         jPanel1.add(jPanel8, gridBagConstraints);
 
@@ -1004,6 +1020,19 @@ public final class PreferencesPanel extends javax.swing.JPanel {
         gridBagConstraints.anchor = java.awt.GridBagConstraints.WEST;
         jPanel1.add(checkBoxBackupLastEdit, gridBagConstraints);
 
+        checkBoxSearchInEncryptedNotes.setText("Search in encrypted notes with entered passwords");
+        checkBoxSearchInEncryptedNotes.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                checkBoxSearchInEncryptedNotesActionPerformed(evt);
+            }
+        });
+        gridBagConstraints = new java.awt.GridBagConstraints();
+        gridBagConstraints.gridx = 0;
+        gridBagConstraints.gridy = 10;
+        gridBagConstraints.fill = java.awt.GridBagConstraints.BOTH;
+        gridBagConstraints.anchor = java.awt.GridBagConstraints.WEST;
+        jPanel1.add(checkBoxSearchInEncryptedNotes, gridBagConstraints);
+
         gridBagConstraints = new java.awt.GridBagConstraints();
         gridBagConstraints.gridx = 0;
         gridBagConstraints.gridy = 3;
@@ -1456,6 +1485,12 @@ public final class PreferencesPanel extends javax.swing.JPanel {
       }
     }//GEN-LAST:event_buttonGraphvizDotFileActionPerformed
 
+  private void checkBoxPlantUmlDiskCacheActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_checkBoxPlantUmlDiskCacheActionPerformed
+    if (this.changeNotificationAllowed) {
+      this.changed = true;
+    }
+  }//GEN-LAST:event_checkBoxPlantUmlDiskCacheActionPerformed
+
   private void buttonExtensionsOpenInSystemActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_buttonExtensionsOpenInSystemActionPerformed
     final SysFileExtensionEditorPanel dataPanel = new SysFileExtensionEditorPanel(SystemFileExtensionManager.getInstance().getExtensionsAsCommaSeparatedString());
     if (DialogProviderManager.getInstance().getDialogProvider().msgOkCancel(this, "System file extensions", dataPanel)) {
@@ -1469,6 +1504,12 @@ public final class PreferencesPanel extends javax.swing.JPanel {
     }
   }//GEN-LAST:event_checkBoxSmartTextPasteActionPerformed
 
+  private void checkBoxSearchInEncryptedNotesActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_checkBoxSearchInEncryptedNotesActionPerformed
+    if (this.changeNotificationAllowed) {
+      this.changed = true;
+    }
+  }//GEN-LAST:event_checkBoxSearchInEncryptedNotesActionPerformed
+
   private void checkBoxBackupLastEditActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_checkBoxBackupLastEditActionPerformed
     if (this.changeNotificationAllowed) {
       this.changed = true;
@@ -1492,6 +1533,7 @@ public final class PreferencesPanel extends javax.swing.JPanel {
       // third part options
       final String pathToGraphViz = preferences.get("plantuml.dotpath", null);
       this.textFieldPathToGraphvizDot.setText(pathToGraphViz == null ? "" : pathToGraphViz);
+      this.checkBoxPlantUmlDiskCache.setSelected(preferences.getBoolean(PrefUtils.PROPERTY_PLANTUML_DISK_CACHE, true));
 
       // Metrics
       this.checkboxMetricsAllowed.setSelected(MetricsService.getInstance().isEnabled());
@@ -1541,6 +1583,7 @@ public final class PreferencesPanel extends javax.swing.JPanel {
       this.slider2ndLevelVertGap.setValue(config.getOtherLevelVerticalInset());
 
       this.checkBoxSmartTextPaste.setSelected(config.isSmartTextPaste());
+      this.checkBoxSearchInEncryptedNotes.setSelected(config.isSearchInEncryptedNotes());
 
       this.mapKeyShortCuts.clear();
       this.mapKeyShortCuts.putAll(config.getKeyShortcutMap());
@@ -1587,6 +1630,7 @@ public final class PreferencesPanel extends javax.swing.JPanel {
     config.setCollapsatorBorderWidth((Float) this.spinnerCollapsatorWidth.getValue());
     config.setElementBorderWidth((Float) this.spinnerElementBorderWidth.getValue());
     config.setSmartTextPaste(this.checkBoxSmartTextPaste.isSelected());
+    config.setSearchInEncryptedNotes(this.checkBoxSearchInEncryptedNotes.isSelected());
 
     config.setFirstLevelHorizontalInset(this.slider1stLevelHorzGap.getValue());
     config.setFirstLevelVerticalInset(this.slider1stLevelVertGap.getValue());
@@ -1618,6 +1662,8 @@ public final class PreferencesPanel extends javax.swing.JPanel {
     } else {
       preferences.put("plantuml.dotpath", pathToGraphVizDot);
     }
+    preferences.putBoolean(PrefUtils.PROPERTY_PLANTUML_DISK_CACHE, this.checkBoxPlantUmlDiskCache.isSelected());
+    PlUmlRenderCache.getInstance().setDiskEnabled(this.checkBoxPlantUmlDiskCache.isSelected());
 
     PreferencesManager.getInstance().setFont(preferences, SpecificKeys.PROPERTY_TEXT_EDITOR_FONT, fontTextEditor);
     PreferencesManager.getInstance().setFlag(preferences, SpecificKeys.PROPERTY_BACKUP_LAST_EDIT_BEFORE_SAVE, this.checkBoxBackupLastEdit.isSelected());
@@ -1670,10 +1716,12 @@ public final class PreferencesPanel extends javax.swing.JPanel {
     private javax.swing.JCheckBox checkBoxCopyColorInfoToNewAllowed;
     private javax.swing.JCheckBox checkBoxDropShadow;
     private javax.swing.JCheckBox checkBoxKnowledgeFolderAutogenerationAllowed;
+    private javax.swing.JCheckBox checkBoxPlantUmlDiskCache;
     private javax.swing.JCheckBox checkBoxScalingALT;
     private javax.swing.JCheckBox checkBoxScalingCTRL;
     private javax.swing.JCheckBox checkBoxScalingMETA;
     private javax.swing.JCheckBox checkBoxScalingSHIFT;
+    private javax.swing.JCheckBox checkBoxSearchInEncryptedNotes;
     private javax.swing.JCheckBox checkBoxShowGrid;
     private javax.swing.JCheckBox checkBoxShowHiddenFiles;
     private javax.swing.JCheckBox checkBoxSmartTextPaste;
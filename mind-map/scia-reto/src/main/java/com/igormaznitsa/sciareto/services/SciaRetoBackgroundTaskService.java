@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2019 Igor Maznitsa.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package com.igormaznitsa.sciareto.services;
+
+import com.igormaznitsa.mindmap.swing.services.BackgroundTaskService;
+import java.util.concurrent.ExecutorService;
+import javax.annotation.Nonnull;
+
+/**
+ * Background task service which executes tasks of the panel by threads of {@link TaskScheduler}.
+ *
+ * @since 1.5.2
+ */
+public class SciaRetoBackgroundTaskService implements BackgroundTaskService {
+
+  @Override
+  @Nonnull
+  public ExecutorService findExecutor(@Nonnull final TaskKind kind) {
+    final TaskScheduler scheduler = TaskScheduler.getInstance();
+    switch (kind) {
+      case IMAGE_DECODING:
+        return scheduler.getExecutor(TaskScheduler.Priority.RENDERING);
+      case IMAGE_PROCESSING:
+        return scheduler.getExecutor(TaskScheduler.Priority.INTERACTIVE);
+      case EXPORT:
+        return scheduler.getForkJoinPool();
+      default:
+        throw new Error("Unexpected task kind: " + kind); //NOI18N
+    }
+  }
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright (C) 2020 Igor Maznitsa.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+package com.igormaznitsa.sciareto.services;
+
+import com.igormaznitsa.mindmap.model.logger.Logger;
+import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Central service to execute background work of the application. Work is split by priorities, every priority
+ * has its own bounded pool of daemon threads, so that long indexing can't take threads needed for interactive
+ * work and all pools together don't oversubscribe CPU much.
+ * Swing timers and long living service threads (backuper) are not covered.
+ */
+@ThreadSafe
+public final class TaskScheduler {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(TaskScheduler.class);
+
+  private static final TaskScheduler INSTANCE = new TaskScheduler(Runtime.getRuntime().availableProcessors());
+
+  private final Map<Priority, ThreadPoolExecutor> executors = new EnumMap<>(Priority.class);
+  private final Map<Priority, Scheduler> schedulers = new EnumMap<>(Priority.class);
+  private final ForkJoinPool forkJoinPool;
+
+  TaskScheduler(final int processors) {
+    for (final Priority p : Priority.values()) {
+      final int threads = p.threadsFor(processors);
+      final AtomicInteger counter = new AtomicInteger();
+      final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+          r -> {
+            final Thread thread = new Thread(r, "sr-" + p.name().toLowerCase(Locale.ENGLISH) + '-' + counter.incrementAndGet()); //NOI18N
+            thread.setDaemon(true);
+            thread.setPriority(p.threadPriority);
+            return thread;
+          });
+      executor.allowCoreThreadTimeOut(true);
+      this.executors.put(p, executor);
+      this.schedulers.put(p, Schedulers.fromExecutorService(executor, "sr-" + p.name().toLowerCase(Locale.ENGLISH))); //NOI18N
+    }
+    this.forkJoinPool = new ForkJoinPool(Priority.INTERACTIVE.threadsFor(processors), pool -> {
+      final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+      thread.setName("sr-fork-join-" + thread.getPoolIndex()); //NOI18N
+      thread.setDaemon(true);
+      return thread;
+    }, (thread, error) -> LOGGER.error("Uncaught exception in thread " + thread.getName(), error), false); //NOI18N
+  }
+
+  @Nonnull
+  public static TaskScheduler getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Submit task for execution. Any throwable thrown by the task is logged because nobody reads results of tasks.
+   *
+   * @param priority priority of task
+   * @param task     task to be executed, cancelled task gets interruption
+   * @return token to cancel the task
+   */
+  @Nonnull
+  public CancellationToken submit(@Nonnull final Priority priority, @Nonnull final Runnable task) {
+    final ThreadPoolExecutor executor = this.executors.get(priority);
+    final Runnable logged = () -> {
+      try {
+        task.run();
+      } catch (Throwable ex) {
+        LOGGER.error("Uncaught exception in task " + task, ex); //NOI18N
+      }
+    };
+    try {
+      return new CancellationToken(executor, executor.submit(logged));
+    } catch (RejectedExecutionException ex) {
+      LOGGER.warn("Task is rejected, scheduler is shut down");
+      return new CancellationToken(executor, null);
+    }
+  }
+
+  /**
+   * Get Reactor scheduler working over threads of priority.
+   *
+   * @param priority priority of threads
+   * @return scheduler
+   */
+  @Nonnull
+  public Scheduler getReactorScheduler(@Nonnull final Priority priority) {
+    return this.schedulers.get(priority);
+  }
+
+  /**
+   * Get executor of priority threads for components which need {@link ExecutorService}. The executor must not be shut down by users.
+   *
+   * @param priority priority of threads
+   * @return executor
+   */
+  @Nonnull
+  public ExecutorService getExecutor(@Nonnull final Priority priority) {
+    return this.executors.get(priority);
+  }
+
+  /**
+   * Execute work in the shared fork-join pool and wait for its result, so that parallel streams of the work use threads
+   * of the pool instead of the common pool.
+   *
+   * @param work work to be executed, checked exceptions are rethrown wrapped into runtime exception
+   * @param <T>  type of result
+   * @return result of the work
+   */
+  @Nullable
+  public <T> T invokeInForkJoinPool(@Nonnull final Callable<T> work) {
+    return this.forkJoinPool.invoke(ForkJoinTask.adapt(work));
+  }
+
+  /**
+   * Get shared fork-join pool for work split into parallel subtasks, the pool is bounded by number of interactive
+   * threads. The pool must not be shut down by users.
+   *
+   * @return shared fork-join pool
+   */
+  @Nonnull
+  public ForkJoinPool getForkJoinPool() {
+    return this.forkJoinPool;
+  }
+
+  /**
+   * Get number of tasks waiting for execution.
+   *
+   * @param priority priority of tasks
+   * @return number of queued tasks
+   */
+  public int getQueueDepth(@Nonnull final Priority priority) {
+    return this.executors.get(priority).getQueue().size();
+  }
+
+  public int getActiveCount(@Nonnull final Priority priority) {
+    return this.executors.get(priority).getActiveCount();
+  }
+
+  public long getCompletedCount(@Nonnull final Priority priority) {
+    return this.executors.get(priority).getCompletedTaskCount();
+  }
+
+  @Nonnull
+  public String makeStatistics() {
+    final StringBuilder result = new StringBuilder();
+    for (final Priority p : Priority.values()) {
+      if (result.length() > 0) {
+        result.append(", ");
+      }
+      result.append(String.format("%s(active=%d, queued=%d, completed=%d)", p.name(), getActiveCount(p), getQueueDepth(p), getCompletedCount(p))); //NOI18N
+    }
+    return result.toString();
+  }
+
+  public void shutdown() {
+    LOGGER.info("Shutdown task scheduler: " + makeStatistics()); //NOI18N
+    for (final Priority p : Priority.values()) {
+      this.schedulers.get(p).dispose();
+      this.executors.get(p).shutdownNow();
+    }
+    this.forkJoinPool.shutdownNow();
+  }
+
+  public enum Priority {
+    /**
+     * Work which is waited by user: opening of projects, search, navigation.
+     */
+    INTERACTIVE(Thread.NORM_PRIORITY, 1, 1),
+    /**
+     * Rendering of diagrams and graphs.
+     */
+    RENDERING(Thread.NORM_PRIORITY - 1, 1, 2),
+    /**
+     * Indexing, prefetching and other work which can be delayed.
+     */
+    BACKGROUND(Thread.MIN_PRIORITY + 1, 1, 4);
+
+    private final int threadPriority;
+    private final int processorsMultiplier;
+    private final int processorsDivider;
+
+    Priority(final int threadPriority, final int processorsMultiplier, final int processorsDivider) {
+      this.threadPriority = threadPriority;
+      this.processorsMultiplier = processorsMultiplier;
+      this.processorsDivider = processorsDivider;
+    }
+
+    private int threadsFor(final int processors) {
+      return Math.max(1, processors * this.processorsMultiplier / this.processorsDivider);
+    }
+  }
+
+  /**
+   * Token to cancel submitted task.
+   */
+  @ThreadSafe
+  public static final class CancellationToken {
+
+    private final ThreadPoolExecutor executor;
+    private final Future<?> future;
+    private volatile boolean cancelled;
+
+    private CancellationToken(@Nonnull final ThreadPoolExecutor executor, final Future<?> future) {
+      this.executor = executor;
+      this.future = future;
+      this.cancelled = future == null;
+    }
+
+    /**
+     * Cancel task, not started task is removed from queue, started one gets interruption.
+     */
+    public void cancel() {
+      this.cancelled = true;
+      if (this.future != null) {
+        this.future.cancel(true);
+        if (this.future instanceof Runnable) {
+          this.executor.remove((Runnable) this.future);
+        }
+      }
+    }
+
+    public boolean isCancelled() {
+      return this.cancelled;
+    }
+
+    public boolean isDone() {
+      return this.future == null || this.future.isDone();
+    }
+  }
+}
@@ -25,9 +25,13 @@ import com.igormaznitsa.mindmap.model.logger.Logger;
 import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
 import com.igormaznitsa.mindmap.swing.panel.utils.Focuser;
 import com.igormaznitsa.sciareto.Context;
+import com.igormaznitsa.sciareto.index.MapTextIndex;
+import com.igormaznitsa.sciareto.services.TaskScheduler;
+import com.igormaznitsa.sciareto.ui.misc.BytePatternMatcher;
 import com.igormaznitsa.sciareto.ui.misc.FileExaminator;
 import com.igormaznitsa.sciareto.ui.misc.NodeListRenderer;
 import com.igormaznitsa.sciareto.ui.tree.NodeFileOrFolder;
+import com.igormaznitsa.sciareto.ui.tree.NodeProject;
 import org.apache.commons.io.FilenameUtils;
 
 import javax.annotation.Nonnull;
@@ -43,6 +47,12 @@ import java.awt.event.KeyEvent;
 import java.io.*;
 import java.nio.charset.Charset;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Pattern;
 import org.apache.commons.lang3.StringUtils;
@@ -56,9 +66,13 @@ public final class FindFilesForTextPanel extends javax.swing.JPanel {
             new HashSet<>(
                     Arrays.asList(Extra.ExtraType.NOTE, Extra.ExtraType.LINK, Extra.ExtraType.TOPIC, Extra.ExtraType.FILE))
     );
+    private static final Set<MapTextIndex.Kind> INDEX_SCOPE_FOR_MMD_FILE = Collections.unmodifiableSet(
+            EnumSet.of(MapTextIndex.Kind.TOPIC, MapTextIndex.Kind.NOTE, MapTextIndex.Kind.LINK, MapTextIndex.Kind.FILE)
+    );
 
-    private final AtomicReference<Thread> searchingThread = new AtomicReference<>();
-    private final transient List<NodeFileOrFolder> foundFiles = new ArrayList<>();
+    private final AtomicReference<AtomicBoolean> searchingFlag = new AtomicReference<>();
+    private final AtomicReference<TaskScheduler.CancellationToken> searchingTask = new AtomicReference<>();
+    private final transient List<File> foundFiles = new ArrayList<>();
     private final transient List<ListDataListener> listListeners = new ArrayList<>();
 
     private static final int MIN_TEXT_LENGTH = 1;
@@ -158,7 +172,7 @@ public final class FindFilesForTextPanel extends javax.swing.JPanel {
         });
 
         this.listOfFoundElements.setCellRenderer(new NodeListRenderer());
-        this.listOfFoundElements.setModel(new ListModel<NodeFileOrFolder>() {
+        this.listOfFoundElements.setModel(new ListModel<File>() {
             @Override
             public int getSize() {
                 return foundFiles.size();
@@ -166,7 +180,7 @@ public final class FindFilesForTextPanel extends javax.swing.JPanel {
 
             @Override
             @Nonnull
-            public NodeFileOrFolder getElementAt(final int index) {
+            public File getElementAt(final int index) {
                 return foundFiles.get(index);
             }
 
@@ -225,24 +239,37 @@ public final class FindFilesForTextPanel extends javax.swing.JPanel {
     }
 
     @Nullable
-    public NodeFileOrFolder getSelected() {
+    public File getSelectedFile() {
         return this.listOfFoundElements.getSelectedValue();
     }
 
     public void dispose() {
-        final Thread thread = this.searchingThread.getAndSet(null);
-        if (thread != null) {
-            thread.interrupt();
+        final AtomicBoolean cancelled = this.searchingFlag.getAndSet(null);
+        if (cancelled != null) {
+            cancelled.set(true);
+        }
+        final TaskScheduler.CancellationToken task = this.searchingTask.getAndSet(null);
+        if (task != null) {
+            task.cancel();
         }
     }
 
-    private void addFileIntoList(@Nonnull final NodeFileOrFolder file) {
+    private void addFileIntoList(@Nonnull final AtomicBoolean cancelled, @Nonnull final File file) {
         SwingUtilities.invokeLater(() -> {
+            if (this.searchingFlag.get() != cancelled) {
+                return;
+            }
             final boolean first = foundFiles.isEmpty();
 
-            foundFiles.add(file);
+            // files are found in parallel, so that they are kept sorted by path to show the same order for the same search
+            int index = Collections.binarySearch(foundFiles, file);
+            if (index < 0) {
+                index = -index - 1;
+            }
+            final int insertedIndex = index;
+            foundFiles.add(insertedIndex, file);
             listListeners.forEach((l) -> {
-                l.intervalAdded(new ListDataEvent(listOfFoundElements, ListDataEvent.INTERVAL_ADDED, foundFiles.size() - 1, foundFiles.size() - 1));
+                l.intervalAdded(new ListDataEvent(listOfFoundElements, ListDataEvent.INTERVAL_ADDED, insertedIndex, insertedIndex));
             });
 
             if (first) {
@@ -253,128 +280,171 @@ public final class FindFilesForTextPanel extends javax.swing.JPanel {
 
     private void startSearchThread(@Nonnull @MustNotContainNull final List<NodeFileOrFolder> scope, 
             final boolean findInFilenames,
+            @Nonnull final String textToSearch,
             @Nullable final Pattern searchPatternForMmd, 
             @Nonnull final byte[] dataToFindVariant1, 
             @Nonnull final byte[] dataToFindVariant2
     ) {
-        int size = 0;
-        size = scope.stream().map((p) -> p.size()).reduce(size, Integer::sum);
+        final BytePatternMatcher matcher = new BytePatternMatcher(dataToFindVariant1, dataToFindVariant2);
+        final AtomicBoolean cancelled = new AtomicBoolean();
+
+        final AtomicInteger progress = new AtomicInteger();
+        final List<MapTextIndex> indexes = new ArrayList<>();
+        final Set<File> indexedMatches = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+        final class ProcessFiles extends RecursiveAction {
 
-        final byte[] fileOpBuffer = new byte[1024 * 1024];
+            private static final long serialVersionUID = -1797212338207325395L;
+            private static final int THRESHOLD = 16;
 
-        final Runnable runnable = new Runnable() {
-            int value = 0;
+            private final List<File> files;
+            private final int from;
+            private final int to;
+
+            private ProcessFiles(@Nonnull @MustNotContainNull final List<File> files, final int from, final int to) {
+                this.files = files;
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected void compute() {
+                if (this.to - this.from > THRESHOLD) {
+                    final int middle = (this.from + this.to) >>> 1;
+                    invokeAll(new ProcessFiles(this.files, this.from, middle), new ProcessFiles(this.files, middle, this.to));
+                } else {
+                    for (int i = this.from; i < this.to && !cancelled.get(); i++) {
+                        processFile(this.files.get(i));
+                        safeSetProgressValue(progress.incrementAndGet());
+                    }
+                }
+            }
 
-            private void processFile(final NodeFileOrFolder file) {
-                value++;
-                final File f = file.makeFileForNode();
+            @Nullable
+            private MapTextIndex findIndex(@Nonnull final File file) {
+                for (final MapTextIndex index : indexes) {
+                    if (index.covers(file)) {
+                        return index;
+                    }
+                }
+                return null;
+            }
 
+            private void processFile(@Nonnull final File f) {
                 boolean alreadyProcessed = false;
 
                 if (findInFilenames 
-                        && f.isFile() 
                         && searchPatternForMmd.matcher(f.getName()).find()) {
                     alreadyProcessed = true;
-                    addFileIntoList(file);
+                    addFileIntoList(cancelled, f);
                 }
                 
                 if (!alreadyProcessed 
                         && searchPatternForMmd != null 
-                        && f.isFile() && f.length() > 0L 
+                        && f.length() > 0L 
                         && "mmd".equalsIgnoreCase(FilenameUtils.getExtension(f.getName()))
                         ) {
-                    MindMap mindMap;
-                    try (Reader reader = new InputStreamReader(new FileInputStream(f), UTF8_CHARSET)) {
-                        mindMap = new MindMap(reader);
-                    } catch (Exception ex) {
-                        mindMap = null;
-                    }
-                    if (mindMap != null) {
-                        if (mindMap.findNext(f.getParentFile(), mindMap.getRoot(), searchPatternForMmd, true, SEARCH_SCOPE_FOR_MMD_FILE) != null) {
-                            addFileIntoList(file);
+                    final MapTextIndex index = findIndex(f);
+                    if (index != null) {
+                        if (indexedMatches.contains(f.getAbsoluteFile())) {
+                            addFileIntoList(cancelled, f);
                         }
                         alreadyProcessed = true;
+                    } else {
+                        MindMap mindMap;
+                        try (Reader reader = new InputStreamReader(new FileInputStream(f), UTF8_CHARSET)) {
+                            mindMap = new MindMap(reader);
+                        } catch (Exception ex) {
+                            mindMap = null;
+                        }
+                        if (mindMap != null) {
+                            if (mindMap.findNext(f.getParentFile(), mindMap.getRoot(), searchPatternForMmd, true, SEARCH_SCOPE_FOR_MMD_FILE) != null) {
+                                addFileIntoList(cancelled, f);
+                            }
+                            alreadyProcessed = true;
+                        }
                     }
                 }
 
                 if (!alreadyProcessed) {
                     try {
-                        if (new FileExaminator(f).doesContainData(fileOpBuffer, dataToFindVariant1, dataToFindVariant2)) {
-                            addFileIntoList(file);
+                        if (new FileExaminator(f).doesContainData(matcher, cancelled::get)) {
+                            addFileIntoList(cancelled, f);
                         }
+                    } catch (InterruptedIOException ex) {
+                        LOGGER.info("Text search in '" + f + "' has been interrupted"); //NOI18N
                     } catch (Exception ex) {
                         LOGGER.error("Error during text search in '" + f + '\'', ex);
                     }
                 }
-
-                if (!Thread.currentThread().isInterrupted()) {
-                    safeSetProgressValue(value);
-                }
             }
+        }
 
-            private void processFolder(final NodeFileOrFolder folder) {
-                value++;
-                for (final NodeFileOrFolder f : folder) {
-                    if (f.isLeaf()) {
-                        processFile(f);
-                    } else {
-                        processFolder(f);
+        final Runnable runnable = () -> {
+            try {
+                if (searchPatternForMmd != null) {
+                    final Set<File> projectFolders = new HashSet<>();
+                    for (final NodeFileOrFolder p : scope) {
+                        final NodeProject project = p.findProject();
+                        if (project != null && projectFolders.add(project.getFolder().getAbsoluteFile())) {
+                            final MapTextIndex index = MapTextIndex.forProject(project.getFolder());
+                            try {
+                                index.refresh();
+                                indexedMatches.addAll(index.findFiles(textToSearch, searchPatternForMmd, INDEX_SCOPE_FOR_MMD_FILE));
+                                indexes.add(index);
+                            } catch (IOException ex) {
+                                LOGGER.error("Can't refresh index of project '" + project.getFolder() + '\'', ex); //NOI18N
+                            }
+                        }
                     }
                 }
-                if (!Thread.currentThread().isInterrupted()) {
-                    safeSetProgressValue(value);
-                }
-            }
 
-            @Override
-            public void run() {
+                final List<File> files = new ArrayList<>();
                 for (final NodeFileOrFolder p : scope) {
-                    for (final NodeFileOrFolder f : p) {
-                        if (Thread.currentThread().isInterrupted()) {
-                            return;
-                        }
-                        if (f.isLeaf()) {
-                            processFile(f);
-                        } else {
-                            processFolder(f);
-                        }
+                    if (cancelled.get()) {
+                        return;
                     }
+                    files.addAll(p.findFilesOnDisk());
                 }
-                safeSetProgressValue(Integer.MAX_VALUE);
-                SwingUtilities.invokeLater(() -> {
-                    buttonFind.setEnabled(true);
-                    fieldText.setEnabled(true);
-                    comboCharsets.setEnabled(true);
-                    comboLocale.setEnabled(true);
-                    if (foundFiles.isEmpty()) {
-                        fieldText.requestFocus();
-                    } else {
-                        listOfFoundElements.requestFocus();
-                    }
-                });
+                SwingUtilities.invokeLater(() -> this.progressBarSearch.setMaximum(files.size()));
+                safeSetProgressValue(0);
+
+                if (!files.isEmpty()) {
+                    TaskScheduler.getInstance().getForkJoinPool().invoke(new ProcessFiles(files, 0, files.size()));
+                }
+            } catch (CancellationException | RejectedExecutionException ex) {
+                return;
             }
+            if (cancelled.get()) {
+                return;
+            }
+            safeSetProgressValue(Integer.MAX_VALUE);
+            SwingUtilities.invokeLater(() -> {
+                buttonFind.setEnabled(true);
+                fieldText.setEnabled(true);
+                comboCharsets.setEnabled(true);
+                comboLocale.setEnabled(true);
+                if (foundFiles.isEmpty()) {
+                    fieldText.requestFocus();
+                } else {
+                    listOfFoundElements.requestFocus();
+                }
+            });
         };
 
-        final Thread thread = new Thread(runnable, "SciaRetoSearchUsage"); //NOI18N
-        thread.setDaemon(true);
-
-        final Thread oldThread = this.searchingThread.getAndSet(thread);
-        if (oldThread != null) {
-            oldThread.interrupt();
-            try {
-                oldThread.join(1000L);
-            } catch (InterruptedException ex) {
-                Thread.currentThread().interrupt();
-                LOGGER.error("Exception during waiting of search thread interruption", ex); //NOI18N
-            }
+        final AtomicBoolean oldFlag = this.searchingFlag.getAndSet(cancelled);
+        if (oldFlag != null) {
+            oldFlag.set(true);
         }
 
         this.progressBarSearch.setMinimum(0);
-        this.progressBarSearch.setMaximum(size);
         this.progressBarSearch.setValue(0);
+        safeSetProgressValue(-1);
 
-        thread.start();
-
+        final TaskScheduler.CancellationToken oldTask = this.searchingTask.getAndSet(TaskScheduler.getInstance().submit(TaskScheduler.Priority.INTERACTIVE, runnable));
+        if (oldTask != null) {
+            oldTask.cancel();
+        }
     }
 
     private void safeSetProgressValue(final int value) {
@@ -526,7 +596,7 @@ public final class FindFilesForTextPanel extends javax.swing.JPanel {
           final Pattern pattern = Pattern.compile(Pattern.quote(textToSearch), Pattern.CASE_INSENSITIVE);
           final boolean findInFileNames = this.checkboxFindInFilenames.isSelected();
           LOGGER.info("Start find byte patterns: " + SystemUtils.toString(str1) + ", " + SystemUtils.toString(str2));
-          startSearchThread(folders, findInFileNames, pattern, str1, str2);
+          startSearchThread(folders, findInFileNames, textToSearch, pattern, str1, str2);
       } catch (UnsupportedEncodingException ex) {
           JOptionPane.showMessageDialog(this, ex, "Error", JOptionPane.ERROR_MESSAGE);
       }
@@ -544,8 +614,8 @@ public final class FindFilesForTextPanel extends javax.swing.JPanel {
       if (index < 0) {
           this.listOfFoundElements.setToolTipText(null);
       } else {
-          final File file = ((NodeFileOrFolder) model.getElementAt(index)).makeFileForNode();
-          this.listOfFoundElements.setToolTipText(file == null ? null : file.getAbsolutePath());
+          final File file = (File) model.getElementAt(index);
+          this.listOfFoundElements.setToolTipText(file.getAbsolutePath());
       }
   }//GEN-LAST:event_listOfFoundElementsMouseMoved
 
@@ -564,7 +634,7 @@ public final class FindFilesForTextPanel extends javax.swing.JPanel {
     private javax.swing.JScrollPane jScrollPane1;
     private javax.swing.JLabel labelCharset;
     private javax.swing.JLabel labelLocale;
-    private javax.swing.JList<NodeFileOrFolder> listOfFoundElements;
+    private javax.swing.JList<File> listOfFoundElements;
     private javax.swing.JProgressBar progressBarSearch;
     // End of variables declaration//GEN-END:variables
 }
@@ -23,17 +23,24 @@ import com.igormaznitsa.mindmap.model.MindMap;
 import com.igormaznitsa.mindmap.model.logger.Logger;
 import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
 import com.igormaznitsa.sciareto.Context;
+import com.igormaznitsa.sciareto.index.MapTextIndex;
+import com.igormaznitsa.sciareto.services.TaskScheduler;
 import com.igormaznitsa.sciareto.ui.misc.NodeListRenderer;
 import com.igormaznitsa.sciareto.ui.tree.NodeFileOrFolder;
 import com.igormaznitsa.sciareto.ui.tree.NodeProject;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -49,11 +56,11 @@ public class FindUsagesPanel extends javax.swing.JPanel {
 
   private static final long serialVersionUID = -2670972411220199031L;
 
-  private final AtomicReference<Thread> searchingThread = new AtomicReference<>();
+  private final AtomicReference<TaskScheduler.CancellationToken> searchingTask = new AtomicReference<>();
 
   private static final Logger LOGGER = LoggerFactory.getLogger(FindUsagesPanel.class);
 
-  private final transient List<NodeFileOrFolder> foundFiles = new ArrayList<>();
+  private final transient List<File> foundFiles = new ArrayList<>();
   private final transient  List<ListDataListener> listListeners = new ArrayList<>();
 
   private final String fullNormalizedPath;
@@ -78,7 +85,7 @@ public class FindUsagesPanel extends javax.swing.JPanel {
     this.textFieldSearchPath.setEnabled(false);
 
     this.listOfFoundElements.setCellRenderer(new NodeListRenderer());
-    this.listOfFoundElements.setModel(new ListModel<NodeFileOrFolder>() {
+    this.listOfFoundElements.setModel(new ListModel<File>() {
       @Override
       public int getSize() {
         return foundFiles.size();
@@ -86,7 +93,7 @@ public class FindUsagesPanel extends javax.swing.JPanel {
 
       @Override
       @Nonnull
-      public NodeFileOrFolder getElementAt(final int index) {
+      public File getElementAt(final int index) {
         return foundFiles.get(index);
       }
 
@@ -113,11 +120,11 @@ public class FindUsagesPanel extends javax.swing.JPanel {
   }
 
   @Nullable
-  public NodeFileOrFolder getSelected() {
+  public File getSelectedFile() {
     return this.listOfFoundElements.getSelectedValue();
   }
 
-  private void addFileIntoList(@Nonnull final NodeFileOrFolder file) {
+  private void addFileIntoList(@Nonnull final File file) {
     SwingUtilities.invokeLater(new Runnable() {
       @Override
       public void run() {
@@ -137,11 +144,6 @@ public class FindUsagesPanel extends javax.swing.JPanel {
   }
 
   private void startSearchThread(@Nonnull @MustNotContainNull final List<NodeProject> scope, @Nonnull final NodeFileOrFolder itemToFind) {
-    int size = 0;
-    for (final NodeProject p : scope) {
-      size += p.size();
-    }
-
     final File nodeFileToSearch = itemToFind.makeFileForNode();
 
     if (nodeFileToSearch == null) {
@@ -152,46 +154,50 @@ public class FindUsagesPanel extends javax.swing.JPanel {
 
         int value = 0;
 
-        private void processFile(final NodeFileOrFolder file) {
+        private final Map<NodeProject, MapTextIndex> indexes = new HashMap<>();
+        private final Map<NodeProject, Set<File>> indexedMaps = new HashMap<>();
+
+        private void processFile(@Nonnull final NodeProject project, @Nonnull final File f) {
           value++;
 
-          final File f = file.makeFileForNode();
-          final NodeProject project = file.findProject();
-          if (project != null) {
-            final String extension = FilenameUtils.getExtension(f.getName()).toLowerCase(Locale.ENGLISH);
-            if ("mmd".equals(extension)) { //NOI18N
-              Reader reader = null;
-              try {
-                reader = new BufferedReader(new InputStreamReader(new FileInputStream(f), "UTF-8")); //NOI18N
-                final MindMap map = new MindMap(reader);
-                if (!MapUtils.findTopicsRelatedToFile(project.getFolder(), nodeFileToSearch, map).isEmpty()) {
-                  addFileIntoList(file);
-                }
-              } catch (Exception ex) {
-                LOGGER.error("Can't parse map", ex); //NOI18N
-              } finally {
-                IOUtils.closeQuietly(reader);
+          final String extension = FilenameUtils.getExtension(f.getName()).toLowerCase(Locale.ENGLISH);
+          final MapTextIndex index = this.indexes.get(project);
+          if ("mmd".equals(extension) && index != null && index.covers(f)) { //NOI18N
+            if (this.indexedMaps.get(project).contains(f.getAbsoluteFile())) {
+              addFileIntoList(f);
+            }
+          } else if ("mmd".equals(extension)) { //NOI18N
+            Reader reader = null;
+            try {
+              reader = new BufferedReader(new InputStreamReader(new FileInputStream(f), "UTF-8")); //NOI18N
+              final MindMap map = new MindMap(reader);
+              if (!MapUtils.findTopicsRelatedToFile(project.getFolder(), nodeFileToSearch, map).isEmpty()) {
+                addFileIntoList(f);
               }
-            } else if (findEverywhere){
+            } catch (Exception ex) {
+              LOGGER.error("Can't parse map", ex); //NOI18N
+            } finally {
+              IOUtils.closeQuietly(reader);
+            }
+          } else if (findEverywhere){
+            try {
+              final LineIterator lineIterator = org.apache.commons.io.FileUtils.lineIterator(f, "UTF-8"); //NOI18N
               try {
-                final LineIterator lineIterator = org.apache.commons.io.FileUtils.lineIterator(f, "UTF-8"); //NOI18N
-                try {
-                  while (lineIterator.hasNext()) {
-                    if (Thread.currentThread().isInterrupted()) {
-                      return;
-                    }
-                    final String lineFromFile = lineIterator.nextLine();
-                    if (lineFromFile.contains(fullNormalizedPath)) {
-                      addFileIntoList(file);
-                      break;
-                    }
+                while (lineIterator.hasNext()) {
+                  if (Thread.currentThread().isInterrupted()) {
+                    return;
+                  }
+                  final String lineFromFile = lineIterator.nextLine();
+                  if (lineFromFile.contains(fullNormalizedPath)) {
+                    addFileIntoList(f);
+                    break;
                   }
-                } finally {
-                  LineIterator.closeQuietly(lineIterator);
                 }
-              } catch (Exception ex) {
-                LOGGER.error("Error during text search in file : " + f); //NOI18N
+              } finally {
+                LineIterator.closeQuietly(lineIterator);
               }
+            } catch (Exception ex) {
+              LOGGER.error("Error during text search in file : " + f); //NOI18N
             }
           }
 
@@ -200,57 +206,55 @@ public class FindUsagesPanel extends javax.swing.JPanel {
           }
         }
 
-        private void processFolder(final NodeFileOrFolder folder) {
-          value++;
-          for (final NodeFileOrFolder f : folder) {
-            if (f.isLeaf()) {
-              processFile(f);
-            } else {
-              processFolder(f);
+        @Override
+        public void run() {
+          safeSetProgressValue(-1);
+          for (final NodeProject p : scope) {
+            final MapTextIndex index = MapTextIndex.forProject(p.getFolder());
+            try {
+              index.refresh();
+              this.indexedMaps.put(p, index.findFilesLinkingTo(nodeFileToSearch));
+              this.indexes.put(p, index);
+            } catch (IOException ex) {
+              LOGGER.error("Can't refresh index of project " + p.getFolder(), ex); //NOI18N
             }
           }
-          if (!Thread.currentThread().isInterrupted()) {
-            safeSetProgressValue(value);
-          }
-        }
 
-        @Override
-        public void run() {
+          final Map<NodeProject, List<File>> files = new LinkedHashMap<>();
+          int size = 0;
           for (final NodeProject p : scope) {
-            for (final NodeFileOrFolder f : p) {
+            if (Thread.currentThread().isInterrupted()) {
+              return;
+            }
+            final List<File> projectFiles = p.findFilesOnDisk();
+            files.put(p, projectFiles);
+            size += projectFiles.size();
+          }
+          final int maximum = size;
+          SwingUtilities.invokeLater(() -> progressBarSearch.setMaximum(maximum));
+          safeSetProgressValue(0);
+
+          for (final Map.Entry<NodeProject, List<File>> e : files.entrySet()) {
+            for (final File f : e.getValue()) {
               if (Thread.currentThread().isInterrupted()) {
                 return;
               }
-              if (f.isLeaf()) {
-                processFile(f);
-              } else {
-                processFolder(f);
-              }
+              processFile(e.getKey(), f);
             }
           }
           safeSetProgressValue(Integer.MAX_VALUE);
         }
       };
 
-      final Thread thread = new Thread(runnable, "SciaRetoSearchUsage"); //NOI18N
-      thread.setDaemon(true);
-
-      final Thread oldThread = this.searchingThread.getAndSet(thread);
-      if (oldThread != null) {
-        oldThread.interrupt();
-        try {
-          oldThread.join(1000L);
-        } catch (final InterruptedException ex) {
-          Thread.currentThread().interrupt();
-          LOGGER.error("Exception during waiting of search thread interruption", ex); //NOI18N
-        }
+      final TaskScheduler.CancellationToken oldTask = this.searchingTask.getAndSet(null);
+      if (oldTask != null) {
+        oldTask.cancel();
       }
 
       this.progressBarSearch.setMinimum(0);
-      this.progressBarSearch.setMaximum(size);
       this.progressBarSearch.setValue(0);
 
-      thread.start();
+      this.searchingTask.set(TaskScheduler.getInstance().submit(TaskScheduler.Priority.INTERACTIVE, runnable));
     }
   }
 
@@ -275,9 +279,9 @@ public class FindUsagesPanel extends javax.swing.JPanel {
   }
 
   public void dispose() {
-    final Thread thread = this.searchingThread.getAndSet(null);
-    if (thread != null) {
-      thread.interrupt();
+    final TaskScheduler.CancellationToken task = this.searchingTask.getAndSet(null);
+    if (task != null) {
+      task.cancel();
     }
   }
 
@@ -347,7 +351,7 @@ public class FindUsagesPanel extends javax.swing.JPanel {
   private javax.swing.JLabel jLabel1;
   private javax.swing.JPanel jPanel1;
   private javax.swing.JScrollPane jScrollPane1;
-  private javax.swing.JList<NodeFileOrFolder> listOfFoundElements;
+  private javax.swing.JList<File> listOfFoundElements;
   private javax.swing.JProgressBar progressBarSearch;
   private javax.swing.JTextField textFieldSearchPath;
   // End of variables declaration//GEN-END:variables
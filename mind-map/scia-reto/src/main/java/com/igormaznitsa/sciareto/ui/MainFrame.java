@@ -36,6 +36,7 @@ import com.igormaznitsa.sciareto.preferences.PrefUtils;
 import com.igormaznitsa.sciareto.preferences.PreferencesManager;
 import com.igormaznitsa.sciareto.preferences.PreferencesPanel;
 import com.igormaznitsa.sciareto.preferences.SystemFileExtensionManager;
+import com.igormaznitsa.sciareto.services.TaskScheduler;
 import com.igormaznitsa.sciareto.ui.editors.AbstractEditor;
 import com.igormaznitsa.sciareto.ui.editors.AbstractPlUmlEditor;
 import com.igormaznitsa.sciareto.ui.editors.DotScriptEditor;
@@ -122,8 +123,6 @@ import javax.swing.filechooser.FileView;
 
 import org.apache.commons.io.FilenameUtils;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Scheduler;
-import reactor.core.scheduler.Schedulers;
 
 public final class MainFrame extends javax.swing.JFrame implements Context, PlatformMenuAction {
 
@@ -149,10 +148,6 @@ public final class MainFrame extends javax.swing.JFrame implements Context, Plat
 
   private int lastDividerLocation;
 
-  public static final Scheduler REACTOR_SCHEDULER = Schedulers
-      .newBoundedElastic(Runtime.getRuntime().availableProcessors(), Integer.MAX_VALUE,
-          "sr-reactor", 15, true);
-
   public MainFrame(@Nullable final GraphicsConfiguration gfc, @Nonnull @MustNotContainNull final String... args) throws IOException {
     super(gfc);
     initComponents();
@@ -583,7 +578,8 @@ public final class MainFrame extends javax.swing.JFrame implements Context, Plat
     }
 
     this.getCurrentGroup().cancelLoading();
-    REACTOR_SCHEDULER.dispose();
+    this.getCurrentGroup().saveSnapshots();
+    TaskScheduler.getInstance().shutdown();
 
     return true;
   }
@@ -1450,7 +1446,7 @@ public final class MainFrame extends javax.swing.JFrame implements Context, Plat
                 SwingUtilities.invokeLater(r);
               }
             })
-            .subscribeOn(REACTOR_SCHEDULER)
+            .subscribeOn(TaskScheduler.getInstance().getReactorScheduler(TaskScheduler.Priority.INTERACTIVE))
             .subscribe());
     return project;
   }
@@ -1716,16 +1712,13 @@ public final class MainFrame extends javax.swing.JFrame implements Context, Plat
   private void menuGoToFileActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_menuGoToFileActionPerformed
     final GoToFilePanel panel = new GoToFilePanel(this.explorerTree, JOptionPane.OK_OPTION);
     if (DialogProviderManager.getInstance().getDialogProvider().msgOkCancel(null, "Go To File", panel)) {
-      final NodeFileOrFolder selected = panel.getSelected();
-      if (selected != null) {
-        final File file = selected.makeFileForNode();
-        if (file != null) {
-          this.focusInTree(file);
-          ensureTreePanelVisible();
-          SwingUtilities.invokeLater(() -> {
-            explorerTree.requestFocus();
-          });
-        }
+      final File file = panel.getSelectedFile();
+      if (file != null) {
+        this.focusInTree(file);
+        ensureTreePanelVisible();
+        SwingUtilities.invokeLater(() -> {
+          explorerTree.requestFocus();
+        });
       }
     }
   }//GEN-LAST:event_menuGoToFileActionPerformed
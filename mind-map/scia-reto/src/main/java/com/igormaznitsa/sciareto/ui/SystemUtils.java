@@ -24,10 +24,14 @@ import java.util.logging.Level;
 import javax.annotation.Nonnull;
 import com.igormaznitsa.mindmap.model.logger.Logger;
 import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
 import java.util.Locale;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import org.apache.commons.io.FilenameUtils;
 
 public final class SystemUtils {
   
@@ -97,4 +101,35 @@ public final class SystemUtils {
   public static void saveUTFText(@Nonnull final File file, @Nonnull final CharSequence text) throws IOException {
     org.apache.commons.io.FileUtils.write(file, text, "UTF-8",false); //NOI18N
   }
+
+  /**
+   * Get folder to keep cached data of application, it is placed in user home and can be rebuilt at any time.
+   *
+   * @param name name of cache, must not be null
+   * @return folder for the cache, it may not exist
+   */
+  @Nonnull
+  public static File getCacheFolder(@Nonnull final String name) {
+    return new File(new File(System.getProperty("user.home"), ".sciareto"), name); //NOI18N
+  }
+
+  /**
+   * Make name for cached data of folder, the name depends only on normalized absolute path of the folder.
+   *
+   * @param folder folder, must not be null
+   * @return hex string of SHA-1 of the path
+   */
+  @Nonnull
+  public static String makeCacheKey(@Nonnull final File folder) {
+    try {
+      final byte[] digest = MessageDigest.getInstance("SHA-1").digest(FilenameUtils.normalize(folder.getAbsolutePath()).getBytes(StandardCharsets.UTF_8)); //NOI18N
+      final StringBuilder result = new StringBuilder(digest.length * 2);
+      for (final byte b : digest) {
+        result.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+      }
+      return result.toString();
+    } catch (NoSuchAlgorithmException ex) {
+      throw new Error("Can't find SHA-1", ex); //NOI18N
+    }
+  }
 }
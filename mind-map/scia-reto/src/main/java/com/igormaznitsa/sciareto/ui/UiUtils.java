@@ -32,6 +32,7 @@ import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
 import com.igormaznitsa.mindmap.swing.panel.utils.Utils;
 import com.igormaznitsa.sciareto.SciaRetoStarter;
 import com.igormaznitsa.sciareto.preferences.PreferencesManager;
+import com.igormaznitsa.sciareto.services.TaskScheduler;
 import com.igormaznitsa.sciareto.ui.editors.mmeditors.FileEditPanel;
 import com.igormaznitsa.sciareto.ui.editors.mmeditors.NoteEditor;
 import com.igormaznitsa.sciareto.ui.editors.mmeditors.NoteEditorData;
@@ -511,14 +512,7 @@ public final class UiUtils {
         });
       }
     };
-    final Thread thr = new Thread(startEdit, " MMDStartFileEdit");//NOI18N
-    thr.setUncaughtExceptionHandler((final Thread t, final Throwable e) -> {
-      LOGGER.error("Detected uncaught exception in openInSystemViewer() for file " + file,
-          e); //NOI18N
-    });
-
-    thr.setDaemon(true);
-    thr.start();
+    TaskScheduler.getInstance().submit(TaskScheduler.Priority.INTERACTIVE, startEdit);
   }
 
   private static void showURL(@Nonnull final URL url) {
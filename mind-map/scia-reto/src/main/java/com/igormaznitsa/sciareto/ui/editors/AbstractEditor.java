@@ -143,7 +143,7 @@ public abstract class AbstractEditor implements TabProvider, Disposable {
     if (this.isEditable() && !this.isDisposed()) {
       final File associatedFile = this.getTabTitle().getAssociatedFile();
       if (isAutoBackupAllowed() && associatedFile != null) {
-        TextFileBackuper.getInstance().add(new TextFileBackuper.BackupContent(associatedFile, null));
+        TextFileBackuper.getInstance().add(new TextFileBackuper.BackupContent(associatedFile, (String) null));
       }
     }
   }
@@ -159,8 +159,16 @@ public abstract class AbstractEditor implements TabProvider, Disposable {
     }
   }
 
+  /**
+   * Request backup of the current content, the content is serialized only when the backup is written by the backuper so that frequent edits don't make text on every change.
+   */
   protected void backup() {
-    this.backup(this.getContentAsText());
+    if (this.isEditable() && !this.isDisposed()) {
+      final File associatedFile = this.getTabTitle().getAssociatedFile();
+      if (isAutoBackupAllowed() && associatedFile != null) {
+        TextFileBackuper.getInstance().add(new TextFileBackuper.BackupContent(associatedFile, () -> this.isDisposed() ? null : this.getContentAsText()));
+      }
+    }
   }
 
   @Nullable
@@ -181,7 +189,7 @@ public abstract class AbstractEditor implements TabProvider, Disposable {
       if (this.isEditable()) {
         final File associatedFile = this.getTabTitle().getAssociatedFile();
         if (associatedFile != null) {
-          TextFileBackuper.getInstance().add(new TextFileBackuper.BackupContent(associatedFile, null));
+          TextFileBackuper.getInstance().add(new TextFileBackuper.BackupContent(associatedFile, (String) null));
         }
       }
       try {
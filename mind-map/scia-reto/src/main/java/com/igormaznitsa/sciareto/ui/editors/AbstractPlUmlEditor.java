@@ -29,6 +29,7 @@ import com.igormaznitsa.sciareto.Context;
 import com.igormaznitsa.sciareto.SciaRetoStarter;
 import com.igormaznitsa.sciareto.preferences.PrefUtils;
 import com.igormaznitsa.sciareto.ui.*;
+import com.igormaznitsa.sciareto.services.TaskScheduler;
 import com.igormaznitsa.sciareto.ui.misc.BigLoaderIconAnimationConroller;
 import com.igormaznitsa.sciareto.ui.misc.SplitPaneExt;
 import com.igormaznitsa.sciareto.ui.tabs.TabTitle;
@@ -67,18 +68,16 @@ import java.awt.event.*;
 import java.awt.font.TextAttribute;
 import java.awt.image.BufferedImage;
 import java.beans.PropertyChangeEvent;
-import java.beans.PropertyChangeListener;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
-import java.lang.reflect.InvocationTargetException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -95,9 +94,12 @@ public abstract class AbstractPlUmlEditor extends AbstractTextEditor {
       Pattern.compile("^\\s*newpage($|\\s.*$)", Pattern.MULTILINE);
 
   private static final int DELAY_AUTOREFRESH_SECONDS = 5;
+
   private final JLabel progressLabel = new JLabel(BigLoaderIconAnimationConroller.LOADING);
 
   private volatile LastRendered lastSuccessfulyRenderedText = null;
+  private final AtomicReference<TaskScheduler.CancellationToken> currentRendering = new AtomicReference<>();
+  private final AtomicLong renderGeneration = new AtomicLong();
 
   private File lastExportedFile = null;
   protected final ScalableRsyntaxTextArea editor;
@@ -219,7 +221,8 @@ public abstract class AbstractPlUmlEditor extends AbstractTextEditor {
     final JButton buttonRefresh = new JButton(loadMenuIcon("arrow_refresh"));
     buttonRefresh.setToolTipText("Refresh image for text");
     buttonRefresh.addActionListener((ActionEvent e) -> {
-      startRenderScript();
+      resetLastRendered();
+      startRenderScript(true);
     });
 
     final JButton buttonEditScript = new JButton(loadMenuIcon("edit_script")) {
@@ -460,17 +463,18 @@ public abstract class AbstractPlUmlEditor extends AbstractTextEditor {
     this.hideTextPanel();
 
     this.eventChain = eventProcessor
-        .publishOn(MainFrame.REACTOR_SCHEDULER)
+        .publishOn(TaskScheduler.getInstance().getReactorScheduler(TaskScheduler.Priority.RENDERING))
         .buffer(Duration.ofSeconds(DELAY_AUTOREFRESH_SECONDS))
         .filter(x -> !x.isEmpty() && this.autoRefresh.isSelected())
-        .subscribe(x -> SwingUtilities.invokeLater(() -> {
+        .subscribe(x -> {
+          // syntax check parses whole text so it is made outside of UI thread
           final String txt = editor.getText();
           final LastRendered lastRendered = this.lastSuccessfulyRenderedText;
           if ((lastRendered == null || !txt.equals(lastRendered.editorText)) &&
               isSyntaxCorrect(txt)) {
-            startRenderScript();
+            SwingUtilities.invokeLater(this::startRenderScript);
           }
-        }));
+        });
 
   }
 
@@ -606,6 +610,8 @@ public abstract class AbstractPlUmlEditor extends AbstractTextEditor {
   protected void doDispose() {
     eventProcessor.onComplete();
     eventChain.dispose();
+    cancelRendering();
+    BigLoaderIconAnimationConroller.getInstance().unregisterLabel(this.progressLabel);
   }
 
   protected int countNewPages(@Nonnull final String text) {
@@ -1022,127 +1028,208 @@ public abstract class AbstractPlUmlEditor extends AbstractTextEditor {
 
   }
 
-  protected final void startRenderScript() {
-    try {
-      final String editorText = this.editor.getText();
-      final String theText = this.preprocessEditorText(editorText);
-
-      final boolean customRendering = this.isCustomRendering();
-
-      final SourceStringReader reader;
-      final int totalPages;
-      final int imageIndex;
+  @Nonnull
+  private String makeRendererId() {
+    return this.getClass().getName() + ':' + PrefUtils.getPlantUmlDotPath();
+  }
 
-      if (customRendering) {
-        reader = null;
-        totalPages = countNewPages(theText);
-        imageIndex = Math.max(1, Math.min(this.pageNumberToRender, totalPages));
+  private int findTotalPages(@Nonnull final String rendererId, @Nonnull final String text, @Nullable final AtomicReference<SourceStringReader> reader) {
+    final String pagesKey = PlUmlRenderCache.makeKey(rendererId, text, -1);
+    Integer result = PlUmlRenderCache.getInstance().findPageCount(pagesKey);
+    if (result == null && reader != null) {
+      if (this.isCustomRendering()) {
+        result = countNewPages(text);
       } else {
-        reader = new SourceStringReader(theText, "UTF-8");
-        totalPages = Math.max(countNewPages(theText), reader.getBlocks().size());
-        imageIndex = Math.max(1, Math.min(this.pageNumberToRender, totalPages));
+        final SourceStringReader newReader = new SourceStringReader(text, "UTF-8");
+        reader.set(newReader);
+        result = Math.max(countNewPages(text), newReader.getBlocks().size());
       }
+      PlUmlRenderCache.getInstance().putPageCount(pagesKey, result);
+    }
+    return result == null ? -1 : result;
+  }
 
-      if (imageIndex != this.pageNumberToRender) {
-        this.pageNumberToRender = imageIndex;
+  @Nonnull
+  private byte[] renderPage(@Nonnull final String text, final int pageIndex, @Nonnull final AtomicReference<SourceStringReader> reader) throws Exception {
+    if (this.isCustomRendering()) {
+      final AtomicReference<Exception> detectedError = new AtomicReference<>();
+      final AtomicReference<BufferedImage> generatedImage = new AtomicReference<>();
+      this.doCustomRendering(text, pageIndex, generatedImage, detectedError);
+      if (detectedError.get() != null) {
+        throw detectedError.get();
       }
+      final ByteArrayOutputStream buffer = new ByteArrayOutputStream(131072);
+      ImageIO.write(Assertions.assertNotNull("Image must be rendered", generatedImage.get()), "png", buffer);
+      return buffer.toByteArray();
+    } else {
+      SourceStringReader theReader = reader.get();
+      if (theReader == null) {
+        theReader = new SourceStringReader(text, "UTF-8");
+        reader.set(theReader);
+      }
+      final ByteArrayOutputStream buffer = new ByteArrayOutputStream(131072);
+      theReader.outputImage(buffer, pageIndex, new FileFormatOption(FileFormat.PNG, false));
+      return buffer.toByteArray();
+    }
+  }
 
-      final LastRendered currentText = new LastRendered(imageIndex, editorText);
+  private void cancelRendering() {
+    this.renderGeneration.incrementAndGet();
+    final TaskScheduler.CancellationToken prev = this.currentRendering.getAndSet(null);
+    if (prev != null) {
+      prev.cancel();
+    }
+  }
 
-      if (!currentText.equals(this.lastSuccessfulyRenderedText)) {
-        if (this.labelPageNumber != null) {
-          updatePageNumberInfo(currentText.page, totalPages);
+  @UiThread
+  private void showRenderedImage(@Nonnull final LastRendered rendered, final int totalPages, @Nonnull final BufferedImage image) {
+    BigLoaderIconAnimationConroller.getInstance().unregisterLabel(this.progressLabel);
+    this.lastSuccessfulyRenderedText = rendered;
+    this.imageComponent.setImage(image, false);
+    this.renderedPanel.remove(this.progressLabel);
+    removeErrorLabel();
+    if (this.renderedScrollPane.getParent() == null) {
+      this.renderedPanel.add(this.renderedScrollPane, BorderLayout.CENTER);
+    }
+    setMenuItemsEnable(true);
+    if (this.labelPageNumber != null) {
+      updatePageNumberInfo(rendered.page, totalPages);
+    }
+    this.renderedScrollPane.revalidate();
+    this.renderedPanel.revalidate();
+    this.renderedPanel.repaint();
+  }
+
+  @UiThread
+  private void showRenderError(@Nonnull final Exception error) {
+    BigLoaderIconAnimationConroller.getInstance().unregisterLabel(this.progressLabel);
+    final JLabel errorLabel = new JLabel(
+        "<html><h1>ERROR: " + escapeHtml3(error.getMessage()) + "</h1></html>",
+        JLabel.CENTER);
+    errorLabel.setName("ERROR_LABEL");
+    this.renderedPanel.remove(this.progressLabel);
+    this.renderedPanel.remove(this.renderedScrollPane);
+    removeErrorLabel();
+    this.renderedPanel.add(errorLabel, BorderLayout.CENTER);
+    this.renderedPanel.revalidate();
+    this.renderedPanel.repaint();
+  }
+
+  private void removeErrorLabel() {
+    for (final Component c : this.renderedPanel.getComponents()) {
+      if ("ERROR_LABEL".equals(c.getName())) {
+        this.renderedPanel.remove(c);
+        break;
+      }
+    }
+  }
+
+  /**
+   * Start rendering of current text, already rendered pages are taken from the render cache without rendering.
+   * Only the last started rendering of the editor is alive, previous one is cancelled.
+   */
+  @UiThread
+  protected final void startRenderScript() {
+    startRenderScript(false);
+  }
+
+  /**
+   * Start rendering of current text.
+   *
+   * @param refresh if true then cached page count and image of the current page are evicted and rendered again
+   */
+  @UiThread
+  private void startRenderScript(final boolean refresh) {
+    try {
+      final String editorText = this.editor.getText();
+      final String theText = this.preprocessEditorText(editorText);
+      final String rendererId = this.makeRendererId();
+
+      final int cachedTotalPages = refresh ? -1 : findTotalPages(rendererId, theText, null);
+      if (cachedTotalPages > 0) {
+        final int imageIndex = Math.max(1, Math.min(this.pageNumberToRender, cachedTotalPages));
+        final LastRendered currentText = new LastRendered(imageIndex, editorText);
+        if (currentText.equals(this.lastSuccessfulyRenderedText)) {
+          return;
         }
+        final byte[] cached = PlUmlRenderCache.getInstance().findInMemory(PlUmlRenderCache.makeKey(rendererId, theText, imageIndex - 1));
+        if (cached != null) {
+          final BufferedImage image = ImageIO.read(new ByteArrayInputStream(cached));
+          if (image != null) {
+            cancelRendering();
+            this.pageNumberToRender = imageIndex;
+            showRenderedImage(currentText, cachedTotalPages, image);
+            return;
+          }
+        }
+      }
 
-        final AtomicInteger dividerLocation =
-            new AtomicInteger(Math.max(0, this.mainPanel.getDividerLocation()));
-        final PropertyChangeListener dividerListener =
-            evt -> dividerLocation.set(Math.max(0, mainPanel.getDividerLocation()));
-
-        this.mainPanel
-            .addPropertyChangeListener(JSplitPane.DIVIDER_LOCATION_PROPERTY, dividerListener);
-
-        MainFrame.REACTOR_SCHEDULER.schedule(() -> {
-          BigLoaderIconAnimationConroller.getInstance().registerLabel(progressLabel);
-          try {
-            try {
-              SwingUtilities.invokeAndWait(() -> {
-                setMenuItemsEnable(false);
-                renderedPanel.remove(renderedScrollPane);
-                for (final Component c : renderedPanel.getComponents()) {
-                  if ("ERROR_LABEL".equals(c.getName())) {
-                    renderedPanel.remove(c);
-                    break;
-                  }
-                }
-                renderedPanel.add(progressLabel, BorderLayout.CENTER);
-                mainPanel.setDividerLocation(dividerLocation.get());
-              });
-            } catch (InterruptedException ex) {
-              Thread.currentThread().interrupt();
-              return;
-            } catch (InvocationTargetException ex) {
-              throw new RuntimeException(ex);
-            }
+      cancelRendering();
+      final long generation = this.renderGeneration.get();
+      final int requestedPage = this.pageNumberToRender;
+
+      final int dividerLocation = Math.max(0, this.mainPanel.getDividerLocation());
+      BigLoaderIconAnimationConroller.getInstance().registerLabel(this.progressLabel);
+      setMenuItemsEnable(false);
+      this.renderedPanel.remove(this.renderedScrollPane);
+      removeErrorLabel();
+      this.renderedPanel.add(this.progressLabel, BorderLayout.CENTER);
+      this.renderedPanel.revalidate();
+      this.renderedPanel.repaint();
+      this.mainPanel.setDividerLocation(dividerLocation);
+
+      this.currentRendering.set(TaskScheduler.getInstance().submit(TaskScheduler.Priority.RENDERING, () -> {
+        Exception detectedError = null;
+        BufferedImage generatedImage = null;
+        int totalPages = 0;
+        int imageIndex = requestedPage;
+        try {
+          final AtomicReference<SourceStringReader> reader = new AtomicReference<>();
+          if (refresh) {
+            PlUmlRenderCache.getInstance().remove(PlUmlRenderCache.makeKey(rendererId, theText, -1));
+          }
+          totalPages = findTotalPages(rendererId, theText, reader);
+          imageIndex = Math.max(1, Math.min(requestedPage, totalPages));
 
-            final AtomicReference<Exception> detectedError = new AtomicReference<>();
-            final AtomicReference<BufferedImage> generatedImage = new AtomicReference<>();
-
-            if (customRendering) {
-              this.doCustomRendering(currentText.editorText, imageIndex - 1, generatedImage,
-                  detectedError);
-            } else {
-              final ByteArrayOutputStream buffer = new ByteArrayOutputStream(131072);
-              try {
-                final DiagramDescription description = reader.outputImage(buffer, imageIndex - 1,
-                    new FileFormatOption(FileFormat.PNG, false));
-                generatedImage.set(ImageIO.read(new ByteArrayInputStream(buffer.toByteArray())));
-              } catch (Exception ex) {
-                detectedError.set(ex);
-              }
-            }
+          final String key = PlUmlRenderCache.makeKey(rendererId, theText, imageIndex - 1);
+          if (refresh) {
+            PlUmlRenderCache.getInstance().remove(key);
+          }
+          byte[] png = PlUmlRenderCache.getInstance().find(key);
+          if (png == null && !Thread.currentThread().isInterrupted()) {
+            png = renderPage(theText, imageIndex - 1, reader);
+            PlUmlRenderCache.getInstance().put(key, png);
+          }
+          if (png != null) {
+            generatedImage = ImageIO.read(new ByteArrayInputStream(png));
+          }
+        } catch (Exception ex) {
+          detectedError = ex;
+        }
 
-            SwingUtilities.invokeLater(() -> {
-              mainPanel.removePropertyChangeListener(dividerListener);
-
-              final Exception error = detectedError.get();
-              if (error == null) {
-                lastSuccessfulyRenderedText = currentText;
-                imageComponent.setImage(generatedImage.get(), false);
-                renderedScrollPane.revalidate();
-                renderedPanel.remove(progressLabel);
-                renderedPanel.add(renderedScrollPane, BorderLayout.CENTER);
-                setMenuItemsEnable(true);
-              } else {
-                final JLabel errorLabel = new JLabel(
-                    "<html><h1>ERROR: " + escapeHtml3(error.getMessage()) + "</h1></html>",
-                    JLabel.CENTER);
-                errorLabel.setName("ERROR_LABEL");
-                renderedPanel.remove(progressLabel);
-                renderedPanel.add(errorLabel, BorderLayout.CENTER);
-              }
-
-              mainPanel.setDividerLocation(dividerLocation.get());
-            });
-
-          } finally {
-            this.lastSuccessfulyRenderedText = null;
-            BigLoaderIconAnimationConroller.getInstance().unregisterLabel(progressLabel);
+        final Exception error = detectedError;
+        final BufferedImage image = generatedImage;
+        final int pages = totalPages;
+        final LastRendered rendered = new LastRendered(imageIndex, editorText);
+        SwingUtilities.invokeLater(() -> {
+          if (generation != this.renderGeneration.get()) {
+            return;
           }
+          if (error == null && image != null) {
+            this.pageNumberToRender = rendered.page;
+            showRenderedImage(rendered, pages, image);
+          } else {
+            if (error != null) {
+              logger.warn("Can't render script: " + error.getMessage());
+            }
+            showRenderError(error == null ? new IllegalStateException("Can't render image") : error);
+          }
+          this.mainPanel.setDividerLocation(dividerLocation);
         });
-      }
+      }));
     } catch (final Exception ex) {
       logger.error("Error of script rendering:" + ex);
-      SwingUtilities.invokeLater(() -> {
-        final JLabel errorLabel =
-            new JLabel("<html><h1>ERROR: " + escapeHtml3(ex.getMessage()) + "</h1></html>",
-                JLabel.CENTER);
-        errorLabel.setName("ERROR_LABEL");
-        renderedPanel.remove(progressLabel);
-        renderedPanel.add(errorLabel, BorderLayout.CENTER);
-        renderedPanel.revalidate();
-        renderedPanel.repaint();
-      });
+      SwingUtilities.invokeLater(() -> showRenderError(ex));
     }
   }
 
@@ -39,11 +39,13 @@ import com.igormaznitsa.mindmap.swing.panel.ui.AbstractElement;
 import com.igormaznitsa.mindmap.swing.panel.ui.ElementPart;
 import com.igormaznitsa.mindmap.swing.panel.ui.PasswordPanel;
 import com.igormaznitsa.mindmap.swing.panel.utils.CryptoUtils;
+import com.igormaznitsa.mindmap.swing.panel.utils.EncryptedNoteTopicFinder;
 import com.igormaznitsa.mindmap.swing.panel.utils.KeyEventType;
 import com.igormaznitsa.mindmap.swing.panel.utils.MindMapUtils;
 import com.igormaznitsa.mindmap.swing.panel.utils.Utils;
 import com.igormaznitsa.sciareto.Context;
 import com.igormaznitsa.sciareto.SciaRetoStarter;
+import com.igormaznitsa.sciareto.index.MapTextIndex;
 import com.igormaznitsa.sciareto.preferences.PreferencesManager;
 import com.igormaznitsa.sciareto.preferences.SystemFileExtensionManager;
 import com.igormaznitsa.sciareto.ui.DialogProviderManager;
@@ -82,7 +84,6 @@ import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Pattern;
 
 import static com.igormaznitsa.mindmap.ide.commons.Misc.FILELINK_ATTR_LINE;
@@ -103,10 +104,11 @@ public final class MMDEditor extends AbstractTextEditor
   private final Context context;
 
   private boolean dragAcceptableType;
-  private final transient UndoRedoStorage<String> undoStorage = new UndoRedoStorage<>(5);
+  private final transient MindMapHistory history = new MindMapHistory();
 
   private final AtomicBoolean preventAddUndo = new AtomicBoolean();
-  private final AtomicReference<String> currentModelState = new AtomicReference<>();
+
+  private FoundTopics lastFoundTopics;
 
   private boolean firstLayouting = true;
 
@@ -178,7 +180,7 @@ public final class MMDEditor extends AbstractTextEditor
     this.mindMapPanel.setModel(Assertions.assertNotNull(map), false);
 
     loadContent(file);
-    this.currentModelState.set(this.mindMapPanel.getModel().packToString());
+    CryptoUtils.acquireSessionKeys();
   }
 
   @Override
@@ -286,6 +288,11 @@ public final class MMDEditor extends AbstractTextEditor
     return this.mindMapPanel;
   }
 
+  @Override
+  protected void doDispose() {
+    CryptoUtils.releaseSessionKeys();
+  }
+
   @Override
   @Nonnull
   public EditorContentType getEditorContentType() {
@@ -309,12 +316,12 @@ public final class MMDEditor extends AbstractTextEditor
 
   @Override
   public boolean isRedo() {
-    return this.undoStorage.hasRedo();
+    return this.history.hasRedo();
   }
 
   @Override
   public boolean isUndo() {
-    return this.undoStorage.hasUndo();
+    return this.history.hasUndo();
   }
 
   @Nonnull
@@ -328,8 +335,8 @@ public final class MMDEditor extends AbstractTextEditor
     final MindMap map = new MindMap(new StringReader(textFile.readContentAsUtf8()));
     this.mindMapPanel.setModel(Assertions.assertNotNull(map), false);
 
-    this.undoStorage.clearRedo();
-    this.undoStorage.clearUndo();
+    this.history.clear();
+    map.setHistory(this.history);
 
     this.title.setChanged(false);
 
@@ -352,11 +359,12 @@ public final class MMDEditor extends AbstractTextEditor
             this.mindMapPanel.getModel().write(new StringWriter(16384)).toString()
                 .getBytes(StandardCharsets.UTF_8);
         FileUtils.writeByteArrayToFile(file, content);
+        MapTextIndex.onMapSaved(file, this.mindMapPanel.getModel());
         this.currentTextFile.set(new TextFile(file, false, content));
         this.title.setChanged(false);
         this.deleteBackup();
         result = true;
-        this.undoStorage.setFlagThatSomeStateLost();
+        this.history.markSomeStepLost();
       }
     } else {
       result = true;
@@ -466,16 +474,26 @@ public final class MMDEditor extends AbstractTextEditor
   @Override
   public void onMindMapModelChanged(@Nonnull final MindMapPanel source,
                                     final boolean addToHistory) {
-    if (addToHistory && !this.preventAddUndo.get() && this.currentModelState.get() != null) {
-      final String state = this.currentModelState.getAndSet(source.getModel().packToString());
-      backup(state);
-      this.undoStorage.addToUndo(state);
-      this.undoStorage.clearRedo();
-      if (addToHistory) {
-        this.title.setChanged(true);
+    if (addToHistory) {
+      this.lastFoundTopics = null;
+    }
+    if (addToHistory && !this.preventAddUndo.get()) {
+      final MindMap model = source.getModel();
+      if (model.getHistory() == this.history) {
+        this.history.commit();
+      } else {
+        // model has been replaced outside of the editor (for instance by an importer), previous states are not reachable
+        this.history.clear();
+        this.history.markSomeStepLost();
+        model.setHistory(this.history);
       }
-    } else {
-      this.currentModelState.set(source.getModel().packToString());
+      if (isAutoBackupAllowed()) {
+        backup();
+      }
+      this.title.setChanged(true);
+    } else if (!addToHistory && source.getModel().getHistory() == this.history) {
+      // changes which are not steps of history (like new topic before edit or unfolding) must not be included into the next step
+      this.history.rebase();
     }
 
     try {
@@ -489,43 +507,43 @@ public final class MMDEditor extends AbstractTextEditor
   @Override
   public boolean redo() {
     if (!this.mindMapPanel.endEdit(false)) {
-      if (this.undoStorage.hasRedo()) {
-        this.undoStorage.addToUndo(this.currentModelState.getAndSet(this.undoStorage.fromRedo()));
-        this.preventAddUndo.set(true);
-        try {
-          this.mindMapPanel
-              .setModel(new MindMap(new StringReader(this.currentModelState.get())), true);
-          this.title.setChanged(
-              this.undoStorage.hasUndo() || this.undoStorage.hasRemovedUndoStateForFullBuffer());
-        } catch (IOException ex) {
-          logger.error("Can't redo mind map", ex); //NOI18N
-        } finally {
-          this.preventAddUndo.set(false);
-        }
+      if (this.history.hasRedo()) {
+        applyHistory(false);
       }
     }
-    return this.undoStorage.hasRedo();
+    return this.history.hasRedo();
   }
 
   @Override
   public boolean undo() {
     if (!this.mindMapPanel.endEdit(false)) {
-      if (this.undoStorage.hasUndo()) {
-        this.undoStorage.addToRedo(this.currentModelState.getAndSet(this.undoStorage.fromUndo()));
-        this.preventAddUndo.set(true);
-        try {
-          this.mindMapPanel
-              .setModel(new MindMap(new StringReader(this.currentModelState.get())), true);
-          this.title.setChanged(
-              this.undoStorage.hasUndo() || this.undoStorage.hasRemovedUndoStateForFullBuffer());
-        } catch (IOException ex) {
-          logger.error("Can't redo mind map", ex); //NOI18N
-        } finally {
-          this.preventAddUndo.set(false);
+      if (this.history.hasUndo()) {
+        applyHistory(true);
+      }
+    }
+    return this.history.hasUndo();
+  }
+
+  private void applyHistory(final boolean undo) {
+    final MindMap model = this.mindMapPanel.getModel();
+    this.lastFoundTopics = null;
+    this.preventAddUndo.set(true);
+    try {
+      model.lock();
+      try {
+        if (undo) {
+          this.history.undo();
+        } else {
+          this.history.redo();
         }
+      } finally {
+        model.unlock();
       }
+      this.mindMapPanel.setModel(model, true);
+      this.title.setChanged(this.history.hasUndo() || this.history.isSomeStepLost());
+    } finally {
+      this.preventAddUndo.set(false);
     }
-    return this.undoStorage.hasUndo();
   }
 
   @Override
@@ -982,6 +1000,7 @@ public final class MMDEditor extends AbstractTextEditor
             final String pass = new String(passwordPanel.getPassword()).trim();
             try {
               if (CryptoUtils.decrypt(pass, note.getValue(), decrypted)) {
+                CryptoUtils.rememberSessionKey(pass);
                 noteText = new NoteEditorData(decrypted.toString(), pass, note.getHint());
               } else {
                 DialogProviderManager.getInstance().getDialogProvider()
@@ -1018,6 +1037,7 @@ public final class MMDEditor extends AbstractTextEditor
           if (result.isEncrypted()) {
             try {
               newNoteText = CryptoUtils.encrypt(result.getPassword(), result.getText());
+              CryptoUtils.rememberSessionKey(result.getPassword());
             } catch (RuntimeException ex) {
               DialogProviderManager.getInstance().getDialogProvider()
                   .msgError(this.getMainComponent(),
@@ -1341,14 +1361,28 @@ public final class MMDEditor extends AbstractTextEditor
   @Override
   public boolean findNext(@Nonnull final Pattern pattern,
                           @Nonnull final FindTextScopeProvider provider) {
+    return findTopic(pattern, provider, true);
+  }
+
+  @Override
+  public boolean findPrev(@Nonnull final Pattern pattern,
+                          @Nonnull final FindTextScopeProvider provider) {
+    return findTopic(pattern, provider, false);
+  }
+
+  /**
+   * Focus the next or the previous topic matching pattern, search is started from selected topics and continued from the other end of the map.
+   * All matching topics are found by one pass over the map and kept until the map or search parameters are changed.
+   */
+  private boolean findTopic(@Nonnull final Pattern pattern,
+                            @Nonnull final FindTextScopeProvider provider,
+                            final boolean forward) {
     Topic startTopic = null;
     if (this.mindMapPanel.hasSelectedTopics()) {
       final Topic[] selected = this.mindMapPanel.getSelectedTopics();
-      startTopic = selected[selected.length - 1];
+      startTopic = forward ? selected[selected.length - 1] : selected[0];
     }
 
-    final File projectBaseFolder = this.getProjectFolder();
-
     final Set<Extra.ExtraType> extras = EnumSet.noneOf(Extra.ExtraType.class);
     if (provider.toSearchIn(FindTextScopeProvider.SearchTextScope.IN_TOPIC_NOTES)) {
       extras.add(Extra.ExtraType.NOTE);
@@ -1361,16 +1395,18 @@ public final class MMDEditor extends AbstractTextEditor
     }
     final boolean inTopicText =
         provider.toSearchIn(FindTextScopeProvider.SearchTextScope.IN_TOPIC_TEXT);
-
-    Topic found = this.mindMapPanel.getModel()
-        .findNext(projectBaseFolder, startTopic, pattern, inTopicText, extras,
-            TOPIC_FINDERS);
-    if (found == null && startTopic != null) {
-      found = this.mindMapPanel.getModel()
-          .findNext(projectBaseFolder, null, pattern, inTopicText, extras,
-              TOPIC_FINDERS);
+    final Set<TopicFinder> finders =
+        EncryptedNoteTopicFinder.addIfAllowed(TOPIC_FINDERS, this.mindMapPanel.getConfiguration());
+
+    final MindMap model = this.mindMapPanel.getModel();
+    final String key = pattern.pattern() + '/' + pattern.flags() + '/' + inTopicText + '/' + extras + '/' + finders.size(); //NOI18N
+    FoundTopics foundTopics = this.lastFoundTopics;
+    if (foundTopics == null || foundTopics.map != model || !foundTopics.key.equals(key)) {
+      foundTopics = new FoundTopics(model, key, model.findAll(this.getProjectFolder(), pattern, inTopicText, extras, finders));
+      this.lastFoundTopics = foundTopics;
     }
 
+    final Topic found = foundTopics.findNear(startTopic, forward);
     if (found != null) {
       this.mindMapPanel.removeAllSelection();
       this.mindMapPanel.focusTo(found);
@@ -1379,43 +1415,62 @@ public final class MMDEditor extends AbstractTextEditor
     return found != null;
   }
 
-  @Override
-  public boolean findPrev(@Nonnull final Pattern pattern,
-                          @Nonnull final FindTextScopeProvider provider) {
-    Topic startTopic = null;
-    if (this.mindMapPanel.hasSelectedTopics()) {
-      final Topic[] selected = this.mindMapPanel.getSelectedTopics();
-      startTopic = selected[0];
-    }
+  /**
+   * Topics found for search parameters, they are in order of iteration over the map.
+   */
+  private static final class FoundTopics {
 
-    final File projectBaseFolder = this.getProjectFolder();
+    private final MindMap map;
+    private final String key;
+    private final List<Topic> topics;
 
-    final Set<Extra.ExtraType> extras = new HashSet<>();
-    if (provider.toSearchIn(FindTextScopeProvider.SearchTextScope.IN_TOPIC_NOTES)) {
-      extras.add(Extra.ExtraType.NOTE);
+    private FoundTopics(@Nonnull final MindMap map, @Nonnull final String key, @Nonnull @MustNotContainNull final List<Topic> topics) {
+      this.map = map;
+      this.key = key;
+      this.topics = topics;
     }
-    if (provider.toSearchIn(FindTextScopeProvider.SearchTextScope.IN_TOPIC_FILES)) {
-      extras.add(Extra.ExtraType.FILE);
-    }
-    if (provider.toSearchIn(FindTextScopeProvider.SearchTextScope.IN_TOPIC_URI)) {
-      extras.add(Extra.ExtraType.LINK);
-    }
-    final boolean inTopicText =
-        provider.toSearchIn(FindTextScopeProvider.SearchTextScope.IN_TOPIC_TEXT);
 
-    Topic found = this.mindMapPanel.getModel()
-        .findPrev(projectBaseFolder, startTopic, pattern, inTopicText, extras, TOPIC_FINDERS);
-    if (found == null && startTopic != null) {
-      found = this.mindMapPanel.getModel()
-          .findPrev(projectBaseFolder, null, pattern, inTopicText, extras, TOPIC_FINDERS);
+    private static int compareByPosition(@Nonnull final int[] path1, @Nonnull final int[] path2) {
+      final int len = Math.min(path1.length, path2.length);
+      for (int i = 0; i < len; i++) {
+        if (path1[i] != path2[i]) {
+          return Integer.compare(path1[i], path2[i]);
+        }
+      }
+      return Integer.compare(path1.length, path2.length);
     }
 
-    if (found != null) {
-      this.mindMapPanel.removeAllSelection();
-      this.mindMapPanel.focusTo(found);
+    /**
+     * Find topic which follows or precedes the start topic in order of iteration over the map, the search wraps around the end of the map.
+     *
+     * @param start   start topic, if null then the first or the last found topic is returned
+     * @param forward direction of search
+     * @return found topic or null if there are not found topics
+     */
+    @Nullable
+    private Topic findNear(@Nullable final Topic start, final boolean forward) {
+      if (this.topics.isEmpty()) {
+        return null;
+      }
+      if (start != null) {
+        final int[] startPath = start.getPositionPath();
+        if (forward) {
+          for (final Topic t : this.topics) {
+            if (compareByPosition(t.getPositionPath(), startPath) > 0) {
+              return t;
+            }
+          }
+        } else {
+          for (int i = this.topics.size() - 1; i >= 0; i--) {
+            final Topic t = this.topics.get(i);
+            if (compareByPosition(t.getPositionPath(), startPath) < 0) {
+              return t;
+            }
+          }
+        }
+      }
+      return forward ? this.topics.get(0) : this.topics.get(this.topics.size() - 1);
     }
-
-    return found != null;
   }
 
   @Override
@@ -0,0 +1,280 @@
+/*
+ * Copyright (C) 2020 Igor Maznitsa.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+package com.igormaznitsa.sciareto.ui.editors;
+
+import com.igormaznitsa.mindmap.model.logger.Logger;
+import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
+import com.igormaznitsa.sciareto.preferences.PrefUtils;
+import com.igormaznitsa.sciareto.ui.SystemUtils;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Cache of rendered diagram images, images are kept as PNG bytes and found by hash of rendered text and page.
+ * Memory part is LRU limited by size in bytes, optional disk part keeps images between sessions and it is
+ * pruned by size from the oldest files.
+ */
+@ThreadSafe
+public final class PlUmlRenderCache {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PlUmlRenderCache.class);
+
+  private static final long MAX_MEMORY_BYTES = 32L * 1024L * 1024L;
+  private static final long MAX_DISK_BYTES = 128L * 1024L * 1024L;
+  private static final int MAX_PAGE_COUNTS = 1024;
+  private static final int WRITES_BETWEEN_DISK_PRUNING = 64;
+  private static final String FILE_EXTENSION = ".png"; //NOI18N
+
+  private static final PlUmlRenderCache INSTANCE = new PlUmlRenderCache(SystemUtils.getCacheFolder("plantuml"), MAX_MEMORY_BYTES, MAX_DISK_BYTES); //NOI18N
+
+  static {
+    INSTANCE.setDiskEnabled(PrefUtils.isPlantUmlDiskCacheAllowed());
+  }
+
+  private final Map<String, byte[]> images = new LinkedHashMap<>(64, 0.75f, true);
+  private final Map<String, Integer> pageCounts = new LinkedHashMap<String, Integer>(64, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(@Nonnull final Map.Entry<String, Integer> eldest) {
+      return this.size() > MAX_PAGE_COUNTS;
+    }
+  };
+  private final File folder;
+  private final long maxMemoryBytes;
+  private final long maxDiskBytes;
+  private final AtomicInteger writesCounter = new AtomicInteger();
+  private long memoryBytes;
+  private volatile boolean diskEnabled = true;
+
+  /**
+   * Constructor.
+   *
+   * @param folder         folder to keep images on disk, null if disk cache is not needed
+   * @param maxMemoryBytes max size of images kept in memory
+   * @param maxDiskBytes   max size of images kept on disk
+   */
+  PlUmlRenderCache(@Nullable final File folder, final long maxMemoryBytes, final long maxDiskBytes) {
+    this.folder = folder;
+    this.maxMemoryBytes = maxMemoryBytes;
+    this.maxDiskBytes = maxDiskBytes;
+  }
+
+  @Nonnull
+  public static PlUmlRenderCache getInstance() {
+    return INSTANCE;
+  }
+
+  public boolean isDiskEnabled() {
+    return this.diskEnabled;
+  }
+
+  /**
+   * Enable or disable disk part of the cache, already saved images are removed from disk if it is disabled.
+   *
+   * @param enabled true if images should be kept on disk, false otherwise
+   */
+  public void setDiskEnabled(final boolean enabled) {
+    this.diskEnabled = enabled;
+    if (!enabled && this.folder != null) {
+      final File[] files = this.folder.listFiles((dir, name) -> name.endsWith(FILE_EXTENSION));
+      if (files != null) {
+        for (final File f : files) {
+          if (!f.delete()) {
+            LOGGER.warn("Can't delete cached image: " + f);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Make key for rendered content.
+   *
+   * @param renderer  identifier of renderer, different renderers produce different images for the same text
+   * @param text      rendered text
+   * @param pageIndex index of page, negative one for the whole text
+   * @return hex string of SHA-256 hash
+   */
+  @Nonnull
+  public static String makeKey(@Nonnull final String renderer, @Nonnull final String text, final int pageIndex) {
+    try {
+      final MessageDigest digest = MessageDigest.getInstance("SHA-256"); //NOI18N
+      digest.update(renderer.getBytes(StandardCharsets.UTF_8));
+      digest.update((byte) 0);
+      digest.update(Integer.toString(pageIndex).getBytes(StandardCharsets.UTF_8));
+      digest.update((byte) 0);
+      final byte[] hash = digest.digest(text.getBytes(StandardCharsets.UTF_8));
+      final StringBuilder result = new StringBuilder(hash.length * 2);
+      for (final byte b : hash) {
+        result.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+      }
+      return result.toString();
+    } catch (NoSuchAlgorithmException ex) {
+      throw new Error("Can't find SHA-256", ex); //NOI18N
+    }
+  }
+
+  @Nullable
+  public Integer findPageCount(@Nonnull final String key) {
+    synchronized (this.pageCounts) {
+      return this.pageCounts.get(key);
+    }
+  }
+
+  public void putPageCount(@Nonnull final String key, final int pages) {
+    synchronized (this.pageCounts) {
+      this.pageCounts.put(key, pages);
+    }
+  }
+
+  /**
+   * Find image in memory part only, it is fast enough to be called from UI thread.
+   *
+   * @param key key of image
+   * @return PNG bytes or null if not found
+   */
+  @Nullable
+  public byte[] findInMemory(@Nonnull final String key) {
+    synchronized (this.images) {
+      return this.images.get(key);
+    }
+  }
+
+  /**
+   * Find image in memory and then on disk, found on disk image is placed into memory.
+   *
+   * @param key key of image
+   * @return PNG bytes or null if not found
+   */
+  @Nullable
+  public byte[] find(@Nonnull final String key) {
+    byte[] result = findInMemory(key);
+    if (result == null && this.folder != null && this.diskEnabled) {
+      final File file = new File(this.folder, key + FILE_EXTENSION);
+      if (file.isFile()) {
+        try {
+          result = FileUtils.readFileToByteArray(file);
+          if (!file.setLastModified(System.currentTimeMillis())) {
+            LOGGER.warn("Can't touch cached image: " + file);
+          }
+          putInMemory(key, result);
+        } catch (IOException ex) {
+          LOGGER.warn("Can't read cached image: " + file);
+          result = null;
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Place image into cache.
+   *
+   * @param key  key of image
+   * @param data PNG bytes
+   */
+  public void put(@Nonnull final String key, @Nonnull final byte[] data) {
+    putInMemory(key, data);
+    if (this.folder != null && this.diskEnabled) {
+      final File file = new File(this.folder, key + FILE_EXTENSION);
+      try {
+        FileUtils.writeByteArrayToFile(file, data, false);
+      } catch (IOException ex) {
+        LOGGER.warn("Can't write cached image: " + file);
+      }
+      if (this.writesCounter.incrementAndGet() % WRITES_BETWEEN_DISK_PRUNING == 1) {
+        pruneDisk();
+      }
+    }
+  }
+
+  /**
+   * Remove image or page count from memory and disk, it is needed to force new rendering.
+   *
+   * @param key key of image or page count
+   */
+  public void remove(@Nonnull final String key) {
+    synchronized (this.pageCounts) {
+      this.pageCounts.remove(key);
+    }
+    synchronized (this.images) {
+      final byte[] removed = this.images.remove(key);
+      if (removed != null) {
+        this.memoryBytes -= removed.length;
+      }
+    }
+    if (this.folder != null) {
+      final File file = new File(this.folder, key + FILE_EXTENSION);
+      if (file.isFile() && !file.delete()) {
+        LOGGER.warn("Can't delete cached image: " + file);
+      }
+    }
+  }
+
+  private void putInMemory(@Nonnull final String key, @Nonnull final byte[] data) {
+    synchronized (this.images) {
+      final byte[] prev = this.images.put(key, data);
+      this.memoryBytes += data.length - (prev == null ? 0 : prev.length);
+      final Iterator<byte[]> iterator = this.images.values().iterator();
+      while (this.memoryBytes > this.maxMemoryBytes && iterator.hasNext()) {
+        final byte[] removed = iterator.next();
+        if (removed != data) {
+          this.memoryBytes -= removed.length;
+          iterator.remove();
+        }
+      }
+    }
+  }
+
+  private void pruneDisk() {
+    final File[] files = this.folder.listFiles((dir, name) -> name.endsWith(FILE_EXTENSION));
+    if (files == null) {
+      return;
+    }
+    long total = 0L;
+    for (final File f : files) {
+      total += f.length();
+    }
+    if (total > this.maxDiskBytes) {
+      Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+      for (final File f : files) {
+        if (total <= this.maxDiskBytes) {
+          break;
+        }
+        final long length = f.length();
+        if (f.delete()) {
+          total -= length;
+        }
+      }
+    }
+  }
+}
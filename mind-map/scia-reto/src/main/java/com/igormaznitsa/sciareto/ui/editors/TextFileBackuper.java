@@ -28,26 +28,39 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.TimeUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 import java.util.zip.CRC32;
 import java.util.zip.Deflater;
 import java.util.zip.DeflaterOutputStream;
 import java.util.zip.InflaterInputStream;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import javax.swing.SwingUtilities;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 
+/**
+ * Background writer of backups for edited text content.
+ * Requests are coalesced per file, only the latest content is written and not more often than once per interval.
+ * The first backup of a file is written in full as a base, next ones are written as compressed delta against the base
+ * (changed middle part between common prefix and suffix), the base is rewritten periodically or if delta becomes big.
+ * Content can be provided lazily, then it is requested only when the backup is written.
+ */
 public class TextFileBackuper {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(TextFileBackuper.class);
 
-  private static final BackupContent END_WORK = new BackupContent(new File("/some/non-existing/fake/file"), null);
+  static final long BACKUP_INTERVAL_MS = 3000L;
+  private static final int MAX_DELTAS_BEFORE_REBASE = 32;
 
   private static void writeLong(final long value, @Nonnull final OutputStream out) throws IOException {
     final byte[] splitted = new byte[8];
@@ -59,6 +72,33 @@ public class TextFileBackuper {
     IOUtils.write(splitted, out);
   }
 
+  private static long readLong(@Nonnull final InputStream in) throws IOException {
+    final byte[] splitted = new byte[8];
+    IOUtils.readFully(in, splitted);
+    long acc = 0L;
+    for (int i = 0; i < 8; i++) {
+      acc >>>= 8;
+      acc |= ((long) splitted[i]) << 56;
+    }
+    return acc;
+  }
+
+  private static long crc32(@Nonnull final byte[] data) {
+    final CRC32 crc32 = new CRC32();
+    crc32.update(data);
+    return crc32.getValue();
+  }
+
+  @Nonnull
+  private static byte[] pack(@Nonnull final byte[] data, final int offset, final int length) throws IOException {
+    final ByteArrayOutputStream packedDataBuffer = new ByteArrayOutputStream(Math.max(32, length >> 1));
+    final DeflaterOutputStream zos = new DeflaterOutputStream(packedDataBuffer, new Deflater(2));
+    zos.write(data, offset, length);
+    zos.flush();
+    zos.finish();
+    return packedDataBuffer.toByteArray();
+  }
+
   public static class Restored {
     private final long timestamp;
     private final long crc32;
@@ -66,33 +106,46 @@ public class TextFileBackuper {
     private final int unpackedSize;
     private final byte[] content;
 
-    private static long readLong(@Nonnull final InputStream in) throws IOException {
-      final byte[] splitted = new byte[8];
-      IOUtils.readFully(in, splitted);
-      long acc = 0L;
-      for (int i = 0; i < 8; i++) {
-        acc >>>= 8;
-        acc |= ((long) splitted[i]) << 56;
-      }
-      return acc;
-    }
-
     public Restored(@Nonnull final File file) throws IOException {
+      final long baseTimestamp;
+      final long baseCrc32;
+      final int basePackedSize;
+      final byte[] baseContent;
       try (final InputStream inStream = new BufferedInputStream(new FileInputStream(file))) {
-        this.timestamp = readLong(inStream);
-        this.crc32 = readLong(inStream);
-        this.unpackedSize = (int) readLong(inStream);
-        this.packedSize = (int) readLong(inStream);
-        this.content = new byte[unpackedSize];
+        baseTimestamp = readLong(inStream);
+        baseCrc32 = readLong(inStream);
+        baseContent = new byte[(int) readLong(inStream)];
+        basePackedSize = (int) readLong(inStream);
         try (final InflaterInputStream zipIn = new InflaterInputStream(inStream)) {
-          IOUtils.readFully(zipIn, this.content);
+          IOUtils.readFully(zipIn, baseContent);
         }
-        final CRC32 calcCrc32 = new CRC32();
-        calcCrc32.update(content);
-        if (crc32 != calcCrc32.getValue()) {
+        if (baseCrc32 != TextFileBackuper.crc32(baseContent)) {
           throw new IOException("CRC32 error");
         }
       }
+
+      final File deltaFile = findDeltaForBackup(file);
+      Delta delta = null;
+      if (deltaFile != null) {
+        try {
+          delta = Delta.read(deltaFile, baseContent, baseCrc32);
+        } catch (IOException ex) {
+          LOGGER.error("Can't read backup delta, base content is used: " + deltaFile, ex);
+        }
+      }
+
+      if (delta == null) {
+        this.timestamp = baseTimestamp;
+        this.crc32 = baseCrc32;
+        this.packedSize = basePackedSize;
+        this.content = baseContent;
+      } else {
+        this.timestamp = delta.timestamp;
+        this.crc32 = delta.crc32;
+        this.packedSize = delta.packedSize;
+        this.content = delta.content;
+      }
+      this.unpackedSize = this.content.length;
     }
 
     public int getPackedSize() {
@@ -126,8 +179,67 @@ public class TextFileBackuper {
     }
   }
 
+  /**
+   * Delta of content against base, keeps lengths of common prefix and suffix and packed changed middle part.
+   */
+  private static final class Delta {
+    private final long timestamp;
+    private final long crc32;
+    private final int packedSize;
+    private final byte[] content;
+
+    private Delta(final long timestamp, final long crc32, final int packedSize, @Nonnull final byte[] content) {
+      this.timestamp = timestamp;
+      this.crc32 = crc32;
+      this.packedSize = packedSize;
+      this.content = content;
+    }
+
+    @Nullable
+    private static Delta read(@Nonnull final File file, @Nonnull final byte[] base, final long baseCrc32) throws IOException {
+      try (final InputStream inStream = new BufferedInputStream(new FileInputStream(file))) {
+        final long timestamp = readLong(inStream);
+        final long crc32 = readLong(inStream);
+        if (readLong(inStream) != baseCrc32) {
+          // delta has been made for another base
+          return null;
+        }
+        final int size = (int) readLong(inStream);
+        final int prefix = (int) readLong(inStream);
+        final int suffix = (int) readLong(inStream);
+        final int packedSize = (int) readLong(inStream);
+        if (prefix < 0 || suffix < 0 || prefix + suffix > size || prefix + suffix > base.length) {
+          throw new IOException("Wrong delta format");
+        }
+        final byte[] content = new byte[size];
+        System.arraycopy(base, 0, content, 0, prefix);
+        System.arraycopy(base, base.length - suffix, content, size - suffix, suffix);
+        try (final InflaterInputStream zipIn = new InflaterInputStream(inStream)) {
+          IOUtils.readFully(zipIn, content, prefix, size - prefix - suffix);
+        }
+        if (crc32 != TextFileBackuper.crc32(content)) {
+          throw new IOException("CRC32 error");
+        }
+        return new Delta(timestamp, crc32, packedSize, content);
+      }
+    }
+  }
+
+  /**
+   * State of written backup of a file, it is accessed only by the backup thread.
+   */
+  private static final class BackupState {
+    private byte[] base;
+    private long baseCrc32;
+    private int deltas;
+    private long lastWriteTime;
+  }
+
   public void finish() {
-    this.add(END_WORK);
+    synchronized (this.pending) {
+      this.finishing = true;
+      this.pending.notifyAll();
+    }
   }
 
   @Nullable
@@ -145,24 +257,24 @@ public class TextFileBackuper {
     return null;
   }
 
-  @Nonnull
-  private byte[] prepareContent(@Nonnull final String content) {
-    final ByteArrayOutputStream bao = new ByteArrayOutputStream(content.length() << 1);
-    final byte[] textAsBytes = content.getBytes(StandardCharsets.UTF_8);
-    final CRC32 crc32 = new CRC32();
-    crc32.update(textAsBytes);
-    final long crc32value = crc32.getValue();
-    final long timestamp = System.currentTimeMillis();
+  @Nullable
+  private static File findDeltaForBackup(@Nonnull final File backupFile) {
+    final String name = backupFile.getName();
+    final int suffixStart = name.lastIndexOf('.', name.length() - ".abk".length() - 1);
+    if (suffixStart <= 0) {
+      return null;
+    }
+    final File result = new File(backupFile.getParentFile(), name.substring(0, suffixStart) + ".d.abk");
+    return result.isFile() ? result : null;
+  }
 
+  @Nonnull
+  private static byte[] prepareContent(@Nonnull final byte[] textAsBytes, final long crc32value) {
+    final ByteArrayOutputStream bao = new ByteArrayOutputStream(textAsBytes.length);
     try {
-      writeLong(timestamp, bao);
+      writeLong(System.currentTimeMillis(), bao);
       writeLong(crc32value, bao);
-      final ByteArrayOutputStream packedDataBuffer = new ByteArrayOutputStream(content.length());
-      final DeflaterOutputStream zos = new DeflaterOutputStream(packedDataBuffer, new Deflater(2));
-      IOUtils.write(textAsBytes, zos);
-      zos.flush();
-      zos.finish();
-      final byte[] packedContent = packedDataBuffer.toByteArray();
+      final byte[] packedContent = pack(textAsBytes, 0, textAsBytes.length);
       writeLong(textAsBytes.length, bao);
       writeLong(packedContent.length, bao);
       IOUtils.write(packedContent, bao);
@@ -174,25 +286,102 @@ public class TextFileBackuper {
     }
   }
 
+  @Nullable
+  private static byte[] prepareDelta(@Nonnull final byte[] base, final long baseCrc32, @Nonnull final byte[] textAsBytes, final long crc32value) {
+    final int maxCommon = Math.min(base.length, textAsBytes.length);
+    int prefix = 0;
+    while (prefix < maxCommon && base[prefix] == textAsBytes[prefix]) {
+      prefix++;
+    }
+    int suffix = 0;
+    while (suffix < maxCommon - prefix && base[base.length - 1 - suffix] == textAsBytes[textAsBytes.length - 1 - suffix]) {
+      suffix++;
+    }
+    final int middle = textAsBytes.length - prefix - suffix;
+    if (middle > textAsBytes.length / 2) {
+      return null;
+    }
+
+    final ByteArrayOutputStream bao = new ByteArrayOutputStream(64 + middle);
+    try {
+      final byte[] packedMiddle = pack(textAsBytes, prefix, middle);
+      writeLong(System.currentTimeMillis(), bao);
+      writeLong(crc32value, bao);
+      writeLong(baseCrc32, bao);
+      writeLong(textAsBytes.length, bao);
+      writeLong(prefix, bao);
+      writeLong(suffix, bao);
+      writeLong(packedMiddle.length, bao);
+      IOUtils.write(packedMiddle, bao);
+      bao.flush();
+      return bao.toByteArray();
+    } catch (IOException ex) {
+      LOGGER.error("Unexpected situation, can't pack delta");
+      return null;
+    }
+  }
+
   public static class BackupContent {
 
     private final File originalFile;
     private final String content;
+    private final Supplier<String> contentSupplier;
 
     public BackupContent(@Nonnull final File file, @Nullable final String content) {
       this.originalFile = file;
       this.content = content;
+      this.contentSupplier = null;
+    }
+
+    /**
+     * Make lazy content, the supplier is called through Swing thread only when the backup is written so that edits made during backup interval are serialized once.
+     *
+     * @param file            original file, must not be null
+     * @param contentSupplier supplier of the current content, it can return null to skip backup
+     * @since 1.5.2
+     */
+    public BackupContent(@Nonnull final File file, @Nonnull final Supplier<String> contentSupplier) {
+      this.originalFile = file;
+      this.content = null;
+      this.contentSupplier = contentSupplier;
+    }
+
+    private boolean isRemove() {
+      return this.content == null && this.contentSupplier == null;
+    }
+
+    @Nullable
+    private String resolveContent() {
+      if (this.contentSupplier == null) {
+        return this.content;
+      }
+      if (SwingUtilities.isEventDispatchThread()) {
+        return this.contentSupplier.get();
+      }
+      final AtomicReference<String> result = new AtomicReference<>();
+      try {
+        SwingUtilities.invokeAndWait(() -> result.set(this.contentSupplier.get()));
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      } catch (InvocationTargetException ex) {
+        LOGGER.error("Can't get content for backup: " + this.originalFile, ex);
+      }
+      return result.get();
     }
   }
 
   private static final AtomicReference<TextFileBackuper> instance = new AtomicReference<>();
-  private final BlockingQueue<BackupContent> contentQueue = new ArrayBlockingQueue<>(32);
 
-  private TextFileBackuper() {
+  private final Map<File, BackupContent> pending = new LinkedHashMap<>();
+  private final Map<File, BackupState> states = new HashMap<>();
+  private final long interval;
+  private boolean finishing;
 
+  TextFileBackuper(final long interval) {
+    this.interval = interval;
   }
 
-  private void start() {
+  void start() {
     final Thread thread = new Thread(this::run, "edit-text-content-backuper");
     thread.setDaemon(false);
     thread.start();
@@ -204,12 +393,19 @@ public class TextFileBackuper {
     return String.format(".%s.%d.abk", name, index);
   }
 
+  @Nonnull
+  static String makeDeltaFileName(@Nonnull final File orig) {
+    return String.format(".%s.d.abk", orig.getName());
+  }
+
   private void removeBackup(@Nonnull final File file) {
+    this.states.remove(file);
     final File root = file.getParentFile();
     final File backup0 = new File(root, makeBackupFileName(file, 0));
     final File backup1 = new File(root, makeBackupFileName(file, 1));
     FileUtils.deleteQuietly(backup0);
     FileUtils.deleteQuietly(backup1);
+    FileUtils.deleteQuietly(new File(root, makeDeltaFileName(file)));
   }
 
   private void backup(@Nonnull final File file, @Nonnull final byte[] data) {
@@ -229,6 +425,7 @@ public class TextFileBackuper {
         if (!backup1.renameTo(backup0)) {
           LOGGER.error("Can't rename backup file " + backup1 + " to " + backup0);
         }
+        FileUtils.deleteQuietly(new File(root, makeDeltaFileName(file)));
       } catch (IOException ex) {
         LOGGER.error("Can't save backup file: " + file, ex);
       }
@@ -236,43 +433,121 @@ public class TextFileBackuper {
     }
   }
 
+  private boolean backupDelta(@Nonnull final File file, @Nonnull final byte[] data) {
+    final File root = file.getParentFile();
+    final File delta = new File(root, makeDeltaFileName(file));
+    final File temp = new File(root, makeDeltaFileName(file) + ".tmp");
+    try {
+      FileUtils.writeByteArrayToFile(temp, data, false);
+      if (delta.isFile()) {
+        FileUtils.forceDelete(delta);
+      }
+      if (!temp.renameTo(delta)) {
+        LOGGER.error("Can't rename backup delta file " + temp + " to " + delta);
+        return false;
+      }
+      return true;
+    } catch (IOException ex) {
+      LOGGER.error("Can't save backup delta file: " + file, ex);
+      FileUtils.deleteQuietly(temp);
+      return false;
+    }
+  }
+
+  /**
+   * Write backup for content, either as new base or as delta against the current base.
+   *
+   * @param file    original file
+   * @param content content to be saved
+   */
+  void writeBackup(@Nonnull final File file, @Nonnull final String content) {
+    final byte[] textAsBytes = content.getBytes(StandardCharsets.UTF_8);
+    final long crc32value = crc32(textAsBytes);
+
+    BackupState state = this.states.get(file);
+    if (state == null) {
+      state = new BackupState();
+      this.states.put(file, state);
+    }
+    state.lastWriteTime = System.currentTimeMillis();
+
+    if (state.base != null && state.baseCrc32 == crc32value && state.deltas == 0 && textAsBytes.length == state.base.length) {
+      return;
+    }
+
+    byte[] delta = null;
+    if (state.base != null && state.deltas < MAX_DELTAS_BEFORE_REBASE) {
+      delta = prepareDelta(state.base, state.baseCrc32, textAsBytes, crc32value);
+    }
+
+    if (delta != null && backupDelta(file, delta)) {
+      state.deltas++;
+    } else {
+      backup(file, prepareContent(textAsBytes, crc32value));
+      state.base = textAsBytes;
+      state.baseCrc32 = crc32value;
+      state.deltas = 0;
+    }
+  }
+
   private void run() {
-    while (!Thread.currentThread().isInterrupted()) {
+    final List<BackupContent> ready = new ArrayList<>();
+    boolean stop = false;
+    while (!stop && !Thread.currentThread().isInterrupted()) {
       try {
-        final BackupContent item = this.contentQueue.poll(5, TimeUnit.SECONDS);
-        if (item != null) {
-          if (item == END_WORK) {
-            break;
+        synchronized (this.pending) {
+          final long now = System.currentTimeMillis();
+          long timeToWait = this.interval;
+          final Iterator<BackupContent> iterator = this.pending.values().iterator();
+          while (iterator.hasNext()) {
+            final BackupContent item = iterator.next();
+            final BackupState state = this.states.get(item.originalFile);
+            final long nextWriteTime = state == null ? 0L : state.lastWriteTime + this.interval;
+            if (this.finishing || item.isRemove() || nextWriteTime <= now) {
+              ready.add(item);
+              iterator.remove();
+            } else {
+              timeToWait = Math.min(timeToWait, nextWriteTime - now);
+            }
+          }
+          stop = this.finishing;
+          if (ready.isEmpty() && !stop) {
+            this.pending.wait(Math.max(1L, timeToWait));
           }
-          if (item.content == null) {
+        }
+
+        for (final BackupContent item : ready) {
+          if (item.isRemove()) {
             removeBackup(item.originalFile);
           } else {
-            backup(item.originalFile, prepareContent(item.content));
+            final String content = item.resolveContent();
+            if (content != null) {
+              writeBackup(item.originalFile, content);
+            }
           }
         }
+        ready.clear();
       } catch (InterruptedException ex) {
         Thread.currentThread().interrupt();
       }
     }
-
   }
 
   public void add(@Nonnull final BackupContent content) {
-    try {
-      final boolean placed = this.contentQueue.offer(content, 1, TimeUnit.SECONDS);
-      if (!placed) {
-        LOGGER.error("Can't place content into queue for timeout, content is " + content);
+    synchronized (this.pending) {
+      if (this.finishing) {
+        LOGGER.error("Backuper is finished, content is ignored for " + content.originalFile);
+      } else {
+        this.pending.put(content.originalFile, content);
+        this.pending.notifyAll();
       }
-    } catch (InterruptedException ex) {
-      LOGGER.error("Can't place content into queue for interruption, content is " + content);
-      Thread.currentThread().interrupt();
     }
   }
 
   @Nonnull
   public static TextFileBackuper getInstance() {
     if (instance.get() == null) {
-      final TextFileBackuper newInstance = new TextFileBackuper();
+      final TextFileBackuper newInstance = new TextFileBackuper(BACKUP_INTERVAL_MS);
       if (instance.compareAndSet(null, newInstance)) {
         newInstance.start();
       }
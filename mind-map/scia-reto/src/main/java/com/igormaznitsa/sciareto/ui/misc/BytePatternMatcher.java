@@ -0,0 +1,159 @@
+/* 
+ * Copyright (C) 2018 Igor Maznitsa.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package com.igormaznitsa.sciareto.ui.misc;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Boyer–Moore–Horspool matcher of byte patterns. Two variants of the same text (for instance lower and upper case) are matched together,
+ * if variants have the same length then every position of the pattern is a class of two bytes and only one scan is needed.
+ */
+@ThreadSafe
+public final class BytePatternMatcher {
+
+  /**
+   * Number of steps of scan between checks of cancel flag.
+   */
+  private static final int CANCEL_CHECK_STEPS = 0xFFFF;
+  private static final BooleanSupplier NEVER_CANCELLED = () -> false;
+
+  private final ClassPattern[] patterns;
+  private final int minLength;
+
+  public BytePatternMatcher(@Nonnull final byte[] variant1, @Nonnull final byte[] variant2) {
+    if (variant1.length == variant2.length) {
+      this.patterns = new ClassPattern[] {new ClassPattern(variant1, variant2)};
+    } else {
+      this.patterns = new ClassPattern[] {new ClassPattern(variant1, variant1), new ClassPattern(variant2, variant2)};
+    }
+    int min = Integer.MAX_VALUE;
+    for (final ClassPattern p : this.patterns) {
+      min = Math.min(min, p.length);
+    }
+    this.minLength = min;
+  }
+
+  /**
+   * Get min length of data which can contain the pattern.
+   *
+   * @return min length of variants
+   */
+  public int getMinLength() {
+    return this.minLength;
+  }
+
+  /**
+   * Get max length of variants, data windows should be overlapped by the length minus one to not lose matches on their borders.
+   *
+   * @return max length of variants
+   */
+  public int getMaxLength() {
+    int max = 0;
+    for (final ClassPattern p : this.patterns) {
+      max = Math.max(max, p.length);
+    }
+    return max;
+  }
+
+  /**
+   * Find pattern in buffer area, buffer position and limit are not changed.
+   *
+   * @param buffer buffer to be scanned, must not be null
+   * @param from   start index, inclusive
+   * @param to     end index, exclusive
+   * @return true if any variant is found
+   */
+  public boolean find(@Nonnull final ByteBuffer buffer, final int from, final int to) {
+    return find(buffer, from, to, NEVER_CANCELLED);
+  }
+
+  /**
+   * Find pattern in buffer area, buffer position and limit are not changed. The cancel flag is checked periodically during scan.
+   *
+   * @param buffer    buffer to be scanned, must not be null
+   * @param from      start index, inclusive
+   * @param to        end index, exclusive
+   * @param cancelled cancel flag, scan is stopped if it returns true
+   * @return true if any variant is found, false if not found or scan has been cancelled
+   */
+  public boolean find(@Nonnull final ByteBuffer buffer, final int from, final int to, @Nonnull final BooleanSupplier cancelled) {
+    if (this.minLength == 0) {
+      return false;
+    }
+    for (final ClassPattern p : this.patterns) {
+      if (p.find(buffer, from, to, cancelled)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static final class ClassPattern {
+
+    private final byte[] variant1;
+    private final byte[] variant2;
+    private final int length;
+    private final int[] shifts = new int[256];
+
+    private ClassPattern(@Nonnull final byte[] variant1, @Nonnull final byte[] variant2) {
+      this.variant1 = variant1.clone();
+      this.variant2 = variant2.clone();
+      this.length = variant1.length;
+
+      Arrays.fill(this.shifts, Math.max(1, this.length));
+      for (int i = 0; i < this.length - 1; i++) {
+        final int shift = this.length - 1 - i;
+        this.shifts[this.variant1[i] & 0xFF] = shift;
+        this.shifts[this.variant2[i] & 0xFF] = shift;
+      }
+    }
+
+    private boolean find(@Nonnull final ByteBuffer buffer, final int from, final int to, @Nonnull final BooleanSupplier cancelled) {
+      final int len = this.length;
+      if (len == 0) {
+        return false;
+      }
+      final int last = len - 1;
+      int index = from;
+      int steps = 0;
+      while (index <= to - len) {
+        if ((++steps & CANCEL_CHECK_STEPS) == 0 && cancelled.getAsBoolean()) {
+          return false;
+        }
+        int pos = last;
+        while (pos >= 0) {
+          final byte b = buffer.get(index + pos);
+          if (b != this.variant1[pos] && b != this.variant2[pos]) {
+            break;
+          }
+          pos--;
+        }
+        if (pos < 0) {
+          return true;
+        }
+        index += this.shifts[buffer.get(index + last) & 0xFF];
+      }
+      return false;
+    }
+  }
+}
@@ -20,81 +20,88 @@ package com.igormaznitsa.sciareto.ui.misc;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.StandardOpenOption;
+import java.util.function.BooleanSupplier;
 import javax.annotation.Nonnull;
-import com.igormaznitsa.meta.common.utils.Assertions;
 
 public class FileExaminator {
 
+  /**
+   * Files bigger than the size are scanned through memory mapped windows.
+   */
+  private static final int MAX_READ_FULLY_SIZE = 1024 * 1024;
+  private static final int MAPPED_WINDOW_SIZE = 32 * 1024 * 1024;
+
+  private static final ThreadLocal<ByteBuffer> READ_BUFFER = ThreadLocal.withInitial(() -> ByteBuffer.allocate(MAX_READ_FULLY_SIZE));
+
   private final File file;
 
   public FileExaminator(@Nonnull final File file) {
     this.file = file;
   }
 
-  public boolean doesContainData(@Nonnull final byte[] dataBuffer, @Nonnull final byte[] dataArr1, @Nonnull final byte[] dataArr2) throws IOException {
-    Assertions.assertTrue("Length must be the same", dataArr1.length == dataArr2.length);
-
-    boolean result = false;
-
-    final int len = dataArr1.length;
+  /**
+   * Check that the file contains a pattern. Whole file is scanned, small files are read into a thread local buffer and big files are mapped into memory by windows.
+   *
+   * @param matcher matcher of pattern, must not be null
+   * @return true if the pattern is found, false otherwise
+   * @throws IOException if any transport error or thread interruption
+   */
+  public boolean doesContainData(@Nonnull final BytePatternMatcher matcher) throws IOException {
+    return doesContainData(matcher, () -> false);
+  }
 
-    if (len != 0 && this.file.length() >= len) {
-      final ByteBuffer buffer = ByteBuffer.wrap(dataBuffer);
-      final int[] counters = new int[len];
+  /**
+   * Check that the file contains a pattern, the scan can be cancelled both by thread interruption and by flag which is checked during scan of bytes.
+   *
+   * @param matcher   matcher of pattern, must not be null
+   * @param cancelled cancel flag, must not be null
+   * @return true if the pattern is found, false otherwise
+   * @throws IOException if any transport error, thread interruption or cancel
+   */
+  public boolean doesContainData(@Nonnull final BytePatternMatcher matcher, @Nonnull final BooleanSupplier cancelled) throws IOException {
+    final BooleanSupplier stop = () -> cancelled.getAsBoolean() || Thread.currentThread().isInterrupted();
+    if (matcher.getMinLength() == 0 || this.file.length() < matcher.getMinLength()) {
+      return false;
+    }
 
-      try (final FileChannel channel = FileChannel.open(this.file.toPath(), StandardOpenOption.READ)) {
+    try (final FileChannel channel = FileChannel.open(this.file.toPath(), StandardOpenOption.READ)) {
+      final long size = channel.size();
+      if (size <= MAX_READ_FULLY_SIZE) {
+        final ByteBuffer buffer = READ_BUFFER.get();
         buffer.clear();
-
-        while (buffer.hasRemaining() && !Thread.currentThread().isInterrupted()) {
-          int read = channel.read(buffer);
-          if (read < 0) {
-            break;
-          }
+        while (buffer.position() < size && channel.read(buffer) >= 0) {
+          checkCancelled(stop);
         }
-
-        if (dataArr1.length == 1) {
-          for (int i = 0; i < buffer.position() && !Thread.currentThread().isInterrupted(); i++) {
-            final byte b = buffer.get(i);
-            if (b == dataArr1[0] || b == dataArr2[0]) {
-              result = true;
-              break;
-            }
+        final boolean found = matcher.find(buffer, 0, buffer.position(), stop);
+        checkCancelled(stop);
+        return found;
+      } else {
+        final int overlap = matcher.getMaxLength() - 1;
+        long position = 0L;
+        while (true) {
+          checkCancelled(stop);
+          final int windowSize = (int) Math.min(MAPPED_WINDOW_SIZE, size - position);
+          final ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+          if (matcher.find(window, 0, windowSize, stop)) {
+            return true;
           }
-        } else {
-          mainLoop:
-          for (int i = 0; i < buffer.position() && !Thread.currentThread().isInterrupted(); i++) {
-            final byte b = buffer.get(i);
-            for (int j = 0; j < len; j++) {
-              int c = counters[j];
-              if (c == 0) {
-                continue;
-              }
-              if (b == dataArr1[c] || b == dataArr2[c]) {
-                c++;
-                if (c == len) {
-                  result = true;
-                  break mainLoop;
-                }
-                counters[j] = c;
-              } else {
-                counters[j] = 0;
-              }
-            }
-            if (b == dataArr1[0] || b == dataArr2[0]) {
-              for (int j = 0; j < len; j++) {
-                if (counters[j] == 0) {
-                  counters[j] = 1;
-                  break;
-                }
-              }
-            }
+          checkCancelled(stop);
+          if (position + windowSize >= size) {
+            return false;
           }
+          position += windowSize - overlap;
         }
       }
     }
-    return result;
+  }
+
+  private static void checkCancelled(@Nonnull final BooleanSupplier stop) throws InterruptedIOException {
+    if (stop.getAsBoolean()) {
+      throw new InterruptedIOException("File scan has been interrupted");
+    }
   }
 }
@@ -19,16 +19,19 @@
 package com.igormaznitsa.sciareto.ui.misc;
 
 import com.google.common.base.Function;
+import com.igormaznitsa.meta.annotation.MustNotContainNull;
 import com.igormaznitsa.mindmap.model.MMapURI;
 import com.igormaznitsa.mindmap.model.MindMap;
 import com.igormaznitsa.mindmap.model.logger.Logger;
 import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
+import com.igormaznitsa.sciareto.index.MapTextIndex;
+import com.igormaznitsa.sciareto.services.TaskScheduler;
 import com.igormaznitsa.sciareto.ui.MapUtils;
 import com.igormaznitsa.sciareto.ui.UiUtils;
-import edu.uci.ics.jung.algorithms.layout.CircleLayout;
 import edu.uci.ics.jung.algorithms.layout.ISOMLayout;
+import edu.uci.ics.jung.algorithms.layout.StaticLayout;
+import edu.uci.ics.jung.algorithms.layout.util.RandomLocationTransformer;
 import edu.uci.ics.jung.graph.DirectedSparseGraph;
-import edu.uci.ics.jung.graph.Graph;
 import edu.uci.ics.jung.graph.util.EdgeType;
 import edu.uci.ics.jung.visualization.DefaultVisualizationModel;
 import edu.uci.ics.jung.visualization.GraphZoomScrollPane;
@@ -48,17 +51,25 @@ import java.awt.Color;
 import java.awt.Cursor;
 import java.awt.Dimension;
 import java.awt.Paint;
-import java.awt.Rectangle;
 import java.awt.Window;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseEvent;
 import java.io.File;
+import java.io.IOException;
 import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.swing.Icon;
@@ -66,6 +77,7 @@ import javax.swing.ImageIcon;
 import javax.swing.JButton;
 import javax.swing.JLabel;
 import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringEscapeUtils;
@@ -84,6 +96,22 @@ public final class FileLinkGraphPanel extends javax.swing.JPanel {
 
   private static final Icon RELAYOUT_ICON = new ImageIcon(UiUtils.loadIcon("graph16.png")); //NOI18N
 
+  private static final int UPDATE_DELAY_MS = 200;
+  private static final int MAX_MAPS_PER_UPDATE = 2000;
+  private static final long LAYOUT_UPDATE_DELAY_MS = 100L;
+
+  private final DirectedSparseGraph<FileVertex, Number> graph = new DirectedSparseGraph<>();
+  private final Map<FileVertex, FileVertex> vertices = new HashMap<>();
+  private final Queue<MapLinks> linkQueue = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean buildCompleted = new AtomicBoolean();
+  private final AtomicBoolean stopped = new AtomicBoolean();
+  private final JLabel labelStatus = new JLabel("Building graph...");
+  private final VisualizationViewer<FileVertex, Number> graphViewer;
+  private final StaticLayout<FileVertex, Number> shownLayout;
+  private final AtomicReference<TaskScheduler.CancellationToken> layoutTask = new AtomicReference<>();
+  private final Timer updateTimer;
+  private int edgeCounter;
+
   public enum FileVertexType {
     FOLDER("folder.png", "Folder"), DOCUMENT("document.png", "Document"), MINDMAP("mindmap.png", "Mind Map"), UNKNOWN("unknown.png", "Unknown"), NOTFOUND("notfound.png", "Not found"); //NOI18N
 
@@ -158,96 +186,177 @@ public final class FileLinkGraphPanel extends javax.swing.JPanel {
     }
   }
 
-  @Nonnull
-  private Graph<FileVertex, Number> makeGraph(@Nullable final File projectFolder, @Nullable final File startMindMap) {
-    final DirectedSparseGraph<FileVertex, Number> result = new DirectedSparseGraph<>();
-
-    final AtomicInteger edgeCounter = new AtomicInteger();
+  /**
+   * Links of a mind map file.
+   */
+  private static final class MapLinks {
 
-    final Set<File> mapFilesInProcessing = new HashSet<>();
+    private final FileVertex source;
+    private final List<FileVertex> targets;
 
-    if (startMindMap != null) {
-      addMindMapAndFillByItsLinks(null, result, projectFolder, startMindMap, edgeCounter, mapFilesInProcessing);
-    } else if (projectFolder != null) {
-      final Iterator<File> iterator = FileUtils.iterateFiles(projectFolder, new String[]{"mmd"}, true); //NOI18N
-      while (iterator.hasNext()) {
-        final File mmdFile = iterator.next();
-        if (mmdFile.isFile()) {
-          addMindMapAndFillByItsLinks(null, result, projectFolder, mmdFile, edgeCounter, mapFilesInProcessing);
-        }
-      }
+    private MapLinks(@Nonnull final FileVertex source, @Nonnull @MustNotContainNull final List<FileVertex> targets) {
+      this.source = source;
+      this.targets = targets;
     }
-
-    return result;
   }
 
-  @Nullable
-  private static FileVertex addMindMapAndFillByItsLinks(@Nullable final FileVertex parent, @Nonnull final @Nullable Graph<FileVertex, Number> graph, @Nullable final File projectFolder, @Nonnull final File mindMapFile, @Nonnull final AtomicInteger edgeCounter, @Nonnull Set<File> mapFilesInProcessing) {
-
-    MindMap map;
-
-    FileVertex thisVertex;
-
+  /**
+   * Build graph of links in background. Maps of every level are read in parallel by the shared fork-join pool, links of maps are taken from project index
+   * and only maps not covered by index are parsed. Read links are placed into queue to be added into graph in swing thread.
+   *
+   * @param projectFolder project folder, can be null
+   * @param startMindMap  start mind map, if null then all maps of project are processed
+   */
+  private void buildGraph(@Nullable final File projectFolder, @Nullable final File startMindMap) {
     try {
+      MapTextIndex index = null;
+      if (projectFolder != null) {
+        index = MapTextIndex.forProject(projectFolder);
+        try {
+          index.refresh();
+        } catch (IOException ex) {
+          LOGGER.error("Can't refresh index of project", ex); //NOI18N
+        }
+      }
+      final MapTextIndex projectIndex = index;
 
-      thisVertex = new FileVertex(mindMapFile, FileVertexType.MINDMAP);
-      map = new MindMap(new StringReader(FileUtils.readFileToString(mindMapFile, "UTF-8"))); //NOI18N
-
-      if (parent != null) {
-        for (final MMapURI fileUri : MapUtils.extractAllFileLinks(map)) {
-          if (parent.getFile().equals(fileUri.asFile(projectFolder))) {
-            graph.addEdge(edgeCounter.getAndIncrement(), thisVertex, parent, EdgeType.DIRECTED);
-            break;
+      List<File> level = new ArrayList<>();
+      if (startMindMap != null) {
+        level.add(startMindMap);
+      } else if (projectFolder != null) {
+        level.addAll(FileUtils.listFiles(projectFolder, new String[]{"mmd"}, true)); //NOI18N
+      }
+      final Set<File> visited = new HashSet<>(level);
+
+      while (!level.isEmpty() && !this.stopped.get()) {
+        final List<File> currentLevel = level;
+        final List<MapLinks> read = TaskScheduler.getInstance().invokeInForkJoinPool(() -> currentLevel.parallelStream()
+            .filter(f -> !this.stopped.get())
+            .map(f -> readLinks(projectIndex, projectFolder, f))
+            .collect(Collectors.toList()));
+        final List<File> nextLevel = new ArrayList<>();
+        for (final MapLinks links : read) {
+          this.linkQueue.add(links);
+          for (final FileVertex target : links.targets) {
+            if (target.getType() == FileVertexType.MINDMAP && visited.add(target.getFile())) {
+              nextLevel.add(target.getFile());
+            }
           }
         }
-        if (mapFilesInProcessing.contains(mindMapFile)) {
-          return null;
-        }
+        level = nextLevel;
       }
+    } catch (Exception ex) {
+      LOGGER.error("Error during graph building", ex); //NOI18N
+    } finally {
+      this.buildCompleted.set(true);
     }
-    catch (final Exception ex) {
-      LOGGER.error("Can't load mind map : " + mindMapFile, ex); //NOI18N
-      thisVertex = new FileVertex(mindMapFile, FileVertexType.UNKNOWN);
-      map = null;
-    }
-
-    mapFilesInProcessing.add(mindMapFile);
-
-    graph.addVertex(thisVertex);
+  }
 
-    if (map != null) {
-      for (final MMapURI fileUri : MapUtils.extractAllFileLinks(map)) {
-        final FileVertex that;
+  @Nonnull
+  private static MapLinks readLinks(@Nullable final MapTextIndex index, @Nullable final File projectFolder, @Nonnull final File mindMapFile) {
+    List<MMapURI> links = index == null ? null : index.getFileLinks(mindMapFile);
+    if (links == null) {
+      try {
+        links = MapUtils.extractAllFileLinks(new MindMap(new StringReader(FileUtils.readFileToString(mindMapFile, "UTF-8")))); //NOI18N
+      } catch (Exception ex) {
+        LOGGER.error("Can't load mind map : " + mindMapFile, ex); //NOI18N
+        return new MapLinks(new FileVertex(mindMapFile, FileVertexType.UNKNOWN), Collections.<FileVertex>emptyList());
+      }
+    }
 
-        final File convertedFile = convertUriInFile(mindMapFile, projectFolder, fileUri);
+    final FileVertex thisVertex = new FileVertex(mindMapFile, FileVertexType.MINDMAP);
+    final List<FileVertex> targets = new ArrayList<>(links.size());
+    for (final MMapURI fileUri : links) {
+      final File convertedFile = convertUriInFile(mindMapFile, projectFolder, fileUri);
+      if (convertedFile == null) {
+        targets.add(new FileVertex(fileUri.asFile(projectFolder), FileVertexType.NOTFOUND));
+      } else if (convertedFile.isDirectory()) {
+        targets.add(new FileVertex(convertedFile, FileVertexType.FOLDER));
+      } else if (convertedFile.isFile()) {
+        if (convertedFile.getName().endsWith(".mmd")) { //NOI18N
+          targets.add(convertedFile.equals(mindMapFile) ? thisVertex : new FileVertex(convertedFile, FileVertexType.MINDMAP));
+        } else {
+          targets.add(new FileVertex(convertedFile, FileVertexType.DOCUMENT));
+        }
+      } else {
+        targets.add(new FileVertex(convertedFile, convertedFile.exists() ? FileVertexType.UNKNOWN : FileVertexType.NOTFOUND));
+      }
+    }
+    return new MapLinks(thisVertex, targets);
+  }
 
-        if (convertedFile == null) {
-          that = new FileVertex(fileUri.asFile(projectFolder), FileVertexType.NOTFOUND);
-        } else if (convertedFile.isDirectory()) {
-          that = new FileVertex(convertedFile, FileVertexType.FOLDER);
-        } else if (convertedFile.isFile()) {
+  /**
+   * Move read links from queue into graph, called in swing thread.
+   *
+   * @return true if graph has been changed
+   */
+  private boolean drainLinkQueue() {
+    boolean changed = false;
+    int counter = 0;
+    MapLinks links;
+    while (counter < MAX_MAPS_PER_UPDATE && (links = this.linkQueue.poll()) != null) {
+      counter++;
+      final FileVertex source = findVertex(links.source);
+      if (!this.graph.containsVertex(source)) {
+        this.graph.addVertex(source);
+      }
+      for (final FileVertex target : links.targets) {
+        this.graph.addEdge(this.edgeCounter++, source, findVertex(target), EdgeType.DIRECTED);
+      }
+      changed = true;
+    }
+    return changed;
+  }
 
-          if (convertedFile.getName().endsWith(".mmd")) { //NOI18N
-            if (convertedFile.equals(mindMapFile)) {
-              that = thisVertex;
-            } else {
-              that = addMindMapAndFillByItsLinks(thisVertex, graph, projectFolder, convertedFile, edgeCounter, mapFilesInProcessing);
-            }
-          } else {
-            that = new FileVertex(convertedFile, FileVertexType.DOCUMENT);
-          }
+  /**
+   * Start layout of completed graph in background, previous started layout is cancelled. Called in swing thread.
+   */
+  private void startLayout() {
+    cancelLayout();
+    this.layoutTask.set(TaskScheduler.getInstance().submit(TaskScheduler.Priority.BACKGROUND, this::layoutGraph));
+  }
 
-        } else {
-          that = new FileVertex(convertedFile, convertedFile.exists() ? FileVertexType.UNKNOWN : FileVertexType.NOTFOUND);
-        }
+  private void cancelLayout() {
+    final TaskScheduler.CancellationToken prev = this.layoutTask.getAndSet(null);
+    if (prev != null) {
+      prev.cancel();
+    }
+  }
 
-        if (that != null) {
-          graph.addEdge(edgeCounter.getAndIncrement(), thisVertex, that, EdgeType.DIRECTED);
-        }
+  /**
+   * Make iterative layout of the graph, started from shown positions of vertices. New positions are periodically copied into shown layout
+   * and the graph is repainted, so that user can see progress and work with the graph during layout.
+   */
+  private void layoutGraph() {
+    final ISOMLayout<FileVertex, Number> layout = new ISOMLayout<>(this.graph);
+    layout.setInitializer(this.shownLayout);
+    layout.setSize(this.shownLayout.getSize());
+
+    long nextUpdate = System.currentTimeMillis() + LAYOUT_UPDATE_DELAY_MS;
+    while (!layout.done()) {
+      if (this.stopped.get() || Thread.currentThread().isInterrupted()) {
+        return;
+      }
+      layout.step();
+      if (System.currentTimeMillis() >= nextUpdate) {
+        showLocations(layout);
+        nextUpdate = System.currentTimeMillis() + LAYOUT_UPDATE_DELAY_MS;
       }
     }
+    showLocations(layout);
+  }
 
-    return thisVertex;
+  private void showLocations(@Nonnull final ISOMLayout<FileVertex, Number> layout) {
+    for (final FileVertex v : this.graph.getVertices()) {
+      this.shownLayout.setLocation(v, layout.apply(v));
+    }
+    this.graphViewer.repaint();
+  }
+
+  @Nonnull
+  private FileVertex findVertex(@Nonnull final FileVertex vertex) {
+    final FileVertex existing = this.vertices.putIfAbsent(vertex, vertex);
+    return existing == null ? vertex : existing;
   }
 
   @Nullable
@@ -275,112 +384,143 @@ public final class FileLinkGraphPanel extends javax.swing.JPanel {
 
     final Dimension SCROLL_COMPONENT_SIZE = new Dimension(600, 450);
 
-    final Graph<FileVertex, Number> graph = makeGraph(projectFolder, startMindMap);
-
-    if (graph.getVertexCount() == 0) {
+    final Dimension layoutSize = new Dimension(2000, 2000);
+    // vertices get random positions while graph is building, the layout is made in background after graph completion
+    this.shownLayout = new StaticLayout<>(this.graph, new RandomLocationTransformer<FileVertex>(layoutSize), layoutSize);
+    final VisualizationModel<FileVertex, Number> viewModel = new DefaultVisualizationModel<>(this.shownLayout, layoutSize);
+    final VisualizationViewer<FileVertex, Number> graphViewer = new VisualizationViewer<>(viewModel, new Dimension(800, 800));
+    this.graphViewer = graphViewer;
+
+    final DefaultModalGraphMouse graphMouse = new DefaultModalGraphMouse() {
+      @Override
+      protected void loadPlugins() {
+        this.scalingPlugin = new ScalingGraphMousePlugin(new ViewScalingControl(), 0);
+        this.pickingPlugin = new PickingGraphMousePlugin();
+        add(this.scalingPlugin);
+        add(this.pickingPlugin);
+        setMode(Mode.PICKING);
+      }
 
-      this.add(new JLabel("There is not any Mind map in the project!"), BorderLayout.CENTER);
+    };
+    graphViewer.setGraphMouse(graphMouse);
 
-    } else {
-      final ISOMLayout<FileVertex, Number> graphLayout = new ISOMLayout<>(graph);
-
-      final VisualizationModel<FileVertex, Number> viewModel = new DefaultVisualizationModel<>(graphLayout, new Dimension(2000, 2000));
-      final VisualizationViewer<FileVertex, Number> graphViewer = new VisualizationViewer<>(viewModel, new Dimension(800, 800));
-
-      final DefaultModalGraphMouse graphMouse = new DefaultModalGraphMouse() {
-        @Override
-        protected void loadPlugins() {
-          this.scalingPlugin = new ScalingGraphMousePlugin(new ViewScalingControl(), 0);
-          this.pickingPlugin = new PickingGraphMousePlugin();
-          add(this.scalingPlugin);
-          add(this.pickingPlugin);
-          setMode(Mode.PICKING);
-        }
+    graphViewer.getRenderContext().setVertexIconTransformer(new Function<FileVertex, Icon>() {
+      @Override
+      public Icon apply(@Nonnull final FileVertex f) {
+        return f.getType().getIcon();
+      }
+    });
 
-      };
-      graphViewer.setGraphMouse(graphMouse);
-      graphViewer.setGraphLayout(new CircleLayout<>(graph));
+    graphViewer.setBackground(COLOR_BACKGROUND);
+    graphViewer.getRenderContext().setVertexLabelTransformer(new ToStringLabeller());
 
-      graphViewer.getRenderContext().setVertexIconTransformer(new Function<FileVertex, Icon>() {
-        @Override
-        public Icon apply(@Nonnull final FileVertex f) {
-          return f.getType().getIcon();
-        }
-      });
+    final DefaultVertexLabelRenderer labelRenderer = new DefaultVertexLabelRenderer(COLOR_LABELS);
 
-      graphViewer.setBackground(COLOR_BACKGROUND);
-      graphViewer.getRenderContext().setVertexLabelTransformer(new ToStringLabeller());
+    graphViewer.getRenderContext().setVertexLabelRenderer(labelRenderer);
+    graphViewer.getRenderer().getVertexLabelRenderer().setPosition(Renderer.VertexLabel.Position.S);
 
-      final DefaultVertexLabelRenderer labelRenderer = new DefaultVertexLabelRenderer(COLOR_LABELS);
+    final Function<Number, Paint> edgePaintTransformer = new Function<Number, Paint>() {
+      @Override
+      public Paint apply(@Nonnull final Number input) {
+        return COLOR_ARROW;
+      }
+    };
 
-      graphViewer.getRenderContext().setVertexLabelRenderer(labelRenderer);
-      graphViewer.getRenderer().getVertexLabelRenderer().setPosition(Renderer.VertexLabel.Position.S);
+    graphViewer.getRenderContext().setEdgeDrawPaintTransformer(edgePaintTransformer);
+    graphViewer.getRenderContext().setArrowFillPaintTransformer(edgePaintTransformer);
+    graphViewer.getRenderContext().setArrowDrawPaintTransformer(edgePaintTransformer);
 
-      final Function<Number, Paint> edgePaintTransformer = new Function<Number, Paint>() {
-        @Override
-        public Paint apply(@Nonnull final Number input) {
-          return COLOR_ARROW;
+    graphViewer.setVertexToolTipTransformer(new Function<FileVertex, String>() {
+      @Override
+      @Nonnull
+      public String apply(@Nonnull final FileVertex f) {
+        return f.getTooltip();
+      }
+    });
+
+    graphViewer.addGraphMouseListener(new GraphMouseListener<FileVertex>() {
+      @Override
+      public void graphClicked(@Nonnull final FileVertex v, @Nonnull final MouseEvent me) {
+        if (!me.isPopupTrigger() && me.getClickCount() > 1 && v.getType() != FileVertexType.NOTFOUND) {
+          selectedVertex = v;
+          final Window window = SwingUtilities.getWindowAncestor(graphViewer);
+          if (window != null) {
+            window.setVisible(false);
+          }
         }
-      };
+      }
 
-      graphViewer.getRenderContext().setEdgeDrawPaintTransformer(edgePaintTransformer);
-      graphViewer.getRenderContext().setArrowFillPaintTransformer(edgePaintTransformer);
-      graphViewer.getRenderContext().setArrowDrawPaintTransformer(edgePaintTransformer);
+      @Override
+      public void graphPressed(@Nonnull final FileVertex v, @Nonnull final MouseEvent me) {
+      }
 
-      graphViewer.setVertexToolTipTransformer(new Function<FileVertex, String>() {
-        @Override
-        @Nonnull
-        public String apply(@Nonnull final FileVertex f) {
-          return f.getTooltip();
-        }
-      });
-
-      graphViewer.addGraphMouseListener(new GraphMouseListener<FileVertex>() {
-        @Override
-        public void graphClicked(@Nonnull final FileVertex v, @Nonnull final MouseEvent me) {
-          if (!me.isPopupTrigger() && me.getClickCount() > 1 && v.getType() != FileVertexType.NOTFOUND) {
-            selectedVertex = v;
-            final Window window = SwingUtilities.getWindowAncestor(graphViewer);
-            if (window != null) {
-              window.setVisible(false);
-            }
-          }
-        }
+      @Override
+      public void graphReleased(@Nonnull final FileVertex v, @Nonnull final MouseEvent me) {
+      }
+    });
 
-        @Override
-        public void graphPressed(@Nonnull final FileVertex v, @Nonnull final MouseEvent me) {
-        }
+    final GraphZoomScrollPane scroll = new GraphZoomScrollPane(graphViewer);
+    scroll.setPreferredSize(SCROLL_COMPONENT_SIZE);
 
-        @Override
-        public void graphReleased(@Nonnull final FileVertex v, @Nonnull final MouseEvent me) {
-        }
-      });
+    UiUtils.makeOwningDialogResizable(this);
+
+    graphViewer.scaleToLayout(new LayoutScalingControl());
 
-      final GraphZoomScrollPane scroll = new GraphZoomScrollPane(graphViewer);
-      scroll.setPreferredSize(SCROLL_COMPONENT_SIZE);
+    final JButton layoutButton = new JButton(RELAYOUT_ICON);
+    layoutButton.setToolTipText("Relayout graph");
+    layoutButton.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+    layoutButton.setEnabled(false);
+    layoutButton.addActionListener(new ActionListener() {
+      @Override
+      public void actionPerformed(@Nonnull final ActionEvent e) {
+        startLayout();
+      }
+    });
 
-      UiUtils.makeOwningDialogResizable(this);
+    scroll.setCorner(layoutButton);
 
-      graphViewer.scaleToLayout(new LayoutScalingControl());
+    this.add(scroll, BorderLayout.CENTER);
+    this.add(this.labelStatus, BorderLayout.SOUTH);
 
-      final JButton layoutButton = new JButton(RELAYOUT_ICON);
-      layoutButton.setToolTipText("Relayout graph");
-      layoutButton.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
-      layoutButton.addActionListener(new ActionListener() {
-        @Override
-        public void actionPerformed(@Nonnull final ActionEvent e) {
-          final Rectangle visible = scroll.getVisibleRect();
-          graphViewer.setGraphLayout(new CircleLayout<>(graph));
+    this.updateTimer = new Timer(UPDATE_DELAY_MS, new ActionListener() {
+      @Override
+      public void actionPerformed(@Nonnull final ActionEvent e) {
+        if (drainLinkQueue()) {
+          labelStatus.setText(String.format("Building graph... vertices: %d, links: %d", graph.getVertexCount(), graph.getEdgeCount()));
           graphViewer.repaint();
-          scroll.revalidate();
-          scroll.repaint();
         }
-      });
+        if (buildCompleted.get() && linkQueue.isEmpty()) {
+          updateTimer.stop();
+          onGraphCompleted(scroll, layoutButton);
+        }
+      }
+    });
+    this.updateTimer.start();
 
-      scroll.setCorner(layoutButton);
+    TaskScheduler.getInstance().submit(TaskScheduler.Priority.BACKGROUND, () -> buildGraph(projectFolder, startMindMap));
+  }
 
-      this.add(scroll, BorderLayout.CENTER);
+  private void onGraphCompleted(@Nonnull final GraphZoomScrollPane scroll, @Nonnull final JButton layoutButton) {
+    if (this.graph.getVertexCount() == 0) {
+      this.remove(scroll);
+      this.labelStatus.setText("There is not any Mind map in the project!");
+    } else {
+      this.labelStatus.setText(String.format("Vertices: %d, links: %d", this.graph.getVertexCount(), this.graph.getEdgeCount()));
+      layoutButton.setEnabled(true);
+      if (!this.stopped.get()) {
+        startLayout();
+      }
     }
+    this.revalidate();
+    this.repaint();
+  }
+
+  @Override
+  public void removeNotify() {
+    this.stopped.set(true);
+    this.updateTimer.stop();
+    cancelLayout();
+    super.removeNotify();
   }
 
   @Nullable
@@ -23,37 +23,37 @@ import java.awt.event.KeyEvent;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
-import java.util.regex.Pattern;
+import java.util.Map;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.swing.ListModel;
+import javax.swing.SwingUtilities;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 import javax.swing.event.ListDataEvent;
 import javax.swing.event.ListDataListener;
 import com.igormaznitsa.mindmap.swing.panel.utils.Focuser;
+import com.igormaznitsa.sciareto.preferences.PrefUtils;
+import com.igormaznitsa.sciareto.services.TaskScheduler;
 import com.igormaznitsa.sciareto.ui.UiUtils;
 import com.igormaznitsa.sciareto.ui.tree.ExplorerTree;
-import com.igormaznitsa.sciareto.ui.tree.NodeFileOrFolder;
+import com.igormaznitsa.sciareto.ui.tree.FileNameIndex;
 
-public class GoToFilePanel extends javax.swing.JPanel implements Comparator<NodeFileOrFolder> {
+public class GoToFilePanel extends javax.swing.JPanel {
 
   private static final long serialVersionUID = 6372355072139143322L;
 
+  private static final int MAX_SHOWN_FILES = 256;
+
   private final ExplorerTree tree;
 
-  private final transient List<NodeFileOrFolder> foundNodeList = new ArrayList<>();
+  private final transient List<FileNameIndex.Match> foundNodeList = new ArrayList<>();
   private final transient List<ListDataListener> listeners = new ArrayList<>();
+  private final transient Map<FileNameIndex, FileNameIndex.Result> previousResults = new HashMap<>();
 
   private final Object dialogOkObject;
-  
-  @Override
-  public int compare(@Nonnull final NodeFileOrFolder o1, @Nonnull final NodeFileOrFolder o2) {
-    return o1.toString().compareTo(o2.toString());
-  }
 
   @SuppressWarnings("ResultOfObjectAllocationIgnored")
   public GoToFilePanel(@Nonnull final ExplorerTree tree, @Nullable final Object dialogOkObject) {
@@ -87,7 +87,7 @@ public class GoToFilePanel extends javax.swing.JPanel implements Comparator<Node
       }
     });
 
-    this.listFoundFiles.setModel(new ListModel<NodeFileOrFolder>() {
+    this.listFoundFiles.setModel(new ListModel<FileNameIndex.Match>() {
 
       @Override
       public int getSize() {
@@ -96,7 +96,7 @@ public class GoToFilePanel extends javax.swing.JPanel implements Comparator<Node
 
       @Override
       @Nonnull
-      public NodeFileOrFolder getElementAt(final int index) {
+      public FileNameIndex.Match getElementAt(final int index) {
         return foundNodeList.get(index);
       }
 
@@ -111,57 +111,47 @@ public class GoToFilePanel extends javax.swing.JPanel implements Comparator<Node
       }
 
     });
+
+    // files can be changed in folders which are not watched, so indexes are refreshed by changed folders
+    final boolean showHidden = PrefUtils.isShowHiddenFilesAndFolders();
+    for (final FileNameIndex index : this.tree.getNameIndexes()) {
+      TaskScheduler.getInstance().submit(TaskScheduler.Priority.INTERACTIVE, () -> {
+        if (index.refresh(showHidden)) {
+          SwingUtilities.invokeLater(this::processEnteredPattern);
+        }
+      });
+    }
   }
 
   @Nullable
-  public NodeFileOrFolder getSelected() {
-    return this.listFoundFiles.getSelectedValue();
+  public File getSelectedFile() {
+    final FileNameIndex.Match selected = this.listFoundFiles.getSelectedValue();
+    return selected == null ? null : selected.getFile();
   }
 
   private void processEnteredPattern() {
+    final String text = this.textFieldMask.getText().trim();
     this.foundNodeList.clear();
-    this.foundNodeList.addAll(this.tree.findForNamePattern(makePattern(this.textFieldMask.getText())));
+    for (final FileNameIndex index : this.tree.getNameIndexes()) {
+      final FileNameIndex.Result result = index.find(text, this.previousResults.get(index), MAX_SHOWN_FILES);
+      this.previousResults.put(index, result);
+      this.foundNodeList.addAll(result.getMatches());
+    }
+    Collections.sort(this.foundNodeList);
+    if (this.foundNodeList.size() > MAX_SHOWN_FILES) {
+      this.foundNodeList.subList(MAX_SHOWN_FILES, this.foundNodeList.size()).clear();
+    }
+
     for (final ListDataListener l : this.listeners) {
       l.contentsChanged(new ListDataEvent(this.listFoundFiles.getModel(), ListDataEvent.CONTENTS_CHANGED, 0, this.foundNodeList.size()));
     }
 
-    Collections.sort(this.foundNodeList, this);
-
     if (!this.foundNodeList.isEmpty()) {
       this.listFoundFiles.setSelectedIndex(0);
       this.listFoundFiles.ensureIndexIsVisible(0);
     }
   }
 
-  @Nullable
-  private Pattern makePattern(@Nonnull final String text) {
-    if (text.isEmpty()) {
-      return null;
-    }
-    final StringBuilder buffer = new StringBuilder();
-    for (final char c : text.toCharArray()) {
-      switch (c) {
-        case '?':
-          buffer.append('.');
-          break;
-        case '*':
-          buffer.append(".*"); //NOI18N
-          break;
-        default: {
-          if (Character.isWhitespace(c) || Character.isISOControl(c)) {
-            buffer.append("\\s"); //NOI18N
-          } else {
-            final String code = Integer.toHexString(c).toUpperCase(Locale.ENGLISH);
-            buffer.append("\\u").append("0000", 0, 4 - code.length()).append(code); //NOI18N
-          }
-        }
-        break;
-      }
-    }
-    buffer.append(".*"); //NOI18N
-    return Pattern.compile(buffer.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
-  }
-
   /**
    * This method is called from within the constructor to initialize the form. WARNING: Do NOT modify this code. The content of this method is always regenerated by the Form
    * Editor.
@@ -178,7 +168,7 @@ public class GoToFilePanel extends javax.swing.JPanel implements Comparator<Node
 
     setLayout(new java.awt.GridBagLayout());
 
-    labelFilenameMask.setText("File Name prefix (wildcards: ? and *)");
+    labelFilenameMask.setText("File name or its characters in order (wildcards: ? and *)");
     gridBagConstraints = new java.awt.GridBagConstraints();
     gridBagConstraints.gridx = 0;
     gridBagConstraints.gridy = 0;
@@ -227,8 +217,8 @@ public class GoToFilePanel extends javax.swing.JPanel implements Comparator<Node
     if (index < 0) {
       this.listFoundFiles.setToolTipText(null);
     } else {
-      final File file = ((NodeFileOrFolder) model.getElementAt(index)).makeFileForNode();
-      this.listFoundFiles.setToolTipText(file == null ? null : file.getAbsolutePath());
+      final File file = ((FileNameIndex.Match) model.getElementAt(index)).getFile();
+      this.listFoundFiles.setToolTipText(file.getAbsolutePath());
     }
   }//GEN-LAST:event_listFoundFilesMouseMoved
 
@@ -278,7 +268,7 @@ public class GoToFilePanel extends javax.swing.JPanel implements Comparator<Node
   // Variables declaration - do not modify//GEN-BEGIN:variables
   private javax.swing.JScrollPane jScrollPane1;
   private javax.swing.JLabel labelFilenameMask;
-  private javax.swing.JList<NodeFileOrFolder> listFoundFiles;
+  private javax.swing.JList<FileNameIndex.Match> listFoundFiles;
   private javax.swing.JTextField textFieldMask;
   // End of variables declaration//GEN-END:variables
 }
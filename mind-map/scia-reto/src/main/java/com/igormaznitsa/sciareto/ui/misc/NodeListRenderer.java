@@ -20,6 +20,7 @@ package com.igormaznitsa.sciareto.ui.misc;
 
 import java.awt.Color;
 import java.awt.Component;
+import java.io.File;
 import java.util.Locale;
 import javax.annotation.Nonnull;
 import javax.swing.DefaultListCellRenderer;
@@ -28,6 +29,7 @@ import javax.swing.UIManager;
 import org.apache.commons.io.FilenameUtils;
 import com.igormaznitsa.sciareto.ui.Icons;
 import com.igormaznitsa.sciareto.ui.editors.PictureViewer;
+import com.igormaznitsa.sciareto.ui.tree.FileNameIndex;
 import com.igormaznitsa.sciareto.ui.tree.NodeFileOrFolder;
 import com.igormaznitsa.sciareto.ui.tree.NodeProject;
 import com.igormaznitsa.sciareto.ui.tree.TreeCellRenderer;
@@ -72,9 +74,23 @@ public final class NodeListRenderer extends DefaultListCellRenderer {
   public Component getListCellRendererComponent(@Nonnull final JList<?> list, @Nonnull final Object value, final int index, final boolean isSelected, final boolean cellHasFocus) {
     final JLabel result = (JLabel)super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
    
-    final NodeFileOrFolder node = (NodeFileOrFolder) value;
+    final boolean folder;
+    final String text;
+    if (value instanceof FileNameIndex.Match) {
+      final FileNameIndex.Match match = (FileNameIndex.Match) value;
+      folder = match.isFolder();
+      text = match.getName() + " (found in " + match.getIndexTitle() + ')';
+    } else if (value instanceof File) {
+      final File file = (File) value;
+      folder = false;
+      text = file.getName() + " (found in " + file.getParent() + ')';
+    } else {
+      final NodeFileOrFolder node = (NodeFileOrFolder) value;
+      folder = node instanceof NodeProject || !node.isLeaf();
+      text = makeTextForNode(node);
+    }
 
-    final String ext = FilenameUtils.getExtension(node.toString()).toLowerCase(Locale.ENGLISH);
+    final String ext = FilenameUtils.getExtension(value instanceof File ? ((File) value).getName() : value.toString()).toLowerCase(Locale.ENGLISH);
 
     if (!isSelected && COLOR_ROW_EVEN != null && COLOR_ROW_ODD != null) {
       if (index % 2 == 0) {
@@ -84,7 +100,7 @@ public final class NodeListRenderer extends DefaultListCellRenderer {
       }
     }
 
-    if (node instanceof NodeProject || !node.isLeaf()) {
+    if (folder) {
       result.setIcon(TreeCellRenderer.DEFAULT_FOLDER_CLOSED);
     } else if (ext.equals("mmd")) { //NOI18N
       result.setIcon(Icons.DOCUMENT.getIcon());
@@ -93,7 +109,7 @@ public final class NodeListRenderer extends DefaultListCellRenderer {
     } else {
       result.setIcon(TreeCellRenderer.DEFAULT_FILE);
     }
-    result.setText(makeTextForNode(node));
+    result.setText(text);
     
     return result;
   }
@@ -58,7 +58,6 @@ import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Locale;
-import java.util.regex.Pattern;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.swing.DropMode;
@@ -73,6 +72,8 @@ import javax.swing.JSeparator;
 import javax.swing.JTree;
 import javax.swing.SwingUtilities;
 import javax.swing.ToolTipManager;
+import javax.swing.event.TreeExpansionEvent;
+import javax.swing.event.TreeExpansionListener;
 import javax.swing.tree.TreePath;
 import javax.swing.tree.TreeSelectionModel;
 import org.apache.commons.io.FileUtils;
@@ -104,6 +105,27 @@ public final class ExplorerTree extends JScrollPane {
     this.projectTree.setRootVisible(false);
     this.setViewportView(this.projectTree);
 
+    this.projectTree.addTreeExpansionListener(new TreeExpansionListener() {
+      @Override
+      public void treeExpanded(@Nonnull final TreeExpansionEvent event) {
+        final Enumeration<TreePath> expanded = projectTree.getExpandedDescendants(event.getPath());
+        while (expanded != null && expanded.hasMoreElements()) {
+          final Object node = expanded.nextElement().getLastPathComponent();
+          if (node instanceof NodeFileOrFolder && !(node instanceof NodeProjectGroup)) {
+            ((NodeFileOrFolder) node).startWatching();
+          }
+        }
+      }
+
+      @Override
+      public void treeCollapsed(@Nonnull final TreeExpansionEvent event) {
+        final Object node = event.getPath().getLastPathComponent();
+        if (node instanceof NodeFileOrFolder && !(node instanceof NodeProjectGroup)) {
+          ((NodeFileOrFolder) node).stopWatching();
+        }
+      }
+    });
+
     this.projectTree.addKeyListener(new KeyAdapter() {
       @Override
       public void keyPressed(@Nonnull final KeyEvent e) {
@@ -232,8 +254,8 @@ public final class ExplorerTree extends JScrollPane {
 
   @Nonnull
   @MustNotContainNull
-  public List<NodeFileOrFolder> findForNamePattern(@Nullable final Pattern namePattern) {
-    return getCurrentGroup().findForNamePattern(namePattern);
+  public List<FileNameIndex> getNameIndexes() {
+    return getCurrentGroup().getNameIndexes();
   }
 
   @Nonnull
@@ -472,19 +494,16 @@ public final class ExplorerTree extends JScrollPane {
 
         final FindUsagesPanel panel = new FindUsagesPanel(context, node, false);
         if (DialogProviderManager.getInstance().getDialogProvider().msgOkCancel(null, "Find usages in all opened projects", panel)) {
-          final NodeFileOrFolder selected = panel.getSelected();
+          final File file = panel.getSelectedFile();
           panel.dispose();
-          if (selected != null) {
-            final File file = selected.makeFileForNode();
-            if (file != null) {
-              context.focusInTree(file);
-              SwingUtilities.invokeLater(new Runnable() {
-                @Override
-                public void run() {
-                  requestFocus();
-                }
-              });
-            }
+          if (file != null) {
+            context.focusInTree(file);
+            SwingUtilities.invokeLater(new Runnable() {
+              @Override
+              public void run() {
+                requestFocus();
+              }
+            });
           }
         } else {
           panel.dispose();
@@ -501,19 +520,16 @@ public final class ExplorerTree extends JScrollPane {
           final FindFilesForTextPanel panel = new FindFilesForTextPanel(context, node, JOptionPane.OK_OPTION);
 
           if (DialogProviderManager.getInstance().getDialogProvider().msgOkCancel(null, "Find files for text in '" + node.name + '\'', panel)) {
-            final NodeFileOrFolder selected = panel.getSelected();
+            final File file = panel.getSelectedFile();
             panel.dispose();
-            if (selected != null) {
-              final File file = selected.makeFileForNode();
-              if (file != null) {
-                context.focusInTree(file);
-                SwingUtilities.invokeLater(new Runnable() {
-                  @Override
-                  public void run() {
-                    requestFocus();
-                  }
-                });
-              }
+            if (file != null) {
+              context.focusInTree(file);
+              SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                  requestFocus();
+                }
+              });
             }
           } else {
             panel.dispose();
@@ -582,9 +598,8 @@ public final class ExplorerTree extends JScrollPane {
         }
 
         if (!node.isLeaf()) {
-          final Enumeration<NodeFileOrFolder> children = node.children();
-          while (children.hasMoreElements()) {
-            recursiveGenerateTopics(projectFolder, model, theTopic, children.nextElement());
+          for (final NodeFileOrFolder child : node.loadChildren()) {
+            recursiveGenerateTopics(projectFolder, model, theTopic, child);
           }
         }
 
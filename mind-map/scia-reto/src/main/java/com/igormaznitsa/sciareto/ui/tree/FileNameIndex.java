@@ -0,0 +1,620 @@
+/* 
+ * Copyright (C) 2018 Igor Maznitsa.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package com.igormaznitsa.sciareto.ui.tree;
+
+import com.igormaznitsa.meta.annotation.MustNotContainNull;
+import com.igormaznitsa.mindmap.model.logger.Logger;
+import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
+import com.igormaznitsa.sciareto.Context;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * In-memory index of file names of project to find files by name fragments. Names are kept in tree mirroring folders so that
+ * sub-trees can be removed and added by file system changes, search is made through flat array which is rebuilt only after changes.
+ * Every name has 64 bit mask of its characters so that most of names are rejected without char by char comparison, result of
+ * previous search is reused if query is extended. Every folder keeps its modification time so that the index can be refreshed by
+ * listing of changed folders only.
+ *
+ * @since 1.5.2
+ */
+@ThreadSafe
+public final class FileNameIndex {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(FileNameIndex.class);
+
+  private static final int SCORE_EXACT = 1000;
+  private static final int SCORE_PREFIX = 200;
+  private static final int SCORE_BOUNDARY = 10;
+  private static final int SCORE_CONSECUTIVE = 6;
+  private static final int SCORE_CHAR = 1;
+
+  private final File rootFolder;
+  private final String title;
+  private Entry root;
+  private Entry[] flat;
+  private long version;
+  private boolean built;
+
+  public FileNameIndex(@Nonnull final File rootFolder, @Nonnull final String title) {
+    this.rootFolder = rootFolder.getAbsoluteFile();
+    this.title = title;
+    this.root = new Entry(null, this.rootFolder.getName(), true);
+  }
+
+  @Nonnull
+  public String getTitle() {
+    return this.title;
+  }
+
+  private static long makeMask(@Nonnull final String text) {
+    long result = 0L;
+    for (int i = 0; i < text.length(); i++) {
+      result |= maskBit(Character.toLowerCase(text.charAt(i)));
+    }
+    return result;
+  }
+
+  private static long maskBit(final char c) {
+    final int bit;
+    if (c >= 'a' && c <= 'z') {
+      bit = c - 'a';
+    } else if (c >= '0' && c <= '9') {
+      bit = 26 + c - '0';
+    } else {
+      bit = 36 + c % 28;
+    }
+    return 1L << bit;
+  }
+
+  private static boolean isBoundary(@Nonnull final String name, final int index) {
+    if (index == 0) {
+      return true;
+    }
+    final char prev = name.charAt(index - 1);
+    final char current = name.charAt(index);
+    return !Character.isLetterOrDigit(prev) || (Character.isLowerCase(prev) && Character.isUpperCase(current));
+  }
+
+  /**
+   * Calculate score of name for query, characters of query must be presented in name in the same order.
+   *
+   * @param name  name to be checked, must not be null
+   * @param query lower case query chars, must not be null
+   * @return score of name, negative if name doesn't match
+   */
+  static int score(@Nonnull final String name, @Nonnull final char[] query) {
+    int queryIndex = 0;
+    int result = 0;
+    int prevMatch = -2;
+    boolean prefix = true;
+    for (int i = 0; i < name.length() && queryIndex < query.length; i++) {
+      if (Character.toLowerCase(name.charAt(i)) == query[queryIndex]) {
+        result += SCORE_CHAR;
+        if (i == prevMatch + 1) {
+          result += SCORE_CONSECUTIVE;
+        }
+        if (isBoundary(name, i)) {
+          result += SCORE_BOUNDARY;
+        }
+        prefix &= i == queryIndex;
+        prevMatch = i;
+        queryIndex++;
+      }
+    }
+    if (queryIndex < query.length) {
+      return -1;
+    }
+    if (prefix) {
+      result += name.length() == query.length ? SCORE_EXACT : SCORE_PREFIX;
+    }
+    return result * 64 - Math.min(63, name.length());
+  }
+
+  /**
+   * Read all files of root folder into index.
+   *
+   * @param showHiddenFiles if true then hidden files and folders are indexed
+   */
+  public void rebuild(final boolean showHiddenFiles) {
+    final Entry newRoot = new Entry(null, this.rootFolder.getName(), true);
+    fill(newRoot, this.rootFolder.toPath(), showHiddenFiles, true);
+    synchronized (this) {
+      this.root = newRoot;
+      this.flat = null;
+      this.version++;
+      this.built = true;
+    }
+  }
+
+  private static void fill(@Nonnull final Entry folder, @Nonnull final Path path, final boolean showHiddenFiles, final boolean projectFolder) {
+    final Map<Path, Entry> folders = new HashMap<>();
+    folders.put(path, folder);
+    try {
+      Files.walkFileTree(path, new SimpleFileVisitor<Path>() {
+        @Override
+        @Nonnull
+        public FileVisitResult preVisitDirectory(@Nonnull final Path dir, @Nonnull final BasicFileAttributes attrs) {
+          if (Thread.currentThread().isInterrupted()) {
+            return FileVisitResult.TERMINATE;
+          }
+          if (dir.equals(path)) {
+            folder.modified = attrs.lastModifiedTime().toMillis();
+            return FileVisitResult.CONTINUE;
+          }
+          if (!isVisible(dir, showHiddenFiles, projectFolder && dir.getParent().equals(path))) {
+            return FileVisitResult.SKIP_SUBTREE;
+          }
+          final Entry parent = folders.get(dir.getParent());
+          if (parent == null) {
+            return FileVisitResult.SKIP_SUBTREE;
+          }
+          final Entry child = parent.addChild(dir.getFileName().toString(), true);
+          child.modified = attrs.lastModifiedTime().toMillis();
+          folders.put(dir, child);
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        @Nonnull
+        public FileVisitResult postVisitDirectory(@Nonnull final Path dir, @Nullable final IOException exc) {
+          folders.remove(dir);
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        @Nonnull
+        public FileVisitResult visitFile(@Nonnull final Path file, @Nonnull final BasicFileAttributes attrs) {
+          final Entry parent = folders.get(file.getParent());
+          if (parent != null && isVisible(file, showHiddenFiles, false)) {
+            parent.addChild(file.getFileName().toString(), false);
+          }
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        @Nonnull
+        public FileVisitResult visitFileFailed(@Nonnull final Path file, @Nonnull final IOException exc) {
+          return FileVisitResult.CONTINUE;
+        }
+      });
+    } catch (IOException ex) {
+      LOGGER.warn("Can't index names in " + path + " : " + ex.getMessage()); //NOI18N
+    }
+  }
+
+  /**
+   * Refresh index by changes of file system. Only folders which modification time is changed since the last listing are listed again,
+   * so that the refresh costs one file status request per indexed folder.
+   *
+   * @param showHiddenFiles if true then hidden files and folders are indexed
+   * @return true if the index has been changed, false if it is not changed or not built yet
+   */
+  public boolean refresh(final boolean showHiddenFiles) {
+    final List<Entry> folders = new ArrayList<>();
+    final Map<Entry, File> files = new HashMap<>();
+    synchronized (this) {
+      if (!this.built) {
+        return false;
+      }
+      folders.add(this.root);
+      this.root.collectFolders(folders);
+      for (final Entry f : folders) {
+        files.put(f, f.makeFile(this.rootFolder));
+      }
+    }
+
+    boolean changed = false;
+    for (final Entry folder : folders) {
+      if (Thread.currentThread().isInterrupted()) {
+        break;
+      }
+      final File file = files.get(folder);
+      final long modified = file.lastModified();
+      if (modified == 0L || modified == folder.modified) {
+        continue;
+      }
+
+      final Map<String, Entry> listed = new HashMap<>();
+      final Path path = file.toPath();
+      try (final DirectoryStream<Path> stream = Files.newDirectoryStream(path)) {
+        for (final Path child : stream) {
+          if (isVisible(child, showHiddenFiles, folder == this.root)) {
+            listed.put(child.getFileName().toString(), null);
+          }
+        }
+      } catch (IOException ex) {
+        LOGGER.warn("Can't list folder " + file + " : " + ex.getMessage()); //NOI18N
+        continue;
+      }
+
+      final Map<String, Entry> current;
+      synchronized (this) {
+        current = folder.children == null ? Collections.<String, Entry>emptyMap() : new HashMap<>(folder.children);
+      }
+      for (final Map.Entry<String, Entry> e : listed.entrySet()) {
+        if (!current.containsKey(e.getKey())) {
+          final Path childPath = path.resolve(e.getKey());
+          final boolean childFolder = Files.isDirectory(childPath);
+          final Entry detached = new Entry(null, e.getKey(), childFolder);
+          if (childFolder) {
+            fill(detached, childPath, showHiddenFiles, false);
+          }
+          e.setValue(detached);
+        }
+      }
+
+      synchronized (this) {
+        folder.modified = modified;
+        if (folder.children != null) {
+          final Iterator<Entry> iterator = folder.children.values().iterator();
+          while (iterator.hasNext()) {
+            if (!listed.containsKey(iterator.next().name)) {
+              iterator.remove();
+              changed = true;
+            }
+          }
+        }
+        for (final Entry added : listed.values()) {
+          if (added != null) {
+            folder.attach(added);
+            changed = true;
+          }
+        }
+        if (changed) {
+          this.flat = null;
+          this.version++;
+        }
+      }
+    }
+    return changed;
+  }
+
+  static boolean isVisible(@Nonnull final Path path, final boolean showHiddenFiles, final boolean inProjectFolder) {
+    if (showHiddenFiles) {
+      return true;
+    }
+    try {
+      return !Files.isHidden(path) || (inProjectFolder && Context.KNOWLEDGE_FOLDER.equals(path.getFileName().toString()));
+    } catch (IOException ex) {
+      return false;
+    }
+  }
+
+  @Nullable
+  private Entry findEntry(@Nonnull final Path relative) {
+    Entry current = this.root;
+    for (final Path element : relative) {
+      final Entry next = current.children == null ? null : current.children.get(element.toString());
+      if (next == null) {
+        return null;
+      }
+      current = next;
+    }
+    return current;
+  }
+
+  @Nullable
+  private Path relativize(@Nonnull final File file) {
+    final Path path = file.getAbsoluteFile().toPath();
+    final Path rootPath = this.rootFolder.toPath();
+    return path.startsWith(rootPath) && !path.equals(rootPath) ? rootPath.relativize(path) : null;
+  }
+
+  /**
+   * Add file into index, content of folder is added too.
+   *
+   * @param file            file or folder, must not be null
+   * @param showHiddenFiles if true then hidden files in added folder are indexed
+   */
+  public void add(@Nonnull final File file, final boolean showHiddenFiles) {
+    final Path relative = relativize(file);
+    if (relative == null) {
+      return;
+    }
+    final boolean folder = file.isDirectory();
+    final Entry detached = new Entry(null, file.getName(), folder);
+    if (folder) {
+      fill(detached, file.toPath(), showHiddenFiles, false);
+    }
+    synchronized (this) {
+      final Path parentPath = relative.getParent();
+      final Entry parent = parentPath == null ? this.root : findEntry(parentPath);
+      if (parent != null && parent.folder) {
+        parent.attach(detached);
+        this.flat = null;
+        this.version++;
+      }
+    }
+  }
+
+  /**
+   * Remove file or folder with all its content from index.
+   *
+   * @param file file or folder, must not be null
+   */
+  public synchronized void remove(@Nonnull final File file) {
+    final Path relative = relativize(file);
+    if (relative != null) {
+      final Entry entry = findEntry(relative);
+      if (entry != null && entry.parent != null) {
+        entry.parent.children.remove(entry.name);
+        this.flat = null;
+        this.version++;
+      }
+    }
+  }
+
+  public synchronized int size() {
+    return getFlat().length;
+  }
+
+  @Nonnull
+  @MustNotContainNull
+  private Entry[] getFlat() {
+    if (this.flat == null) {
+      final List<Entry> list = new ArrayList<>();
+      this.root.collect(list);
+      this.flat = list.toArray(new Entry[0]);
+    }
+    return this.flat;
+  }
+
+  /**
+   * Find files which names contain all chars of query in the same order. Wildcards '?' and '*' can be used, in the case name must
+   * match the whole mask started from name beginning.
+   *
+   * @param query    query text, must not be null
+   * @param previous result of previous search in the index, it is used if the new query extends the old one, can be null
+   * @param limit    max number of matches in result
+   * @return search result, must not be null
+   */
+  @Nonnull
+  public Result find(@Nonnull final String query, @Nullable final Result previous, final int limit) {
+    final Entry[] source;
+    final long currentVersion;
+    synchronized (this) {
+      currentVersion = this.version;
+      if (previous != null && previous.index == this && previous.version == currentVersion && !previous.query.isEmpty() && query.startsWith(previous.query) && !isWildcard(query)) {
+        source = previous.candidates;
+      } else {
+        source = getFlat();
+      }
+    }
+
+    if (query.isEmpty()) {
+      return new Result(this, query, currentVersion, new Entry[0], Collections.<Match>emptyList());
+    }
+
+    final List<Entry> candidates = new ArrayList<>();
+    final List<Match> matches = new ArrayList<>();
+
+    if (isWildcard(query)) {
+      final Pattern pattern = makeWildcardPattern(query);
+      for (final Entry e : source) {
+        if (pattern.matcher(e.name).matches()) {
+          candidates.add(e);
+          matches.add(new Match(this, e, SCORE_EXACT * 64 - Math.min(63, e.name.length())));
+        }
+      }
+    } else {
+      final char[] chars = query.toLowerCase(Locale.ROOT).toCharArray();
+      final long mask = makeMask(query);
+      for (final Entry e : source) {
+        if ((e.mask & mask) == mask) {
+          final int score = score(e.name, chars);
+          if (score >= 0) {
+            candidates.add(e);
+            matches.add(new Match(this, e, score));
+          }
+        }
+      }
+    }
+
+    matches.sort(null);
+    return new Result(this, query, currentVersion, candidates.toArray(new Entry[0]), matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches);
+  }
+
+  private static boolean isWildcard(@Nonnull final String query) {
+    return query.indexOf('*') >= 0 || query.indexOf('?') >= 0;
+  }
+
+  @Nonnull
+  private static Pattern makeWildcardPattern(@Nonnull final String text) {
+    final StringBuilder buffer = new StringBuilder();
+    for (final char c : text.toCharArray()) {
+      switch (c) {
+        case '?':
+          buffer.append('.');
+          break;
+        case '*':
+          buffer.append(".*"); //NOI18N
+          break;
+        default:
+          buffer.append(Pattern.quote(String.valueOf(c)));
+          break;
+      }
+    }
+    buffer.append(".*"); //NOI18N
+    return Pattern.compile(buffer.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+  }
+
+  private static final class Entry {
+
+    private final String name;
+    private final long mask;
+    private final boolean folder;
+    private Entry parent;
+    private Map<String, Entry> children;
+    private long modified;
+
+    private Entry(@Nullable final Entry parent, @Nonnull final String name, final boolean folder) {
+      this.parent = parent;
+      this.name = name;
+      this.mask = makeMask(name);
+      this.folder = folder;
+    }
+
+    @Nonnull
+    private Entry addChild(@Nonnull final String childName, final boolean childFolder) {
+      final Entry result = new Entry(this, childName, childFolder);
+      attach(result);
+      return result;
+    }
+
+    private void attach(@Nonnull final Entry child) {
+      if (this.children == null) {
+        this.children = new HashMap<>();
+      }
+      child.parent = this;
+      this.children.put(child.name, child);
+    }
+
+    private void collect(@Nonnull @MustNotContainNull final List<Entry> list) {
+      if (this.children != null) {
+        for (final Entry c : this.children.values()) {
+          list.add(c);
+          c.collect(list);
+        }
+      }
+    }
+
+    private void collectFolders(@Nonnull @MustNotContainNull final List<Entry> list) {
+      if (this.children != null) {
+        for (final Entry c : this.children.values()) {
+          if (c.folder) {
+            list.add(c);
+            c.collectFolders(list);
+          }
+        }
+      }
+    }
+
+    @Nonnull
+    private File makeFile(@Nonnull final File rootFolder) {
+      final List<String> names = new ArrayList<>();
+      for (Entry e = this; e.parent != null; e = e.parent) {
+        names.add(e.name);
+      }
+      File result = rootFolder;
+      for (int i = names.size() - 1; i >= 0; i--) {
+        result = new File(result, names.get(i));
+      }
+      return result;
+    }
+  }
+
+  /**
+   * Found file.
+   */
+  public static final class Match implements Comparable<Match> {
+
+    private final FileNameIndex index;
+    private final Entry entry;
+    private final int score;
+
+    private Match(@Nonnull final FileNameIndex index, @Nonnull final Entry entry, final int score) {
+      this.index = index;
+      this.entry = entry;
+      this.score = score;
+    }
+
+    @Nonnull
+    public File getFile() {
+      return this.entry.makeFile(this.index.rootFolder);
+    }
+
+    @Nonnull
+    public String getName() {
+      return this.entry.name;
+    }
+
+    public boolean isFolder() {
+      return this.entry.folder;
+    }
+
+    @Nonnull
+    public String getIndexTitle() {
+      return this.index.title;
+    }
+
+    public int getScore() {
+      return this.score;
+    }
+
+    @Override
+    public int compareTo(@Nonnull final Match that) {
+      final int result = Integer.compare(that.score, this.score);
+      return result == 0 ? this.entry.name.compareTo(that.entry.name) : result;
+    }
+
+    @Override
+    @Nonnull
+    public String toString() {
+      return this.entry.name;
+    }
+  }
+
+  /**
+   * Result of search, it keeps all matched entries to narrow next search.
+   */
+  public static final class Result {
+
+    private final FileNameIndex index;
+    private final String query;
+    private final long version;
+    private final Entry[] candidates;
+    private final List<Match> matches;
+
+    private Result(@Nonnull final FileNameIndex index, @Nonnull final String query, final long version, @Nonnull @MustNotContainNull final Entry[] candidates, @Nonnull @MustNotContainNull final List<Match> matches) {
+      this.index = index;
+      this.query = query;
+      this.version = version;
+      this.candidates = candidates;
+      this.matches = matches;
+    }
+
+    public int getTotal() {
+      return this.candidates.length;
+    }
+
+    @Nonnull
+    @MustNotContainNull
+    public List<Match> getMatches() {
+      return this.matches;
+    }
+  }
+}
@@ -0,0 +1,178 @@
+/* 
+ * Copyright (C) 2018 Igor Maznitsa.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package com.igormaznitsa.sciareto.ui.tree;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import com.igormaznitsa.mindmap.model.logger.Logger;
+import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
+import com.igormaznitsa.sciareto.services.TaskScheduler;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Watcher of project folders expanded in tree. Events are coalesced during short delay and every changed folder is refreshed only once,
+ * only created and deleted files are tracked because tree shows only names. If events have been lost then all loaded folders of project
+ * are refreshed. The watcher doesn't own a thread, it waits for events by short rounds executed by background threads of {@link TaskScheduler}.
+ *
+ * @since 1.5.2
+ */
+@ThreadSafe
+final class FolderWatcher implements Closeable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(FolderWatcher.class);
+
+  private static final long COALESCE_DELAY_MS = 250L;
+  private static final long MAX_COALESCE_TIME_MS = 2000L;
+  private static final long WAIT_FOR_EVENTS_MS = 500L;
+
+  private final WatchService service;
+  private final NodeProject project;
+  private final Map<WatchKey, NodeFileOrFolder> folders = new ConcurrentHashMap<>();
+  private volatile boolean closed;
+
+  FolderWatcher(@Nonnull final NodeProject project) throws IOException {
+    this.service = FileSystems.getDefault().newWatchService();
+    this.project = project;
+    scheduleRound();
+  }
+
+  private void scheduleRound() {
+    if (!this.closed) {
+      TaskScheduler.getInstance().submit(TaskScheduler.Priority.BACKGROUND, this::round);
+    }
+  }
+
+  void register(@Nonnull final NodeFileOrFolder folder) {
+    if (this.closed) {
+      return;
+    }
+    final File file = folder.makeFileForNode();
+    if (file == null) {
+      return;
+    }
+    try {
+      this.folders.put(file.toPath().register(this.service, ENTRY_CREATE, ENTRY_DELETE), folder);
+    } catch (IOException | ClosedWatchServiceException ex) {
+      LOGGER.warn("Can't watch folder " + file + " : " + ex.getMessage()); //NOI18N
+    }
+  }
+
+  void unregister(@Nonnull final NodeFileOrFolder folder) {
+    this.folders.entrySet().removeIf(e -> {
+      if (e.getValue() == folder) {
+        e.getKey().cancel();
+        return true;
+      }
+      return false;
+    });
+  }
+
+  /**
+   * Wait for events not longer than short delay, so that scheduler thread is returned to pool regularly, then process got events and
+   * schedule next round.
+   */
+  private void round() {
+    try {
+      WatchKey key = this.service.poll(WAIT_FOR_EVENTS_MS, TimeUnit.MILLISECONDS);
+      if (key != null) {
+        final Set<NodeFileOrFolder> changed = new LinkedHashSet<>();
+        final long deadline = System.currentTimeMillis() + MAX_COALESCE_TIME_MS;
+        boolean overflow = false;
+        while (key != null) {
+          overflow |= collect(key, changed);
+          key = System.currentTimeMillis() < deadline ? this.service.poll(COALESCE_DELAY_MS, TimeUnit.MILLISECONDS) : null;
+        }
+        if (overflow) {
+          refresh(this.project, true);
+        } else {
+          for (final NodeFileOrFolder folder : changed) {
+            refresh(folder, false);
+          }
+        }
+      }
+      scheduleRound();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    } catch (ClosedWatchServiceException ex) {
+      // closed
+    }
+  }
+
+  private static void refresh(@Nonnull final NodeFileOrFolder folder, final boolean recursive) {
+    if (!folder.isDisposed()) {
+      try {
+        folder.refreshLoaded(recursive);
+      } catch (Exception ex) {
+        LOGGER.error("Can't refresh folder " + folder, ex); //NOI18N
+      }
+    }
+  }
+
+  /**
+   * Collect folder of key into set of changed folders.
+   *
+   * @param key     signalled key
+   * @param changed set of changed folders
+   * @return true if some events have been lost
+   */
+  private boolean collect(@Nonnull final WatchKey key, @Nonnull final Set<NodeFileOrFolder> changed) {
+    boolean overflow = false;
+    for (final WatchEvent<?> event : key.pollEvents()) {
+      overflow |= event.kind() == OVERFLOW;
+    }
+    final NodeFileOrFolder folder = this.folders.get(key);
+    if (folder == null || folder.isDisposed()) {
+      key.cancel();
+      this.folders.remove(key);
+      return overflow;
+    }
+    changed.add(folder);
+    if (!key.reset()) {
+      this.folders.remove(key);
+    }
+    return overflow;
+  }
+
+  @Override
+  public void close() {
+    this.closed = true;
+    this.folders.clear();
+    try {
+      this.service.close();
+    } catch (IOException ex) {
+      LOGGER.warn("Can't close folder watcher : " + ex.getMessage()); //NOI18N
+    }
+  }
+}
@@ -23,37 +23,45 @@ import com.igormaznitsa.meta.annotation.MustNotContainNull;
 import com.igormaznitsa.meta.annotation.ReturnsOriginal;
 import com.igormaznitsa.meta.common.utils.ArrayUtils;
 import com.igormaznitsa.meta.common.utils.Assertions;
-import com.igormaznitsa.meta.common.utils.IOUtils;
 import com.igormaznitsa.mindmap.model.logger.Logger;
 import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
+import com.igormaznitsa.mindmap.swing.panel.utils.Utils;
 import com.igormaznitsa.sciareto.Context;
 import com.igormaznitsa.sciareto.preferences.PrefUtils;
-import com.igormaznitsa.sciareto.ui.MainFrame;
+import com.igormaznitsa.sciareto.services.TaskScheduler;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicReference;
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import javax.swing.SwingUtilities;
 import javax.swing.event.TreeModelEvent;
 import javax.swing.event.TreeModelListener;
 import javax.swing.tree.TreeModel;
 import javax.swing.tree.TreeNode;
 import javax.swing.tree.TreePath;
 import reactor.core.Exceptions;
-import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.publisher.SignalType;
 
+/**
+ * Node of project tree. Children of folders are read in background when they are requested by tree at first time, children of sub-folders
+ * are prefetched in background when folder is shown in tree. Only folders expanded in tree are watched for changes, changes are applied as
+ * patches so that only changed nodes are touched. Search walks the disk and doesn't create nodes.
+ */
 public class NodeFileOrFolder implements TreeNode, Comparator<NodeFileOrFolder>, Iterable<NodeFileOrFolder> {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(NodeFileOrFolder.class);
@@ -66,12 +74,15 @@ public class NodeFileOrFolder implements TreeNode, Comparator<NodeFileOrFolder>,
   protected volatile String name;
   private volatile boolean noAccess;
   private volatile boolean disposed = false;
+  private volatile boolean loaded;
+  private volatile boolean watched;
+  private final AtomicBoolean prefetched = new AtomicBoolean();
+  private final AtomicBoolean loadingScheduled = new AtomicBoolean();
 
   public NodeFileOrFolder(
       @Nullable final NodeFileOrFolder parent,
       final boolean folder,
       @Nullable final String name,
-      final boolean showHiddenFiles,
       final boolean readOnly
   ) {
     this.parent = parent;
@@ -86,6 +97,7 @@ public class NodeFileOrFolder implements TreeNode, Comparator<NodeFileOrFolder>,
     }
 
     this.readonly = readOnly;
+    this.loaded = !folder || parent == null;
   }
 
   protected static boolean isFileHidden(@Nonnull final Path path) {
@@ -100,6 +112,26 @@ public class NodeFileOrFolder implements TreeNode, Comparator<NodeFileOrFolder>,
     return false;
   }
 
+  /**
+   * Check that children of the node have been read.
+   *
+   * @return true if children are read or the node is file, false otherwise
+   */
+  public boolean isLoaded() {
+    return this.loaded;
+  }
+
+  protected boolean isShowHiddenFiles() {
+    final NodeProject project = findProject();
+    return project == null ? PrefUtils.isShowHiddenFilesAndFolders() : project.isShowHiddenFiles();
+  }
+
+  /**
+   * Get number of loaded nodes in the subtree. Folders which have not been loaded are counted as single nodes.
+   *
+   * @return number of loaded nodes in subtree including the node
+   * @see #findFilesOnDisk()
+   */
   public int size() {
     if (this.folderFlag) {
       int counter = 1;
@@ -116,6 +148,10 @@ public class NodeFileOrFolder implements TreeNode, Comparator<NodeFileOrFolder>,
     return this.readonly;
   }
 
+  boolean isNoAccess() {
+    return this.noAccess;
+  }
+
   public boolean isProjectKnowledgeFolder() {
     return !this.isLeaf() && Context.KNOWLEDGE_FOLDER.equals(this.name); //NOI18N
   }
@@ -151,18 +187,58 @@ public class NodeFileOrFolder implements TreeNode, Comparator<NodeFileOrFolder>,
     }
   }
 
+  @Nullable
+  public NodeFileOrFolder findChild(@Nonnull final String childName) {
+    synchronized (this.children) {
+      for (final NodeFileOrFolder c : this.children) {
+        if (childName.equals(c.name)) {
+          return c;
+        }
+      }
+    }
+    return null;
+  }
+
   @Nonnull
   public NodeFileOrFolder addFile(@Nonnull final File file, final boolean showHiddenFiles) throws IOException {
     Assertions.assertTrue("Unexpected state!", this.folderFlag && file.getParentFile().equals(this.makeFileForNode())); //NOI18N
-    final NodeFileOrFolder result = new NodeFileOrFolder(this, file.isDirectory(), file.getName(), showHiddenFiles, !Files.isWritable(file.toPath()));
+    ensureLoaded();
+    final NodeFileOrFolder existing = findChild(file.getName());
+    if (existing != null) {
+      return existing;
+    }
+    final NodeFileOrFolder result = new NodeFileOrFolder(this, file.isDirectory(), file.getName(), !Files.isWritable(file.toPath()));
     this.children.add(0, result);
     Collections.sort(this.children, this);
+    final FileNameIndex nameIndex = findNameIndex();
+    if (nameIndex != null) {
+      nameIndex.add(file, showHiddenFiles);
+    }
     return result;
   }
 
   public void setName(@Nonnull final String name) throws IOException {
+    final File oldFile = makeFileForNode();
     this.name = name;
-    readSubtree(PrefUtils.isShowHiddenFilesAndFolders()).subscribeOn(MainFrame.REACTOR_SCHEDULER).subscribe();
+    if (this.folderFlag) {
+      resetChildren();
+    }
+    final FileNameIndex nameIndex = findNameIndex();
+    final File newFile = makeFileForNode();
+    if (nameIndex != null && oldFile != null && newFile != null) {
+      final boolean showHidden = isShowHiddenFiles();
+      TaskScheduler.getInstance().submit(TaskScheduler.Priority.BACKGROUND, () -> {
+        nameIndex.remove(oldFile);
+        nameIndex.add(newFile, showHidden);
+      });
+    }
+    readSubtree(PrefUtils.isShowHiddenFilesAndFolders()).subscribeOn(TaskScheduler.getInstance().getReactorScheduler(TaskScheduler.Priority.INTERACTIVE)).subscribe();
+  }
+
+  @Nullable
+  private FileNameIndex findNameIndex() {
+    final NodeProject project = findProject();
+    return project == null ? null : project.getNameIndex();
   }
 
   private void clearChildren() {
@@ -173,55 +249,347 @@ public class NodeFileOrFolder implements TreeNode, Comparator<NodeFileOrFolder>,
     }
   }
 
+  /**
+   * Drop all children, they will be read again by request.
+   */
+  void resetChildren() {
+    synchronized (this) {
+      this.clearChildren();
+      this.loaded = this.parent == null;
+      this.prefetched.set(false);
+    }
+  }
+
+  /**
+   * Read children of folder if they have not been read yet.
+   */
+  void ensureLoaded() {
+    if (!this.loaded) {
+      synchronized (this) {
+        if (!this.loaded && !this.disposed) {
+          this.children.addAll(makeChildren(listFolder()));
+          this.loaded = true;
+        }
+      }
+    }
+  }
+
+  /**
+   * Read children of folder if they have not been read yet and get them. Reading is synchronous so that it should be used only for
+   * explicit actions of user which need subtree, like navigation to file.
+   *
+   * @return list of children, must not be null
+   */
+  @Nonnull
+  @MustNotContainNull
+  public List<NodeFileOrFolder> loadChildren() {
+    ensureLoaded();
+    return getLoadedChildren();
+  }
+
+  @Nonnull
+  @MustNotContainNull
+  private List<NodeFileOrFolder> makeChildren(@Nonnull @MustNotContainNull final List<ChildInfo> listing) {
+    final List<NodeFileOrFolder> result = new ArrayList<>();
+    for (final ChildInfo info : listing) {
+      result.add(info.makeNode(this));
+    }
+    result.sort(this);
+    return result;
+  }
+
+  private void loadInBackground(@Nonnull final TaskScheduler.Priority priority) {
+    if (this.loadingScheduled.compareAndSet(false, true)) {
+      TaskScheduler.getInstance().submit(priority, () -> {
+        if (this.loaded || this.disposed) {
+          this.loadingScheduled.set(false);
+        } else {
+          final List<ChildInfo> listing = listFolder();
+          SwingUtilities.invokeLater(() -> onChildrenListed(listing));
+        }
+      });
+    }
+  }
+
+  private void onChildrenListed(@Nonnull @MustNotContainNull final List<ChildInfo> listing) {
+    this.loadingScheduled.set(false);
+    final List<NodeFileOrFolder> added;
+    synchronized (this) {
+      if (this.loaded || this.disposed) {
+        return;
+      }
+      added = makeChildren(listing);
+      this.children.addAll(added);
+      this.loaded = true;
+    }
+    final NodeProject project = findProject();
+    final NodeProjectGroup group = project == null ? null : project.getGroup();
+    if (group != null && !added.isEmpty()) {
+      group.fireNodesInserted(this, added);
+    }
+  }
+
+  /**
+   * Set restored children and mark folder as loaded.
+   *
+   * @param restored restored children, must not be null
+   * @param noAccess true if folder has not been accessible
+   */
+  void restoreChildren(@Nonnull @MustNotContainNull final List<NodeFileOrFolder> restored, final boolean noAccess) {
+    synchronized (this) {
+      this.clearChildren();
+      this.children.addAll(restored);
+      this.noAccess = noAccess;
+      this.loaded = true;
+    }
+  }
+
+  /**
+   * Get copy of list of current children without loading.
+   *
+   * @return list of children, must not be null
+   */
+  @Nonnull
+  @MustNotContainNull
+  List<NodeFileOrFolder> getLoadedChildren() {
+    return new ArrayList<>(this.children);
+  }
+
+  /**
+   * Start watching of folder for changes, it is called when folder is expanded in tree. Changes made while folder has not been watched
+   * are read in background.
+   */
+  void startWatching() {
+    if (!this.folderFlag || this.watched || this.disposed) {
+      return;
+    }
+    final NodeProject project = findProject();
+    if (project != null) {
+      this.watched = true;
+      project.watchFolder(this);
+      if (this.loaded) {
+        TaskScheduler.getInstance().submit(TaskScheduler.Priority.INTERACTIVE, () -> refreshLoaded(false));
+      }
+    }
+  }
+
+  /**
+   * Stop watching of folder and its loaded sub-folders, it is called when folder is collapsed in tree.
+   */
+  void stopWatching() {
+    if (this.watched) {
+      this.watched = false;
+      final NodeProject project = findProject();
+      if (project != null) {
+        project.unwatchFolder(this);
+      }
+    }
+    for (final NodeFileOrFolder c : getLoadedChildren()) {
+      if (c.folderFlag) {
+        c.stopWatching();
+      }
+    }
+  }
+
+  private void prefetchChildren() {
+    if (this.prefetched.compareAndSet(false, true)) {
+      for (final NodeFileOrFolder c : getLoadedChildren()) {
+        if (c.folderFlag && !c.loaded) {
+          c.loadInBackground(TaskScheduler.Priority.BACKGROUND);
+        }
+      }
+    }
+  }
+
+  /**
+   * Find files of subtree by walking the disk, nodes are neither created nor watched. Hidden files are skipped by the same rules as in
+   * tree.
+   *
+   * @return found files, must not be null
+   */
+  @Nonnull
+  @MustNotContainNull
+  public List<File> findFilesOnDisk() {
+    final File root = makeFileForNode();
+    if (root == null) {
+      return Collections.emptyList();
+    }
+    if (!this.folderFlag) {
+      return Collections.singletonList(root);
+    }
+    final NodeProject project = findProject();
+    final Path rootPath = root.toPath();
+    final Path projectPath = project == null ? null : project.getFolder().toPath();
+    final boolean showHidden = isShowHiddenFiles();
+    final List<File> result = new ArrayList<>();
+    try {
+      Files.walkFileTree(rootPath, new SimpleFileVisitor<Path>() {
+        @Override
+        @Nonnull
+        public FileVisitResult preVisitDirectory(@Nonnull final Path dir, @Nonnull final BasicFileAttributes attrs) {
+          if (Thread.currentThread().isInterrupted()) {
+            return FileVisitResult.TERMINATE;
+          }
+          if (dir.equals(rootPath) || FileNameIndex.isVisible(dir, showHidden, dir.getParent().equals(projectPath))) {
+            return FileVisitResult.CONTINUE;
+          }
+          return FileVisitResult.SKIP_SUBTREE;
+        }
+
+        @Override
+        @Nonnull
+        public FileVisitResult visitFile(@Nonnull final Path file, @Nonnull final BasicFileAttributes attrs) {
+          if (attrs.isRegularFile() && FileNameIndex.isVisible(file, showHidden, false)) {
+            result.add(file.toFile());
+          }
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        @Nonnull
+        public FileVisitResult visitFileFailed(@Nonnull final Path file, @Nonnull final IOException exc) {
+          return FileVisitResult.CONTINUE;
+        }
+      });
+    } catch (IOException ex) {
+      LOGGER.warn("Can't walk folder " + root + " : " + ex.getMessage()); //NOI18N
+    }
+    return result;
+  }
+
+  @Nonnull
+  @MustNotContainNull
+  private List<ChildInfo> listFolder() {
+    final File folder = makeFileForNode();
+    if (folder == null) {
+      return Collections.emptyList();
+    }
+
+    final boolean showHidden = isShowHiddenFiles();
+    final boolean projectFolder = this.parent instanceof NodeProjectGroup;
+    final List<ChildInfo> result = new ArrayList<>();
+    try (final DirectoryStream<Path> stream = Files.newDirectoryStream(folder.toPath())) {
+      for (final Path f : stream) {
+        final String fileName = f.getFileName().toString();
+        boolean add;
+        try {
+          add = showHidden || !isFileHidden(f) || (projectFolder && Context.KNOWLEDGE_FOLDER.equals(fileName));
+        } catch (RuntimeException ex) {
+          add = false;
+        }
+        if (add) {
+          result.add(new ChildInfo(fileName, Files.isDirectory(f), !Files.isWritable(f)));
+        }
+      }
+      this.noAccess = false;
+    } catch (IOException | RuntimeException ex) {
+      LOGGER.warn("Error '" + ex.getClass().getCanonicalName() + "' during access to path: " + folder.getPath()); //NOI18N
+      this.noAccess = true;
+    }
+    return result;
+  }
+
+  /**
+   * Read folder again and apply difference to loaded children. If the project is shown then changes are made in swing thread and
+   * listeners are notified about inserted and removed nodes.
+   *
+   * @param recursive if true then loaded sub-folders are refreshed too
+   */
+  void refreshLoaded(final boolean recursive) {
+    if (!this.folderFlag || !this.loaded || this.disposed) {
+      return;
+    }
+
+    final List<ChildInfo> actual = listFolder();
+    final NodeProject project = findProject();
+    final NodeProjectGroup group = project == null ? null : project.getGroup();
+    final List<File> removedFiles = new ArrayList<>();
+    final List<File> addedFiles = new ArrayList<>();
+
+    if (group != null && !project.isLoading()) {
+      Utils.safeSwingBlockingCall(() -> applyListing(actual, group, removedFiles, addedFiles));
+    } else {
+      synchronized (this) {
+        applyListing(actual, null, removedFiles, addedFiles);
+      }
+    }
+
+    if (project != null) {
+      final FileNameIndex nameIndex = project.getNameIndex();
+      removedFiles.forEach(nameIndex::remove);
+      addedFiles.forEach(f -> nameIndex.add(f, project.isShowHiddenFiles()));
+    }
+
+    if (recursive) {
+      for (final NodeFileOrFolder c : getLoadedChildren()) {
+        if (c.folderFlag && c.loaded) {
+          c.refreshLoaded(true);
+        }
+      }
+    }
+  }
+
+  private void applyListing(
+      @Nonnull @MustNotContainNull final List<ChildInfo> actual,
+      @Nullable final NodeProjectGroup group,
+      @Nonnull @MustNotContainNull final List<File> removedFiles,
+      @Nonnull @MustNotContainNull final List<File> addedFiles
+  ) {
+    final File folder = makeFileForNode();
+    if (this.disposed) {
+      return;
+    }
+    final Map<String, ChildInfo> notPresented = new HashMap<>();
+    for (final ChildInfo info : actual) {
+      notPresented.put(info.name, info);
+    }
+
+    for (int i = this.children.size() - 1; i >= 0; i--) {
+      final NodeFileOrFolder child = this.children.get(i);
+      final ChildInfo info = notPresented.get(child.name);
+      if (info != null && info.folder == child.folderFlag) {
+        notPresented.remove(child.name);
+      } else {
+        this.children.remove(i);
+        child.dispose();
+        removedFiles.add(new File(folder, child.name));
+        if (group != null) {
+          group.fireNodeRemoved(this, i, child);
+        }
+      }
+    }
+
+    for (final ChildInfo info : notPresented.values()) {
+      final NodeFileOrFolder node = info.makeNode(this);
+      int index = Collections.binarySearch(this.children, node, this);
+      if (index < 0) {
+        index = -index - 1;
+      }
+      this.children.add(index, node);
+      addedFiles.add(new File(folder, info.name));
+      if (group != null) {
+        group.fireNodeInserted(this, index, node);
+      }
+    }
+  }
+
+  /**
+   * Read children of folder, if they are already loaded then they are refreshed from disk.
+   *
+   * @param addHiddenFilesAndFolders flag to show hidden files, it is processed by project
+   * @return mono to make reading, must not be null
+   */
   @Nonnull
   public Mono<NodeFileOrFolder> readSubtree(final boolean addHiddenFilesAndFolders) {
     if (this.folderFlag) {
-      final boolean parentIsProjectGroup = this.parent instanceof NodeProjectGroup;
-      return Flux.using(() -> {
-        this.clearChildren();
-        final File nodeFile = makeFileForNode();
-        try {
-          return new SynchroPathIterator(nodeFile.toPath());
-        } catch (Exception ex) {
-          LOGGER.warn("Error '" + ex.getClass().getCanonicalName() + "' during access to path: " + nodeFile.getPath());
-          this.noAccess = true;
-          return new DirectoryStream<Path>() {
-            @Override
-            public Iterator<Path> iterator() {
-              return Collections.emptyIterator();
-            }
-
-            @Override
-            public void close() throws IOException {
-            }
-          };
+      return Mono.fromCallable(() -> {
+        if (this.loaded) {
+          refreshLoaded(true);
+        } else {
+          ensureLoaded();
         }
-      }, Flux::fromIterable, IOUtils::closeQuetly)
-          .parallel()
-          .runOn(MainFrame.REACTOR_SCHEDULER)
-          .doOnError(error -> {
-            LOGGER.warn("Error during path " + makeFileForNode().getName() + " opening: " + error.getMessage());
-            this.noAccess = true;
-          })
-          .filter(f -> {
-            if (parentIsProjectGroup) {
-              return addHiddenFilesAndFolders || !isFileHidden(f) || Context.KNOWLEDGE_FOLDER.equals(f.getFileName().toString());
-            } else {
-              return addHiddenFilesAndFolders || !isFileHidden(f);
-            }
-          })
-          .map(f -> {
-            NodeFileOrFolder newItem = new NodeFileOrFolder(this, Files.isDirectory(f), f.getFileName().toString(), addHiddenFilesAndFolders, !Files.isWritable(f));
-            this.children.add(newItem);
-            return newItem;
-          })
-          .flatMap(f -> f.readSubtree(addHiddenFilesAndFolders))
-          .reduce((x, y) -> this)
-          .doFinally(signalType -> {
-            if (signalType == SignalType.ON_COMPLETE) {
-              this.children.sort(this);
-            }
-          });
+        return this;
+      });
     } else {
       return Mono.empty();
     }
@@ -281,9 +649,23 @@ public class NodeFileOrFolder implements TreeNode, Comparator<NodeFileOrFolder>,
     return this.children.get(childIndex);
   }
 
+  /**
+   * Get number of loaded children. If children have not been read yet then they are read in background, zero is returned and tree is
+   * notified about inserted nodes when reading is completed.
+   *
+   * @return number of loaded children
+   */
   @Override
   public int getChildCount() {
-    return this.isLoading() ? 0 : this.children.size();
+    if (this.isLoading()) {
+      return 0;
+    }
+    if (!this.loaded) {
+      loadInBackground(TaskScheduler.Priority.INTERACTIVE);
+      return 0;
+    }
+    prefetchChildren();
+    return this.children.size();
   }
 
   @Nullable
@@ -319,7 +701,7 @@ public class NodeFileOrFolder implements TreeNode, Comparator<NodeFileOrFolder>,
   @Override
   @Nonnull
   public Enumeration children() {
-    final Iterator<NodeFileOrFolder> iterator = this.children.iterator();
+    final Iterator<NodeFileOrFolder> iterator = this.iterator();
     return new Enumeration() {
 
       @Override
@@ -360,8 +742,8 @@ public class NodeFileOrFolder implements TreeNode, Comparator<NodeFileOrFolder>,
     if (file.equals(generatedFile)) {
       return new TreePath(new Object[] {this});
     }
-    if (!this.isLeaf()) {
-      for (final NodeFileOrFolder c : this.children) {
+    if (!this.isLeaf() && (generatedFile == null || file.toPath().startsWith(generatedFile.toPath()))) {
+      for (final NodeFileOrFolder c : this.loadChildren()) {
         final TreePath result = c.findPathToFile(file);
         if (result != null) {
           return new TreePath(ArrayUtils.joinArrays(new Object[] {this}, result.getPath()));
@@ -373,6 +755,11 @@ public class NodeFileOrFolder implements TreeNode, Comparator<NodeFileOrFolder>,
 
   boolean deleteChild(@Nonnull final NodeFileOrFolder child) {
     boolean result = false;
+    final FileNameIndex nameIndex = findNameIndex();
+    final File childFile = child.makeFileForNode();
+    if (nameIndex != null && childFile != null) {
+      nameIndex.remove(childFile);
+    }
     try {
       result = this.children.remove(child);
     } finally {
@@ -381,21 +768,15 @@ public class NodeFileOrFolder implements TreeNode, Comparator<NodeFileOrFolder>,
     return result;
   }
 
-  protected void fillAllMatchNamePattern(@Nonnull final Pattern namePattern, @Nonnull @MustNotContainNull final List<NodeFileOrFolder> resultList) {
-    if (namePattern.matcher(this.name).matches()) {
-      resultList.add(this);
-    }
-    if (!this.isLeaf()) {
-      for (final NodeFileOrFolder c : this.children) {
-        c.fillAllMatchNamePattern(namePattern, resultList);
-      }
-    }
-  }
-
   public boolean isMindMapFile() {
     return !this.folderFlag && this.name.endsWith(".mmd"); //NOI18N
   }
 
+  /**
+   * Iterate loaded children, folder is not read.
+   *
+   * @return iterator over copy of loaded children
+   */
   @Override
   @Nonnull
   public Iterator<NodeFileOrFolder> iterator() {
@@ -441,41 +822,21 @@ public class NodeFileOrFolder implements TreeNode, Comparator<NodeFileOrFolder>,
 
   }
 
-  private static final class SynchroPathIterator implements DirectoryStream<Path> {
+  private static final class ChildInfo {
 
-    private final Iterator<Path> iterator;
-    private final AtomicReference<DirectoryStream<Path>> directoryStream;
+    private final String name;
+    private final boolean folder;
+    private final boolean readOnly;
 
-    SynchroPathIterator(final Path path) throws IOException {
-      this.directoryStream = new AtomicReference<>(Files.newDirectoryStream(path));
-      this.iterator = directoryStream.get().iterator();
+    private ChildInfo(@Nonnull final String name, final boolean folder, final boolean readOnly) {
+      this.name = name;
+      this.folder = folder;
+      this.readOnly = readOnly;
     }
 
-    @Override
-    public void close() throws IOException {
-      final DirectoryStream<Path> ds = this.directoryStream.getAndSet(null);
-      if (ds != null) {
-        ds.close();
-      }
-    }
-
-    @Override
-    public Iterator<Path> iterator() {
-      return new Iterator<Path>() {
-        @Override
-        public boolean hasNext() {
-          synchronized (iterator) {
-            return iterator.hasNext();
-          }
-        }
-
-        @Override
-        public Path next() {
-          synchronized (iterator) {
-            return iterator.next();
-          }
-        }
-      };
+    @Nonnull
+    private NodeFileOrFolder makeNode(@Nonnull final NodeFileOrFolder parent) {
+      return new NodeFileOrFolder(parent, this.folder, this.name, this.readOnly);
     }
   }
 }
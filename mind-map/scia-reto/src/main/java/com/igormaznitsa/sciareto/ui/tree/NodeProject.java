@@ -24,9 +24,11 @@ import com.igormaznitsa.mindmap.model.MMapURI;
 import com.igormaznitsa.mindmap.model.MindMap;
 import com.igormaznitsa.mindmap.model.logger.Logger;
 import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
+import com.igormaznitsa.mindmap.swing.panel.utils.CryptoUtils;
 import com.igormaznitsa.sciareto.Context;
+import com.igormaznitsa.sciareto.index.MapTextIndex;
 import com.igormaznitsa.sciareto.preferences.PrefUtils;
-import com.igormaznitsa.sciareto.ui.MainFrame;
+import com.igormaznitsa.sciareto.services.TaskScheduler;
 import com.igormaznitsa.sciareto.ui.MapUtils;
 import com.igormaznitsa.sciareto.ui.SystemUtils;
 import java.io.File;
@@ -35,11 +37,12 @@ import java.io.StringReader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.apache.commons.io.FileUtils;
@@ -54,11 +57,19 @@ public class NodeProject extends NodeFileOrFolder {
   private volatile boolean knowledgeFolderPresented;
   private final AtomicBoolean loading = new AtomicBoolean(true);
   private final AtomicReference<Disposable> loadDispose = new AtomicReference<>();
+  private final AtomicReference<FolderWatcher> watcher = new AtomicReference<>();
+  private final AtomicBoolean watcherFailed = new AtomicBoolean();
+  private volatile boolean showHiddenFiles;
+  private volatile FileNameIndex nameIndex;
+  private final AtomicBoolean nameIndexBuilt = new AtomicBoolean();
   
   public NodeProject(@Nonnull final NodeProjectGroup group, @Nonnull final File folder) throws IOException {
-    super(group, true, folder.getName(), PrefUtils.isShowHiddenFilesAndFolders(), !Files.isWritable(folder.toPath()));
+    super(group, true, folder.getName(), !Files.isWritable(folder.toPath()));
     this.folder = folder;
+    this.showHiddenFiles = PrefUtils.isShowHiddenFilesAndFolders();
+    this.nameIndex = new FileNameIndex(folder, folder.getName());
     this.knowledgeFolderPresented = new File(folder, Context.KNOWLEDGE_FOLDER).isDirectory();
+    CryptoUtils.acquireSessionKeys();
   }
 
   @Override
@@ -66,6 +77,71 @@ public class NodeProject extends NodeFileOrFolder {
     return this.loading.get();
   }
 
+  /**
+   * Get index of file names of the project, it is built in background during the first project reading and rebuilt only if visibility of hidden files is changed,
+   * next readings refresh it by changed folders.
+   *
+   * @return index of names, must not be null
+   */
+  @Nonnull
+  public FileNameIndex getNameIndex() {
+    return this.nameIndex;
+  }
+
+  @Override
+  protected boolean isShowHiddenFiles() {
+    return this.showHiddenFiles;
+  }
+
+  /**
+   * Start watching of expanded folder for created and deleted files.
+   *
+   * @param folder folder node of the project, must not be null
+   */
+  void watchFolder(@Nonnull final NodeFileOrFolder folder) {
+    if (this.watcherFailed.get() || this.isDisposed()) {
+      return;
+    }
+    FolderWatcher current = this.watcher.get();
+    if (current == null) {
+      try {
+        current = new FolderWatcher(this);
+      } catch (IOException ex) {
+        LOGGER.warn("Can't create folder watcher, changes of project will not be tracked : " + ex.getMessage()); //NOI18N
+        this.watcherFailed.set(true);
+        return;
+      }
+      if (!this.watcher.compareAndSet(null, current)) {
+        current.close();
+        current = this.watcher.get();
+      }
+    }
+    current.register(folder);
+  }
+
+  /**
+   * Stop watching of folder.
+   *
+   * @param folder folder node of the project, must not be null
+   */
+  void unwatchFolder(@Nonnull final NodeFileOrFolder folder) {
+    final FolderWatcher current = this.watcher.get();
+    if (current != null) {
+      current.unregister(folder);
+    }
+  }
+
+  @Override
+  protected void onDispose() {
+    final FolderWatcher current = this.watcher.getAndSet(null);
+    if (current != null) {
+      current.close();
+    }
+    CryptoUtils.releaseSessionKeys();
+    final File projectFolder = this.folder;
+    TaskScheduler.getInstance().submit(TaskScheduler.Priority.BACKGROUND, () -> MapTextIndex.release(projectFolder));
+  }
+
   public boolean hasKnowledgeFolder() {
     return this.knowledgeFolderPresented;
   }
@@ -74,7 +150,10 @@ public class NodeProject extends NodeFileOrFolder {
   public void setName(@Nonnull final String name) throws IOException {
     this.name = name;
     this.folder = new File(folder.getParentFile(), name);
-    readSubtree(PrefUtils.isShowHiddenFilesAndFolders()).subscribeOn(MainFrame.REACTOR_SCHEDULER).subscribe();
+    this.nameIndex = new FileNameIndex(this.folder, name);
+    this.nameIndexBuilt.set(false);
+    resetChildren();
+    readSubtree(PrefUtils.isShowHiddenFilesAndFolders()).subscribeOn(TaskScheduler.getInstance().getReactorScheduler(TaskScheduler.Priority.INTERACTIVE)).subscribe();
   }
 
   @Override
@@ -91,7 +170,10 @@ public class NodeProject extends NodeFileOrFolder {
   public void setFolder(@Nonnull final File folder) throws IOException {
     Assertions.assertTrue("Must be directory", folder.isDirectory()); //NOI18N
     this.folder = folder;
-    readSubtree(PrefUtils.isShowHiddenFilesAndFolders()).subscribeOn(MainFrame.REACTOR_SCHEDULER).subscribe();
+    this.nameIndex = new FileNameIndex(folder, folder.getName());
+    this.nameIndexBuilt.set(false);
+    resetChildren();
+    readSubtree(PrefUtils.isShowHiddenFilesAndFolders()).subscribeOn(TaskScheduler.getInstance().getReactorScheduler(TaskScheduler.Priority.INTERACTIVE)).subscribe();
   }
 
   @Nonnull
@@ -99,47 +181,70 @@ public class NodeProject extends NodeFileOrFolder {
     return (NodeProjectGroup) this.parent;
   }
 
+  /**
+   * Find mind maps which have links to file or into folder. Maps are found through reverse link table of the project index,
+   * only maps which can't be indexed are parsed.
+   *
+   * @param changedFile file or folder, must not be null
+   * @return list of mind map files which have links, must not be null
+   */
   @Nonnull
   @MustNotContainNull
   public List<File> findAffectedFiles(@Nonnull final File changedFile) {
     final File baseFolder = makeFileForNode();
-    final boolean isfolder = changedFile.isDirectory();
+    final MapTextIndex index = MapTextIndex.forProject(baseFolder);
 
-    final List<File> result = new ArrayList<>();
-    FileUtils.listFiles(baseFolder, new String[]{"mmd", "MMD"}, true).forEach((mindMapFile) -> {
+    try {
+      index.refresh();
+    } catch (IOException ex) {
+      LOGGER.error("Can't refresh index of project", ex); //NOI18N
+    }
+
+    final List<File> result = new ArrayList<>(index.findFilesLinkingTo(changedFile));
+    for (final File mindMapFile : index.findNotCoveredFiles()) {
       try {
         final MindMap map = new MindMap(new StringReader(FileUtils.readFileToString(mindMapFile, StandardCharsets.UTF_8))); //NOI18N
         if (!MapUtils.findTopicsRelatedToFile(baseFolder, changedFile, map).isEmpty()) {
           result.add(mindMapFile);
         }
-      } catch (IOException ex) {
+      } catch (Exception ex) {
         LOGGER.error("Can't process mind map file", ex); //NOI18N
       }
-    });
+    }
     return result;
   }
 
   @Nonnull
   @MustNotContainNull
   public List<File> deleteAllLinksToFile(@Nonnull @MustNotContainNull final List<File> listOfFilesToProcess, @Nonnull final File fileToRemove) {
-    final List<File> affectedFiles = new ArrayList<>();
-
     final File baseFolder = makeFileForNode();
     final MMapURI fileURI = new MMapURI(baseFolder, fileToRemove, null);
+    return rewriteMaps(listOfFilesToProcess, map -> map.deleteAllLinksToFile(baseFolder, fileURI));
+  }
 
-    listOfFilesToProcess.stream().filter((file) -> (file.isFile())).forEachOrdered((file) -> {
+  /**
+   * Rewrite mind maps in parallel, changed maps are saved and passed into project index.
+   *
+   * @param listOfFilesToProcess mind map files, must not be null
+   * @param processor            processor which changes map and returns true if the map has been changed
+   * @return list of changed files in the same order, must not be null
+   */
+  @Nonnull
+  @MustNotContainNull
+  private static List<File> rewriteMaps(@Nonnull @MustNotContainNull final List<File> listOfFilesToProcess, @Nonnull final Predicate<MindMap> processor) {
+    return TaskScheduler.getInstance().invokeInForkJoinPool(() -> listOfFilesToProcess.parallelStream().filter(File::isFile).filter(file -> {
       try {
-        final MindMap map = new MindMap(new StringReader(FileUtils.readFileToString(file, "UTF-8"))); //NOI18N
-        if (map.deleteAllLinksToFile(baseFolder, fileURI)) {
+        final MindMap map = new MindMap(new StringReader(FileUtils.readFileToString(file, StandardCharsets.UTF_8)));
+        if (processor.test(map)) {
           SystemUtils.saveUTFText(file, map.packToString());
-          affectedFiles.add(file);
+          MapTextIndex.onMapSaved(file, map);
+          return true;
         }
       } catch (IOException ex) {
         LOGGER.error("Can't process mind map file", ex); //NOI18N
       }
-    });
-
-    return affectedFiles;
+      return false;
+    }).collect(Collectors.toList()));
   }
 
   public void initLoading(@Nonnull final Disposable disposable) {
@@ -148,19 +253,42 @@ public class NodeProject extends NodeFileOrFolder {
     this.getGroup().notifyProjectStateChanged(this);
   }
   
+  /**
+   * Read project tree. If project has not been loaded yet then its tree is restored from saved snapshot and shown immediately,
+   * after that the restored tree is patched by the real state of disk.
+   *
+   * @param addHiddenFilesAndFolders flag to show hidden files and folders
+   * @return mono to read the tree, must not be null
+   */
   @Nonnull
   @Override
   public Mono<NodeFileOrFolder> readSubtree(final boolean addHiddenFilesAndFolders) {
     final AtomicLong time = new AtomicLong();
-    final AtomicReference<NodeFileOrFolder> knowledgeFolder = new AtomicReference<>();
     
     return Mono.just(this)
             .doOnSubscribe(s -> {
               time.set(System.currentTimeMillis());
             })
-            .flatMap(p -> super.readSubtree(addHiddenFilesAndFolders))
+            .flatMap(p -> {
+              if (this.showHiddenFiles != addHiddenFilesAndFolders) {
+                this.showHiddenFiles = addHiddenFilesAndFolders;
+                this.nameIndexBuilt.set(false);
+                resetChildren();
+              }
+              final FileNameIndex names = this.nameIndex;
+              if (this.nameIndexBuilt.compareAndSet(false, true)) {
+                TaskScheduler.getInstance().submit(TaskScheduler.Priority.BACKGROUND, () -> names.rebuild(addHiddenFilesAndFolders));
+              } else {
+                TaskScheduler.getInstance().submit(TaskScheduler.Priority.BACKGROUND, () -> names.refresh(addHiddenFilesAndFolders));
+              }
+              if (!this.isLoaded() && TreeSnapshot.restore(this)) {
+                LOGGER.info(String.format("Project %s restored from snapshot, spent %d ms", this.toString(), System.currentTimeMillis() - time.get()));
+                this.loading.set(false);
+                this.getGroup().notifyProjectStateChanged(this);
+              }
+              return super.readSubtree(addHiddenFilesAndFolders);
+            })
             .doFinally(signalType -> {
-              Collections.sort(this.children, this);
               LOGGER.info(String.format("Project %s reloaded, spent %d ms", this.toString(), System.currentTimeMillis() - time.get()));
             })
             .doOnTerminate(() -> {
@@ -173,25 +301,10 @@ public class NodeProject extends NodeFileOrFolder {
   @Nonnull
   @MustNotContainNull
   public List<File> replaceAllLinksToFile(@Nonnull @MustNotContainNull final List<File> listOfFilesToProcess, @Nonnull final File oldFile, @Nonnull final File newFile) {
-    final List<File> affectedFiles = new ArrayList<>();
-
     final File baseFolder = makeFileForNode();
     final MMapURI oldFileURI = new MMapURI(baseFolder, oldFile, null);
     final MMapURI newFileURI = new MMapURI(baseFolder, newFile, null);
-
-    listOfFilesToProcess.stream().filter((file) -> (file.isFile())).forEachOrdered((file) -> {
-      try {
-        final MindMap map = new MindMap(new StringReader(FileUtils.readFileToString(file, StandardCharsets.UTF_8)));
-        if (map.replaceAllLinksToFile(baseFolder, oldFileURI, newFileURI)) {
-          SystemUtils.saveUTFText(file, map.packToString());
-          affectedFiles.add(file);
-        }
-      } catch (IOException ex) {
-        LOGGER.error("Can't process mind map file", ex); //NOI18N
-      }
-    });
-
-    return affectedFiles;
+    return rewriteMaps(listOfFilesToProcess, map -> map.replaceAllLinksToFile(baseFolder, oldFileURI, newFileURI));
   }
 
   public void cancelLoading() {
@@ -29,9 +29,8 @@ import com.igormaznitsa.mindmap.model.nio.Paths;
 import com.igormaznitsa.mindmap.swing.panel.utils.Utils;
 import com.igormaznitsa.sciareto.Context;
 import com.igormaznitsa.sciareto.SciaRetoStarter;
-import com.igormaznitsa.sciareto.preferences.PrefUtils;
+import com.igormaznitsa.sciareto.services.TaskScheduler;
 import com.igormaznitsa.sciareto.ui.DialogProviderManager;
-import com.igormaznitsa.sciareto.ui.MainFrame;
 import com.igormaznitsa.sciareto.ui.UiUtils;
 import java.io.File;
 import java.io.IOException;
@@ -59,7 +58,7 @@ public class NodeProjectGroup extends NodeFileOrFolder implements TreeModel {
   private static final Logger LOGGER = LoggerFactory.getLogger(NodeProjectGroup.class);
 
   public NodeProjectGroup(@Nonnull final Context context, @Nonnull final String name) throws IOException {
-    super(null, true, ".", PrefUtils.isShowHiddenFilesAndFolders(), false); //NOI18N
+    super(null, true, ".", false); //NOI18N
     this.groupName = name;
     this.context = context;
   }
@@ -97,7 +96,7 @@ public class NodeProjectGroup extends NodeFileOrFolder implements TreeModel {
   @Override
   public Mono<NodeFileOrFolder> readSubtree(final boolean addHiddenFilesAndFolders) {
     this.children.forEach(proj -> {
-      ((NodeProject)proj).initLoading(proj.readSubtree(addHiddenFilesAndFolders).subscribeOn(MainFrame.REACTOR_SCHEDULER).subscribe());
+      ((NodeProject)proj).initLoading(proj.readSubtree(addHiddenFilesAndFolders).subscribeOn(TaskScheduler.getInstance().getReactorScheduler(TaskScheduler.Priority.INTERACTIVE)).subscribe());
     });
     return Mono.just(this);
   }
@@ -310,6 +309,10 @@ public class NodeProjectGroup extends NodeFileOrFolder implements TreeModel {
 
   @Nonnull
   public NodeFileOrFolder addChild(@Nonnull final NodeFileOrFolder folder, final boolean showHiddenFiles, @Nonnull final File childFile) throws IOException {
+    final NodeFileOrFolder existing = folder.findChild(childFile.getName());
+    if (existing != null) {
+      return existing;
+    }
     final NodeFileOrFolder newNode = folder.addFile(childFile, showHiddenFiles);
     final TreeModelEvent event = new TreeModelEvent(this, folder.makeTreePath(), new int[]{newNode.getIndexAtParent()}, new Object[]{newNode});
     for (final TreeModelListener l : this.listeners) {
@@ -318,17 +321,57 @@ public class NodeProjectGroup extends NodeFileOrFolder implements TreeModel {
     return newNode;
   }
 
-  @Nonnull
-  @MustNotContainNull
-  public List<NodeFileOrFolder> findForNamePattern(@Nullable final Pattern namePattern) {
-    final List<NodeFileOrFolder> result = new ArrayList<>();
+  @UiThread
+  void fireNodeInserted(@Nonnull final NodeFileOrFolder parent, final int index, @Nonnull final NodeFileOrFolder node) {
+    final TreeModelEvent event = new TreeModelEvent(this, parent.makeTreePath(), new int[]{index}, new Object[]{node});
+    for (final TreeModelListener l : this.listeners) {
+      l.treeNodesInserted(event);
+    }
+  }
 
-    if (namePattern != null) {
-      for (final NodeFileOrFolder f : this.children) {
-        f.fillAllMatchNamePattern(namePattern, result);
+  @UiThread
+  void fireNodesInserted(@Nonnull final NodeFileOrFolder parent, @Nonnull @MustNotContainNull final List<NodeFileOrFolder> nodes) {
+    final int[] indexes = new int[nodes.size()];
+    for (int i = 0; i < indexes.length; i++) {
+      indexes[i] = parent.getIndex(nodes.get(i));
+    }
+    final TreeModelEvent event = new TreeModelEvent(this, parent.makeTreePath(), indexes, nodes.toArray());
+    for (final TreeModelListener l : this.listeners) {
+      l.treeNodesInserted(event);
+    }
+  }
+
+  @UiThread
+  void fireNodeRemoved(@Nonnull final NodeFileOrFolder parent, final int index, @Nonnull final NodeFileOrFolder node) {
+    final TreeModelEvent event = new TreeModelEvent(this, parent.makeTreePath(), new int[]{index}, new Object[]{node});
+    for (final TreeModelListener l : this.listeners) {
+      l.treeNodesRemoved(event);
+    }
+  }
+
+  /**
+   * Save snapshots of loaded project trees, they are used to show projects immediately after restart.
+   */
+  public void saveSnapshots() {
+    for (final NodeFileOrFolder p : getLoadedChildren()) {
+      final NodeProject project = (NodeProject) p;
+      if (!project.isLoading()) {
+        try {
+          TreeSnapshot.save(project);
+        } catch (IOException ex) {
+          LOGGER.warn("Can't save tree snapshot of project " + project.getFolder() + " : " + ex.getMessage()); //NOI18N
+        }
       }
     }
+  }
 
+  @Nonnull
+  @MustNotContainNull
+  public List<FileNameIndex> getNameIndexes() {
+    final List<FileNameIndex> result = new ArrayList<>();
+    for (final NodeFileOrFolder p : this.getLoadedChildren()) {
+      result.add(((NodeProject) p).getNameIndex());
+    }
     return result;
   }
 
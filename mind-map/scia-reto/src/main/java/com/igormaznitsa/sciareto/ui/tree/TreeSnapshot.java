@@ -0,0 +1,139 @@
+/* 
+ * Copyright (C) 2018 Igor Maznitsa.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package com.igormaznitsa.sciareto.ui.tree;
+
+import com.igormaznitsa.meta.annotation.MustNotContainNull;
+import com.igormaznitsa.mindmap.model.logger.Logger;
+import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
+import com.igormaznitsa.sciareto.ui.SystemUtils;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nonnull;
+
+/**
+ * Saved state of loaded part of project tree. It allows to show project immediately after restart, restored tree is checked against
+ * disk in background.
+ *
+ * @since 1.5.2
+ */
+final class TreeSnapshot {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(TreeSnapshot.class);
+
+  private static final int MAGIC = 0x53525453;
+  private static final int VERSION = 1;
+
+  private static final int FLAG_FOLDER = 1;
+  private static final int FLAG_READONLY = 2;
+  private static final int FLAG_LOADED = 4;
+  private static final int FLAG_NO_ACCESS = 8;
+
+  private TreeSnapshot() {
+  }
+
+  @Nonnull
+  static File makeSnapshotFile(@Nonnull final File projectFolder) {
+    return new File(SystemUtils.getCacheFolder("tree"), SystemUtils.makeCacheKey(projectFolder) + ".tree"); //NOI18N
+  }
+
+  static void save(@Nonnull final NodeProject project) throws IOException {
+    final File file = makeSnapshotFile(project.getFolder());
+    final File folder = file.getParentFile();
+    if (!folder.isDirectory() && !folder.mkdirs()) {
+      throw new IOException("Can't create folder " + folder);
+    }
+    final File temp = new File(folder, file.getName() + ".tmp"); //NOI18N
+    try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp), 65536))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeBoolean(project.isShowHiddenFiles());
+      out.writeByte(project.isNoAccess() ? FLAG_NO_ACCESS : 0);
+      writeChildren(out, project);
+    }
+    Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private static void writeChildren(@Nonnull final DataOutputStream out, @Nonnull final NodeFileOrFolder node) throws IOException {
+    final List<NodeFileOrFolder> children = node.getLoadedChildren();
+    out.writeInt(children.size());
+    for (final NodeFileOrFolder c : children) {
+      final boolean loaded = c.folderFlag && c.isLoaded();
+      out.writeUTF(c.name);
+      out.writeByte((c.folderFlag ? FLAG_FOLDER : 0)
+          | (c.isReadOnly() ? FLAG_READONLY : 0)
+          | (loaded ? FLAG_LOADED : 0)
+          | (c.isNoAccess() ? FLAG_NO_ACCESS : 0));
+      if (loaded) {
+        writeChildren(out, c);
+      }
+    }
+  }
+
+  /**
+   * Restore project tree from saved snapshot.
+   *
+   * @param project project to be restored, must not be null
+   * @return true if tree has been restored, false if there is no suitable snapshot
+   */
+  static boolean restore(@Nonnull final NodeProject project) {
+    final File file = makeSnapshotFile(project.getFolder());
+    if (!file.isFile()) {
+      return false;
+    }
+    try (final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 65536))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readBoolean() != project.isShowHiddenFiles()) {
+        return false;
+      }
+      final boolean noAccess = (in.readByte() & FLAG_NO_ACCESS) != 0;
+      project.restoreChildren(readChildren(in, project), noAccess);
+      return true;
+    } catch (IOException | RuntimeException ex) {
+      LOGGER.warn("Can't restore tree snapshot " + file + " : " + ex.getMessage()); //NOI18N
+      project.resetChildren();
+      return false;
+    }
+  }
+
+  @Nonnull
+  @MustNotContainNull
+  private static List<NodeFileOrFolder> readChildren(@Nonnull final DataInputStream in, @Nonnull final NodeFileOrFolder parent) throws IOException {
+    final int count = in.readInt();
+    final List<NodeFileOrFolder> result = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      final String name = in.readUTF();
+      final int flags = in.readByte();
+      final NodeFileOrFolder node = new NodeFileOrFolder(parent, (flags & FLAG_FOLDER) != 0, name, (flags & FLAG_READONLY) != 0);
+      if ((flags & FLAG_LOADED) != 0) {
+        node.restoreChildren(readChildren(in, node), (flags & FLAG_NO_ACCESS) != 0);
+      }
+      result.add(node);
+    }
+    return result;
+  }
+}
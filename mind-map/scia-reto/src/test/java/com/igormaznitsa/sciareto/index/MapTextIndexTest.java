@@ -0,0 +1,248 @@
+/*
+ * Copyright (C) 2019 Igor Maznitsa.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+package com.igormaznitsa.sciareto.index;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.igormaznitsa.mindmap.model.ExtraFile;
+import com.igormaznitsa.mindmap.model.ExtraNote;
+import com.igormaznitsa.mindmap.model.MMapURI;
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.igormaznitsa.mindmap.model.Topic;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MapTextIndexTest {
+
+  private static final Set<MapTextIndex.Kind> ALL = EnumSet.allOf(MapTextIndex.Kind.class);
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private static MindMap makeMap(final String rootText, final String childText, final String note, final File linkedFile) {
+    final MindMap map = new MindMap(true);
+    map.getRoot().setText(rootText);
+    final Topic child = map.getRoot().makeChild(childText, null);
+    if (note != null) {
+      child.setExtra(new ExtraNote(note));
+    }
+    if (linkedFile != null) {
+      child.setExtra(new ExtraFile(new MMapURI(null, linkedFile, null)));
+    }
+    return map;
+  }
+
+  private static void save(final File file, final MindMap map) throws IOException {
+    FileUtils.write(file, map.packToString(), StandardCharsets.UTF_8);
+  }
+
+  private static Pattern pattern(final String text) {
+    return Pattern.compile(Pattern.quote(text), Pattern.CASE_INSENSITIVE);
+  }
+
+  @Test
+  public void testIndexSearchUpdateAndReload() throws Exception {
+    final File project = tempFolder.newFolder("project");
+    final File indexFile = new File(tempFolder.newFolder("index"), "project.idx");
+    final File linked = new File(project, "docs" + File.separatorChar + "readme.txt");
+
+    final File map1 = new File(project, "first.mmd");
+    final File map2 = new File(project, "sub" + File.separatorChar + "second.mmd");
+    final File hidden = new File(project, ".hidden" + File.separatorChar + "hidden.mmd");
+    final File broken = new File(project, "broken.mmd");
+    save(map1, makeMap("Root One", "Hello World", "some note text", linked));
+    save(map2, makeMap("Root Two", "Another topic", null, null));
+    save(hidden, makeMap("Hidden", "Hello World", null, null));
+    FileUtils.write(broken, "not a map", StandardCharsets.UTF_8);
+
+    final MapTextIndex index = new MapTextIndex(project, indexFile);
+    assertEquals(3, index.refresh());
+    assertTrue(new File(indexFile.getParentFile(), "project.idx.1").isFile());
+    assertEquals(0, index.refresh());
+
+    assertTrue(index.covers(map1));
+    assertTrue(index.covers(map2));
+    assertFalse(index.covers(hidden));
+    assertFalse(index.covers(broken));
+    assertEquals(Collections.singletonList(broken), index.findNotCoveredFiles());
+
+    assertEquals(Collections.singleton(map1), index.findFiles("hello world", pattern("hello world"), ALL));
+    assertEquals(Collections.singleton(map1), index.findFiles("NOTE", pattern("NOTE"), EnumSet.of(MapTextIndex.Kind.NOTE)));
+    assertTrue(index.findFiles("NOTE", pattern("NOTE"), EnumSet.of(MapTextIndex.Kind.TOPIC)).isEmpty());
+    assertEquals(2, index.findFiles("ro", pattern("ro"), ALL).size());
+    assertEquals(Collections.singleton(map1), index.findFiles("readme", pattern("readme"), EnumSet.of(MapTextIndex.Kind.FILE)));
+    assertEquals(Collections.singleton(map1), index.findFilesLinkingTo(linked));
+    assertTrue(index.findFiles("absent", pattern("absent"), ALL).isEmpty());
+
+    final List<MapTextIndex.Hit> hits = index.find("world", pattern("world"), ALL);
+    assertEquals(1, hits.size());
+    assertEquals(map1, hits.get(0).getFile());
+    assertEquals(MapTextIndex.Kind.TOPIC, hits.get(0).getKind());
+    assertArrayEquals(new int[]{0, 0}, hits.get(0).getTopicPath());
+
+    final MindMap changedMap = makeMap("Root Two", "Hello again", null, null);
+    save(map2, changedMap);
+    map2.setLastModified(map2.lastModified() + 2000L);
+    index.update(map2, changedMap);
+    assertTrue(index.covers(map2));
+    assertEquals(2, index.findFiles("hello", pattern("hello"), ALL).size());
+
+    assertTrue(map1.delete());
+    assertEquals(1, index.refresh());
+    assertEquals(Collections.singleton(map2), index.findFiles("hello", pattern("hello"), ALL));
+
+    index.flush();
+    assertArrayEquals(new String[]{"project.idx.2"}, indexFile.getParentFile().list());
+
+    final MapTextIndex reloaded = new MapTextIndex(project, indexFile);
+    assertEquals(0, reloaded.refresh());
+    assertTrue(reloaded.covers(map2));
+    assertEquals(Collections.singletonList(broken), reloaded.findNotCoveredFiles());
+    assertEquals(Collections.singleton(map2), reloaded.findFiles("hello", pattern("hello"), ALL));
+    assertTrue(reloaded.findFilesLinkingTo(linked).isEmpty());
+  }
+
+  @Test
+  public void testLinkTable() throws Exception {
+    final File project = tempFolder.newFolder("project");
+    final File indexFile = new File(tempFolder.newFolder("index"), "project.idx");
+    final File docs = new File(project, "docs");
+    final File docsSibling = new File(project, "docs-old");
+    assertTrue(docs.mkdirs());
+    assertTrue(docsSibling.mkdirs());
+
+    final File map1 = new File(project, "first.mmd");
+    final File map2 = new File(project, "second.mmd");
+    final File map3 = new File(project, "third.mmd");
+    save(map1, makeMap("Root", "Child", null, new File(docs, "a.txt")));
+    save(map2, makeMap("Root", "Child", null, new File(docs, "a.txt.bak")));
+    save(map3, makeMap("Root", "Child", null, new File(docsSibling, "a.txt")));
+
+    final MapTextIndex index = new MapTextIndex(project, indexFile);
+    index.refresh();
+    index.flush();
+
+    assertEquals(Collections.singleton(map1), index.findFilesLinkingTo(new File(docs, "a.txt")));
+    assertEquals(2, index.findFilesLinkingTo(docs).size());
+    assertFalse(index.findFilesLinkingTo(docs).contains(map3));
+    assertEquals(3, index.findFilesLinkingTo(project).size());
+
+    final List<MMapURI> links = index.getFileLinks(map1);
+    assertEquals(1, links.size());
+    assertEquals(new File(docs, "a.txt"), links.get(0).asFile(project));
+    assertNull(index.getFileLinks(new File(project, "absent.mmd")));
+
+    final List<MapTextIndex.Hit> hits = index.findTopicsLinkingTo(new File(docsSibling, "a.txt"));
+    assertEquals(1, hits.size());
+    assertEquals(map3, hits.get(0).getFile());
+    assertArrayEquals(new int[]{0, 0}, hits.get(0).getTopicPath());
+
+    final MindMap changed = makeMap("Root", "Child", null, new File(docsSibling, "a.txt"));
+    save(map1, changed);
+    index.update(map1, changed);
+    assertTrue(index.findFilesLinkingTo(new File(docs, "a.txt")).isEmpty());
+    assertEquals(2, index.findFilesLinkingTo(docsSibling).size());
+  }
+
+  @Test
+  public void testIncrementalRefresh() throws Exception {
+    final File project = tempFolder.newFolder("project");
+    final File indexFile = new File(tempFolder.newFolder("index"), "project.idx");
+    final File sub = new File(project, "sub");
+
+    final File map1 = new File(project, "first.mmd");
+    final File map2 = new File(sub, "second.mmd");
+    save(map1, makeMap("Root One", "Alpha", null, null));
+    save(map2, makeMap("Root Two", "Beta", null, null));
+    final long past = System.currentTimeMillis() - 60000L;
+    assertTrue(sub.setLastModified(past));
+    assertTrue(project.setLastModified(past));
+
+    final MapTextIndex index = new MapTextIndex(project, indexFile);
+    assertEquals(2, index.refresh());
+    assertEquals(0, index.refresh());
+
+    final File map3 = new File(sub, "third.mmd");
+    final File map4 = new File(project, "new" + File.separatorChar + "deep" + File.separatorChar + "fourth.mmd");
+    final File hidden = new File(project, ".hidden" + File.separatorChar + "hidden.mmd");
+    save(map3, makeMap("Root Three", "Gamma", null, null));
+    save(map4, makeMap("Root Four", "Delta", null, null));
+    save(hidden, makeMap("Hidden", "Epsilon", null, null));
+    save(map1, makeMap("Root One", "Alpha changed", null, null));
+    assertTrue(map1.setLastModified(map1.lastModified() + 2000L));
+
+    assertEquals(3, index.refresh());
+    assertEquals(Collections.singleton(map3), index.findFiles("gamma", pattern("gamma"), ALL));
+    assertEquals(Collections.singleton(map4), index.findFiles("delta", pattern("delta"), ALL));
+    assertEquals(Collections.singleton(map1), index.findFiles("changed", pattern("changed"), ALL));
+    assertTrue(index.findFiles("epsilon", pattern("epsilon"), ALL).isEmpty());
+    assertEquals(0, index.refresh());
+
+    FileUtils.deleteDirectory(sub);
+    assertEquals(2, index.refresh());
+    assertTrue(index.findFiles("root", pattern("root"), ALL).containsAll(Arrays.asList(map1, map4)));
+    assertEquals(2, index.findFiles("root", pattern("root"), ALL).size());
+  }
+
+  @Test
+  public void testIndexReadThroughSmallSegments() throws Exception {
+    final File project = tempFolder.newFolder("project");
+    final File indexFile = new File(tempFolder.newFolder("index"), "project.idx");
+    final File linked = new File(project, "docs" + File.separatorChar + "some_long_file_name_to_cross_segments.txt");
+
+    final StringBuilder longText = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      longText.append("segment text ").append(i).append(' ');
+    }
+    final File map1 = new File(project, "first.mmd");
+    final File map2 = new File(project, "second.mmd");
+    save(map1, makeMap("Root One", longText.toString(), "note of first map", linked));
+    save(map2, makeMap("Root Two", "Another topic", longText.toString(), null));
+
+    final MapTextIndex index = new MapTextIndex(project, indexFile, 6);
+    index.refresh();
+    index.flush();
+
+    final MapTextIndex reloaded = new MapTextIndex(project, indexFile, 5);
+    assertEquals(0, reloaded.refresh());
+    assertTrue(reloaded.covers(map1));
+    assertEquals(2, reloaded.findFiles("segment text 99", pattern("segment text 99"), ALL).size());
+    assertEquals(Collections.singleton(map1), reloaded.findFiles("note of first", pattern("note of first"), ALL));
+    assertEquals(Collections.singleton(map1), reloaded.findFilesLinkingTo(linked));
+    assertArrayEquals(new int[]{0, 0}, reloaded.findTopicsLinkingTo(linked).get(0).getTopicPath());
+    assertEquals(1, reloaded.getFileLinks(map1).size());
+    assertArrayEquals(new String[]{"project.idx.1"}, indexFile.getParentFile().list());
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2020 Igor Maznitsa.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+package com.igormaznitsa.sciareto.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Test;
+
+public class TaskSchedulerTest {
+
+  @Test(timeout = 10000L)
+  public void testCancellationAndQueueDepth() throws Exception {
+    final TaskScheduler scheduler = new TaskScheduler(1);
+    try {
+      final CountDownLatch started = new CountDownLatch(1);
+      final CountDownLatch interrupted = new CountDownLatch(1);
+      final TaskScheduler.CancellationToken running = scheduler.submit(TaskScheduler.Priority.BACKGROUND, () -> {
+        started.countDown();
+        try {
+          Thread.sleep(60000L);
+        } catch (InterruptedException ex) {
+          interrupted.countDown();
+        }
+      });
+      assertTrue(started.await(5, TimeUnit.SECONDS));
+
+      final AtomicBoolean executed = new AtomicBoolean();
+      final TaskScheduler.CancellationToken queued = scheduler.submit(TaskScheduler.Priority.BACKGROUND, () -> executed.set(true));
+      assertEquals(1, scheduler.getQueueDepth(TaskScheduler.Priority.BACKGROUND));
+      assertEquals(1, scheduler.getActiveCount(TaskScheduler.Priority.BACKGROUND));
+      assertEquals(0, scheduler.getQueueDepth(TaskScheduler.Priority.INTERACTIVE));
+
+      queued.cancel();
+      assertTrue(queued.isCancelled());
+      assertEquals(0, scheduler.getQueueDepth(TaskScheduler.Priority.BACKGROUND));
+
+      running.cancel();
+      assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+
+      final CountDownLatch done = new CountDownLatch(1);
+      scheduler.submit(TaskScheduler.Priority.BACKGROUND, done::countDown);
+      assertTrue(done.await(5, TimeUnit.SECONDS));
+      assertFalse(executed.get());
+    } finally {
+      scheduler.shutdown();
+    }
+    assertTrue(scheduler.submit(TaskScheduler.Priority.INTERACTIVE, () -> {
+    }).isCancelled());
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2020 Igor Maznitsa.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+package com.igormaznitsa.sciareto.ui.editors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PlUmlRenderCacheTest {
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Test
+  public void testKeys() {
+    final String key = PlUmlRenderCache.makeKey("plantuml", "@startuml\nA->B\n@enduml", 0);
+    assertEquals(64, key.length());
+    assertEquals(key, PlUmlRenderCache.makeKey("plantuml", "@startuml\nA->B\n@enduml", 0));
+    assertNotEquals(key, PlUmlRenderCache.makeKey("plantuml", "@startuml\nA->B\n@enduml", 1));
+    assertNotEquals(key, PlUmlRenderCache.makeKey("dot", "@startuml\nA->B\n@enduml", 0));
+  }
+
+  @Test
+  public void testMemoryLimitAndDisk() throws Exception {
+    final File folder = tempFolder.newFolder("cache");
+    final PlUmlRenderCache cache = new PlUmlRenderCache(folder, 100L, 1000L);
+
+    cache.put("a", new byte[60]);
+    cache.put("b", new byte[60]);
+    assertNull(cache.findInMemory("a"));
+    assertEquals(60, cache.findInMemory("b").length);
+
+    assertArrayEquals(new byte[60], cache.find("a"));
+    assertNull(cache.findInMemory("b"));
+
+    final PlUmlRenderCache nextSession = new PlUmlRenderCache(folder, 100L, 1000L);
+    assertEquals(60, nextSession.find("b").length);
+    assertNull(nextSession.find("c"));
+
+    final PlUmlRenderCache memoryOnly = new PlUmlRenderCache(null, 100L, 1000L);
+    memoryOnly.put("a", new byte[10]);
+    memoryOnly.putPageCount("text", 3);
+    assertEquals(Integer.valueOf(3), memoryOnly.findPageCount("text"));
+    assertEquals(10, memoryOnly.find("a").length);
+  }
+
+  @Test
+  public void testRemoveAndDisabledDisk() throws Exception {
+    final File folder = tempFolder.newFolder("cache");
+    final PlUmlRenderCache cache = new PlUmlRenderCache(folder, 100L, 1000L);
+
+    cache.put("a", new byte[10]);
+    cache.putPageCount("a", 2);
+    cache.remove("a");
+    assertNull(cache.find("a"));
+    assertNull(cache.findPageCount("a"));
+
+    cache.put("b", new byte[10]);
+    cache.setDiskEnabled(false);
+    assertEquals(0, folder.listFiles().length);
+    cache.put("c", new byte[10]);
+    assertEquals(0, folder.listFiles().length);
+    assertEquals(10, cache.find("c").length);
+  }
+}
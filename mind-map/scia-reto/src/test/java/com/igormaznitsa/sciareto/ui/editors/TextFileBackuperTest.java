@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2020 Igor Maznitsa.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+package com.igormaznitsa.sciareto.ui.editors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TextFileBackuperTest {
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private static String makeText(final int lines) {
+    final StringBuilder buffer = new StringBuilder();
+    for (int i = 0; i < lines; i++) {
+      buffer.append("line of text number ").append(i).append('\n');
+    }
+    return buffer.toString();
+  }
+
+  private static String restore(final File file) throws Exception {
+    final File backup = TextFileBackuper.findBackupForFile(file);
+    assertNotNull(backup);
+    return new TextFileBackuper.Restored(backup).asText();
+  }
+
+  @Test
+  public void testDeltaAndRebase() throws Exception {
+    final File file = new File(tempFolder.getRoot(), "some.mmd");
+    final File delta = new File(tempFolder.getRoot(), TextFileBackuper.makeDeltaFileName(file));
+    final TextFileBackuper backuper = new TextFileBackuper(TextFileBackuper.BACKUP_INTERVAL_MS);
+
+    final String base = makeText(1000);
+    backuper.writeBackup(file, base);
+    assertFalse(delta.exists());
+    assertEquals(base, restore(file));
+
+    final String changed = base.replace("number 500\n", "number 500 changed\nнемного текста\n");
+    backuper.writeBackup(file, changed);
+    assertTrue(delta.isFile());
+    assertTrue(delta.length() < 256L);
+    assertEquals(changed, restore(file));
+
+    final String shorter = base.substring(0, base.length() - 100);
+    backuper.writeBackup(file, shorter);
+    assertEquals(shorter, restore(file));
+
+    final String other = "completely different text\n";
+    backuper.writeBackup(file, other);
+    assertFalse(delta.exists());
+    assertEquals(other, restore(file));
+
+    final TextFileBackuper newSession = new TextFileBackuper(TextFileBackuper.BACKUP_INTERVAL_MS);
+    newSession.writeBackup(file, base);
+    assertFalse(delta.exists());
+    assertEquals(base, restore(file));
+  }
+
+  @Test
+  public void testLazyContentIsRequestedOncePerInterval() throws Exception {
+    final File file = new File(tempFolder.getRoot(), "lazy.mmd");
+    final TextFileBackuper backuper = new TextFileBackuper(500L);
+    final AtomicInteger requests = new AtomicInteger();
+    final AtomicInteger edits = new AtomicInteger();
+    backuper.start();
+    try {
+      for (int i = 0; i < 50; i++) {
+        edits.incrementAndGet();
+        backuper.add(new TextFileBackuper.BackupContent(file, () -> {
+          requests.incrementAndGet();
+          return makeText(edits.get());
+        }));
+        Thread.sleep(10L);
+      }
+      final long endTime = System.currentTimeMillis() + 5000L;
+      while (System.currentTimeMillis() < endTime && !makeText(50).equals(TextFileBackuper.findBackupForFile(file) == null ? null : restore(file))) {
+        Thread.sleep(50L);
+      }
+      assertEquals(makeText(50), restore(file));
+      assertTrue(requests.get() < 10);
+    } finally {
+      backuper.finish();
+    }
+  }
+}
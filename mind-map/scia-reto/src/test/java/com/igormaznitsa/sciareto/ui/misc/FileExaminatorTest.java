@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2019 Igor Maznitsa.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+package com.igormaznitsa.sciareto.ui.misc;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FileExaminatorTest {
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private static boolean find(final String text, final String lower, final String upper) {
+    final byte[] data = text.getBytes(StandardCharsets.UTF_8);
+    return new BytePatternMatcher(lower.getBytes(StandardCharsets.UTF_8), upper.getBytes(StandardCharsets.UTF_8)).find(ByteBuffer.wrap(data), 0, data.length);
+  }
+
+  @Test
+  public void testMatcher() {
+    assertTrue(find("Hello World", "world", "WORLD"));
+    assertTrue(find("Hello WoRlD", "world", "WORLD"));
+    assertTrue(find("hhhhhello", "hello", "HELLO"));
+    assertTrue(find("a", "a", "A"));
+    assertFalse(find("Hello Worl", "world", "WORLD"));
+    assertFalse(find("", "world", "WORLD"));
+    assertFalse(find("Hello", "", ""));
+    assertTrue(find("Die Straße", "straße", "STRASSE"));
+    assertTrue(find("DIE STRASSE", "straße", "STRASSE"));
+  }
+
+  private File makeFile(final byte[] data) throws IOException {
+    final File file = tempFolder.newFile();
+    FileUtils.writeByteArrayToFile(file, data);
+    return file;
+  }
+
+  @Test
+  public void testFindInSmallFile() throws Exception {
+    final BytePatternMatcher matcher = new BytePatternMatcher("needle".getBytes(StandardCharsets.UTF_8), "NEEDLE".getBytes(StandardCharsets.UTF_8));
+    assertTrue(new FileExaminator(makeFile("some hay and NeEdLe in it".getBytes(StandardCharsets.UTF_8))).doesContainData(matcher));
+    assertFalse(new FileExaminator(makeFile("some hay".getBytes(StandardCharsets.UTF_8))).doesContainData(matcher));
+  }
+
+  @Test
+  public void testFindAfterFirstMegabyteAndOnWindowBorder() throws Exception {
+    final BytePatternMatcher matcher = new BytePatternMatcher("needle".getBytes(StandardCharsets.UTF_8), "NEEDLE".getBytes(StandardCharsets.UTF_8));
+
+    final byte[] data = new byte[40 * 1024 * 1024];
+    Arrays.fill(data, (byte) 'x');
+    assertFalse(new FileExaminator(makeFile(data)).doesContainData(matcher));
+
+    final byte[] needle = "needle".getBytes(StandardCharsets.UTF_8);
+    System.arraycopy(needle, 0, data, 32 * 1024 * 1024 - 3, needle.length);
+    assertTrue(new FileExaminator(makeFile(data)).doesContainData(matcher));
+
+    Arrays.fill(data, (byte) 'x');
+    System.arraycopy(needle, 0, data, data.length - needle.length, needle.length);
+    assertTrue(new FileExaminator(makeFile(data)).doesContainData(matcher));
+  }
+
+  @Test
+  public void testCancelledScan() throws Exception {
+    final BytePatternMatcher matcher = new BytePatternMatcher("needle".getBytes(StandardCharsets.UTF_8), "NEEDLE".getBytes(StandardCharsets.UTF_8));
+    final byte[] data = new byte[4 * 1024 * 1024];
+    Arrays.fill(data, (byte) 'x');
+    final File file = makeFile(data);
+
+    final int[] checks = new int[1];
+    assertFalse(matcher.find(ByteBuffer.wrap(data), 0, data.length, () -> ++checks[0] > 1));
+    assertTrue(checks[0] > 1);
+
+    try {
+      new FileExaminator(file).doesContainData(matcher, () -> true);
+      fail("Must throw InterruptedIOException");
+    } catch (InterruptedIOException ex) {
+      // expected
+    }
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2019 Igor Maznitsa.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+package com.igormaznitsa.sciareto.ui.tree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FileNameIndexTest {
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private static File makeFile(final File folder, final String path) throws Exception {
+    final File result = new File(folder, path);
+    assertTrue(result.getParentFile().isDirectory() || result.getParentFile().mkdirs());
+    assertTrue(result.createNewFile());
+    return result;
+  }
+
+  @Test
+  public void testScore() {
+    assertTrue(FileNameIndex.score("readme.txt", "readme.txt".toCharArray()) > FileNameIndex.score("readme.txt.bak", "readme.txt".toCharArray()));
+    assertTrue(FileNameIndex.score("MainFrame.java", "mf".toCharArray()) > FileNameIndex.score("someformat.java", "mf".toCharArray()));
+    assertTrue(FileNameIndex.score("abc", "acb".toCharArray()) < 0);
+  }
+
+  @Test
+  public void testFindAddRemove() throws Exception {
+    final File project = tempFolder.newFolder("project");
+    final File mainFrame = makeFile(project, "src/ui/MainFrame.java");
+    makeFile(project, "src/ui/MenuFactory.java");
+    makeFile(project, "docs/manual.txt");
+
+    final FileNameIndex index = new FileNameIndex(project, "project");
+    index.rebuild(true);
+    assertEquals(6, index.size());
+
+    FileNameIndex.Result result = index.find("mf", null, 10);
+    assertEquals(2, result.getTotal());
+    assertEquals(mainFrame, result.getMatches().get(0).getFile());
+
+    result = index.find("mfram", result, 10);
+    assertEquals(1, result.getTotal());
+    assertEquals("MainFrame.java", result.getMatches().get(0).getName());
+
+    final List<FileNameIndex.Match> wildcard = index.find("*.txt", null, 10).getMatches();
+    assertEquals(1, wildcard.size());
+    assertEquals("manual.txt", wildcard.get(0).getName());
+
+    final File added = makeFile(project, "docs/more/MainFrameOld.java");
+    index.add(added.getParentFile(), true);
+    assertEquals(2, index.find("mfram", result, 10).getTotal());
+
+    index.remove(new File(project, "src"));
+    assertEquals(1, index.find("mfram", null, 10).getTotal());
+    assertEquals(added, index.find("mainframeold", null, 10).getMatches().get(0).getFile());
+    assertEquals(4, index.size());
+  }
+
+  @Test
+  public void testRefreshByChangedFolders() throws Exception {
+    final File project = tempFolder.newFolder("project");
+    makeFile(project, "src/ui/MainFrame.java");
+    final File docs = makeFile(project, "docs/manual.txt").getParentFile();
+    final long past = System.currentTimeMillis() - 60000L;
+    assertTrue(docs.setLastModified(past));
+    assertTrue(new File(project, "src/ui").setLastModified(past));
+
+    final FileNameIndex index = new FileNameIndex(project, "project");
+    assertFalse(index.refresh(true));
+    index.rebuild(true);
+    assertFalse(index.refresh(true));
+    assertEquals(0, index.find("readme", null, 10).getTotal());
+
+    final File readme = makeFile(project, "docs/readme.md");
+    makeFile(project, "docs/images/logo.png");
+    assertTrue(new File(project, "src/ui/MainFrame.java").delete());
+
+    assertTrue(index.refresh(true));
+    assertEquals(readme, index.find("readme", null, 10).getMatches().get(0).getFile());
+    assertEquals(1, index.find("logo", null, 10).getTotal());
+    assertEquals(0, index.find("mainframe", null, 10).getTotal());
+    assertFalse(index.refresh(true));
+  }
+}